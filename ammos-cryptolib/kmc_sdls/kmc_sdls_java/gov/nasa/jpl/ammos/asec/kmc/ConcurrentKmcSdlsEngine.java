@@ -0,0 +1,183 @@
+package gov.nasa.jpl.ammos.asec.kmc;
+
+import java.nio.ByteBuffer;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe facade of an SdlsEngine, usually a KmcSdlsEngine.
+ *
+ * CryptoLib keeps the security associations and the crypto backend in process-wide state, so the
+ * frames are processed under a lock chosen by the GVCID (TFVN, SCID and VCID) of their primary header.
+ * Frames on different virtual channels are processed in parallel, while frames on the same virtual
+ * channel are processed one at a time, in the order they arrive at the lock.
+ *
+ * The number of locks is set by the property cryptolib.engine.lock_stripes.  By default there is a
+ * single lock, which serializes all frames as before, whatever the SADB and cryptography backends.
+ * More locks should only be configured for backends that are safe to call from several threads.
+ */
+public class ConcurrentKmcSdlsEngine
+{
+    public static final String LOCK_STRIPES_PROPERTY = "cryptolib.engine.lock_stripes";
+    // Number of locks when the property is not set
+    public static final int DEFAULT_LOCK_STRIPES = 1;
+
+    private final SdlsEngine kmcSdlsEngine;
+    private final ReentrantLock[] stripes;
+
+    public ConcurrentKmcSdlsEngine(Properties props) throws Exception
+    {
+        this(new KmcSdlsEngine(props), getLockStripes(props));
+    }
+    public ConcurrentKmcSdlsEngine(SdlsEngine kmcSdlsEngine, int lockStripes)
+    {
+        if (lockStripes < 1)
+            throw new IllegalArgumentException("Number of lock stripes must be at least 1: " + lockStripes);
+        this.kmcSdlsEngine = kmcSdlsEngine;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++)
+        {
+            // fair, so that the frames of a virtual channel are processed in the order they arrive
+            this.stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    private static int getLockStripes(Properties props)
+    {
+        String lockStripes = props.getProperty(LOCK_STRIPES_PROPERTY);
+        if (lockStripes != null)
+            return Integer.decode(lockStripes.trim());
+        return DEFAULT_LOCK_STRIPES;
+    }
+
+    public int getLockStripes()
+    {
+        return this.stripes.length;
+    }
+    public int getEngineStatus()
+    {
+        return this.kmcSdlsEngine.getEngineStatus();
+    }
+    public String getCryptoLibErrorCodeEnum(int errorCode)
+    {
+        return this.kmcSdlsEngine.getCryptoLibErrorCodeEnum(errorCode);
+    }
+    // Waits for the frames being processed and shuts down the engine.
+    public void shutdown()
+    {
+        for (ReentrantLock stripe : this.stripes)
+            stripe.lock();
+        try
+        {
+            this.kmcSdlsEngine.shutdown();
+        }
+        finally
+        {
+            for (ReentrantLock stripe : this.stripes)
+                stripe.unlock();
+        }
+    }
+
+    public String applySecurity(String unencryptedFrameHexbytesString, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(unencryptedFrameHexbytesString), () -> this.kmcSdlsEngine.applySecurity(unencryptedFrameHexbytesString, camCookies));
+    }
+    public byte[] applySecurity(byte[] unencryptedFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(unencryptedFrame, 0), () -> this.kmcSdlsEngine.applySecurity(unencryptedFrame, camCookies));
+    }
+    public int applySecurity(ByteBuffer unencryptedFrame, ByteBuffer encryptedFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(unencryptedFrame), () -> this.kmcSdlsEngine.applySecurity(unencryptedFrame, encryptedFrame, camCookies));
+    }
+
+    public SDLS_TC_TransferFrame processSecurity(String encryptedFrameHexbytesString, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrameHexbytesString), () -> this.kmcSdlsEngine.processSecurity(encryptedFrameHexbytesString, camCookies));
+    }
+    public SDLS_TC_TransferFrame processSecurity(byte[] encryptedFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrame, 0), () -> this.kmcSdlsEngine.processSecurity(encryptedFrame, camCookies));
+    }
+    public SDLS_TC_TransferFrame processSecurity(ByteBuffer encryptedFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrame), () -> this.kmcSdlsEngine.processSecurity(encryptedFrame, camCookies));
+    }
+
+    public String processSecurityReturnDataOnly(String encryptedFrameHexbytesString, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrameHexbytesString), () -> this.kmcSdlsEngine.processSecurityReturnDataOnly(encryptedFrameHexbytesString, camCookies));
+    }
+    public byte[] processSecurityReturnDataOnly(byte[] encryptedFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrame, 0), () -> this.kmcSdlsEngine.processSecurityReturnDataOnly(encryptedFrame, camCookies));
+    }
+    public int processSecurityReturnDataOnly(ByteBuffer encryptedFrame, ByteBuffer data, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrame), () -> this.kmcSdlsEngine.processSecurityReturnDataOnly(encryptedFrame, data, camCookies));
+    }
+
+    public byte[] processSecurityReturnBinary(byte[] encryptedFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrame, 0), () -> this.kmcSdlsEngine.processSecurityReturnBinary(encryptedFrame, camCookies));
+    }
+    public int processSecurityReturnBinary(ByteBuffer encryptedFrame, ByteBuffer binaryFrame, String camCookies) throws Exception
+    {
+        return this.withLock(getGvcid(encryptedFrame), () -> this.kmcSdlsEngine.processSecurityReturnBinary(encryptedFrame, binaryFrame, camCookies));
+    }
+
+    // Returns the GVCID of the TC primary header as TFVN << 16 | SCID << 6 | VCID, or 0 if the frame is too short.
+    public static int getGvcid(byte[] frame, int offset)
+    {
+        if (frame == null || frame.length - offset < 3)
+            return 0;
+        return getGvcid(frame[offset] & 0xFF, frame[offset + 1] & 0xFF, frame[offset + 2] & 0xFF);
+    }
+    public static int getGvcid(ByteBuffer frame)
+    {
+        if (frame == null || frame.remaining() < 3)
+            return 0;
+        int position = frame.position();
+        return getGvcid(frame.get(position) & 0xFF, frame.get(position + 1) & 0xFF, frame.get(position + 2) & 0xFF);
+    }
+    public static int getGvcid(String frameHexbytesString)
+    {
+        if (frameHexbytesString == null || frameHexbytesString.length() < 6)
+            return 0;
+        try
+        {
+            int header = Integer.parseInt(frameHexbytesString.substring(0, 6), 16);
+            return getGvcid(header >> 16, (header >> 8) & 0xFF, header & 0xFF);
+        }
+        catch (NumberFormatException e)
+        {
+            // the engine rejects the frame
+            return 0;
+        }
+    }
+    private static int getGvcid(int byte0, int byte1, int byte2)
+    {
+        int tfvn = byte0 >> 6;
+        int scid = ((byte0 & 0x03) << 8) | byte1;
+        int vcid = byte2 >> 2;
+        return (tfvn << 16) | (scid << 6) | vcid;
+    }
+
+    private interface EngineCall<T>
+    {
+        T call() throws Exception;
+    }
+    private <T> T withLock(int gvcid, EngineCall<T> engineCall) throws Exception
+    {
+        ReentrantLock stripe = this.stripes[gvcid % this.stripes.length];
+        stripe.lock();
+        try
+        {
+            return engineCall.call();
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+}
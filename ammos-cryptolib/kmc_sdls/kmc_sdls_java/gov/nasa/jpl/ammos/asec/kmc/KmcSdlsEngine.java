@@ -3,17 +3,20 @@ package gov.nasa.jpl.ammos.asec.kmc;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
-public class KmcSdlsEngine
+public class KmcSdlsEngine implements SdlsEngine
 {
     kmc_sdls kmcCInterface;
-    TC_t tc_ptr;
     int KMC_ENGINE_SUCCESS = 0;
     int engineStatus = KMC_ENGINE_SUCCESS;
+    // Maximum length of a TC transfer frame, i.e. of an SDLS applied frame
+    public static final int TC_MAX_FRAME_LENGTH = 1024;
     public KmcSdlsEngine()
     {
         System.loadLibrary("kmc_sdls_java");
@@ -458,90 +461,371 @@ public class KmcSdlsEngine
         int bytes_len = encryptedFrameHexbytesString.length()/2 + encryptedFrameHexbytesString.length()%2;
         SWIGTYPE_p_int len_encrypted_frame = this.kmcCInterface.create_int_ptr(bytes_len);
         SWIGTYPE_p_unsigned_char encrypted_frame = this.kmcCInterface.hexstring_to_bytearray(encryptedFrameHexbytesString,encryptedFrameHexbytesString.length());
-        this.tc_ptr = new TC_t();
+        TC_t tc_ptr = new TC_t();
+        try
+        {
+            int status = this.kmcCInterface.process_security_tc_uint8t(encrypted_frame,len_encrypted_frame,tc_ptr,camCookies);
+            if(status != KMC_ENGINE_SUCCESS)
+                throw new Exception("Unable to Process Security on TC Frame, Error Code: " + status + ", Error Message: " + this.kmcCInterface.sdls_get_error_code_enum_string(status));
+
+            return this.getTransferFrame(tc_ptr);
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+    }
+    public String processSecurityReturnDataOnly(String encryptedFrameHexbytesString) throws Exception
+    {
+        return processSecurityReturnDataOnly(encryptedFrameHexbytesString, null);
+    }
+    public String processSecurityReturnDataOnly(String encryptedFrameHexbytesString, String camCookies) throws Exception
+    {
+        int bytes_len = encryptedFrameHexbytesString.length()/2 + encryptedFrameHexbytesString.length()%2;
+        SWIGTYPE_p_int len_encrypted_frame = this.kmcCInterface.create_int_ptr(bytes_len);
+        SWIGTYPE_p_unsigned_char encrypted_frame = this.kmcCInterface.hexstring_to_bytearray(encryptedFrameHexbytesString,encryptedFrameHexbytesString.length());
+        TC_t tc_ptr = new TC_t();
+        try
+        {
+            int status = this.kmcCInterface.process_security_tc_uint8t(encrypted_frame,len_encrypted_frame,tc_ptr, camCookies);
+            if(status != KMC_ENGINE_SUCCESS)
+                throw new Exception("Unable to Process Security on TC Frame, Error Code: " + status + ", Error Message: " + this.kmcCInterface.sdls_get_error_code_enum_string(status));
+
+            return this.kmcCInterface.bytearray_to_hexstring(tc_ptr.getTc_pdu(),tc_ptr.getTc_pdu_len());
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+    }
 
-        int status = this.kmcCInterface.process_security_tc_uint8t(encrypted_frame,len_encrypted_frame,this.tc_ptr,camCookies);
+    public byte[] applySecurity(byte[] unencryptedFrame) throws Exception
+    {
+        return this.applySecurity(unencryptedFrame, null);
+    }
+    public byte[] applySecurity(byte[] unencryptedFrame, String camCookies) throws Exception
+    {
+        byte[] encryptedFrame = new byte[TC_MAX_FRAME_LENGTH];
+        int length = this.applySecurity(unencryptedFrame, 0, unencryptedFrame.length, encryptedFrame, 0, camCookies);
+        return Arrays.copyOf(encryptedFrame, length);
+    }
+    // Writes the SDLS applied frame to encryptedFrame at encryptedOffset and returns its length.
+    public int applySecurity(byte[] unencryptedFrame, int offset, int length, byte[] encryptedFrame, int encryptedOffset, String camCookies) throws Exception
+    {
+        checkFrameBounds(unencryptedFrame.length, offset, length);
+        checkFrameBounds(encryptedFrame.length, encryptedOffset, 0);
+        checkFrameLength("Apply Security on", length);
+        int capacity = encryptedFrame.length - encryptedOffset;
+        SWIGTYPE_p_int out_frame_len = this.kmcCInterface.create_int_ptr(0);
+        try
+        {
+            int status = this.kmcCInterface.apply_security_tc_bytes(unencryptedFrame, offset, length, encryptedFrame, encryptedOffset, capacity, out_frame_len, camCookies);
+            return this.checkApplySecurityResult(status, out_frame_len, capacity);
+        }
+        finally
+        {
+            this.kmcCInterface.free_int_ptr(out_frame_len);
+        }
+    }
+    // Applies security to the remaining bytes of unencryptedFrame and writes the SDLS applied frame to encryptedFrame.
+    // The positions of both buffers are advanced, and the length of the SDLS applied frame is returned.
+    public int applySecurity(ByteBuffer unencryptedFrame, ByteBuffer encryptedFrame, String camCookies) throws Exception
+    {
+        int length;
+        if (unencryptedFrame.isDirect() && encryptedFrame.isDirect())
+        {
+            checkFrameLength("Apply Security on", unencryptedFrame.remaining());
+            SWIGTYPE_p_int out_frame_len = this.kmcCInterface.create_int_ptr(0);
+            try
+            {
+                int status = this.kmcCInterface.apply_security_tc_buffer(unencryptedFrame, unencryptedFrame.position(), unencryptedFrame.remaining(),
+                        encryptedFrame, encryptedFrame.position(), encryptedFrame.remaining(), out_frame_len, camCookies);
+                length = this.checkApplySecurityResult(status, out_frame_len, encryptedFrame.remaining());
+            }
+            finally
+            {
+                this.kmcCInterface.free_int_ptr(out_frame_len);
+            }
+        }
+        else
+        {
+            byte[] encrypted = this.applySecurity(toByteArray(unencryptedFrame.duplicate()), camCookies);
+            if (encrypted.length > encryptedFrame.remaining())
+                throw new Exception("Unable to Apply Security on TC Frame, SDLS applied frame of " + encrypted.length + " bytes exceeds output buffer of " + encryptedFrame.remaining() + " bytes");
+            encryptedFrame.duplicate().put(encrypted);
+            length = encrypted.length;
+        }
+        unencryptedFrame.position(unencryptedFrame.limit());
+        encryptedFrame.position(encryptedFrame.position() + length);
+        return length;
+    }
+
+    public SDLS_TC_TransferFrame processSecurity(byte[] encryptedFrame) throws Exception
+    {
+        return this.processSecurity(encryptedFrame, null);
+    }
+    public SDLS_TC_TransferFrame processSecurity(byte[] encryptedFrame, String camCookies) throws Exception
+    {
+        return this.processSecurity(encryptedFrame, 0, encryptedFrame.length, camCookies);
+    }
+    public SDLS_TC_TransferFrame processSecurity(byte[] encryptedFrame, int offset, int length, String camCookies) throws Exception
+    {
+        TC_t tc_ptr = this.processSecurityToTc(encryptedFrame, offset, length, camCookies);
+        try
+        {
+            return this.getTransferFrame(tc_ptr);
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+    }
+    // Processes the remaining bytes of encryptedFrame and advances its position.
+    public SDLS_TC_TransferFrame processSecurity(ByteBuffer encryptedFrame, String camCookies) throws Exception
+    {
+        TC_t tc_ptr = this.processSecurityToTc(encryptedFrame, camCookies);
+        try
+        {
+            return this.getTransferFrame(tc_ptr);
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+    }
+
+    public byte[] processSecurityReturnDataOnly(byte[] encryptedFrame) throws Exception
+    {
+        return this.processSecurityReturnDataOnly(encryptedFrame, null);
+    }
+    public byte[] processSecurityReturnDataOnly(byte[] encryptedFrame, String camCookies) throws Exception
+    {
+        TC_t tc_ptr = this.processSecurityToTc(encryptedFrame, 0, encryptedFrame.length, camCookies);
+        try
+        {
+            byte[] pdu = new byte[tc_ptr.getTc_pdu_len()];
+            this.kmcCInterface.get_tc_pdu_bytes(tc_ptr, pdu, 0, pdu.length);
+            return pdu;
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+    }
+    // Processes the remaining bytes of encryptedFrame and writes the frame data to data.
+    // The positions of both buffers are advanced, and the length of the frame data is returned.
+    public int processSecurityReturnDataOnly(ByteBuffer encryptedFrame, ByteBuffer data, String camCookies) throws Exception
+    {
+        TC_t tc_ptr = this.processSecurityToTc(encryptedFrame, camCookies);
+        int length;
+        try
+        {
+            length = tc_ptr.getTc_pdu_len();
+            if (length > data.remaining())
+                throw new Exception("Unable to Process Security on TC Frame, frame data of " + length + " bytes exceeds output buffer of " + data.remaining() + " bytes");
+            if (data.isDirect())
+            {
+                this.kmcCInterface.get_tc_pdu_buffer(tc_ptr, data, data.position(), data.remaining());
+            }
+            else
+            {
+                byte[] pdu = new byte[length];
+                this.kmcCInterface.get_tc_pdu_bytes(tc_ptr, pdu, 0, length);
+                data.duplicate().put(pdu);
+            }
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+        data.position(data.position() + length);
+        return length;
+    }
+
+    // Returns the processed frame in the binary layout of SDLS_TC_TransferFrame, copied from the native frame at once
+    // instead of converting each field to a hex string.
+    public byte[] processSecurityReturnBinary(byte[] encryptedFrame) throws Exception
+    {
+        return this.processSecurityReturnBinary(encryptedFrame, null);
+    }
+    public byte[] processSecurityReturnBinary(byte[] encryptedFrame, String camCookies) throws Exception
+    {
+        TC_t tc_ptr = this.processSecurityToTc(encryptedFrame, 0, encryptedFrame.length, camCookies);
+        // the fields of the processed frame do not exceed the frame
+        byte[] binaryFrame = new byte[SDLS_TC_TransferFrame.BINARY_HEADER_LENGTH + TC_MAX_FRAME_LENGTH];
+        int length;
+        try
+        {
+            length = this.kmcCInterface.get_tc_frame_bytes(tc_ptr, binaryFrame, 0, binaryFrame.length);
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+        if (length > binaryFrame.length)
+            throw new Exception("Unable to Process Security on TC Frame, binary frame of " + length + " bytes exceeds " + binaryFrame.length + " bytes");
+        return Arrays.copyOf(binaryFrame, length);
+    }
+    // Processes the remaining bytes of encryptedFrame and writes the processed frame in the binary layout to binaryFrame.
+    // The positions of both buffers are advanced, and the length of the binary frame is returned.
+    public int processSecurityReturnBinary(ByteBuffer encryptedFrame, ByteBuffer binaryFrame, String camCookies) throws Exception
+    {
+        TC_t tc_ptr = this.processSecurityToTc(encryptedFrame, camCookies);
+        int length;
+        try
+        {
+            if (binaryFrame.isDirect())
+            {
+                length = this.kmcCInterface.get_tc_frame_buffer(tc_ptr, binaryFrame, binaryFrame.position(), binaryFrame.remaining());
+            }
+            else
+            {
+                byte[] frame = new byte[binaryFrame.remaining()];
+                length = this.kmcCInterface.get_tc_frame_bytes(tc_ptr, frame, 0, frame.length);
+                if (length <= frame.length)
+                    binaryFrame.duplicate().put(frame, 0, length);
+            }
+        }
+        finally
+        {
+            tc_ptr.delete();
+        }
+        if (length > binaryFrame.remaining())
+            throw new Exception("Unable to Process Security on TC Frame, binary frame of " + length + " bytes exceeds output buffer of " + binaryFrame.remaining() + " bytes");
+        binaryFrame.position(binaryFrame.position() + length);
+        return length;
+    }
+
+    // The processed frame is returned in a TC_t of its own, so that concurrent calls do not share it.
+    // The caller frees the native TC_t with delete() once it is read, it is freed here on failure.
+    private TC_t processSecurityToTc(byte[] encryptedFrame, int offset, int length, String camCookies) throws Exception
+    {
+        checkFrameBounds(encryptedFrame.length, offset, length);
+        checkFrameLength("Process Security on", length);
+        TC_t tc_ptr = new TC_t();
+
+        int status = this.kmcCInterface.process_security_tc_bytes(encryptedFrame, offset, length, tc_ptr, camCookies);
         if(status != KMC_ENGINE_SUCCESS)
+        {
+            tc_ptr.delete();
             throw new Exception("Unable to Process Security on TC Frame, Error Code: " + status + ", Error Message: " + this.kmcCInterface.sdls_get_error_code_enum_string(status));
+        }
+        return tc_ptr;
+    }
+    private TC_t processSecurityToTc(ByteBuffer encryptedFrame, String camCookies) throws Exception
+    {
+        TC_t tc_ptr;
+        if (encryptedFrame.isDirect())
+        {
+            checkFrameLength("Process Security on", encryptedFrame.remaining());
+            tc_ptr = new TC_t();
+
+            int status = this.kmcCInterface.process_security_tc_buffer(encryptedFrame, encryptedFrame.position(), encryptedFrame.remaining(), tc_ptr, camCookies);
+            if(status != KMC_ENGINE_SUCCESS)
+            {
+                tc_ptr.delete();
+                throw new Exception("Unable to Process Security on TC Frame, Error Code: " + status + ", Error Message: " + this.kmcCInterface.sdls_get_error_code_enum_string(status));
+            }
+        }
+        else
+        {
+            byte[] frame = toByteArray(encryptedFrame.duplicate());
+            tc_ptr = this.processSecurityToTc(frame, 0, frame.length, camCookies);
+        }
+        encryptedFrame.position(encryptedFrame.limit());
+        return tc_ptr;
+    }
+    private int checkApplySecurityResult(int status, SWIGTYPE_p_int out_frame_len, int capacity) throws Exception
+    {
+        if(status != KMC_ENGINE_SUCCESS)
+            throw new Exception("Unable to Apply Security on TC Frame, Error Code: " + status + ", Error Message: " + this.kmcCInterface.sdls_get_error_code_enum_string(status));
 
+        int length = this.kmcCInterface.deref_int_ptr(out_frame_len);
+        if(length > capacity)
+            throw new Exception("Unable to Apply Security on TC Frame, SDLS applied frame of " + length + " bytes exceeds output buffer of " + capacity + " bytes");
+        return length;
+    }
+    private static void checkFrameBounds(int arrayLength, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > arrayLength - length)
+            throw new IndexOutOfBoundsException("Frame offset " + offset + " and length " + length + " out of bounds for array of " + arrayLength + " bytes");
+    }
+    // The native functions take the frame length as a uint16_t and CryptoLib limits TC frames to TC_MAX_FRAME_LENGTH bytes.
+    private static void checkFrameLength(String operation, int length) throws Exception
+    {
+        if (length > TC_MAX_FRAME_LENGTH)
+            throw new Exception("Unable to " + operation + " TC Frame, frame of " + length + " bytes exceeds maximum TC frame length of " + TC_MAX_FRAME_LENGTH + " bytes");
+    }
+    private static byte[] toByteArray(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private SDLS_TC_TransferFrame getTransferFrame(TC_t tc_ptr)
+    {
         SDLS_TC_TransferFrame sdlsTCFrame = new SDLS_TC_TransferFrame();
         // Parse Primary Header
-        sdlsTCFrame.tfvn = this.tc_ptr.getTc_header().getTfvn();
-        sdlsTCFrame.bypass = this.tc_ptr.getTc_header().getBypass();
-        sdlsTCFrame.cc = this.tc_ptr.getTc_header().getCc();
-        sdlsTCFrame.spare = this.tc_ptr.getTc_header().getSpare();
-        sdlsTCFrame.scid = this.tc_ptr.getTc_header().getScid();
-        sdlsTCFrame.vcid = this.tc_ptr.getTc_header().getVcid();
-        sdlsTCFrame.fl = this.tc_ptr.getTc_header().getFl();
-        sdlsTCFrame.fsn = this.tc_ptr.getTc_header().getFsn();
-
-        //sdlsTCFrame.tfvn = this.kmcCInterface.get_tfvn(this.tc_ptr);
-        //sdlsTCFrame.bypass = this.kmcCInterface.get_bypass(this.tc_ptr);
-        //sdlsTCFrame.cc = this.kmcCInterface.get_cc(this.tc_ptr);
-        //sdlsTCFrame.spare = this.kmcCInterface.get_spare(this.tc_ptr);
-        //sdlsTCFrame.scid = this.kmcCInterface.get_scid(this.tc_ptr);
-        //sdlsTCFrame.vcid = this.kmcCInterface.get_vcid(this.tc_ptr);
-        //sdlsTCFrame.fl = this.kmcCInterface.get_fl(this.tc_ptr);
-        //sdlsTCFrame.fsn = this.kmcCInterface.get_fsn(this.tc_ptr);
+        sdlsTCFrame.tfvn = tc_ptr.getTc_header().getTfvn();
+        sdlsTCFrame.bypass = tc_ptr.getTc_header().getBypass();
+        sdlsTCFrame.cc = tc_ptr.getTc_header().getCc();
+        sdlsTCFrame.spare = tc_ptr.getTc_header().getSpare();
+        sdlsTCFrame.scid = tc_ptr.getTc_header().getScid();
+        sdlsTCFrame.vcid = tc_ptr.getTc_header().getVcid();
+        sdlsTCFrame.fl = tc_ptr.getTc_header().getFl();
+        sdlsTCFrame.fsn = tc_ptr.getTc_header().getFsn();
+
+        //sdlsTCFrame.tfvn = this.kmcCInterface.get_tfvn(tc_ptr);
+        //sdlsTCFrame.bypass = this.kmcCInterface.get_bypass(tc_ptr);
+        //sdlsTCFrame.cc = this.kmcCInterface.get_cc(tc_ptr);
+        //sdlsTCFrame.spare = this.kmcCInterface.get_spare(tc_ptr);
+        //sdlsTCFrame.scid = this.kmcCInterface.get_scid(tc_ptr);
+        //sdlsTCFrame.vcid = this.kmcCInterface.get_vcid(tc_ptr);
+        //sdlsTCFrame.fl = this.kmcCInterface.get_fl(tc_ptr);
+        //sdlsTCFrame.fsn = this.kmcCInterface.get_fsn(tc_ptr);
         // Parse Security Headear
-        sdlsTCFrame.sh = this.tc_ptr.getTc_sec_header().getSh();
-        sdlsTCFrame.spi = this.tc_ptr.getTc_sec_header().getSpi();
-        sdlsTCFrame.iv_field_len = this.tc_ptr.getTc_sec_header().getIv_field_len();
-        SWIGTYPE_p_unsigned_char iv_ptr = this.tc_ptr.getTc_sec_header().getIv();
+        sdlsTCFrame.sh = tc_ptr.getTc_sec_header().getSh();
+        sdlsTCFrame.spi = tc_ptr.getTc_sec_header().getSpi();
+        sdlsTCFrame.iv_field_len = tc_ptr.getTc_sec_header().getIv_field_len();
+        SWIGTYPE_p_unsigned_char iv_ptr = tc_ptr.getTc_sec_header().getIv();
         sdlsTCFrame.iv = this.kmcCInterface.bytearray_to_hexstring(iv_ptr,sdlsTCFrame.iv_field_len);
-        sdlsTCFrame.sn_field_len = this.tc_ptr.getTc_sec_header().getSn_field_len();
-        SWIGTYPE_p_unsigned_char sn_ptr = this.tc_ptr.getTc_sec_header().getSn();
+        sdlsTCFrame.sn_field_len = tc_ptr.getTc_sec_header().getSn_field_len();
+        SWIGTYPE_p_unsigned_char sn_ptr = tc_ptr.getTc_sec_header().getSn();
         sdlsTCFrame.sn = this.kmcCInterface.bytearray_to_hexstring(sn_ptr,sdlsTCFrame.sn_field_len);
-        sdlsTCFrame.pad_field_len = this.tc_ptr.getTc_sec_header().getPad_field_len();
-        SWIGTYPE_p_unsigned_char pad_ptr =this.tc_ptr.getTc_sec_header().getPad();
+        sdlsTCFrame.pad_field_len = tc_ptr.getTc_sec_header().getPad_field_len();
+        SWIGTYPE_p_unsigned_char pad_ptr =tc_ptr.getTc_sec_header().getPad();
         sdlsTCFrame.pad = this.kmcCInterface.bytearray_to_hexstring(pad_ptr,sdlsTCFrame.pad_field_len);
-//        sdlsTCFrame.sh = this.kmcCInterface.get_sh(this.tc_ptr);
-//        sdlsTCFrame.spi = this.kmcCInterface.get_spi(this.tc_ptr);
-//        sdlsTCFrame.iv_field_len = this.kmcCInterface.get_iv_field_len(this.tc_ptr);
-//        SWIGTYPE_p_unsigned_char iv_ptr = this.kmcCInterface.get_iv_ptr(this.tc_ptr);
+//        sdlsTCFrame.sh = this.kmcCInterface.get_sh(tc_ptr);
+//        sdlsTCFrame.spi = this.kmcCInterface.get_spi(tc_ptr);
+//        sdlsTCFrame.iv_field_len = this.kmcCInterface.get_iv_field_len(tc_ptr);
+//        SWIGTYPE_p_unsigned_char iv_ptr = this.kmcCInterface.get_iv_ptr(tc_ptr);
 //        sdlsTCFrame.iv = this.kmcCInterface.bytearray_to_hexstring(iv_ptr,sdlsTCFrame.iv_field_len);
-//        sdlsTCFrame.sn_field_len = this.kmcCInterface.get_sn_field_len(this.tc_ptr);
-//        SWIGTYPE_p_unsigned_char sn_ptr = this.kmcCInterface.get_sn_ptr(this.tc_ptr);
+//        sdlsTCFrame.sn_field_len = this.kmcCInterface.get_sn_field_len(tc_ptr);
+//        SWIGTYPE_p_unsigned_char sn_ptr = this.kmcCInterface.get_sn_ptr(tc_ptr);
 //        sdlsTCFrame.sn = this.kmcCInterface.bytearray_to_hexstring(sn_ptr,sdlsTCFrame.sn_field_len);
-//        sdlsTCFrame.pad_field_len = this.kmcCInterface.get_pad_field_len(this.tc_ptr);
-//        SWIGTYPE_p_unsigned_char pad_ptr = this.kmcCInterface.get_pad_ptr(this.tc_ptr);
+//        sdlsTCFrame.pad_field_len = this.kmcCInterface.get_pad_field_len(tc_ptr);
+//        SWIGTYPE_p_unsigned_char pad_ptr = this.kmcCInterface.get_pad_ptr(tc_ptr);
 //        sdlsTCFrame.pad = this.kmcCInterface.bytearray_to_hexstring(pad_ptr,sdlsTCFrame.pad_field_len);
         // Parse Frame Data
-        sdlsTCFrame.tc_pdu_len = this.tc_ptr.getTc_pdu_len();
-        SWIGTYPE_p_unsigned_char pdu_ptr = this.tc_ptr.getTc_pdu();
+        sdlsTCFrame.tc_pdu_len = tc_ptr.getTc_pdu_len();
+        SWIGTYPE_p_unsigned_char pdu_ptr = tc_ptr.getTc_pdu();
         sdlsTCFrame.tc_pdu = this.kmcCInterface.bytearray_to_hexstring(pdu_ptr,sdlsTCFrame.tc_pdu_len);
-//        sdlsTCFrame.tc_pdu_len = this.kmcCInterface.get_tc_pdu_len(this.tc_ptr);
-//        SWIGTYPE_p_unsigned_char pdu_ptr = this.kmcCInterface.get_pdu_ptr(this.tc_ptr);
+//        sdlsTCFrame.tc_pdu_len = this.kmcCInterface.get_tc_pdu_len(tc_ptr);
+//        SWIGTYPE_p_unsigned_char pdu_ptr = this.kmcCInterface.get_pdu_ptr(tc_ptr);
 //        sdlsTCFrame.tc_pdu = this.kmcCInterface.bytearray_to_hexstring(pdu_ptr,sdlsTCFrame.tc_pdu_len);
         // Parse Security Trailer Fields
-        sdlsTCFrame.mac_field_len = this.tc_ptr.getTc_sec_trailer().getMac_field_len();
-        SWIGTYPE_p_unsigned_char mac_ptr = this.tc_ptr.getTc_sec_trailer().getMac();
+        sdlsTCFrame.mac_field_len = tc_ptr.getTc_sec_trailer().getMac_field_len();
+        SWIGTYPE_p_unsigned_char mac_ptr = tc_ptr.getTc_sec_trailer().getMac();
         sdlsTCFrame.mac = this.kmcCInterface.bytearray_to_hexstring(mac_ptr,sdlsTCFrame.mac_field_len);
-        sdlsTCFrame.fecf = this.tc_ptr.getTc_sec_trailer().getFecf();
-//        sdlsTCFrame.mac_field_len = this.kmcCInterface.get_mac_field_len(this.tc_ptr);
-//        SWIGTYPE_p_unsigned_char mac_ptr = this.kmcCInterface.get_mac_ptr(this.tc_ptr);
+        sdlsTCFrame.fecf = tc_ptr.getTc_sec_trailer().getFecf();
+//        sdlsTCFrame.mac_field_len = this.kmcCInterface.get_mac_field_len(tc_ptr);
+//        SWIGTYPE_p_unsigned_char mac_ptr = this.kmcCInterface.get_mac_ptr(tc_ptr);
 //        sdlsTCFrame.mac = this.kmcCInterface.bytearray_to_hexstring(mac_ptr,sdlsTCFrame.mac_field_len);
-//        sdlsTCFrame.fecf = this.kmcCInterface.get_fecf(this.tc_ptr);
+//        sdlsTCFrame.fecf = this.kmcCInterface.get_fecf(tc_ptr);
 
         return sdlsTCFrame;
     }
-    public String processSecurityReturnDataOnly(String encryptedFrameHexbytesString) throws Exception
-    {
-        return processSecurityReturnDataOnly(encryptedFrameHexbytesString, null);
-    }
-    public String processSecurityReturnDataOnly(String encryptedFrameHexbytesString, String camCookies) throws Exception
-    {
-        int bytes_len = encryptedFrameHexbytesString.length()/2 + encryptedFrameHexbytesString.length()%2;
-        SWIGTYPE_p_int len_encrypted_frame = this.kmcCInterface.create_int_ptr(bytes_len);
-        SWIGTYPE_p_unsigned_char encrypted_frame = this.kmcCInterface.hexstring_to_bytearray(encryptedFrameHexbytesString,encryptedFrameHexbytesString.length());
-        this.tc_ptr = new TC_t();
-
-        int status = this.kmcCInterface.process_security_tc_uint8t(encrypted_frame,len_encrypted_frame,this.tc_ptr, camCookies);
-        if(status != KMC_ENGINE_SUCCESS)
-            throw new Exception("Unable to Process Security on TC Frame, Error Code: " + status + ", Error Message: " + this.kmcCInterface.sdls_get_error_code_enum_string(status));
-
-        return this.kmcCInterface.bytearray_to_hexstring(this.tc_ptr.getTc_pdu(),this.tc_ptr.getTc_pdu_len());
-    }
 
 }
 
@@ -1,7 +1,18 @@
 package gov.nasa.jpl.ammos.asec.kmc;
 
+import java.nio.ByteBuffer;
+
 public class SDLS_TC_TransferFrame
 {
+    // Binary layout of a processed frame, big-endian, written by the engine in one copy from the native frame:
+    //  0 tfvn (1), 1 bypass (1), 2 cc (1), 3 spare (1), 4 scid (2), 6 vcid (1), 7 fsn (1), 8 fl (2),
+    // 10 sh (1), 11 reserved (1), 12 spi (2), 14 iv_field_len (2), 16 sn_field_len (2), 18 pad_field_len (2),
+    // 20 tc_pdu_len (2), 22 mac_field_len (2), 24 fecf (2), followed by the iv, sn, pad, tc_pdu and mac bytes.
+    // The layout rather than CBOR: CryptoLib has no CBOR encoder, so CBOR would be encoded again in Java after
+    // the native copy, and CBOR of this class would keep the hex strings; the fixed header is also smaller than
+    // the CBOR map keys of the same fields.
+    public static final int BINARY_HEADER_LENGTH = 26;
+
     //TC_FramePrimaryHeader_t tc_header;
     public int tfvn;   // Transfer Frame Version Number
     public int bypass; // Bypass
@@ -35,6 +46,55 @@ public class SDLS_TC_TransferFrame
     public SDLS_TC_TransferFrame() { // Blank Init; this is just a struct
     }
 
+    // Decodes a processed frame in the binary layout
+    public static SDLS_TC_TransferFrame fromBinary(byte[] binaryFrame)
+    {
+        if (binaryFrame.length < BINARY_HEADER_LENGTH)
+            throw new IllegalArgumentException("Binary frame of " + binaryFrame.length + " bytes is shorter than its " + BINARY_HEADER_LENGTH + " bytes header");
+        ByteBuffer buffer = ByteBuffer.wrap(binaryFrame);
+        SDLS_TC_TransferFrame sdlsTCFrame = new SDLS_TC_TransferFrame();
+        sdlsTCFrame.tfvn = buffer.get() & 0xFF;
+        sdlsTCFrame.bypass = buffer.get() & 0xFF;
+        sdlsTCFrame.cc = buffer.get() & 0xFF;
+        sdlsTCFrame.spare = buffer.get() & 0xFF;
+        sdlsTCFrame.scid = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.vcid = buffer.get() & 0xFF;
+        sdlsTCFrame.fsn = buffer.get() & 0xFF;
+        sdlsTCFrame.fl = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.sh = buffer.get() & 0xFF;
+        buffer.get(); // reserved
+        sdlsTCFrame.spi = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.iv_field_len = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.sn_field_len = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.pad_field_len = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.tc_pdu_len = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.mac_field_len = buffer.getShort() & 0xFFFF;
+        sdlsTCFrame.fecf = buffer.getShort() & 0xFFFF;
+        int length = BINARY_HEADER_LENGTH + sdlsTCFrame.iv_field_len + sdlsTCFrame.sn_field_len + sdlsTCFrame.pad_field_len
+                + sdlsTCFrame.tc_pdu_len + sdlsTCFrame.mac_field_len;
+        if (binaryFrame.length != length)
+            throw new IllegalArgumentException("Binary frame of " + binaryFrame.length + " bytes does not match its field lengths of " + length + " bytes");
+        sdlsTCFrame.iv = toHexString(buffer, sdlsTCFrame.iv_field_len);
+        sdlsTCFrame.sn = toHexString(buffer, sdlsTCFrame.sn_field_len);
+        sdlsTCFrame.pad = toHexString(buffer, sdlsTCFrame.pad_field_len);
+        sdlsTCFrame.tc_pdu = toHexString(buffer, sdlsTCFrame.tc_pdu_len);
+        sdlsTCFrame.mac = toHexString(buffer, sdlsTCFrame.mac_field_len);
+        return sdlsTCFrame;
+    }
+
+    // Upper case, as the hex strings of the engine
+    private static String toHexString(ByteBuffer buffer, int length)
+    {
+        char[] hex = new char[length * 2];
+        for (int i = 0; i < length; i++)
+        {
+            int b = buffer.get() & 0xFF;
+            hex[i * 2] = Character.toUpperCase(Character.forDigit(b >> 4, 16));
+            hex[i * 2 + 1] = Character.toUpperCase(Character.forDigit(b & 0x0F, 16));
+        }
+        return new String(hex);
+    }
+
     public void printSdlsTransferFrame()
     {
         System.out.println("Primary Header::");
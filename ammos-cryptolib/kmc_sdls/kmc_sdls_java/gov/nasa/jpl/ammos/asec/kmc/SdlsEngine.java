@@ -0,0 +1,31 @@
+package gov.nasa.jpl.ammos.asec.kmc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SDLS operations on TC frames, as wrapped by ConcurrentKmcSdlsEngine.
+ *
+ * KmcSdlsEngine implements them with CryptoLib, other implementations, e.g. a stub engine
+ * of a benchmark, do not need the native library.
+ */
+public interface SdlsEngine
+{
+    int getEngineStatus();
+    String getCryptoLibErrorCodeEnum(int errorCode);
+    void shutdown();
+
+    String applySecurity(String unencryptedFrameHexbytesString, String camCookies) throws Exception;
+    byte[] applySecurity(byte[] unencryptedFrame, String camCookies) throws Exception;
+    int applySecurity(ByteBuffer unencryptedFrame, ByteBuffer encryptedFrame, String camCookies) throws Exception;
+
+    SDLS_TC_TransferFrame processSecurity(String encryptedFrameHexbytesString, String camCookies) throws Exception;
+    SDLS_TC_TransferFrame processSecurity(byte[] encryptedFrame, String camCookies) throws Exception;
+    SDLS_TC_TransferFrame processSecurity(ByteBuffer encryptedFrame, String camCookies) throws Exception;
+
+    String processSecurityReturnDataOnly(String encryptedFrameHexbytesString, String camCookies) throws Exception;
+    byte[] processSecurityReturnDataOnly(byte[] encryptedFrame, String camCookies) throws Exception;
+    int processSecurityReturnDataOnly(ByteBuffer encryptedFrame, ByteBuffer data, String camCookies) throws Exception;
+
+    byte[] processSecurityReturnBinary(byte[] encryptedFrame, String camCookies) throws Exception;
+    int processSecurityReturnBinary(ByteBuffer encryptedFrame, ByteBuffer binaryFrame, String camCookies) throws Exception;
+}
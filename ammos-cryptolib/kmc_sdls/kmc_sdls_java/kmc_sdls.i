@@ -212,4 +212,162 @@
 
 %};
 
+//**********************************************************************************************************************
+// Binary frames: the frames are passed as Java byte[] or direct ByteBuffer, without hex string conversions
+
+%include "various.i"
+
+// Read only byte[] frame, released with JNI_ABORT so that it is not copied back to the Java array
+%typemap(jni) char* IN_BYTES "jbyteArray"
+%typemap(jtype) char* IN_BYTES "byte[]"
+%typemap(jstype) char* IN_BYTES "byte[]"
+%typemap(javain) char* IN_BYTES "$javainput"
+%typemap(in) char* IN_BYTES {
+    $1 = (char*) JCALL2(GetByteArrayElements, jenv, $input, 0);
+}
+%typemap(freearg) char* IN_BYTES {
+    JCALL3(ReleaseByteArrayElements, jenv, $input, (jbyte*) $1, JNI_ABORT);
+}
+
+%apply char* IN_BYTES { char* in_frame };
+%apply char* BYTE { char* out_frame };
+%apply unsigned char* NIOBUFFER { unsigned char* in_buffer, unsigned char* out_buffer };
+
+%{
+    #include <stdlib.h>
+    #include <string.h>
+
+    // Applies security to the frame and copies the resulting frame to the output, which must hold out_capacity bytes.
+    // The length of the resulting frame is returned in p_out_length, the frame is not copied if it exceeds out_capacity.
+    static int32_t apply_security_tc_to_buffer(const uint8_t* p_in_frame, int in_length, uint8_t* p_out_frame,
+                                               int out_capacity, int* p_out_length, char* cam_cookies){
+        uint8_t* p_enc_frame = NULL;
+        uint16_t enc_frame_len = 0;
+        int32_t status = apply_security_tc_cam(p_in_frame, (uint16_t)in_length, &p_enc_frame, &enc_frame_len, cam_cookies);
+        if(status == 0)
+        {
+            *p_out_length = enc_frame_len;
+            if(enc_frame_len <= out_capacity)
+            {
+                memcpy(p_out_frame, p_enc_frame, enc_frame_len);
+            }
+        }
+        free(p_enc_frame);
+        return status;
+    }
+
+    static int32_t process_security_tc_from_buffer(uint8_t* p_in_frame, int in_length, TC_t* tc_sdls_processed_frame,
+                                                   char* cam_cookies){
+        int length = in_length;
+        return process_security_tc_cam((char*)p_in_frame, &length, tc_sdls_processed_frame, cam_cookies);
+    }
+
+    // Copies the PDU of the processed frame to the output if it fits in out_capacity bytes, returns the PDU length.
+    static int get_tc_pdu_to_buffer(TC_t* tc, uint8_t* p_out_frame, int out_capacity){
+        int pdu_len = (int)tc->tc_pdu_len;
+        if(pdu_len <= out_capacity && tc->tc_pdu != NULL)
+        {
+            memcpy(p_out_frame, tc->tc_pdu, pdu_len);
+        }
+        return pdu_len;
+    }
+
+    static uint8_t* put_uint16(uint8_t* p, int value){
+        p[0] = (uint8_t)((value >> 8) & 0xFF);
+        p[1] = (uint8_t)(value & 0xFF);
+        return p + 2;
+    }
+    static uint8_t* put_field(uint8_t* p, uint8_t* field, int field_len){
+        if(field != NULL)
+            memcpy(p, field, field_len);
+        else
+            memset(p, 0, field_len);
+        return p + field_len;
+    }
+
+    // Writes the processed frame in the binary layout of SDLS_TC_TransferFrame if it fits in out_capacity bytes,
+    // returns the length of the binary frame.
+    static int get_tc_frame_to_buffer(TC_t* tc, uint8_t* p_out_frame, int out_capacity){
+        int iv_len = tc->tc_sec_header.iv_field_len;
+        int sn_len = tc->tc_sec_header.sn_field_len;
+        int pad_len = tc->tc_sec_header.pad_field_len;
+        int pdu_len = (int)tc->tc_pdu_len;
+        int mac_len = tc->tc_sec_trailer.mac_field_len;
+        int frame_len = 26 + iv_len + sn_len + pad_len + pdu_len + mac_len;
+        if(frame_len > out_capacity)
+            return frame_len;
+
+        uint8_t* p = p_out_frame;
+        *p++ = tc->tc_header.tfvn;
+        *p++ = tc->tc_header.bypass;
+        *p++ = tc->tc_header.cc;
+        *p++ = tc->tc_header.spare;
+        p = put_uint16(p, tc->tc_header.scid);
+        *p++ = tc->tc_header.vcid;
+        *p++ = tc->tc_header.fsn;
+        p = put_uint16(p, tc->tc_header.fl);
+        *p++ = tc->tc_sec_header.sh;
+        *p++ = 0;
+        p = put_uint16(p, tc->tc_sec_header.spi);
+        p = put_uint16(p, iv_len);
+        p = put_uint16(p, sn_len);
+        p = put_uint16(p, pad_len);
+        p = put_uint16(p, pdu_len);
+        p = put_uint16(p, mac_len);
+        p = put_uint16(p, tc->tc_sec_trailer.fecf);
+        p = put_field(p, tc->tc_sec_header.iv, iv_len);
+        p = put_field(p, tc->tc_sec_header.sn, sn_len);
+        p = put_field(p, tc->tc_sec_header.pad, pad_len);
+        p = put_field(p, tc->tc_pdu, pdu_len);
+        put_field(p, tc->tc_sec_trailer.mac, mac_len);
+        return frame_len;
+    }
+%}
+
+%inline %{
+
+    int32_t apply_security_tc_bytes(char* in_frame, int in_offset, int in_length, char* out_frame, int out_offset,
+                                    int out_capacity, int* p_out_length, char* cam_cookies){
+        return apply_security_tc_to_buffer((uint8_t*)in_frame + in_offset, in_length, (uint8_t*)out_frame + out_offset,
+                                           out_capacity, p_out_length, cam_cookies);
+    }
+    int32_t apply_security_tc_buffer(unsigned char* in_buffer, int in_offset, int in_length, unsigned char* out_buffer,
+                                     int out_offset, int out_capacity, int* p_out_length, char* cam_cookies){
+        return apply_security_tc_to_buffer(in_buffer + in_offset, in_length, out_buffer + out_offset,
+                                           out_capacity, p_out_length, cam_cookies);
+    }
+
+    int32_t process_security_tc_bytes(char* in_frame, int in_offset, int in_length, TC_t* tc_sdls_processed_frame,
+                                      char* cam_cookies){
+        return process_security_tc_from_buffer((uint8_t*)in_frame + in_offset, in_length, tc_sdls_processed_frame,
+                                               cam_cookies);
+    }
+    int32_t process_security_tc_buffer(unsigned char* in_buffer, int in_offset, int in_length,
+                                       TC_t* tc_sdls_processed_frame, char* cam_cookies){
+        return process_security_tc_from_buffer(in_buffer + in_offset, in_length, tc_sdls_processed_frame, cam_cookies);
+    }
+
+    int get_tc_pdu_bytes(TC_t* tc, char* out_frame, int out_offset, int out_capacity){
+        return get_tc_pdu_to_buffer(tc, (uint8_t*)out_frame + out_offset, out_capacity);
+    }
+    int get_tc_pdu_buffer(TC_t* tc, unsigned char* out_buffer, int out_offset, int out_capacity){
+        return get_tc_pdu_to_buffer(tc, out_buffer + out_offset, out_capacity);
+    }
+
+    int get_tc_frame_bytes(TC_t* tc, char* out_frame, int out_offset, int out_capacity){
+        return get_tc_frame_to_buffer(tc, (uint8_t*)out_frame + out_offset, out_capacity);
+    }
+    int get_tc_frame_buffer(TC_t* tc, unsigned char* out_buffer, int out_offset, int out_capacity){
+        return get_tc_frame_to_buffer(tc, out_buffer + out_offset, out_capacity);
+    }
+
+    int deref_int_ptr(int* ptr){
+        return *ptr;
+    }
+    void free_int_ptr(int* ptr){
+        free(ptr);
+    }
+
+%};
+
 //%pragma(java) jniclasspackage="gov.nasa.jpl.ammos.asec.kmc"
\ No newline at end of file
@@ -4,8 +4,18 @@ Test KmcSdlsJNI bindings.
 
 import gov.nasa.jpl.ammos.asec.kmc.SDLS_TC_TransferFrame;
 import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.*;
 
+import gov.nasa.jpl.ammos.asec.kmc.ConcurrentKmcSdlsEngine;
 import gov.nasa.jpl.ammos.asec.kmc.KmcSdlsEngine;
 
 public class KmcSdlsJavaTest
@@ -77,6 +87,237 @@ public class KmcSdlsJavaTest
         kmcEngine.shutdown();
     }
 
+    @Test
+    public void testApplySecurityTcBytes() throws Exception
+    {
+        KmcSdlsEngine kmcEngine = setupKmcSdlsEngineForUnitTestInmemoryLibgcrypt();
+        byte[] result;
+        try{
+            result = kmcEngine.applySecurity(hexStringToByteArray("20030015000080d2c70008197f0b00310000b1fe3128"));
+        } catch (Exception e) {
+            e.printStackTrace();
+            kmcEngine.shutdown();
+            throw e;
+        }
+        kmcEngine.shutdown();
+        assertArrayEquals(hexStringToByteArray("2003001700000001000080D2C70008197F0B00310000BB80"),result);
+    }
+
+    @Test
+    public void testApplySecurityTcDirectBuffer() throws Exception
+    {
+        KmcSdlsEngine kmcEngine = setupKmcSdlsEngineForUnitTestInmemoryLibgcrypt();
+        byte[] frame = hexStringToByteArray("20030015000080d2c70008197f0b00310000b1fe3128");
+        ByteBuffer in = ByteBuffer.allocateDirect(frame.length);
+        in.put(frame).flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(KmcSdlsEngine.TC_MAX_FRAME_LENGTH);
+        int length;
+        try{
+            length = kmcEngine.applySecurity(in, out, null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            kmcEngine.shutdown();
+            throw e;
+        }
+        kmcEngine.shutdown();
+        byte[] result = new byte[length];
+        out.flip();
+        out.get(result);
+        assertEquals(0,in.remaining());
+        assertArrayEquals(hexStringToByteArray("2003001700000001000080D2C70008197F0B00310000BB80"),result);
+    }
+
+    @Test
+    public void testProcessSecurityTcBytes() throws Exception
+    {
+        KmcSdlsEngine kmcEngine = setupKmcSdlsEngineForUnitTestInmemoryLibgcrypt();
+        try{
+            SDLS_TC_TransferFrame sdlsTcFrame = kmcEngine.processSecurity(hexStringToByteArray("2003001700000001000080D2C70008197F0B00310000BB80"));
+            assertEquals("80D2C70008197F0B00310000",sdlsTcFrame.tc_pdu);
+            assertEquals(12,sdlsTcFrame.tc_pdu_len);
+            assertEquals(1,sdlsTcFrame.spi);
+            assertEquals(0xBB80,sdlsTcFrame.fecf);
+
+            byte[] pdu = kmcEngine.processSecurityReturnDataOnly(hexStringToByteArray("2003001700000001000080D2C70008197F0B00310000BB80"));
+            assertArrayEquals(hexStringToByteArray("80D2C70008197F0B00310000"),pdu);
+        } catch (Exception e){
+            e.printStackTrace();
+            kmcEngine.shutdown();
+            throw e;
+        }
+        kmcEngine.shutdown();
+    }
+
+    @Test
+    public void testProcessSecurityTcBinary() throws Exception
+    {
+        KmcSdlsEngine kmcEngine = setupKmcSdlsEngineForUnitTestInmemoryLibgcrypt();
+        try{
+            byte[] sdlsFrame = hexStringToByteArray("2003001700000001000080D2C70008197F0B00310000BB80");
+            SDLS_TC_TransferFrame expected = kmcEngine.processSecurity(sdlsFrame);
+            byte[] binaryFrame = kmcEngine.processSecurityReturnBinary(sdlsFrame);
+            assertTransferFrameEquals(expected, SDLS_TC_TransferFrame.fromBinary(binaryFrame));
+
+            ByteBuffer in = ByteBuffer.allocateDirect(sdlsFrame.length);
+            in.put(sdlsFrame).flip();
+            ByteBuffer out = ByteBuffer.allocateDirect(KmcSdlsEngine.TC_MAX_FRAME_LENGTH);
+            int length = kmcEngine.processSecurityReturnBinary(in, out, null);
+            assertEquals(binaryFrame.length, length);
+            byte[] bufferFrame = new byte[length];
+            out.flip();
+            out.get(bufferFrame);
+            assertArrayEquals(binaryFrame, bufferFrame);
+        } catch (Exception e){
+            e.printStackTrace();
+            kmcEngine.shutdown();
+            throw e;
+        }
+        kmcEngine.shutdown();
+    }
+
+    // Frames longer than TC_MAX_FRAME_LENGTH are rejected before their length is passed to CryptoLib.
+    @Test
+    public void testFrameLongerThanTcMaxFrameLength() throws Exception
+    {
+        KmcSdlsEngine kmcEngine = setupKmcSdlsEngineForUnitTestInmemoryLibgcrypt();
+        byte[] frame = new byte[KmcSdlsEngine.TC_MAX_FRAME_LENGTH + 1];
+        ByteBuffer directFrame = ByteBuffer.allocateDirect(frame.length);
+        ByteBuffer out = ByteBuffer.allocateDirect(KmcSdlsEngine.TC_MAX_FRAME_LENGTH);
+        try{
+            try{
+                kmcEngine.applySecurity(frame, null);
+                fail("Frame longer than TC_MAX_FRAME_LENGTH must be rejected");
+            } catch (Exception e){
+                assertTrue(e.getMessage().contains("exceeds maximum TC frame length"));
+            }
+            try{
+                kmcEngine.applySecurity(directFrame, out, null);
+                fail("Frame longer than TC_MAX_FRAME_LENGTH must be rejected");
+            } catch (Exception e){
+                assertTrue(e.getMessage().contains("exceeds maximum TC frame length"));
+            }
+            try{
+                kmcEngine.processSecurity(frame, null);
+                fail("Frame longer than TC_MAX_FRAME_LENGTH must be rejected");
+            } catch (Exception e){
+                assertTrue(e.getMessage().contains("exceeds maximum TC frame length"));
+            }
+            try{
+                kmcEngine.processSecurity(directFrame, null);
+                fail("Frame longer than TC_MAX_FRAME_LENGTH must be rejected");
+            } catch (Exception e){
+                assertTrue(e.getMessage().contains("exceeds maximum TC frame length"));
+            }
+            assertEquals(frame.length, directFrame.remaining());
+        } finally {
+            kmcEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void testSdlsTransferFrameFromBinary()
+    {
+        byte[] binaryFrame = hexStringToByteArray("00000000000300000017" + "00000001" + "00000002" + "0000" + "0003" + "0001" + "BB80"
+                + "0A0B" + "80D2C7" + "FF");
+        SDLS_TC_TransferFrame sdlsTcFrame = SDLS_TC_TransferFrame.fromBinary(binaryFrame);
+        assertEquals(3, sdlsTcFrame.scid);
+        assertEquals(0x17, sdlsTcFrame.fl);
+        assertEquals(1, sdlsTcFrame.spi);
+        assertEquals("", sdlsTcFrame.iv);
+        assertEquals("0A0B", sdlsTcFrame.sn);
+        assertEquals(2, sdlsTcFrame.sn_field_len);
+        assertEquals("", sdlsTcFrame.pad);
+        assertEquals("80D2C7", sdlsTcFrame.tc_pdu);
+        assertEquals(3, sdlsTcFrame.tc_pdu_len);
+        assertEquals("FF", sdlsTcFrame.mac);
+        assertEquals(0xBB80, sdlsTcFrame.fecf);
+
+        try{
+            SDLS_TC_TransferFrame.fromBinary(Arrays.copyOf(binaryFrame, binaryFrame.length - 1));
+            fail("Truncated binary frame must be rejected");
+        } catch (IllegalArgumentException e){
+            // expected
+        }
+    }
+
+    @Test
+    public void testGvcid()
+    {
+        // TFVN 0, SCID 3, VCID 1
+        int gvcid = (3 << 6) | 1;
+        assertEquals(gvcid, ConcurrentKmcSdlsEngine.getGvcid(hexStringToByteArray("20030415000080d2c70008197f0b00310000b1fe3128"), 0));
+        assertEquals(gvcid, ConcurrentKmcSdlsEngine.getGvcid("20030415000080d2c70008197f0b00310000b1fe3128"));
+        assertEquals(gvcid, ConcurrentKmcSdlsEngine.getGvcid(ByteBuffer.wrap(hexStringToByteArray("20030415000080d2"))));
+        assertEquals(0, ConcurrentKmcSdlsEngine.getGvcid(new byte[2], 0));
+    }
+
+    // Applies and processes security on distinct frames of several virtual channels from many threads,
+    // each frame must come back with its own data on its own virtual channel and SA.
+    @Test
+    public void testConcurrentApplyProcessSecurityTc() throws Exception
+    {
+        final int threads = 16;
+        final int frames = 1000;
+        // the virtual channels of the GVCID managed parameters of the engine, on different lock stripes
+        final int[] vcids = {0, 1};
+        ConcurrentKmcSdlsEngine kmcEngine = new ConcurrentKmcSdlsEngine(setupKmcSdlsEngineForUnitTestInmemoryLibgcrypt(), 4);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try{
+            // SPI of the SA of each virtual channel, from a frame applied and processed alone
+            final int[] spis = new int[vcids.length];
+            for (int v = 0; v < vcids.length; v++)
+            {
+                SDLS_TC_TransferFrame sdlsTcFrame = kmcEngine.processSecurity(kmcEngine.applySecurity(createTcFrame(vcids[v], 0), null), null);
+                assertEquals(3, sdlsTcFrame.scid);
+                assertEquals(vcids[v], sdlsTcFrame.vcid);
+                spis[v] = sdlsTcFrame.spi;
+            }
+
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < frames; i++)
+            {
+                final int v = i % vcids.length;
+                final byte[] frame = createTcFrame(vcids[v], i);
+                final byte[] data = Arrays.copyOfRange(frame, 6, 18);
+                final boolean fullFrame = (i / vcids.length) % 2 == 0;
+                results.add(executor.submit(() -> {
+                    byte[] sdlsFrame = kmcEngine.applySecurity(frame, null);
+                    assertEquals(vcids[v], ConcurrentKmcSdlsEngine.getGvcid(sdlsFrame, 0) & 0x3F);
+                    if (fullFrame)
+                    {
+                        SDLS_TC_TransferFrame sdlsTcFrame = kmcEngine.processSecurity(sdlsFrame, null);
+                        assertEquals(byteArrayToHexString(data), "[" + sdlsTcFrame.tc_pdu + "]");
+                        assertEquals(3, sdlsTcFrame.scid);
+                        assertEquals(vcids[v], sdlsTcFrame.vcid);
+                        assertEquals(spis[v], sdlsTcFrame.spi);
+                    }
+                    else
+                    {
+                        assertArrayEquals(data, kmcEngine.processSecurityReturnDataOnly(sdlsFrame, null));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results)
+            {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+            kmcEngine.shutdown();
+        }
+    }
+
+    // TC frame of SCID 3 on the virtual channel, the last 2 bytes of the frame data are the frame number
+    private static byte[] createTcFrame(int vcid, int number)
+    {
+        byte[] frame = hexStringToByteArray("20030015000080d2c70008197f0b00310000b1fe3128");
+        frame[2] = (byte) ((vcid << 2) | (frame[2] & 0x03));
+        frame[16] = (byte) (number >> 8);
+        frame[17] = (byte) number;
+        return frame;
+    }
+
     public static byte[] hexStringToByteArray(String s) {
         int len = s.length();
         byte[] data = new byte[len / 2];
@@ -96,4 +337,29 @@ public class KmcSdlsJavaTest
         sb.append("]");
         return sb.toString();
     }
+
+    private static void assertTransferFrameEquals(SDLS_TC_TransferFrame expected, SDLS_TC_TransferFrame actual)
+    {
+        assertEquals(expected.tfvn, actual.tfvn);
+        assertEquals(expected.bypass, actual.bypass);
+        assertEquals(expected.cc, actual.cc);
+        assertEquals(expected.spare, actual.spare);
+        assertEquals(expected.scid, actual.scid);
+        assertEquals(expected.vcid, actual.vcid);
+        assertEquals(expected.fl, actual.fl);
+        assertEquals(expected.fsn, actual.fsn);
+        assertEquals(expected.sh, actual.sh);
+        assertEquals(expected.spi, actual.spi);
+        assertEquals(expected.iv, actual.iv);
+        assertEquals(expected.iv_field_len, actual.iv_field_len);
+        assertEquals(expected.sn, actual.sn);
+        assertEquals(expected.sn_field_len, actual.sn_field_len);
+        assertEquals(expected.pad, actual.pad);
+        assertEquals(expected.pad_field_len, actual.pad_field_len);
+        assertEquals(expected.tc_pdu, actual.tc_pdu);
+        assertEquals(expected.tc_pdu_len, actual.tc_pdu_len);
+        assertEquals(expected.mac, actual.mac);
+        assertEquals(expected.mac_field_len, actual.mac_field_len);
+        assertEquals(expected.fecf, actual.fecf);
+    }
 }
\ No newline at end of file
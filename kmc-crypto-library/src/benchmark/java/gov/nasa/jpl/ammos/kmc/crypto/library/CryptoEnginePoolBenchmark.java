@@ -0,0 +1,159 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library;
+
+import java.security.Security;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * JMH benchmark of the CryptoEnginePool.  It measures an encryption and a HMAC of a short input
+ * with a Cipher and a Mac from the pool against the same operations with a Cipher and a Mac
+ * looked up in the provider for each operation, as the library did before the pool.
+ *
+ * Run with: mvn -P benchmark test
+ *
+ * The run fails if the encryption with the pool is not faster than with the provider lookup
+ * by at least the factor of the system property crypto.benchmark.min_speedup (default 1), or
+ * the HMAC by at least crypto.benchmark.min_mac_speedup (default 1).  A pooled Mac is reused
+ * with the key it keeps, so it saves both the lookup and the initialization.  The ratios do not
+ * depend on the speed of the machine.
+ *
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CryptoEnginePoolBenchmark {
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * The provider of the Cipher and Mac: the preferred JDK provider, or BouncyCastle FIPS as
+     * configured in the library.
+     */
+    @Param({"SunJCE", "BCFIPS"})
+    private String provider;
+
+    @Param({"256"})
+    private int inputSize;
+
+    private SecretKeySpec aesKey;
+    private SecretKeySpec hmacKey;
+    private IvParameterSpec iv;
+    private byte[] input;
+
+    @Setup
+    public void setup() {
+        if (Security.getProvider("BCFIPS") == null) {
+            Security.addProvider(new BouncyCastleFipsProvider());
+        }
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+        aesKey = new SecretKeySpec(key, "AES");
+        hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        iv = new IvParameterSpec(new byte[16]);
+        input = new byte[inputSize];
+    }
+
+    @Benchmark
+    public byte[] encryptPooled() throws Exception {
+        Cipher cipher = CryptoEnginePool.getCipher(TRANSFORMATION, provider);
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, aesKey, iv);
+            return cipher.doFinal(input);
+        } finally {
+            CryptoEnginePool.releaseCipher(cipher, TRANSFORMATION, provider);
+        }
+    }
+
+    @Benchmark
+    public byte[] encryptGetInstance() throws Exception {
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION, provider);
+        cipher.init(Cipher.ENCRYPT_MODE, aesKey, iv);
+        return cipher.doFinal(input);
+    }
+
+    @Benchmark
+    public byte[] hmacPooled() throws Exception {
+        Mac mac = CryptoEnginePool.getMac(HMAC_ALGORITHM, provider, hmacKey);
+        try {
+            return mac.doFinal(input);
+        } finally {
+            CryptoEnginePool.releaseMac(mac, HMAC_ALGORITHM, provider, hmacKey);
+        }
+    }
+
+    @Benchmark
+    public byte[] hmacGetInstance() throws Exception {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM, provider);
+        mac.init(hmacKey);
+        return mac.doFinal(input);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        double minSpeedup = Double.parseDouble(System.getProperty("crypto.benchmark.min_speedup", "1"));
+        double minMacSpeedup = Double.parseDouble(System.getProperty("crypto.benchmark.min_mac_speedup", "1"));
+        Options options = new OptionsBuilder()
+                .include(CryptoEnginePoolBenchmark.class.getName())
+                .forks(Integer.getInteger("crypto.benchmark.forks", 1))
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> scores = new HashMap<String, Double>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String key = benchmark.substring(benchmark.lastIndexOf('.') + 1)
+                    + " " + result.getParams().getParam("provider");
+            scores.put(key, result.getPrimaryResult().getScore());
+        }
+        boolean passed = true;
+        for (String provider : new String[] {"SunJCE", "BCFIPS"}) {
+            passed &= checkSpeedup(scores, "encrypt", provider, minSpeedup);
+            passed &= checkSpeedup(scores, "hmac", provider, minMacSpeedup);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    // Compares the throughput of the pooled and getInstance benchmarks of the prefix
+    private static boolean checkSpeedup(final Map<String, Double> scores, final String prefix,
+            final String provider, final double minSpeedup) {
+        double speedup = scores.get(prefix + "Pooled " + provider) / scores.get(prefix + "GetInstance " + provider);
+        if (speedup < minSpeedup) {
+            System.err.printf("%s %s: the pool is %.2f times as fast as getInstance, expected at least %.2f%n",
+                    prefix, provider, speedup, minSpeedup);
+            return false;
+        }
+        System.out.printf("%s %s: the pool is %.2f times as fast as getInstance%n", prefix, provider, speedup);
+        return true;
+    }
+
+}
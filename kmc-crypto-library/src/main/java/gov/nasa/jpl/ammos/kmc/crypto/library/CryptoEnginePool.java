@@ -0,0 +1,338 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library;
+
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Signature;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * Reuses the Cipher, Mac, Signature and MessageDigest instances of the crypto library.
+ * Looking up an algorithm in the providers (e.g. Cipher.getInstance) is slow, especially with
+ * BouncyCastle FIPS, so an instance released after a crypto operation is kept for the next
+ * operation of the same algorithm and provider on the same thread.
+ *
+ * Each thread keeps at most {@link #MAX_IDLE_ENGINES} idle instances per algorithm and provider,
+ * so the pool needs no locking.
+ *
+ * A released Cipher, Mac or Signature keeps the key it was last initialized with, and an idle Mac
+ * is reused without initialization for the same key.  The same rule bounds the key material of all
+ * three: an idle engine is discarded when any key is removed from or replaced in the {@link KeyCache},
+ * when it has been idle for the key time-to-live, and is not kept at all while the cache is disabled.
+ * So an idle engine does not keep a key much longer than the cache does.
+ *
+ *
+ */
+public final class CryptoEnginePool {
+    /**
+     * Maximum number of idle instances per algorithm and provider kept by a thread.
+     */
+    public static final int MAX_IDLE_ENGINES = 4;
+
+    private static final String CIPHER = "Cipher";
+    private static final String MAC = "Mac";
+    private static final String SIGNATURE = "Signature";
+    private static final String MESSAGE_DIGEST = "MessageDigest";
+
+    // incremented when keys are removed from the KeyCache, idle keyed engines of an older epoch are discarded
+    private static final AtomicLong KEY_EPOCH = new AtomicLong();
+    private static volatile long keyLifetimeNanos = TimeUnit.MINUTES.toNanos(KeyCache.DEFAULT_KEY_CACHE_TTL);
+    private static volatile boolean keyCacheEnabled = KeyCache.DEFAULT_KEY_CACHE_ENABLE;
+
+    private static final ThreadLocal<ThreadEngines> IDLE_ENGINES = ThreadLocal.withInitial(ThreadEngines::new);
+
+    private static final class IdleEngine {
+        private final Object engine;
+        private final Key key;
+        private final long releaseTime;
+
+        IdleEngine(final Object engine, final Key key) {
+            this.engine = engine;
+            this.key = key;
+            this.releaseTime = System.nanoTime();
+        }
+    }
+
+    private static final class ThreadEngines {
+        private final Map<String, Deque<IdleEngine>> idleEngines = new HashMap<String, Deque<IdleEngine>>();
+        private long keyEpoch = KEY_EPOCH.get();
+    }
+
+    private CryptoEnginePool() {
+    }
+
+    /**
+     * Returns a Cipher for the transformation, which must be initialized before use.
+     * @param transformation the cipher transformation.
+     * @param provider the provider name, or null for the preferred provider.
+     * @return a Cipher.
+     * @throws NoSuchAlgorithmException if the transformation is invalid.
+     * @throws NoSuchProviderException if the provider is not registered.
+     * @throws NoSuchPaddingException if the padding scheme is invalid.
+     */
+    public static Cipher getCipher(final String transformation, final String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException, NoSuchPaddingException {
+        IdleEngine idle = poll(CIPHER, transformation, provider, null);
+        if (idle != null) {
+            return (Cipher) idle.engine;
+        }
+        return newCipher(transformation, provider);
+    }
+
+    /**
+     * Creates a new Cipher for the transformation, bypassing the pool.
+     * @param transformation the cipher transformation.
+     * @param provider the provider name, or null for the preferred provider.
+     * @return a new Cipher.
+     * @throws NoSuchAlgorithmException if the transformation is invalid.
+     * @throws NoSuchProviderException if the provider is not registered.
+     * @throws NoSuchPaddingException if the padding scheme is invalid.
+     */
+    public static Cipher newCipher(final String transformation, final String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException, NoSuchPaddingException {
+        if (provider == null) {
+            return Cipher.getInstance(transformation);
+        } else {
+            return Cipher.getInstance(transformation, provider);
+        }
+    }
+
+    /**
+     * Returns a Cipher to the pool after a crypto operation.
+     * @param cipher the Cipher, which may be null.
+     * @param transformation the transformation the Cipher was obtained for.
+     * @param provider the provider the Cipher was obtained for.
+     */
+    public static void releaseCipher(final Cipher cipher, final String transformation, final String provider) {
+        release(cipher, null, CIPHER, transformation, provider);
+    }
+
+    /**
+     * Returns a Mac initialized with the key.  An idle Mac last used with an equal key is preferred,
+     * it needs no initialization.
+     * @param algorithm the MAC algorithm.
+     * @param provider the provider name, or null for the preferred provider.
+     * @param key the key of the MAC.
+     * @return a Mac initialized with the key.
+     * @throws NoSuchAlgorithmException if the algorithm is invalid.
+     * @throws NoSuchProviderException if the provider is not registered.
+     * @throws InvalidKeyException if the key is invalid for the MAC.
+     */
+    public static Mac getMac(final String algorithm, final String provider, final Key key)
+            throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException {
+        IdleEngine idle = poll(MAC, algorithm, provider, key);
+        Mac mac;
+        if (idle != null) {
+            mac = (Mac) idle.engine;
+            if (idle.key == key || (idle.key != null && idle.key.equals(key))) {
+                return mac;
+            }
+        } else if (provider == null) {
+            mac = Mac.getInstance(algorithm);
+        } else {
+            mac = Mac.getInstance(algorithm, provider);
+        }
+        mac.init(key);
+        return mac;
+    }
+
+    /**
+     * Returns a Mac to the pool after a crypto operation.  The Mac is reset and keeps the key for
+     * the next use with the same key.
+     * @param mac the Mac, which may be null.
+     * @param algorithm the algorithm the Mac was obtained for.
+     * @param provider the provider the Mac was obtained for.
+     * @param key the key the Mac is initialized with.
+     */
+    public static void releaseMac(final Mac mac, final String algorithm, final String provider, final Key key) {
+        if (mac == null) {
+            return;
+        }
+        mac.reset();
+        release(mac, key, MAC, algorithm, provider);
+    }
+
+    /**
+     * Returns a Signature for the algorithm, which must be initialized before use.
+     * @param algorithm the digital signature algorithm.
+     * @param provider the provider name, or null for the preferred provider.
+     * @return a Signature.
+     * @throws NoSuchAlgorithmException if the algorithm is invalid.
+     * @throws NoSuchProviderException if the provider is not registered.
+     */
+    public static Signature getSignature(final String algorithm, final String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        IdleEngine idle = poll(SIGNATURE, algorithm, provider, null);
+        if (idle != null) {
+            return (Signature) idle.engine;
+        }
+        if (provider == null) {
+            return Signature.getInstance(algorithm);
+        } else {
+            return Signature.getInstance(algorithm, provider);
+        }
+    }
+
+    /**
+     * Returns a Signature to the pool after a crypto operation.
+     * @param signature the Signature, which may be null.
+     * @param algorithm the algorithm the Signature was obtained for.
+     * @param provider the provider the Signature was obtained for.
+     */
+    public static void releaseSignature(final Signature signature, final String algorithm, final String provider) {
+        release(signature, null, SIGNATURE, algorithm, provider);
+    }
+
+    /**
+     * Returns a MessageDigest for the algorithm.
+     * @param algorithm the message digest algorithm.
+     * @param provider the provider name, or null for the preferred provider.
+     * @return a MessageDigest.
+     * @throws NoSuchAlgorithmException if the algorithm is invalid.
+     * @throws NoSuchProviderException if the provider is not registered.
+     */
+    public static MessageDigest getMessageDigest(final String algorithm, final String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        IdleEngine idle = poll(MESSAGE_DIGEST, algorithm, provider, null);
+        if (idle != null) {
+            MessageDigest md = (MessageDigest) idle.engine;
+            md.reset();
+            return md;
+        }
+        if (provider == null) {
+            return MessageDigest.getInstance(algorithm);
+        } else {
+            return MessageDigest.getInstance(algorithm, provider);
+        }
+    }
+
+    /**
+     * Returns a MessageDigest to the pool after a crypto operation.
+     * @param md the MessageDigest, which may be null.
+     * @param algorithm the algorithm the MessageDigest was obtained for.
+     * @param provider the provider the MessageDigest was obtained for.
+     */
+    public static void releaseMessageDigest(final MessageDigest md, final String algorithm, final String provider) {
+        release(md, null, MESSAGE_DIGEST, algorithm, provider);
+    }
+
+    /**
+     * Returns the number of idle instances kept by the current thread.
+     * @return the number of idle instances of the current thread.
+     */
+    public static int idleCount() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Map.Entry<String, Deque<IdleEngine>> e : getThreadEngines().idleEngines.entrySet()) {
+            if (isKeyed(e.getKey())) {
+                removeExpired(e.getValue(), now);
+            }
+            count = count + e.getValue().size();
+        }
+        return count;
+    }
+
+    /**
+     * Discards the idle instances kept by the current thread.
+     */
+    public static void clear() {
+        IDLE_ENGINES.remove();
+    }
+
+    /**
+     * Called by the {@link KeyCache} when keys are removed or replaced, so that the idle Ciphers,
+     * Macs and Signatures of all threads are discarded at their next use of the pool.
+     */
+    static void keysRemoved() {
+        KEY_EPOCH.incrementAndGet();
+    }
+
+    /**
+     * Called by the {@link KeyCache} when it is configured.
+     * @param enabled false if keys are not cached, then Ciphers, Macs and Signatures are not kept either.
+     * @param lifetimeNanos the key time-to-live, after which an idle Cipher, Mac or Signature is discarded,
+     * or 0 for no limit.
+     */
+    static void setKeyLifetime(final boolean enabled, final long lifetimeNanos) {
+        keyCacheEnabled = enabled;
+        keyLifetimeNanos = lifetimeNanos;
+        keysRemoved();
+    }
+
+    private static IdleEngine poll(final String type, final String algorithm, final String provider,
+            final Key key) {
+        Deque<IdleEngine> idleEngines = getIdleEngines(type, algorithm, provider);
+        if (idleEngines.isEmpty()) {
+            return null;
+        }
+        if (isKeyed(type)) {
+            removeExpired(idleEngines, System.nanoTime());
+        }
+        if (key != null) {
+            for (Iterator<IdleEngine> it = idleEngines.iterator(); it.hasNext();) {
+                IdleEngine idle = it.next();
+                if (idle.key == key || key.equals(idle.key)) {
+                    it.remove();
+                    return idle;
+                }
+            }
+        }
+        return idleEngines.pollFirst();
+    }
+
+    private static void release(final Object engine, final Key key, final String type, final String algorithm,
+            final String provider) {
+        if (engine == null || (isKeyed(type) && !keyCacheEnabled)) {
+            return;
+        }
+        Deque<IdleEngine> idleEngines = getIdleEngines(type, algorithm, provider);
+        idleEngines.addFirst(new IdleEngine(engine, key));
+        if (idleEngines.size() > MAX_IDLE_ENGINES) {
+            idleEngines.removeLast();
+        }
+    }
+
+    // the most recently released engine is first, so the expired engines are at the end
+    private static void removeExpired(final Deque<IdleEngine> idleEngines, final long now) {
+        long lifetime = keyLifetimeNanos;
+        if (lifetime > 0) {
+            IdleEngine oldest;
+            while ((oldest = idleEngines.peekLast()) != null && now - oldest.releaseTime >= lifetime) {
+                idleEngines.pollLast();
+            }
+        }
+    }
+
+    private static boolean isKeyed(final String typeOrPoolKey) {
+        return !typeOrPoolKey.startsWith(MESSAGE_DIGEST);
+    }
+
+    private static ThreadEngines getThreadEngines() {
+        ThreadEngines engines = IDLE_ENGINES.get();
+        long epoch = KEY_EPOCH.get();
+        if (engines.keyEpoch != epoch) {
+            engines.idleEngines.keySet().removeIf(CryptoEnginePool::isKeyed);
+            engines.keyEpoch = epoch;
+        }
+        return engines;
+    }
+
+    private static Deque<IdleEngine> getIdleEngines(final String type, final String algorithm,
+            final String provider) {
+        String poolKey = type + "/" + algorithm + "/" + provider;
+        return getThreadEngines().idleEngines.computeIfAbsent(poolKey, k -> new ArrayDeque<IdleEngine>());
+    }
+
+}
@@ -1,12 +1,24 @@
 package gov.nasa.jpl.ammos.kmc.crypto.library;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.Provider;
 import java.security.Security;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
 
 /**
  * An utility class for Crypto Service.
@@ -14,6 +26,24 @@ import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
  *
  */
 public final class CryptoLibraryUtilities {
+    // provider classes already added, so that each crypto object does not instantiate its provider again
+    private static final Set<String> ADDED_PROVIDER_CLASSES = ConcurrentHashMap.newKeySet();
+
+    private static final Logger logger = LoggerFactory.getLogger(CryptoLibraryUtilities.class);
+
+    /**
+     * Writes the output of a crypto function to a buffer.
+     * @param <T> the result of the crypto function.
+     */
+    interface BufferWriter<T> {
+        /**
+         * Writes the output to the buffer from its position.
+         * @param output the output buffer.
+         * @return the result of the crypto function.
+         * @throws KmcCryptoException if error in the crypto function.
+         */
+        T write(ByteBuffer output) throws KmcCryptoException;
+    }
 
     private CryptoLibraryUtilities() {
     }
@@ -24,11 +54,15 @@ public final class CryptoLibraryUtilities {
      * @throws KmcCryptoException if provider class not found.
      */
     public static void addCryptoProvider(final String providerClassName) throws KmcCryptoException {
+        if (ADDED_PROVIDER_CLASSES.contains(providerClassName)) {
+            return;
+        }
         Class<?> providerClass;
         try {
             providerClass = Class.forName(providerClassName);
             Provider provider = (Provider) providerClass.getDeclaredConstructor().newInstance();
             Security.addProvider(provider);
+            ADDED_PROVIDER_CLASSES.add(providerClassName);
         } catch (ClassNotFoundException e) {
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR,
                     "Crypto algorithm provider class not found: " + providerClassName, e);
@@ -44,4 +78,83 @@ public final class CryptoLibraryUtilities {
         }
     }
 
+    /**
+     * Maps the input file into memory for reading.  The mapping remains valid after the file is closed.
+     * @param file the input file.
+     * @return the read-only buffer of the content of the file.
+     * @throws KmcCryptoException if the file cannot be read or exceeds {@link KmcCryptoManager#MAX_CRYPTO_SIZE}.
+     */
+    static MappedByteBuffer mapInputFile(final Path file) throws KmcCryptoException {
+        if (file == null) {
+            String msg = "Null input file.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+                String msg = "Input file exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+                logger.error(msg);
+                throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            String msg = "Failed to read input file " + file + ": " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, e);
+        }
+    }
+
+    /**
+     * Creates or replaces the output file, which is memory-mapped with maxSize bytes for the writer
+     * and truncated to the bytes written.  The output file is deleted if the writer fails.
+     * @param input the input file, which must not be the output file.
+     * @param output the output file.
+     * @param maxSize the maximum number of bytes written.
+     * @param writer the writer of the output.
+     * @param <T> the result of the writer.
+     * @return the result of the writer.
+     * @throws KmcCryptoException if error in writing the file or in the writer.
+     */
+    static <T> T writeOutputFile(final Path input, final Path output, final int maxSize,
+            final BufferWriter<T> writer) throws KmcCryptoException {
+        if (output == null) {
+            String msg = "Null output file.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        try {
+            if (Files.exists(output) && Files.isSameFile(input, output)) {
+                String msg = "Output file cannot be the input file " + input;
+                logger.error(msg);
+                throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+            }
+        } catch (IOException e) {
+            String msg = "Failed to access output file " + output + ": " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, e);
+        }
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, maxSize);
+            T result = writer.write(buffer);
+            channel.truncate(buffer.position());
+            completed = true;
+            return result;
+        } catch (IOException e) {
+            String msg = "Failed to write output file " + output + ": " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, e);
+        } finally {
+            if (!completed) {
+                try {
+                    Files.deleteIfExists(output);
+                } catch (IOException e) {
+                    logger.error("Failed to delete output file {}: {}", output, e.toString());
+                }
+            }
+        }
+    }
+
 }
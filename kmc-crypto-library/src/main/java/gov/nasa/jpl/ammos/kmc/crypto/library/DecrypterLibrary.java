@@ -4,6 +4,9 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -12,15 +15,20 @@ import java.security.NoSuchProviderException;
 import java.security.interfaces.RSAKey;
 import java.util.Base64;
 
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
+import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.nasa.jpl.ammos.kmc.crypto.CryptoMetrics;
 import gov.nasa.jpl.ammos.kmc.crypto.Decrypter;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
@@ -116,6 +124,220 @@ public class DecrypterLibrary implements Decrypter {
 
         EncryptionMetadata md = new EncryptionMetadata();
         md.parseMetadata(metadata);
+        Key key = getDecryptionKey(md);
+        String transformation = md.getTransformation();
+        String provider = getProvider(md);
+        long startTime = System.nanoTime();
+        long processedBytes = -1;
+        dcipher = getCipher(transformation, provider);
+        try {
+            initCipher(key, md);
+
+            int encryptOffset = md.getEncryptOffset();
+            byte[] aad = null;
+            if (encryptOffset > 0) {
+                aad = processAad(is, os, encryptOffset);
+            }
+            int totalBytes;
+            int segmentSize = getSegmentSize(md);
+            if (segmentSize > 0) {
+                SegmentedGcmCipher segmentedCipher = newSegmentedCipher(md, key, transformation, provider,
+                        segmentSize);
+                totalBytes = processSegmentedDecryption(segmentedCipher, is, os, aad);
+            } else {
+                totalBytes = processDecryption(is, os, encryptOffset);
+            }
+            logger.info("decrypt() total number of bytes decrypted = {}", totalBytes);
+            processedBytes = (long) encryptOffset + totalBytes;
+
+            if (encryptOffset > 0) {
+                audit.info("DecrypterLibrary: User decrypted {} bytes of data using {}, key length {}, and {} bytes of AAD",
+                        totalBytes, transformation, md.getKeyLength(), encryptOffset);
+            } else {
+                audit.info("DecrypterLibrary: User decrypted {} bytes of data using {}, key length {}",
+                        totalBytes, transformation, md.getKeyLength());
+            }
+        } finally {
+            CryptoEnginePool.releaseCipher(dcipher, transformation, provider);
+            dcipher = null;
+            recordOperation(transformation, startTime, processedBytes);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int decrypt(final byte[] input, final int offset, final int length,
+            final byte[] output, final int outputOffset, final String metadata) throws KmcCryptoException {
+        if (input == null || output == null) {
+            String msg = "Null input or output data.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (offset < 0 || length < 0 || offset > input.length - length) {
+            String msg = "Invalid offset " + offset + " or length " + length + " of input data of " + input.length + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (outputOffset < 0 || outputOffset > output.length) {
+            String msg = "Invalid outputOffset " + outputOffset + " of output data of " + output.length + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        ByteBuffer outputBuffer = ByteBuffer.wrap(output, outputOffset, output.length - outputOffset);
+        decrypt(ByteBuffer.wrap(input, offset, length), outputBuffer, metadata);
+        return outputBuffer.position() - outputOffset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void decrypt(final ByteBuffer input, final ByteBuffer output, final String metadata)
+            throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input buffer.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (output == null || output.isReadOnly()) {
+            String msg = "Null or read-only output buffer.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (metadata == null) {
+            String msg = "Null metadata.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (input.remaining() > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+            String msg = "Input data exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+
+        EncryptionMetadata md = new EncryptionMetadata();
+        md.parseMetadata(metadata);
+        int encryptOffset = md.getEncryptOffset();
+        int dataLength = input.remaining() - encryptOffset;
+        if (dataLength < 0 || dataLength == 0 && encryptOffset == 0) {
+            String msg = "Invalid input encrypted data of " + input.remaining() + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        Key key = getDecryptionKey(md);
+        String transformation = md.getTransformation();
+        String provider = getProvider(md);
+        long startTime = System.nanoTime();
+        long processedBytes = -1;
+        dcipher = getCipher(transformation, provider);
+        try {
+            initCipher(key, md);
+
+            int segmentSize = getSegmentSize(md);
+            SegmentedGcmCipher segmentedCipher = null;
+            int outputSize;
+            if (segmentSize > 0) {
+                segmentedCipher = newSegmentedCipher(md, key, transformation, provider, segmentSize);
+                outputSize = segmentedCipher.getOutputSize(dataLength);
+                if (outputSize == -1) {
+                    String msg = "Invalid input encrypted data of " + input.remaining() + " bytes.";
+                    logger.error(msg);
+                    throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+                }
+                outputSize = encryptOffset + outputSize;
+            } else {
+                outputSize = encryptOffset + dcipher.getOutputSize(dataLength);
+            }
+            if (output.remaining() < outputSize) {
+                String msg = "Output buffer has " + output.remaining() + " bytes remaining, "
+                        + outputSize + " bytes are needed for the decrypted data.";
+                logger.error(msg);
+                throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+            }
+            // the Additional Associated Data (AAD) is authenticated and copied to the output
+            ByteBuffer aad = null;
+            if (encryptOffset > 0) {
+                aad = input.duplicate();
+                aad.limit(aad.position() + encryptOffset);
+                output.put(aad.duplicate());
+                input.position(input.position() + encryptOffset);
+            }
+            int totalBytes;
+            if (segmentedCipher == null) {
+                if (aad != null) {
+                    dcipher.updateAAD(aad);
+                }
+                totalBytes = dcipher.doFinal(input, output);
+            } else {
+                totalBytes = segmentedCipher.process(aad, input, output);
+            }
+            logger.info("decrypt() total number of bytes decrypted = {}", totalBytes);
+            processedBytes = (long) encryptOffset + totalBytes;
+
+            if (encryptOffset > 0) {
+                audit.info("DecrypterLibrary: User decrypted {} bytes of data using {}, key length {}, and {} bytes of AAD",
+                        totalBytes, transformation, md.getKeyLength(), encryptOffset);
+            } else {
+                audit.info("DecrypterLibrary: User decrypted {} bytes of data using {}, key length {}",
+                        totalBytes, transformation, md.getKeyLength());
+            }
+        } catch (AEADBadTagException e) {
+            String msg = "Exception on decrypting data in buffer: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } catch (BadPaddingException e) {
+            String msg = "Exception on decrypting data in buffer: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, msg, e);
+        } catch (ShortBufferException | IllegalBlockSizeException e) {
+            String msg = "Exception on decrypting data in buffer: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, e);
+        } catch (GeneralSecurityException e) {
+            String msg = "Exception on decrypting data segment: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } finally {
+            CryptoEnginePool.releaseCipher(dcipher, transformation, provider);
+            dcipher = null;
+            recordOperation(transformation, startTime, processedBytes);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void decrypt(final Path input, final Path output, final String metadata) throws KmcCryptoException {
+        ByteBuffer inputBuffer = CryptoLibraryUtilities.mapInputFile(input);
+        // the decrypted data is never longer than the encrypted data
+        CryptoLibraryUtilities.writeOutputFile(input, output, inputBuffer.remaining(), outputBuffer -> {
+            decrypt(inputBuffer, outputBuffer, metadata);
+            return null;
+        });
+    }
+
+    /**
+     * Records the decryption in the CryptoMetrics.
+     * @param transformation the cipher transformation.
+     * @param startTime the start time of the decryption in nanoseconds.
+     * @param processedBytes the number of bytes decrypted, or -1 if the decryption failed.
+     */
+    private void recordOperation(final String transformation, final long startTime, final long processedBytes) {
+        boolean success = processedBytes >= 0;
+        KmcCryptoManager.getCryptoMetrics().recordOperation(CryptoMetrics.DECRYPT, transformation,
+                success ? processedBytes : 0, System.nanoTime() - startTime, success);
+    }
+
+    /**
+     * Gets the key of the metadata and checks it against the algorithm and key length in the metadata.
+     * @param md the encryption metadata.
+     * @return the decryption key.
+     * @throws KmcCryptoException if error in getting the key or the key does not match the metadata.
+     */
+    private Key getDecryptionKey(final EncryptionMetadata md) throws KmcCryptoException {
         String keyRef = md.getKeyRef();
 
         Key key;
@@ -157,10 +379,19 @@ public class DecrypterLibrary implements Decrypter {
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, msg, null);
         }
 
-        String transformation = md.getTransformation();
         logger.info("Decrypter: keyRef = " + keyRef + ", algorithm = " + keyAlgorithm + String.valueOf(keyLength)
-                    + ", transformation = " + transformation);
+                    + ", transformation = " + md.getTransformation());
+        return key;
+    }
 
+    /**
+     * Returns the provider of the algorithm in the metadata, adding the provider class if it is configured.
+     * @param md the encryption metadata.
+     * @return the provider name, or null for the preferred provider.
+     * @throws KmcCryptoException if error adding the provider class.
+     */
+    private String getProvider(final EncryptionMetadata md) throws KmcCryptoException {
+        String keyAlgorithm = md.getCryptoAlgorithm();
         String provider = cryptoManager.getAlgorithmProvider(keyAlgorithm);
         if (provider != null) {
             try {
@@ -174,14 +405,22 @@ public class DecrypterLibrary implements Decrypter {
                 throw e;
             }
         }
+        return provider;
+    }
 
+    /**
+     * Gets a Cipher for the transformation from the {@link CryptoEnginePool}.
+     * @param transformation the cipher transformation.
+     * @param provider the provider name, or null for the preferred provider.
+     * @return the Cipher.
+     * @throws KmcCryptoException if the transformation or provider is invalid.
+     */
+    private Cipher getCipher(final String transformation, final String provider) throws KmcCryptoException {
         try {
-            if (provider == null) {
-                dcipher = Cipher.getInstance(transformation);
-            } else {
-                logger.debug("Provider {} is used for {} decryption.", provider, keyAlgorithm);
-                dcipher = Cipher.getInstance(transformation, provider);
+            if (provider != null) {
+                logger.debug("Provider {} is used for {} decryption.", provider, transformation);
             }
+            return CryptoEnginePool.getCipher(transformation, provider);
         } catch (NoSuchProviderException e) {
             String msg = "Invalid crypto algorithm provider " + provider + " for transformtion " + transformation;
             logger.error(msg + ": " + e);
@@ -208,9 +447,16 @@ public class DecrypterLibrary implements Decrypter {
             logger.error(msg + ": " + t);
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, msg, t);
         }
+    }
 
+    /**
+     * Initializes the cipher for decryption with the key and the attributes in the metadata.
+     * @throws KmcCryptoException if error occurs during initialization.
+     */
+    private void initCipher(final Key key, final EncryptionMetadata md) throws KmcCryptoException {
+        String keyAlgorithm = md.getCryptoAlgorithm();
         if ("AES".equals(keyAlgorithm) || "DESede".equals(keyAlgorithm)) {
-            if (transformation.contains("/GCM/")) {
+            if (md.getTransformation().contains("/GCM/")) {
                 initGCMcipher(dcipher, key, md.getInitialVector(), md.getMacLength());
             } else {
                 initSymmetricCipher(dcipher, key, md.getInitialVector());
@@ -222,24 +468,48 @@ public class DecrypterLibrary implements Decrypter {
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, null);
         }
+    }
 
-        int encryptOffset = md.getEncryptOffset();
-        if (encryptOffset > 0) {
-            processAad(is, os, encryptOffset);
+    /**
+     * Returns the segment size of segmented AES-GCM encryption in the metadata, otherwise -1.
+     * @throws KmcCryptoException if the segment size in the metadata is invalid.
+     */
+    private int getSegmentSize(final EncryptionMetadata md) throws KmcCryptoException {
+        if (md.getTransformation().contains("/GCM/")) {
+            return md.getSegmentSize();
         }
-        int totalBytes = processDecryption(is, os, encryptOffset);
-        logger.info("decrypt() total number of bytes decrypted = {}", totalBytes);
+        return -1;
+    }
 
-        if (encryptOffset > 0) {
-            audit.info("DecrypterLibrary: User decrypted {} bytes of data using {}, key length {}, and {} bytes of AAD",
-                    totalBytes, transformation, keyLength, encryptOffset);
-        } else {
-            audit.info("DecrypterLibrary: User decrypted {} bytes of data using {}, key length {}",
-                    totalBytes, transformation, keyLength);
+    /**
+     * Creates the cipher of segmented AES-GCM decryption with the IV and tag length in the metadata.
+     * @throws KmcCryptoException if the IV in the metadata is not a segmented AES-GCM IV.
+     */
+    private SegmentedGcmCipher newSegmentedCipher(final EncryptionMetadata md, final Key key,
+            final String transformation, final String provider, final int segmentSize)
+            throws KmcCryptoException {
+        byte[] iv = md.getInitialVector();
+        if (iv.length != SegmentedGcmCipher.NONCE_LENGTH) {
+            String msg = "Invalid initial vector in metadata: " + iv.length + " bytes, expected "
+                    + SegmentedGcmCipher.NONCE_LENGTH + " bytes for segmented AES-GCM.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_METADATA_ERROR, msg, null);
+        }
+        return new SegmentedGcmCipher(Cipher.DECRYPT_MODE, key, transformation, provider, iv,
+                getTagLength(md), segmentSize);
+    }
+
+    /**
+     * Returns the AES-GCM tag length in bits in the metadata, or the default tag length.
+     */
+    private int getTagLength(final EncryptionMetadata md) {
+        if (md.getMacLength() == -1) {
+            return DEFAULT_GCM_TAG_LENGTH;
         }
+        return md.getMacLength();
     }
 
-    private final void processAad(final InputStream inputStream, final OutputStream outputStream,
+    private final byte[] processAad(final InputStream inputStream, final OutputStream outputStream,
             final int encryptOffset) throws KmcCryptoException {
         // process the Additional Associated Data (AAD)
         byte[] data = new byte[encryptOffset];
@@ -263,6 +533,7 @@ public class DecrypterLibrary implements Decrypter {
             outputStream.write(data);
             dcipher.updateAAD(data);
             logger.debug("Finished processing {} bytes of AAD", totalBytes);
+            return data;
         } catch (IOException e) {
             audit.info("DecrypterLibrary: Failed to process additional associated data");
             String msg = "Exception in processing additional associated data: " + e;
@@ -318,6 +589,29 @@ public class DecrypterLibrary implements Decrypter {
         return totalBytes;
     }
 
+    private int processSegmentedDecryption(final SegmentedGcmCipher segmentedCipher, final InputStream is,
+            final OutputStream os, final byte[] aad) throws KmcCryptoException {
+        try {
+            long totalBytes = segmentedCipher.process(aad == null ? null : ByteBuffer.wrap(aad), is, os);
+            return (int) totalBytes;
+        } catch (KmcCryptoException e) {
+            logger.error(e.getMessage());
+            throw e;
+        } catch (GeneralSecurityException e) {
+            // AEADBadTagException if a segment is modified, reordered or truncated
+            String msg = "Exception on decrypting data segment: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } catch (IOException e) {
+            String msg = "Exception on reading/writing io stream: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, e);
+        } finally {
+            closeStream(os);
+            closeStream(is);
+        }
+    }
+
     /**
      * Initializes the AES/DESede cipher with the key and IV.
      * @throws KmcCryptoException if error occurs during initialization.
@@ -4,6 +4,9 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -13,16 +16,21 @@ import java.security.SecureRandom;
 import java.security.interfaces.RSAKey;
 import java.util.Base64;
 
+import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.CipherOutputStream;
+import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.nasa.jpl.ammos.kmc.crypto.CryptoMetrics;
 import gov.nasa.jpl.ammos.kmc.crypto.Encrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.EncryptionMetadataSink;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
@@ -56,9 +64,13 @@ public class EncrypterLibrary implements Encrypter {
     private String keyAlgorithm;
     private int keyLength;
     private String transformation;
+    private String provider;
 
     private Key key;
+    // obtained from CryptoEnginePool and returned to it after each encryption
     private Cipher ecipher;
+    // bytes of the input data processed by the last encryption, for the CryptoMetrics
+    private long processedBytes;
 
     private static final Logger logger = LoggerFactory.getLogger(EncrypterLibrary.class);
     private static final Logger audit = LoggerFactory.getLogger("AUDIT");
@@ -182,7 +194,7 @@ public class EncrypterLibrary implements Encrypter {
             cryptoAlgorithm = "AESGCM";
         }
 
-        String provider = cryptoManager.getAlgorithmProvider(cryptoAlgorithm);
+        provider = cryptoManager.getAlgorithmProvider(cryptoAlgorithm);
         if (provider != null) {
             try {
                 logger.info("Encryption algorithm {}, provider = {}", cryptoAlgorithm, provider);
@@ -196,14 +208,19 @@ public class EncrypterLibrary implements Encrypter {
             }
         }
 
+        ecipher = getCipher();
+    }
+
+    /**
+     * Gets a Cipher for the transformation from the {@link CryptoEnginePool}.
+     * @return the Cipher.
+     * @throws KmcCryptoException if the transformation or provider is invalid.
+     */
+    private Cipher getCipher() throws KmcCryptoException {
         try {
-            if (provider == null) {
-                ecipher = Cipher.getInstance(transformation);
-                logger.debug("Cipher created for " + transformation);
-            } else {
-                ecipher = Cipher.getInstance(transformation, provider);
-                logger.debug("Cipher created for {}, provider = {}", transformation, provider);
-            }
+            Cipher cipher = CryptoEnginePool.getCipher(transformation, provider);
+            logger.debug("Cipher obtained for {}, provider = {}", transformation, provider);
+            return cipher;
         } catch (NoSuchProviderException e) {
             String msg = "Invalid crypto algorithm provider " + provider + " for algorithm " + transformation;
             logger.error(msg + ": " + e);
@@ -294,12 +311,9 @@ public class EncrypterLibrary implements Encrypter {
             }
 
         }
-        int tagLength = DEFAULT_GCM_TAG_LENGTH;
-        if (cryptoManager.getMacLength() != -1) {
-            tagLength = cryptoManager.getMacLength();
-        }
-        GCMParameterSpec gcmSpec = new GCMParameterSpec(tagLength, initialVector);
+        GCMParameterSpec gcmSpec = new GCMParameterSpec(getTagLength(), initialVector);
         try {
+            // the Cipher rejects the key and IV of its previous GCM encryption
             ecipher.init(Cipher.ENCRYPT_MODE, key, gcmSpec);
         } catch (InvalidKeyException e) {
             String msg = "Exception on key: " + e;
@@ -393,6 +407,170 @@ public class EncrypterLibrary implements Encrypter {
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
         }
+        checkEncryptOffset(encryptOffset);
+
+        long startTime = System.nanoTime();
+        boolean success = false;
+        if (ecipher == null) {
+            ecipher = getCipher();
+        }
+        try {
+            String metadata = encryptWithCipher(inputStream, encryptOffset, iv, outputStream);
+            success = true;
+            return metadata;
+        } finally {
+            CryptoEnginePool.releaseCipher(ecipher, transformation, provider);
+            ecipher = null;
+            recordOperation(startTime, success);
+        }
+    }
+
+    @Override
+    public final String encrypt(final byte[] input, final int offset, final int length, final ByteBuffer output)
+            throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input data.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (offset < 0 || length < 0 || offset > input.length - length) {
+            String msg = "Invalid offset " + offset + " or length " + length + " of input data of " + input.length + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        return encrypt(ByteBuffer.wrap(input, offset, length), 0, null, output);
+    }
+
+    @Override
+    public final String encrypt(final ByteBuffer input, final ByteBuffer output) throws KmcCryptoException {
+        return encrypt(input, 0, null, output);
+    }
+
+    @Override
+    public final String encrypt(final ByteBuffer input, final int encryptOffset,
+            final String iv, final ByteBuffer output) throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input buffer.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (output == null || output.isReadOnly()) {
+            String msg = "Null or read-only output buffer.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        checkEncryptOffset(encryptOffset);
+        int length = input.remaining();
+        if (length > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+            String msg = "Input data exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (length < encryptOffset) {
+            String msg = "Input data has " + length + " bytes, less than the encryptOffset " + encryptOffset;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        // consistent with the empty input stream
+        if (length == 0) {
+            String msg = "Input data for encryption cannot be empty.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+
+        long startTime = System.nanoTime();
+        boolean success = false;
+        if (ecipher == null) {
+            ecipher = getCipher();
+        }
+        try {
+            String metadata = encryptBuffer(input, encryptOffset, iv, output);
+            success = true;
+            return metadata;
+        } finally {
+            CryptoEnginePool.releaseCipher(ecipher, transformation, provider);
+            ecipher = null;
+            recordOperation(startTime, success);
+        }
+    }
+
+    private void recordOperation(final long startTime, final boolean success) {
+        KmcCryptoManager.getCryptoMetrics().recordOperation(CryptoMetrics.ENCRYPT, transformation,
+                success ? processedBytes : 0, System.nanoTime() - startTime, success);
+    }
+
+    @Override
+    public final String encrypt(final Path input, final Path output) throws KmcCryptoException {
+        return encrypt(input, 0, null, output);
+    }
+
+    @Override
+    public final String encrypt(final Path input, final int encryptOffset, final String iv, final Path output)
+            throws KmcCryptoException {
+        ByteBuffer inputBuffer = CryptoLibraryUtilities.mapInputFile(input);
+        return CryptoLibraryUtilities.writeOutputFile(input, output, getOutputSize(inputBuffer.remaining()),
+                outputBuffer -> encrypt(inputBuffer, encryptOffset, iv, outputBuffer));
+    }
+
+    @Override
+    public final int getOutputSize(final int length) {
+        if ("RSA".equals(keyAlgorithm)) {
+            // the size of the RSA modulus
+            return (keyLength + BYTE_SIZE - 1) / BYTE_SIZE;
+        }
+        if (transformation.contains("/GCM/")) {
+            int segments = 1;
+            int segmentSize = getSegmentSize();
+            if (segmentSize > 0) {
+                segments = Math.max(1, (length + segmentSize - 1) / segmentSize);
+            }
+            return length + segments * (getTagLength() / BYTE_SIZE);
+        }
+        if (transformation.endsWith("/NoPadding")) {
+            return length;
+        }
+        // PKCS5Padding always adds 1 to a block of padding
+        int blockSize = "AES".equals(keyAlgorithm) ? AES_BLOCK_SIZE : TRIPLE_DES_BLOCK_SIZE;
+        return (length / blockSize + 1) * blockSize;
+    }
+
+    /**
+     * Returns the AES-GCM tag length in bits.
+     * @return the tag length in bits.
+     */
+    private int getTagLength() {
+        if (cryptoManager.getMacLength() != -1) {
+            return cryptoManager.getMacLength();
+        }
+        return DEFAULT_GCM_TAG_LENGTH;
+    }
+
+    /**
+     * Returns the segment size if AES-GCM encryption is segmented, otherwise -1.
+     * @return the segment size in bytes or -1.
+     */
+    private int getSegmentSize() {
+        if (transformation.contains("/GCM/")) {
+            return cryptoManager.getEncryptionSegmentSize();
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the metadata of the encryption, which is complete once the cipher is initialized.
+     * @return the encryption metadata.
+     */
+    private EncryptionMetadata createMetadata(final int encryptOffset, final int segmentSize) {
+        EncryptionMetadata metadata = new EncryptionMetadata(keyRef, keyAlgorithm);
+        metadata.addEncryptionAttributes(keyLength, transformation, encryptOffset,
+                ecipher.getIV(), cryptoManager.getMacLength());
+        if (segmentSize > 0) {
+            metadata.addSegmentSize(segmentSize);
+        }
+        return metadata;
+    }
+
+    private void checkEncryptOffset(final int encryptOffset) throws KmcCryptoException {
         if (encryptOffset < 0 || encryptOffset > KmcCryptoManager.MAX_CRYPTO_SIZE) {
             String msg = "encryptOffset less than 0 or exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
             logger.error(msg);
@@ -403,7 +581,13 @@ public class EncrypterLibrary implements Encrypter {
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
         }
+    }
 
+    /**
+     * Initializes the cipher for the key algorithm with the IV.
+     * @throws KmcCryptoException if error occurs during initialization.
+     */
+    private void initCipher(final String iv) throws KmcCryptoException {
         String algorithm = key.getAlgorithm();
         if ("AES".equals(algorithm)) {
             if (transformation.contains("/GCM/")) {
@@ -421,12 +605,30 @@ public class EncrypterLibrary implements Encrypter {
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, null);
         }
         logger.debug("Cipher initialized for encryption algorithm: " + algorithm);
+    }
 
+    private String encryptWithCipher(final InputStream inputStream, final int encryptOffset,
+            final String iv, final OutputStream outputStream) throws KmcCryptoException {
+        initCipher(iv);
+
+        int segmentSize = getSegmentSize();
+        EncryptionMetadata metadata = createMetadata(encryptOffset, segmentSize);
+        if (outputStream instanceof EncryptionMetadataSink) {
+            ((EncryptionMetadataSink) outputStream).setEncryptionMetadata(metadata.toString());
+        }
+
+        byte[] aad = null;
         if (encryptOffset > 0) {
-            processAad(inputStream, outputStream, encryptOffset);
+            aad = processAad(inputStream, outputStream, encryptOffset);
+        }
+        int totalEncrypted;
+        if (segmentSize > 0) {
+            totalEncrypted = processSegmentedEncryption(inputStream, outputStream, aad, segmentSize);
+        } else {
+            totalEncrypted = processEncryption(inputStream, outputStream, encryptOffset);
         }
-        int totalEncrypted = processEncryption(inputStream, outputStream, encryptOffset);
         logger.info("encrypt() total number of bytes encrypted = {}", totalEncrypted);
+        processedBytes = (long) encryptOffset + totalEncrypted;
 
         if (encryptOffset > 0) {
             audit.info("EncrypterLibrary: User encrypted {} bytes of data using {} with key length {}, and AAD of {} bytes",
@@ -436,14 +638,80 @@ public class EncrypterLibrary implements Encrypter {
                 totalEncrypted, transformation, keyLength);
         }
 
-        EncryptionMetadata metadata = new EncryptionMetadata(keyRef, keyAlgorithm);
-        metadata.addEncryptionAttributes(keyLength, transformation, encryptOffset,
-                ecipher.getIV(), cryptoManager.getMacLength());
         logger.info("encrypt() metadata: " + metadata);
         return metadata.toString();
     }
 
-    private final void processAad(final InputStream inputStream, final OutputStream outputStream,
+    private String encryptBuffer(final ByteBuffer input, final int encryptOffset,
+            final String iv, final ByteBuffer output) throws KmcCryptoException {
+        initCipher(iv);
+
+        int segmentSize = getSegmentSize();
+        EncryptionMetadata metadata = createMetadata(encryptOffset, segmentSize);
+
+        int dataLength = input.remaining() - encryptOffset;
+        SegmentedGcmCipher segmentedCipher = null;
+        int outputSize;
+        if (segmentSize > 0) {
+            segmentedCipher = new SegmentedGcmCipher(Cipher.ENCRYPT_MODE, key, transformation, provider,
+                    ecipher.getIV(), getTagLength(), segmentSize);
+            outputSize = encryptOffset + segmentedCipher.getOutputSize(dataLength);
+        } else {
+            outputSize = encryptOffset + ecipher.getOutputSize(dataLength);
+        }
+        if (output.remaining() < outputSize) {
+            String msg = "Output buffer has " + output.remaining() + " bytes remaining, "
+                    + outputSize + " bytes are needed for the encrypted data.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        try {
+            // the Additional Associated Data (AAD) is authenticated and copied to the output
+            ByteBuffer aad = null;
+            if (encryptOffset > 0) {
+                aad = input.duplicate();
+                aad.limit(aad.position() + encryptOffset);
+                output.put(aad.duplicate());
+                input.position(input.position() + encryptOffset);
+            }
+            if (segmentedCipher == null) {
+                if (aad != null) {
+                    ecipher.updateAAD(aad);
+                }
+                ecipher.doFinal(input, output);
+            } else {
+                segmentedCipher.process(aad, input, output);
+            }
+        } catch (ShortBufferException | IllegalBlockSizeException | BadPaddingException e) {
+            // e.g. encrypting too much data with RSA keys
+            audit.info("EncrypterLibrary: Failed to encrypt data using {} with key length {}",
+                transformation, keyLength);
+            String msg = "Exception on encrypting data in buffer: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, e);
+        } catch (GeneralSecurityException e) {
+            audit.info("EncrypterLibrary: Failed to encrypt data using {} with key length {}",
+                transformation, keyLength);
+            String msg = "Exception on encrypting data segment: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        }
+        logger.info("encrypt() total number of bytes encrypted = {}", dataLength);
+        processedBytes = (long) encryptOffset + dataLength;
+
+        if (encryptOffset > 0) {
+            audit.info("EncrypterLibrary: User encrypted {} bytes of data using {} with key length {}, and AAD of {} bytes",
+                    dataLength, transformation, keyLength, encryptOffset);
+        } else {
+            audit.info("EncrypterLibrary: User encrypted {} bytes of data using {} with key length {}",
+                dataLength, transformation, keyLength);
+        }
+
+        logger.info("encrypt() metadata: " + metadata);
+        return metadata.toString();
+    }
+
+    private final byte[] processAad(final InputStream inputStream, final OutputStream outputStream,
             final int encryptOffset) throws KmcCryptoException {
         // process the Additional Associated Data (AAD)
         byte[] data = new byte[encryptOffset];
@@ -467,6 +735,7 @@ public class EncrypterLibrary implements Encrypter {
             outputStream.write(data);
             ecipher.updateAAD(data);
             logger.debug("encryptWithAad() Finished processing {} bytes of AAD", totalBytes);
+            return data;
         } catch (IOException e) {
             audit.info("EncrypterLibrary: Failed to process additional associated data using {} with key length {}",
                 transformation, keyLength);
@@ -482,22 +751,10 @@ public class EncrypterLibrary implements Encrypter {
         int totalBytes = 0;
         byte[] data = new byte[BUFFER_SIZE];
         try {
-            // We can't accept empty input because it produces empty output stream.
-            // Then we can't distinguish if it's an error or not
-            // (CipherOutputStream is empty if error).  But empty input is ok if there is AAD,
-            // then the CipherOutputStream will not be empty.
-            int available = inputStream.available();
-            logger.debug("processEncryption() inputStream available bytes =  " + available);
-            if (available == 0) {
-                if (encryptOffset == 0) {
-                    String msg = "Input stream for encryption cannot be empty.";
-                    logger.error(msg);
-                    throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
-                } else {
-                    cos.write(data, 0, 0);
-                }
-            }
-            while (inputStream.available() > 0) {
+            // Read until the end of stream.  available() only tells what can be read without
+            // blocking, which is 0 for a network stream (e.g. a servlet request) whose data
+            // has not arrived yet.
+            while (true) {
                 if (totalBytes > KmcCryptoManager.MAX_CRYPTO_SIZE) {
                     String msg = "Inupt stream exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
                     logger.error(msg);
@@ -514,6 +771,15 @@ public class EncrypterLibrary implements Encrypter {
                 totalBytes = totalBytes + nData;
                 cos.write(data, 0, nData);
             }
+            // We can't accept empty input because it produces empty output stream.
+            // Then we can't distinguish if it's an error or not
+            // (CipherOutputStream is empty if error).  But empty input is ok if there is AAD,
+            // then the CipherOutputStream will not be empty.
+            if (totalBytes == 0 && encryptOffset == 0) {
+                String msg = "Input stream for encryption cannot be empty.";
+                logger.error(msg);
+                throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+            }
             logger.debug("processEncryption() encrypted {} bytes of data", totalBytes);
             //cos.flush();
             closeStream(cos);
@@ -539,6 +805,37 @@ public class EncrypterLibrary implements Encrypter {
         return totalBytes;
     }
 
+    private int processSegmentedEncryption(final InputStream inputStream, final OutputStream outputStream,
+            final byte[] aad, final int segmentSize) throws KmcCryptoException {
+        SegmentedGcmCipher segmentedCipher = new SegmentedGcmCipher(Cipher.ENCRYPT_MODE, key, transformation,
+                provider, ecipher.getIV(), getTagLength(), segmentSize);
+        try {
+            long totalBytes = segmentedCipher.process(aad == null ? null : ByteBuffer.wrap(aad),
+                    inputStream, outputStream);
+            logger.debug("processSegmentedEncryption() encrypted {} bytes of data in segments of {} bytes",
+                    totalBytes, segmentSize);
+            return (int) totalBytes;
+        } catch (KmcCryptoException e) {
+            logger.error(e.getMessage());
+            throw e;
+        } catch (GeneralSecurityException e) {
+            audit.info("EncrypterLibrary: Failed to encrypt data using {} with key length {}",
+                transformation, keyLength);
+            String msg = "Exception on encrypting data segment: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } catch (IOException e) {
+            audit.info("EncrypterLibrary: Failed to encrypt data using {} with key length {}",
+                transformation, keyLength);
+            String msg = "Exception on encrypting data in i/o stream: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } finally {
+            closeStream(outputStream);
+            closeStream(inputStream);
+        }
+    }
+
     private void closeStream(final Closeable stream) {
         try {
             if (stream != null) {
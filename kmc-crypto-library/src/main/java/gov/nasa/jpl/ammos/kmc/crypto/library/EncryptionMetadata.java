@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
 
 /**
  * This is a subclass of CryptoMetadata for Encryption.
@@ -19,6 +20,7 @@ class EncryptionMetadata extends CryptoMetadata {
     static final String TRANSFORMATION_ATTR = "cipherTransformation";
     static final String INITIAL_VECTOR_ATTR = "initialVector";
     static final String ENCRYPT_OFFSET_ATTR = "encryptOffset";
+    static final String SEGMENT_SIZE_ATTR = "segmentSize";
 
     private static final Logger logger = LoggerFactory.getLogger(EncryptionMetadata.class);
 
@@ -63,6 +65,15 @@ class EncryptionMetadata extends CryptoMetadata {
         }
     }
 
+    /**
+     * Adds the segment size of segmented AES-GCM encryption to the metadata.
+     *
+     * @param segmentSize The number of bytes of data in a segment.
+     */
+    void addSegmentSize(final int segmentSize) {
+        addAttribute(SEGMENT_SIZE_ATTR, String.valueOf(segmentSize));
+    }
+
     /**
      * Returns the length of the key (number of bits) in the metadata.
      * @return the length of the key (number of bits) in the metadata.
@@ -102,6 +113,31 @@ class EncryptionMetadata extends CryptoMetadata {
         }
     }
 
+    /**
+     * Returns the segment size of segmented AES-GCM encryption in the metadata or -1 if not exist.
+     * @return The segment size in the metadata or -1 if not exist.
+     * @exception KmcCryptoException if the segment size is not an integer between
+     * {@link KmcCryptoManager#MIN_ENCRYPTION_SEGMENT_SIZE} and {@link KmcCryptoManager#MAX_ENCRYPTION_SEGMENT_SIZE}.
+     */
+    int getSegmentSize() throws KmcCryptoException {
+        String segmentSize = getValue(SEGMENT_SIZE_ATTR);
+        if (segmentSize == null) {
+            return -1;
+        }
+        try {
+            int size = Integer.parseInt(segmentSize);
+            if (size >= KmcCryptoManager.MIN_ENCRYPTION_SEGMENT_SIZE
+                    && size <= KmcCryptoManager.MAX_ENCRYPTION_SEGMENT_SIZE) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error
+        }
+        String error = "Invalid segment size (" + segmentSize + ") in metadata.";
+        logger.error(error);
+        throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_METADATA_ERROR, error, null);
+    }
+
     /**
      * Returns the initial vector in the metadata.
      * @return The initial vector in the metadata.
@@ -3,6 +3,9 @@ package gov.nasa.jpl.ammos.kmc.crypto.library;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.MessageDigest;
@@ -19,6 +22,7 @@ import javax.crypto.SecretKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.nasa.jpl.ammos.kmc.crypto.CryptoMetrics;
 import gov.nasa.jpl.ammos.kmc.crypto.IcvCreator;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
@@ -32,12 +36,18 @@ public class IcvCreatorLibrary implements IcvCreator {
     private static final int BUFFER_SIZE = 1024;
     private static final int BYTE_SIZE = 8;
 
+    // The MessageDigest, Mac or Signature is obtained from CryptoEnginePool
+    // and returned to it after each integrity check.
     // Message Digest for integrity check
     private MessageDigest mdIcv;
     // Message Authentication Code for integrity check
     private Mac macIcv;
+    private Key macKey;
     // Digital Signature for integrity check
     private Signature dsIcv;
+    // bytes of the input data processed by the last ICV creation, for the CryptoMetrics
+    private long processedBytes;
+    private PrivateKey signKey;
 
     private final KmcCryptoManager cryptoManager;
     private KeyServiceClient keyClient;
@@ -306,12 +316,10 @@ public class IcvCreatorLibrary implements IcvCreator {
             }
         }
         try {
-            if (provider == null) {
-                return MessageDigest.getInstance(algorithm);
-            } else {
+            if (provider != null) {
                 logger.info("Provider " + provider + " is used for Message Digest algorithm " + algorithm);
-                return MessageDigest.getInstance(algorithm, provider);
             }
+            return CryptoEnginePool.getMessageDigest(algorithm, provider);
         } catch (NoSuchProviderException e) {
             String msg = "Invalid provider " + provider + " for Message Digest algorithm " + algorithm;
             logger.error(msg + ": " + e);
@@ -363,11 +371,9 @@ public class IcvCreatorLibrary implements IcvCreator {
 
         Mac mac;
         try {
-            if (provider == null) {
-                mac = Mac.getInstance(algorithm);
-            } else {
-                mac = Mac.getInstance(algorithm, provider);
-            }
+            // a Mac from the pool may already be initialized with the key
+            mac = CryptoEnginePool.getMac(algorithm, provider, key);
+            macKey = key;
         } catch (NoSuchAlgorithmException e) {
             String msg;
             if (provider == null) {
@@ -381,10 +387,6 @@ public class IcvCreatorLibrary implements IcvCreator {
             String msg = "Invalid provider " + provider + " for MAC algorithm " + algorithm;
             logger.error(msg + ": " + e);
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
-        }
-
-        try {
-            mac.init(key);
         } catch (InvalidKeyException e) {
             String message = "Exception occurred in initializing Mac: " + e;
             logger.error(message);
@@ -423,12 +425,10 @@ public class IcvCreatorLibrary implements IcvCreator {
 
         Signature signature;
         try {
-            if (provider == null) {
-                signature = Signature.getInstance(algorithm);
-            } else {
+            if (provider != null) {
                 logger.info("Provider " + provider + " is used for Digital Signature algorithm " + algorithm);
-                signature = Signature.getInstance(algorithm, provider);
             }
+            signature = CryptoEnginePool.getSignature(algorithm, provider);
         } catch (NoSuchAlgorithmException e) {
             String msg;
             if (provider == null) {
@@ -445,6 +445,7 @@ public class IcvCreatorLibrary implements IcvCreator {
         }
         try {
             signature.initSign(privateKey);
+            signKey = privateKey;
         } catch (InvalidKeyException e) {
             String msg = "Exception in initializing Signature";
             logger.error(msg + ": " + e);
@@ -453,6 +454,65 @@ public class IcvCreatorLibrary implements IcvCreator {
         return signature;
     }
 
+    /**
+     * Gets the MessageDigest, Mac or Signature from the {@link CryptoEnginePool} again
+     * after it was returned at the end of the previous integrity check.
+     * @throws KmcCryptoException if error creating or initializing the engine.
+     */
+    private void getIcvEngine() throws KmcCryptoException {
+        try {
+            if (macKey != null) {
+                macIcv = CryptoEnginePool.getMac(algorithm, provider, macKey);
+            } else if (signKey != null) {
+                dsIcv = CryptoEnginePool.getSignature(algorithm, provider);
+                dsIcv.initSign(signKey);
+            } else {
+                mdIcv = CryptoEnginePool.getMessageDigest(algorithm, provider);
+            }
+        } catch (GeneralSecurityException e) {
+            String msg = "Exception in creating ICV algorithm " + algorithm + ": " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        }
+    }
+
+    /**
+     * Creates the IcvTreeHash if the integrity check is tree-hashed, with the parameters in the metadata
+     * for verification, or the configured chunk size otherwise.
+     * @return the IcvTreeHash, or null if the integrity check is not tree-hashed.
+     * @throws KmcCryptoException if the tree parameters in the metadata are invalid.
+     */
+    private IcvTreeHash createTreeHash() throws KmcCryptoException {
+        int chunkSize;
+        int fanout;
+        if (metadata == null) {
+            chunkSize = cryptoManager.getIcvChunkSize();
+            fanout = IcvTreeHash.DEFAULT_FANOUT;
+        } else {
+            chunkSize = metadata.getIcvChunkSize();
+            fanout = metadata.getIcvTreeFanout();
+        }
+        if (chunkSize <= 0) {
+            return null;
+        }
+        if (dsIcv == null) {
+            return new IcvTreeHash(algorithm, provider, macKey, chunkSize, fanout);
+        }
+        // the signature is created from the tree of digests of the signature algorithm
+        String digestAlgorithm = IcvTreeHash.getSignatureDigestAlgorithm(algorithm);
+        return new IcvTreeHash(digestAlgorithm, cryptoManager.getAlgorithmProvider(digestAlgorithm),
+                null, chunkSize, fanout);
+    }
+
+    private void releaseIcvEngine() {
+        CryptoEnginePool.releaseMessageDigest(mdIcv, algorithm, provider);
+        CryptoEnginePool.releaseMac(macIcv, algorithm, provider, macKey);
+        CryptoEnginePool.releaseSignature(dsIcv, algorithm, provider);
+        mdIcv = null;
+        macIcv = null;
+        dsIcv = null;
+    }
+
     @Override
     public final String createIntegrityCheckValue(final InputStream inputStream) throws KmcCryptoException {
         if (inputStream == null) {
@@ -461,45 +521,148 @@ public class IcvCreatorLibrary implements IcvCreator {
             throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
         }
 
+        long startTime = System.nanoTime();
+        boolean success = false;
+        if (mdIcv == null && macIcv == null && dsIcv == null) {
+            getIcvEngine();
+        }
+        try {
+            String metadata = createIcv(inputStream);
+            success = true;
+            return metadata;
+        } finally {
+            releaseIcvEngine();
+            recordOperation(startTime, success);
+        }
+    }
+
+    @Override
+    public final String createIntegrityCheckValue(final byte[] input, final int offset, final int length)
+            throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input data.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (offset < 0 || length < 0 || offset > input.length - length) {
+            String msg = "Invalid offset " + offset + " or length " + length + " of input data of " + input.length + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        return createIntegrityCheckValue(ByteBuffer.wrap(input, offset, length));
+    }
+
+    @Override
+    public final String createIntegrityCheckValue(final ByteBuffer input) throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input buffer.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (input.remaining() > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+            String msg = "Input data exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        // Not to accept empty input so that it's consistent with Encrypter.
+        if (!input.hasRemaining()) {
+            String msg = "Input data cannot be empty.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+
+        long startTime = System.nanoTime();
+        boolean success = false;
+        if (mdIcv == null && macIcv == null && dsIcv == null) {
+            getIcvEngine();
+        }
+        try {
+            int totalBytes = input.remaining();
+            IcvTreeHash treeHash = createTreeHash();
+            if (treeHash == null) {
+                updateIcv(input);
+            } else {
+                updateIcv(ByteBuffer.wrap(treeHash.hash(input)));
+                input.position(input.limit());
+            }
+            logger.info("createIntegrityCheckValue() total number of bytes in data = " + totalBytes);
+            byte[] icvBytes = computeIcv();
+            audit.info("IcvCreatorLibrary: User created ICV for " + totalBytes + " bytes of data using algorithm " + algorithm);
+            processedBytes = totalBytes;
+            String metadata = createMetadata(icvBytes, treeHash);
+            success = true;
+            return metadata;
+        } catch (SignatureException e) {
+            audit.info("IcvCreatorLibrary: User failed to create ICV using algorithm " + algorithm);
+            String msg = "Exception in generating signature: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } catch (GeneralSecurityException e) {
+            audit.info("IcvCreatorLibrary: User failed to create ICV using algorithm " + algorithm);
+            String msg = "Exception in tree hashing the data: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } finally {
+            releaseIcvEngine();
+            recordOperation(startTime, success);
+        }
+    }
+
+    private void recordOperation(final long startTime, final boolean success) {
+        // the ICV created for verification is recorded as the verification
+        String operation = metadata == null ? CryptoMetrics.ICV_CREATE : CryptoMetrics.ICV_VERIFY;
+        KmcCryptoManager.getCryptoMetrics().recordOperation(operation, algorithm,
+                success ? processedBytes : 0, System.nanoTime() - startTime, success);
+    }
+
+    @Override
+    public final String createIntegrityCheckValue(final Path file) throws KmcCryptoException {
+        return createIntegrityCheckValue(CryptoLibraryUtilities.mapInputFile(file));
+    }
+
+    private String createIcv(final InputStream inputStream) throws KmcCryptoException {
         byte[] icvBytes;
+        IcvTreeHash treeHash = null;
         byte[] data = new byte[BUFFER_SIZE];
         try {
+            int totalBytes = 0;
+            treeHash = createTreeHash();
+            if (treeHash != null) {
+                byte[] rootInput = treeHash.hash(inputStream);
+                totalBytes = (int) treeHash.getTotalBytes();
+                updateIcv(ByteBuffer.wrap(rootInput));
+            } else {
+                while (true) {
+                    if (totalBytes > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+                        String msg = "Inupt stream exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+                        logger.error(msg);
+                        throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+                    }
+                    int nData = inputStream.read(data);
+                    if (nData == -1) {
+                        break;
+                    }
+                    logger.trace("createIntegrityCheckValue() read " + nData + " bytes.");
+                    if (mdIcv != null) {
+                        mdIcv.update(data, 0, nData);
+                    } else if (macIcv != null) {
+                        macIcv.update(data, 0, nData);
+                    } else {
+                        dsIcv.update(data, 0, nData);
+                    }
+                    totalBytes = totalBytes + nData;
+                }
+            }
             // Not to accept empty input so that it's consistent with Encrypter.
-            if (inputStream.available() == 0) {
+            if (totalBytes == 0) {
                 String msg = "Input stream cannot be empty.";
                 logger.error(msg);
                 throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
             }
-            int totalBytes = 0;
-            while (true) {
-                if (totalBytes > KmcCryptoManager.MAX_CRYPTO_SIZE) {
-                    String msg = "Inupt stream exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
-                    logger.error(msg);
-                    throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
-                }
-                int nData = inputStream.read(data);
-                if (nData == -1) {
-                    break;
-                }
-                logger.trace("createIntegrityCheckValue() read " + nData + " bytes.");
-                if (mdIcv != null) {
-                    mdIcv.update(data, 0, nData);
-                } else if (macIcv != null) {
-                    macIcv.update(data, 0, nData);
-                } else {
-                    dsIcv.update(data, 0, nData);
-                }
-                totalBytes = totalBytes + nData;
-            }
             logger.info("createIntegrityCheckValue() total number of bytes in data = " + totalBytes);
-            if (mdIcv != null) {
-                icvBytes = mdIcv.digest();
-            } else if (macIcv != null) {
-                icvBytes = macIcv.doFinal();
-            } else {
-                icvBytes = dsIcv.sign();
-            }
+            icvBytes = computeIcv();
             audit.info("IcvCreatorLibrary: User created ICV for " + totalBytes + " bytes of data using algorithm " + algorithm);
+            processedBytes = totalBytes;
         } catch (SignatureException e) {
             audit.info("IcvCreatorLibrary: User failed to create ICV using algorithm " + algorithm);
             String msg = "Exception in generating signature: " + e;
@@ -510,10 +673,38 @@ public class IcvCreatorLibrary implements IcvCreator {
             String msg = "Exception in reading the input stream: " + e;
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } catch (GeneralSecurityException e) {
+            audit.info("IcvCreatorLibrary: User failed to create ICV using algorithm " + algorithm);
+            String msg = "Exception in tree hashing the data: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
         } finally {
             closeStream(inputStream);
         }
+        return createMetadata(icvBytes, treeHash);
+    }
+
+    private void updateIcv(final ByteBuffer input) throws SignatureException {
+        if (mdIcv != null) {
+            mdIcv.update(input);
+        } else if (macIcv != null) {
+            macIcv.update(input);
+        } else {
+            dsIcv.update(input);
+        }
+    }
 
+    private byte[] computeIcv() throws SignatureException {
+        if (mdIcv != null) {
+            return mdIcv.digest();
+        } else if (macIcv != null) {
+            return macIcv.doFinal();
+        } else {
+            return dsIcv.sign();
+        }
+    }
+
+    private String createMetadata(final byte[] icvBytes, final IcvTreeHash treeHash) throws KmcCryptoException {
         int macLength = cryptoManager.getMacLength();
         if (macLength > icvBytes.length * 8) {
             String error = "Requested MAC length (" + macLength
@@ -528,6 +719,9 @@ public class IcvCreatorLibrary implements IcvCreator {
         } else {
             icvMetadata = new IntegrityCheckMetadata(keyRef, algorithm, macLength, icvBytes);
         }
+        if (treeHash != null) {
+            icvMetadata.addTreeHashAttributes(treeHash.getChunkSize(), treeHash.getFanout());
+        }
         logger.info("createIntegrityCheckValue() metadata = {}", icvMetadata);
         return icvMetadata.toString();
     }
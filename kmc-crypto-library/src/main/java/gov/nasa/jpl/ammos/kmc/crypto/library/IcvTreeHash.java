@@ -0,0 +1,305 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import javax.crypto.Mac;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+
+/**
+ * Tree hashing of the data for integrity check, which hashes the chunks of the data in parallel.
+ * <p>
+ * The data are divided into chunks of chunkSize bytes, the last chunk can be shorter.  The leaves
+ * of the tree are the digests (or MACs with the key) of a 0x00 byte followed by a chunk.  While there
+ * are more than fanout nodes in a level, each group of fanout nodes is hashed, with a 0x01 byte in front,
+ * into a node of the next level.  The ICV algorithm (Message Digest, MAC or Digital Signature) is then
+ * applied to a 0x01 byte followed by the nodes of the top level, instead of to the data.
+ * </p>
+ * <p>
+ * The leaves are computed on the common {@link ForkJoinPool}, each with a MessageDigest or Mac
+ * from the {@link CryptoEnginePool} of the worker thread.  A buffer input, such as a memory-mapped
+ * file, is hashed in place without copying.
+ * </p>
+ *
+ */
+final class IcvTreeHash {
+    /**
+     * Maximum number of children of a node of the tree created by IcvCreator.
+     */
+    static final int DEFAULT_FANOUT = 256;
+
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    private final String algorithm;
+    private final String provider;
+    private final Key key;
+    private final int chunkSize;
+    private final int fanout;
+    private long totalBytes;
+
+    private static final Logger logger = LoggerFactory.getLogger(IcvTreeHash.class);
+
+    /**
+     * Constructor of the IcvTreeHash.
+     * @param algorithm the Message Digest or MAC algorithm for hashing the nodes.
+     * @param provider the provider name, or null for the preferred provider.
+     * @param key the MAC key, or null for Message Digest.
+     * @param chunkSize the number of bytes of data in a leaf.
+     * @param fanout the maximum number of children of a node.
+     */
+    IcvTreeHash(final String algorithm, final String provider, final Key key,
+            final int chunkSize, final int fanout) {
+        this.algorithm = algorithm;
+        this.provider = provider;
+        this.key = key;
+        this.chunkSize = chunkSize;
+        this.fanout = fanout;
+    }
+
+    /**
+     * Returns the Message Digest algorithm of the Digital Signature algorithm,
+     * e.g. SHA-256 of SHA256withRSA, for hashing the nodes of the tree.
+     * @param signatureAlgorithm the Digital Signature algorithm.
+     * @return the Message Digest algorithm.
+     * @throws KmcCryptoException if the algorithm name does not name its digest, e.g. RSASSA-PSS.
+     */
+    static String getSignatureDigestAlgorithm(final String signatureAlgorithm) throws KmcCryptoException {
+        int index = signatureAlgorithm.indexOf("with");
+        if (index <= 0) {
+            String msg = "Tree-hashed integrity check requires a Digital Signature algorithm of the form "
+                    + "<digest>with<encryption>, not " + signatureAlgorithm;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, null);
+        }
+        String digest = signatureAlgorithm.substring(0, index);
+        if (digest.startsWith("SHA") && digest.length() > 3 && Character.isDigit(digest.charAt(3))) {
+            digest = "SHA-" + digest.substring(3);
+        }
+        return digest;
+    }
+
+    /**
+     * Returns the number of bytes of data in a leaf.
+     * @return the chunk size.
+     */
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the maximum number of children of a node.
+     * @return the fanout.
+     */
+    int getFanout() {
+        return fanout;
+    }
+
+    /**
+     * Returns the number of bytes of data hashed.
+     * @return number of bytes of data hashed.
+     */
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Hashes the remaining bytes of the input buffer, whose position is not changed.
+     * @param input the input buffer.
+     * @return the input of the ICV algorithm.
+     * @throws GeneralSecurityException if error in hashing a node.
+     */
+    byte[] hash(final ByteBuffer input) throws GeneralSecurityException {
+        int length = input.remaining();
+        int chunks = Math.max(1, (length + chunkSize - 1) / chunkSize);
+        List<ByteBuffer> chunkBuffers = new ArrayList<ByteBuffer>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            ByteBuffer chunk = input.duplicate();
+            chunk.position(input.position() + i * chunkSize);
+            chunk.limit(Math.min(input.limit(), chunk.position() + chunkSize));
+            chunkBuffers.add(chunk);
+        }
+        totalBytes = length;
+        return getRootInput(hashLeaves(chunkBuffers));
+    }
+
+    /**
+     * Hashes the input stream.  At most one chunk per thread of the pool is held in memory.
+     * @param inputStream the input stream, which is not closed.
+     * @return the input of the ICV algorithm.
+     * @throws KmcCryptoException if the input is too large.
+     * @throws GeneralSecurityException if error in hashing a node.
+     * @throws IOException if error in reading the input stream.
+     */
+    byte[] hash(final InputStream inputStream) throws KmcCryptoException, GeneralSecurityException, IOException {
+        int batchSize = Math.max(1, POOL.getParallelism());
+        byte[][] chunks = new byte[batchSize][chunkSize];
+        List<ByteBuffer> chunkBuffers = new ArrayList<ByteBuffer>(batchSize);
+        List<byte[]> leaves = new ArrayList<byte[]>();
+        totalBytes = 0;
+        boolean last = false;
+        while (!last) {
+            chunkBuffers.clear();
+            while (chunkBuffers.size() < batchSize && !last) {
+                int length = readChunk(inputStream, chunks[chunkBuffers.size()]);
+                last = length < chunkSize;
+                // an empty chunk is only hashed if the input is empty
+                if (length > 0 || totalBytes == 0 && leaves.isEmpty() && chunkBuffers.isEmpty()) {
+                    chunkBuffers.add(ByteBuffer.wrap(chunks[chunkBuffers.size()], 0, length));
+                }
+                totalBytes = totalBytes + length;
+            }
+            if (totalBytes > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+                String msg = "Inupt stream exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+                throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+            }
+            leaves.addAll(hashLeaves(chunkBuffers));
+        }
+        return getRootInput(leaves);
+    }
+
+    private static int readChunk(final InputStream inputStream, final byte[] chunk) throws IOException {
+        int length = 0;
+        while (length < chunk.length) {
+            int nData = inputStream.read(chunk, length, chunk.length - length);
+            if (nData == -1) {
+                break;
+            }
+            length = length + nData;
+        }
+        return length;
+    }
+
+    private List<byte[]> hashLeaves(final List<ByteBuffer> chunks) throws GeneralSecurityException {
+        List<ByteBuffer[]> nodes = new ArrayList<ByteBuffer[]>(chunks.size());
+        for (ByteBuffer chunk : chunks) {
+            nodes.add(new ByteBuffer[] {chunk});
+        }
+        return hashNodes(LEAF_PREFIX, nodes);
+    }
+
+    /**
+     * Hashes the levels of the tree until the top level has at most fanout nodes.
+     * @return NODE_PREFIX followed by the nodes of the top level.
+     */
+    private byte[] getRootInput(final List<byte[]> leaves) throws GeneralSecurityException {
+        List<byte[]> level = leaves;
+        while (level.size() > fanout) {
+            List<ByteBuffer[]> groups = new ArrayList<ByteBuffer[]>((level.size() + fanout - 1) / fanout);
+            for (int i = 0; i < level.size(); i = i + fanout) {
+                List<byte[]> children = level.subList(i, Math.min(level.size(), i + fanout));
+                ByteBuffer[] group = new ByteBuffer[children.size()];
+                for (int j = 0; j < group.length; j++) {
+                    group[j] = ByteBuffer.wrap(children.get(j));
+                }
+                groups.add(group);
+            }
+            level = hashNodes(NODE_PREFIX, groups);
+        }
+        int nodeSize = level.get(0).length;
+        ByteBuffer rootInput = ByteBuffer.allocate(1 + level.size() * nodeSize);
+        rootInput.put(NODE_PREFIX);
+        for (byte[] node : level) {
+            rootInput.put(node);
+        }
+        return rootInput.array();
+    }
+
+    /**
+     * Hashes the nodes in parallel, each node is the hash of the prefix followed by its parts.
+     * @return the hashes of the nodes in order.
+     */
+    private List<byte[]> hashNodes(final byte prefix, final List<ByteBuffer[]> nodes) throws GeneralSecurityException {
+        List<byte[]> hashes = new ArrayList<byte[]>(nodes.size());
+        if (nodes.size() == 1) {
+            hashes.add(hashNode(prefix, nodes.get(0)));
+            return hashes;
+        }
+        List<NodeTask> tasks = new ArrayList<NodeTask>(nodes.size());
+        for (ByteBuffer[] parts : nodes) {
+            NodeTask task = new NodeTask(prefix, parts);
+            tasks.add(task);
+            POOL.execute(task);
+        }
+        GeneralSecurityException failure = null;
+        for (NodeTask task : tasks) {
+            hashes.add(task.join());
+            if (failure == null) {
+                failure = task.failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return hashes;
+    }
+
+    private byte[] hashNode(final byte prefix, final ByteBuffer[] parts) throws GeneralSecurityException {
+        if (key == null) {
+            MessageDigest md = CryptoEnginePool.getMessageDigest(algorithm, provider);
+            try {
+                md.update(prefix);
+                for (ByteBuffer part : parts) {
+                    md.update(part.duplicate());
+                }
+                return md.digest();
+            } finally {
+                CryptoEnginePool.releaseMessageDigest(md, algorithm, provider);
+            }
+        } else {
+            Mac mac = CryptoEnginePool.getMac(algorithm, provider, key);
+            try {
+                mac.update(prefix);
+                for (ByteBuffer part : parts) {
+                    mac.update(part.duplicate());
+                }
+                return mac.doFinal();
+            } finally {
+                CryptoEnginePool.releaseMac(mac, algorithm, provider, key);
+            }
+        }
+    }
+
+    /**
+     * Hashes a node in the pool.
+     */
+    private final class NodeTask extends RecursiveTask<byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte prefix;
+        private final transient ByteBuffer[] parts;
+        private transient GeneralSecurityException failure;
+
+        NodeTask(final byte prefix, final ByteBuffer[] parts) {
+            this.prefix = prefix;
+            this.parts = parts;
+        }
+
+        @Override
+        protected byte[] compute() {
+            try {
+                return hashNode(prefix, parts);
+            } catch (GeneralSecurityException e) {
+                failure = e;
+                return null;
+            }
+        }
+    }
+
+}
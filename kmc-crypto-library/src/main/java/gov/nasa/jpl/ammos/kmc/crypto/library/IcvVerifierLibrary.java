@@ -3,6 +3,9 @@ package gov.nasa.jpl.ammos.kmc.crypto.library;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -15,6 +18,7 @@ import java.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.nasa.jpl.ammos.kmc.crypto.CryptoMetrics;
 import gov.nasa.jpl.ammos.kmc.crypto.IcvCreator;
 import gov.nasa.jpl.ammos.kmc.crypto.IcvVerifier;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
@@ -87,6 +91,61 @@ public class IcvVerifierLibrary implements IcvVerifier {
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
         }
+        return verify(inputStream, null, icvMetadata);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean verifyIntegrityCheckValue(final byte[] input, final int offset, final int length,
+            final String icvMetadata) throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input data.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (offset < 0 || length < 0 || offset > input.length - length) {
+            String msg = "Invalid offset " + offset + " or length " + length + " of input data of " + input.length + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        return verifyIntegrityCheckValue(ByteBuffer.wrap(input, offset, length), icvMetadata);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean verifyIntegrityCheckValue(final ByteBuffer input, final String icvMetadata)
+            throws KmcCryptoException {
+        if (input == null) {
+            String msg = "Null input buffer.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        if (input.remaining() > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+            String msg = "Input data exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        return verify(null, input, icvMetadata);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean verifyIntegrityCheckValue(final Path file, final String icvMetadata)
+            throws KmcCryptoException {
+        return verifyIntegrityCheckValue(CryptoLibraryUtilities.mapInputFile(file), icvMetadata);
+    }
+
+    /**
+     * Verifies the data of either the input stream or the input buffer.
+     */
+    private boolean verify(final InputStream inputStream, final ByteBuffer input, final String icvMetadata)
+            throws KmcCryptoException {
         if (icvMetadata == null) {
             String msg = "Null metadata.";
             logger.error(msg);
@@ -132,7 +191,7 @@ public class IcvVerifierLibrary implements IcvVerifier {
             }
 
             try {
-                byte[] icv = generateICV(inputStream, metadata);
+                byte[] icv = generateICV(inputStream, input, metadata);
                 result = Arrays.equals(icv, metadata.getIntegrityCheckValue());
                 if (result) {
                     audit.info("IcvVerifyLibrary: User verified data using ICV algorithm " + algorithm);
@@ -152,7 +211,7 @@ public class IcvVerifierLibrary implements IcvVerifier {
                 }
             }
         } else if (dsAlgorithm) {
-            result = verifyDigitalSignature(inputStream, metadata);
+            result = verifyDigitalSignature(inputStream, input, metadata);
             if (result) {
                 audit.info("IcvVerifyLibrary: User verified data using digital signature algorithm " + dsAlgorithm);
             } else {
@@ -169,12 +228,14 @@ public class IcvVerifierLibrary implements IcvVerifier {
 
     /**
      * Generate the ICV of the input data for verification.
-     * @param inputStream The data to be verified.
+     * @param inputStream The data to be verified, or null if the data is in the buffer.
+     * @param input The data to be verified, or null if the data is in the input stream.
      * @param keyRef The keyRef of the key for HMAC, null for Message Digest.
      * @return The ICV value in array of bytes.
      * @throws KmcCryptoException if error in input data or getting the IcvCreator.
      */
-    private byte[] generateICV(final InputStream inputStream, final IntegrityCheckMetadata metadata)
+    private byte[] generateICV(final InputStream inputStream, final ByteBuffer input,
+            final IntegrityCheckMetadata metadata)
             throws KmcCryptoException {
         IcvCreator icvCreator;
 
@@ -186,14 +247,20 @@ public class IcvVerifierLibrary implements IcvVerifier {
                     metadata, true);
         }
 
-        String metadataString = icvCreator.createIntegrityCheckValue(inputStream);
+        String metadataString;
+        if (input == null) {
+            metadataString = icvCreator.createIntegrityCheckValue(inputStream);
+        } else {
+            metadataString = icvCreator.createIntegrityCheckValue(input);
+        }
         IntegrityCheckMetadata verifyMetadata = new IntegrityCheckMetadata();
         verifyMetadata.parseMetadata(metadataString);
 
         return verifyMetadata.getIntegrityCheckValue();
     }
 
-    private boolean verifyDigitalSignature(final InputStream is, final IntegrityCheckMetadata metadata)
+    private boolean verifyDigitalSignature(final InputStream is, final ByteBuffer input,
+            final IntegrityCheckMetadata metadata)
             throws KmcCryptoException {
         String keyRef = metadata.getKeyRef();
         Key key;
@@ -250,12 +317,32 @@ public class IcvVerifierLibrary implements IcvVerifier {
             }
         }
 
+        long startTime = System.nanoTime();
+        boolean success = false;
         Signature digitalSignature = createDigitalSignature(publicKey, algorithm, provider);
 
         int totalBytes = 0;
         byte[] data = new byte[BUFFER_SIZE];
         try {
-            while (true) {
+            int chunkSize = metadata.getIcvChunkSize();
+            if (chunkSize > 0) {
+                // the signature is of the tree of digests of the data
+                String digestAlgorithm = IcvTreeHash.getSignatureDigestAlgorithm(algorithm);
+                IcvTreeHash treeHash = new IcvTreeHash(digestAlgorithm,
+                        cryptoManager.getAlgorithmProvider(digestAlgorithm), null,
+                        chunkSize, metadata.getIcvTreeFanout());
+                if (input != null) {
+                    digitalSignature.update(treeHash.hash(input));
+                    input.position(input.limit());
+                } else {
+                    digitalSignature.update(treeHash.hash(is));
+                }
+                totalBytes = (int) treeHash.getTotalBytes();
+            } else if (input != null) {
+                totalBytes = input.remaining();
+                digitalSignature.update(input);
+            }
+            while (is != null && chunkSize <= 0) {
                 if (totalBytes > KmcCryptoManager.MAX_CRYPTO_SIZE) {
                     String msg = "Inupt stream exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
                     logger.error(msg);
@@ -275,6 +362,7 @@ public class IcvVerifierLibrary implements IcvVerifier {
             } else {
                 audit.info("IcvVerifyLibrary: User failed to verify data using ICV algorithm " + algorithm);
             }
+            success = true;
             return result;
         } catch (SignatureException e) {
             audit.info("IcvVerifyLibrary: User failed to verify data using ICV algorithm " + algorithm);
@@ -286,20 +374,26 @@ public class IcvVerifierLibrary implements IcvVerifier {
             String msg = "Exception in reading/writing io stream: " + e;
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
+        } catch (GeneralSecurityException e) {
+            audit.info("IcvVerifyLibrary: User failed to verify data using ICV algorithm " + algorithm);
+            String msg = "Exception in tree hashing the data: " + e;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, msg, e);
         } finally {
             closeStream(is);
+            CryptoEnginePool.releaseSignature(digitalSignature, algorithm, provider);
+            KmcCryptoManager.getCryptoMetrics().recordOperation(CryptoMetrics.ICV_VERIFY, algorithm,
+                    success ? totalBytes : 0, System.nanoTime() - startTime, success);
         }
     }
 
     private Signature createDigitalSignature(final PublicKey key, final String algorithm, final String provider) throws KmcCryptoException {
         Signature signature;
         try {
-            if (provider == null) {
-                signature = Signature.getInstance(algorithm);
-            } else {
+            if (provider != null) {
                 logger.info("Provider " + provider + " is used for Digital Signature algorithm " + algorithm);
-                signature = Signature.getInstance(algorithm, provider);
             }
+            signature = CryptoEnginePool.getSignature(algorithm, provider);
         } catch (NoSuchAlgorithmException e) {
             String msg;
             if (provider == null) {
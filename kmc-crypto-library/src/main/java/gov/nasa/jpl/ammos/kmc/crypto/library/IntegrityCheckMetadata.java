@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
 
 /**
  * This is a subclass of CryptoMetadata for Integrity Check.
@@ -16,6 +17,8 @@ import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
 class IntegrityCheckMetadata extends CryptoMetadata {
 
     protected static final String INTEGRITY_CHECK_VALUE_ATTR = "integrityCheckValue";
+    protected static final String ICV_CHUNK_SIZE_ATTR = "icvChunkSize";
+    protected static final String ICV_TREE_FANOUT_ATTR = "icvTreeFanout";
 
     private static final Logger logger = LoggerFactory.getLogger(IntegrityCheckMetadata.class);
 
@@ -86,6 +89,17 @@ class IntegrityCheckMetadata extends CryptoMetadata {
         addAttribute(KEY_REF_ATTR, keyRef);
     }
 
+    /**
+     * Adds the parameters of tree-hashed integrity check to the metadata.
+     *
+     * @param chunkSize The number of bytes of data in a leaf of the tree.
+     * @param fanout The maximum number of children of a node of the tree.
+     */
+    void addTreeHashAttributes(final int chunkSize, final int fanout) {
+        addAttribute(ICV_CHUNK_SIZE_ATTR, String.valueOf(chunkSize));
+        addAttribute(ICV_TREE_FANOUT_ATTR, String.valueOf(fanout));
+    }
+
     @Override
     String getKeyRef() {
         return getValue(KEY_REF_ATTR);
@@ -112,6 +126,45 @@ class IntegrityCheckMetadata extends CryptoMetadata {
         }
     }
 
+    /**
+     * Returns the chunk size of tree-hashed integrity check in the metadata or -1 if not exist.
+     * @return The chunk size in the metadata or -1 if not exist.
+     * @exception KmcCryptoException if the chunk size is not an integer between
+     * {@link KmcCryptoManager#MIN_ICV_CHUNK_SIZE} and {@link KmcCryptoManager#MAX_ICV_CHUNK_SIZE}.
+     */
+    int getIcvChunkSize() throws KmcCryptoException {
+        return getPositiveInteger(ICV_CHUNK_SIZE_ATTR, KmcCryptoManager.MIN_ICV_CHUNK_SIZE,
+                KmcCryptoManager.MAX_ICV_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns the fanout of tree-hashed integrity check in the metadata or -1 if not exist.
+     * @return The fanout in the metadata or -1 if not exist.
+     * @exception KmcCryptoException if the fanout is not an integer greater than 1.
+     */
+    int getIcvTreeFanout() throws KmcCryptoException {
+        return getPositiveInteger(ICV_TREE_FANOUT_ATTR, 2, Integer.MAX_VALUE);
+    }
+
+    private int getPositiveInteger(final String attribute, final int minValue, final int maxValue)
+            throws KmcCryptoException {
+        String value = getValue(attribute);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            int intValue = Integer.parseInt(value);
+            if (intValue >= minValue && intValue <= maxValue) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error
+        }
+        String error = "Invalid " + attribute + " (" + value + ") in metadata.";
+        logger.error(error);
+        throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_METADATA_ERROR, error, null);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -133,6 +186,8 @@ class IntegrityCheckMetadata extends CryptoMetadata {
             error = "Missing integrity check value in metadata.";
         } else if (getKeyRef() == null && getCryptoAlgorithm().contains("Hmac")) {
             error = "Missing keyRef in metadata.";
+        } else if ((getIcvChunkSize() == -1) != (getIcvTreeFanout() == -1)) {
+            error = "Missing " + ICV_CHUNK_SIZE_ATTR + " or " + ICV_TREE_FANOUT_ATTR + " in metadata.";
         }
         if (error != null) {
             logger.error(error);
@@ -1,24 +1,178 @@
 package gov.nasa.jpl.ammos.kmc.crypto.library;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+
 /**
  * Cache keys retrieved from Key Management Service (KMS).
  *
+ * The cache holds at most key_cache_max_size keys, evicting the least recently used key
+ * when it is full.  A key expires key_cache_ttl minutes after it was retrieved from KMS,
+ * so that a key revoked or rotated in KMS is not used after its time-to-live.  A key that
+ * is used after key_cache_refresh_ahead percent of its time-to-live is reloaded from KMS
+ * in the background if a {@link KeyLoader} is given to {@link #getKey(String, KeyLoader)}.
+ *
+ * {@link #getOrLoadKey(String, KeyLoader)} loads a key that is not cached once for all
+ * threads asking for it at the same time, and remembers a failed load for
+ * key_cache_failure_backoff seconds so that a missing key does not flood KMS with requests.
+ *
+ * Cache hits are audited according to key_cache_audit_mode: a summary of the hits and misses
+ * of each keyRef every key_cache_audit_interval seconds (summary, the default), one in
+ * key_cache_audit_sample_rate hits (sampled), every hit written by a background thread (async),
+ * every hit (event), or not at all (none).
+ *
  *
  */
 public class KeyCache {
+    /**
+     * Config parameter for enabling the key cache, default true.
+     */
+    public static final String CFG_KEY_CACHE_ENABLE = "key_cache_enable";
+    /**
+     * Config parameter for the time-to-live of a cached key in minutes, default 1440.
+     */
+    public static final String CFG_KEY_CACHE_TTL = "key_cache_ttl";
+    /**
+     * Config parameter for the maximum number of cached keys, default 1000.
+     */
+    public static final String CFG_KEY_CACHE_MAX_SIZE = "key_cache_max_size";
+    /**
+     * Config parameter for the percentage of the time-to-live after which a used key is reloaded, default 80.
+     */
+    public static final String CFG_KEY_CACHE_REFRESH_AHEAD = "key_cache_refresh_ahead";
+    /**
+     * Config parameter for the seconds a failed key load is returned without asking KMS again, default 5.
+     */
+    public static final String CFG_KEY_CACHE_FAILURE_BACKOFF = "key_cache_failure_backoff";
+    /**
+     * Config parameter for auditing cache hits: none, summary, sampled, async, or event, default summary.
+     */
+    public static final String CFG_KEY_CACHE_AUDIT_MODE = "key_cache_audit_mode";
+    /**
+     * Config parameter for the seconds between audit summaries, default 60.
+     */
+    public static final String CFG_KEY_CACHE_AUDIT_INTERVAL = "key_cache_audit_interval";
+    /**
+     * Config parameter for auditing one in that many cache hits in sampled audit mode, default 100.
+     */
+    public static final String CFG_KEY_CACHE_AUDIT_SAMPLE_RATE = "key_cache_audit_sample_rate";
+
+    public static final boolean DEFAULT_KEY_CACHE_ENABLE = true;
+    public static final long DEFAULT_KEY_CACHE_TTL = 1440;
+    public static final int DEFAULT_KEY_CACHE_MAX_SIZE = 1000;
+    public static final int DEFAULT_KEY_CACHE_REFRESH_AHEAD = 80;
+    public static final long DEFAULT_KEY_CACHE_FAILURE_BACKOFF = 5;
+    public static final String DEFAULT_KEY_CACHE_AUDIT_MODE = "summary";
+    public static final long DEFAULT_KEY_CACHE_AUDIT_INTERVAL = 60;
+    public static final int DEFAULT_KEY_CACHE_AUDIT_SAMPLE_RATE = 100;
+
+    /**
+     * Loads a key from KMS, used for refreshing a cached key before it expires.
+     */
+    @FunctionalInterface
+    public interface KeyLoader {
+        /**
+         * Loads the key from KMS.
+         * @param keyRef The keyRef of the key.
+         * @return The key.
+         * @throws KmcCryptoException if error in retrieving the key.
+         */
+        KmcKey loadKey(String keyRef) throws KmcCryptoException;
+    }
+
+    /**
+     * The hit and miss counts of a keyRef.
+     */
+    public static final class KeyStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        /**
+         * @return the number of times the key was found in cache.
+         */
+        public long getHits() {
+            return hits.sum();
+        }
+
+        /**
+         * @return the number of times the key was not in cache or expired.
+         */
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + getHits() + ", misses=" + getMisses();
+        }
+    }
+
+    private static final class Entry {
+        private final KmcKey key;
+        private final long loadTime;
+        private volatile long accessTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(final KmcKey key, final long now) {
+            this.key = key;
+            this.loadTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    private static final class Failure {
+        private final KmcCryptoException exception;
+        private final long failTime;
+
+        Failure(final KmcCryptoException exception, final long now) {
+            this.exception = exception;
+            this.failTime = now;
+        }
+    }
+
     private static KeyCache instance;
-    private final ConcurrentHashMap<String, KmcKey> keyCache;
+    private final ConcurrentHashMap<String, Entry> keyCache;
+    private final ConcurrentHashMap<String, KeyStats> keyStats;
+    // keys being loaded from KMS, shared by all threads waiting for them
+    private final ConcurrentHashMap<String, CompletableFuture<KmcKey>> loading;
+    // recently failed loads
+    private final ConcurrentHashMap<String, Failure> failures;
+
+    private volatile boolean enabled = DEFAULT_KEY_CACHE_ENABLE;
+    private volatile long ttlNanos = TimeUnit.MINUTES.toNanos(DEFAULT_KEY_CACHE_TTL);
+    private volatile int maxSize = DEFAULT_KEY_CACHE_MAX_SIZE;
+    private volatile int refreshAhead = DEFAULT_KEY_CACHE_REFRESH_AHEAD;
+    private volatile long failureBackoffNanos = TimeUnit.SECONDS.toNanos(DEFAULT_KEY_CACHE_FAILURE_BACKOFF);
+    private ExecutorService refresher;
+    private final KeyCacheAudit keyCacheAudit;
 
     private static final Logger logger = LoggerFactory.getLogger(KeyCache.class);
     private static final Logger audit = LoggerFactory.getLogger("AUDIT");
 
     private KeyCache() {
-        keyCache = new ConcurrentHashMap<String, KmcKey>();
+        keyCache = new ConcurrentHashMap<String, Entry>();
+        keyStats = new ConcurrentHashMap<String, KeyStats>();
+        loading = new ConcurrentHashMap<String, CompletableFuture<KmcKey>>();
+        failures = new ConcurrentHashMap<String, Failure>();
+        keyCacheAudit = new KeyCacheAudit(this);
+        keyCacheAudit.configure(KeyCacheAudit.Mode.SUMMARY, DEFAULT_KEY_CACHE_AUDIT_INTERVAL,
+                DEFAULT_KEY_CACHE_AUDIT_SAMPLE_RATE);
     }
 
     public synchronized static KeyCache getInstance() {
@@ -28,21 +182,387 @@ public class KeyCache {
         return instance;
     }
 
-    public KmcKey getKey(String keyRef) {
-        KmcKey key = keyCache.get(keyRef);
-        if (key == null) {
+    /**
+     * Configures the cache from the key_cache_* config parameters.  Missing parameters keep their defaults.
+     * @param configParams The config parameters.
+     * @throws KmcCryptoException if a parameter value is invalid.
+     */
+    public void configure(final Properties configParams) throws KmcCryptoException {
+        String value = configParams.getProperty(CFG_KEY_CACHE_ENABLE);
+        if (value != null) {
+            setEnabled(Boolean.parseBoolean(value.trim()));
+        }
+        long ttl = getLongParameter(configParams, CFG_KEY_CACHE_TTL, DEFAULT_KEY_CACHE_TTL);
+        setTimeToLive(ttl, TimeUnit.MINUTES);
+        long size = getLongParameter(configParams, CFG_KEY_CACHE_MAX_SIZE, DEFAULT_KEY_CACHE_MAX_SIZE);
+        if (size < 1) {
+            String msg = "Invalid value of config parameter " + CFG_KEY_CACHE_MAX_SIZE + ": " + size;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, msg, null);
+        }
+        setMaxSize((int) size);
+        setRefreshAhead((int) getLongParameter(configParams, CFG_KEY_CACHE_REFRESH_AHEAD,
+                DEFAULT_KEY_CACHE_REFRESH_AHEAD));
+        setFailureBackoff(getLongParameter(configParams, CFG_KEY_CACHE_FAILURE_BACKOFF,
+                DEFAULT_KEY_CACHE_FAILURE_BACKOFF), TimeUnit.SECONDS);
+        String mode = configParams.getProperty(CFG_KEY_CACHE_AUDIT_MODE, DEFAULT_KEY_CACHE_AUDIT_MODE).trim();
+        KeyCacheAudit.Mode auditMode;
+        try {
+            auditMode = KeyCacheAudit.Mode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            String msg = "Invalid value of config parameter " + CFG_KEY_CACHE_AUDIT_MODE + ": " + mode
+                    + ".  Valid values are none, summary, sampled, async, and event.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, msg, e);
+        }
+        long sampleRate = getLongParameter(configParams, CFG_KEY_CACHE_AUDIT_SAMPLE_RATE,
+                DEFAULT_KEY_CACHE_AUDIT_SAMPLE_RATE);
+        if (sampleRate < 1) {
+            String msg = "Invalid value of config parameter " + CFG_KEY_CACHE_AUDIT_SAMPLE_RATE + ": " + sampleRate;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, msg, null);
+        }
+        keyCacheAudit.configure(auditMode,
+                getLongParameter(configParams, CFG_KEY_CACHE_AUDIT_INTERVAL, DEFAULT_KEY_CACHE_AUDIT_INTERVAL),
+                (int) sampleRate);
+        logger.debug("KeyCache: enabled = {}, ttl = {} minutes, max size = {}, refresh ahead = {}%, audit = {}",
+                enabled, ttl, maxSize, refreshAhead, auditMode);
+    }
+
+    private static long getLongParameter(final Properties configParams, final String name, final long defaultValue)
+            throws KmcCryptoException {
+        String value = configParams.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long n = Long.parseLong(value.trim());
+            if (n < 0 || n > Integer.MAX_VALUE) {
+                throw new NumberFormatException("out of range");
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            String msg = "Invalid value of config parameter " + name + ": " + value;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, msg, e);
+        }
+    }
+
+    /**
+     * Enables or disables the cache.  Disabling the cache removes all cached keys.
+     * @param enabled true to cache keys.
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            keyCache.clear();
+        }
+        CryptoEnginePool.setKeyLifetime(enabled, ttlNanos);
+    }
+
+    /**
+     * Sets the time-to-live of a cached key.  A duration of 0 keeps keys until they are evicted or invalidated.
+     * @param duration The time-to-live.
+     * @param unit The unit of the duration.
+     */
+    public void setTimeToLive(final long duration, final TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(duration);
+        CryptoEnginePool.setKeyLifetime(enabled, ttlNanos);
+    }
+
+    /**
+     * Sets the maximum number of cached keys, evicting the least recently used keys if the cache is larger.
+     * @param maxSize The maximum number of keys.
+     */
+    public void setMaxSize(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Key cache max size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    /**
+     * Sets the percentage of the time-to-live after which a used key is reloaded in the background.
+     * A value of 0 or 100 and above disables refresh-ahead.
+     * @param percent The percentage of the time-to-live.
+     */
+    public void setRefreshAhead(final int percent) {
+        this.refreshAhead = percent;
+    }
+
+    /**
+     * Sets how long a failed key load is returned to callers without asking KMS again.
+     * A duration of 0 disables remembering failures.
+     * @param duration The backoff after a failed load.
+     * @param unit The unit of the duration.
+     */
+    public void setFailureBackoff(final long duration, final TimeUnit unit) {
+        this.failureBackoffNanos = unit.toNanos(duration);
+        if (duration == 0) {
+            failures.clear();
+        }
+    }
+
+    /**
+     * Returns the cached key.
+     * @param keyRef The keyRef of the key.
+     * @return The key, or null if the key is not in cache or has expired.
+     */
+    public KmcKey getKey(final String keyRef) {
+        return getKey(keyRef, null);
+    }
+
+    /**
+     * Returns the cached key, and reloads the key in the background with the loader
+     * if it is close to its expiration.
+     * @param keyRef The keyRef of the key.
+     * @param loader The loader for refreshing the key, or null for not refreshing.
+     * @return The key, or null if the key is not in cache or has expired.
+     */
+    public KmcKey getKey(final String keyRef, final KeyLoader loader) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = keyCache.get(keyRef);
+        long now = System.nanoTime();
+        long ttl = ttlNanos;
+        if (entry != null && ttl > 0 && now - entry.loadTime >= ttl) {
+            keyCache.remove(keyRef, entry);
+            CryptoEnginePool.keysRemoved();
+            logger.info("Key {} expired in KMS key cache.", keyRef);
+            entry = null;
+        }
+        if (entry == null) {
+            stats(keyRef).misses.increment();
+            KmcCryptoManager.getCryptoMetrics().recordKeyCacheLookup(false);
             logger.debug("Key {} is not in KMS key cache.", keyRef);
-        } else {
-            logger.info("Retrieved key {} from KMS key cache.", keyRef);
-            audit.info("KeyCache: Retrieved key {} from KMS key cache.", keyRef);
+            return null;
         }
-        return key;
+        stats(keyRef).hits.increment();
+        KmcCryptoManager.getCryptoMetrics().recordKeyCacheLookup(true);
+        entry.accessTime = now;
+        keyCacheAudit.keyRetrieved(keyRef);
+        int percent = refreshAhead;
+        if (loader != null && ttl > 0 && percent > 0 && percent < 100
+                && now - entry.loadTime >= ttl / 100 * percent) {
+            refresh(keyRef, entry, loader);
+        }
+        return entry.key;
     }
 
-    public void putKey(String keyRef, KmcKey kmcKey) {
-        keyCache.put(keyRef, kmcKey);
+    /**
+     * Returns the cached key, or loads it with the loader and saves it to the cache if it is not cached.
+     * Concurrent callers for the same keyRef wait for a single load and share its result.  A failed load
+     * is remembered for the failure backoff, during which callers get the failure without a new load.
+     * @param keyRef The keyRef of the key.
+     * @param loader The loader for retrieving the key from KMS.
+     * @return The key.
+     * @throws KmcCryptoException if the load fails or failed within the failure backoff.
+     */
+    public KmcKey getOrLoadKey(final String keyRef, final KeyLoader loader) throws KmcCryptoException {
+        KmcKey key = getKey(keyRef, loader);
+        if (key != null) {
+            return key;
+        }
+        Failure failure = failures.get(keyRef);
+        if (failure != null) {
+            if (System.nanoTime() - failure.failTime < failureBackoffNanos) {
+                logger.debug("Key {} failed to load recently, not retrying yet.", keyRef);
+                throw new KmcCryptoException(failure.exception.getErrorCode(),
+                        failure.exception.getMessage(), failure.exception);
+            }
+            failures.remove(keyRef, failure);
+        }
+        CompletableFuture<KmcKey> future = new CompletableFuture<KmcKey>();
+        CompletableFuture<KmcKey> inFlight = loading.putIfAbsent(keyRef, future);
+        if (inFlight != null) {
+            logger.debug("Waiting for key {} being loaded by another thread.", keyRef);
+            return await(keyRef, inFlight);
+        }
+        try {
+            key = loader.loadKey(keyRef);
+            putKey(keyRef, key);
+            future.complete(key);
+            return key;
+        } catch (KmcCryptoException e) {
+            if (failureBackoffNanos > 0) {
+                purgeFailures();
+                failures.put(keyRef, new Failure(e, System.nanoTime()));
+            }
+            future.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(keyRef, future);
+        }
+    }
+
+    private static KmcKey await(final String keyRef, final CompletableFuture<KmcKey> future)
+            throws KmcCryptoException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            String msg = "Interrupted while waiting for key " + keyRef + " to load.";
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, msg, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof KmcCryptoException) {
+                KmcCryptoException ke = (KmcCryptoException) cause;
+                throw new KmcCryptoException(ke.getErrorCode(), ke.getMessage(), ke);
+            }
+            String msg = "Failed to load key " + keyRef + ": " + cause;
+            logger.error(msg);
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, msg, cause);
+        }
+    }
+
+    /**
+     * Saves a key to the cache, evicting the least recently used key if the cache is full.
+     * @param keyRef The keyRef of the key.
+     * @param kmcKey The key.
+     */
+    public void putKey(final String keyRef, final KmcKey kmcKey) {
+        if (!enabled) {
+            return;
+        }
+        if (keyCache.put(keyRef, new Entry(kmcKey, System.nanoTime())) != null) {
+            CryptoEnginePool.keysRemoved();
+        }
         logger.info("Saved key {} to KMS key cache.", keyRef);
         audit.info("KeyCache: Saved key {} to KMS key cache.", keyRef);
+        evict();
+    }
+
+    /**
+     * Removes a key from the cache, e.g. after its state is changed or it is destroyed in KMS.
+     * The private key of a key pair with the keyRef is removed too.
+     * @param keyRef The keyRef of the key.
+     */
+    public void invalidate(final String keyRef) {
+        failures.remove(keyRef);
+        failures.remove(keyRef + KmipKeyServiceClient.PRIVATE_KEY_SUFFIX);
+        boolean removed = keyCache.remove(keyRef) != null;
+        removed |= keyCache.remove(keyRef + KmipKeyServiceClient.PRIVATE_KEY_SUFFIX) != null;
+        if (removed) {
+            CryptoEnginePool.keysRemoved();
+            logger.info("Removed key {} from KMS key cache.", keyRef);
+            audit.info("KeyCache: Removed key {} from KMS key cache.", keyRef);
+        }
+    }
+
+    /**
+     * Removes all keys from the cache.
+     */
+    public void invalidateAll() {
+        keyCache.clear();
+        failures.clear();
+        CryptoEnginePool.keysRemoved();
+        logger.info("Removed all keys from KMS key cache.");
+        audit.info("KeyCache: Removed all keys from KMS key cache.");
+    }
+
+    /**
+     * @return the number of cached keys, including expired keys not yet removed.
+     */
+    public int size() {
+        return keyCache.size();
+    }
+
+    /**
+     * Returns the hit and miss counts of a keyRef.
+     * @param keyRef The keyRef of the key.
+     * @return The statistics of the key, or null if the key has not been looked up.
+     */
+    public KeyStats getStats(final String keyRef) {
+        return keyStats.get(keyRef);
+    }
+
+    /**
+     * @return a copy of the hit and miss counts of all keyRefs that have been looked up.
+     */
+    public Map<String, KeyStats> getAllStats() {
+        return new HashMap<String, KeyStats>(keyStats);
+    }
+
+    /**
+     * Resets the hit and miss counts of all keyRefs.
+     */
+    public void clearStats() {
+        keyStats.clear();
+    }
+
+    private KeyStats stats(final String keyRef) {
+        KeyStats s = keyStats.get(keyRef);
+        if (s == null) {
+            if (keyStats.size() >= 2 * maxSize) {
+                // drop the statistics of keys no longer cached, e.g. lookups of nonexistent keys
+                keyStats.keySet().retainAll(keyCache.keySet());
+            }
+            s = keyStats.computeIfAbsent(keyRef, k -> new KeyStats());
+        }
+        return s;
+    }
+
+    private void purgeFailures() {
+        if (failures.size() >= maxSize) {
+            long now = System.nanoTime();
+            failures.values().removeIf(f -> now - f.failTime >= failureBackoffNanos);
+        }
+    }
+
+    private void evict() {
+        while (keyCache.size() > maxSize) {
+            String lruKeyRef = null;
+            long lruTime = 0;
+            for (Map.Entry<String, Entry> e : keyCache.entrySet()) {
+                long t = e.getValue().accessTime;
+                if (lruKeyRef == null || t - lruTime < 0) {
+                    lruKeyRef = e.getKey();
+                    lruTime = t;
+                }
+            }
+            if (lruKeyRef == null) {
+                return;
+            }
+            keyCache.remove(lruKeyRef);
+            CryptoEnginePool.keysRemoved();
+            logger.info("Evicted key {} from KMS key cache.", lruKeyRef);
+        }
+    }
+
+    private void refresh(final String keyRef, final Entry entry, final KeyLoader loader) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        getRefresher().execute(() -> {
+            try {
+                KmcKey key = loader.loadKey(keyRef);
+                if (keyCache.get(keyRef) == entry) {
+                    putKey(keyRef, key);
+                    logger.debug("Refreshed key {} in KMS key cache.", keyRef);
+                }
+            } catch (Exception e) {
+                // keep the cached key until it expires, and retry on the next use
+                logger.warn("Failed to refresh key {} in KMS key cache: {}", keyRef, e.toString());
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    private synchronized ExecutorService getRefresher() {
+        if (refresher == null) {
+            refresher = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "KeyCache-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return refresher;
     }
 
 }
@@ -0,0 +1,160 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the audit trail of key cache hits according to the key_cache_audit_mode.
+ * Only the cache hits, which happen on every crypto operation, are subject to the mode.
+ * Retrieving a key from KMS and removing it from the cache are always audited.
+ *
+ *
+ */
+final class KeyCacheAudit {
+    /**
+     * How the key cache hits are audited.
+     */
+    enum Mode {
+        /** no audit of cache hits. */
+        NONE,
+        /** periodic summary of hits and misses per keyRef. */
+        SUMMARY,
+        /** audit of a random sample of cache hits. */
+        SAMPLED,
+        /** audit of every cache hit, written by a background thread, or by the caller when its queue is full. */
+        ASYNC,
+        /** audit of every cache hit, written by the calling thread. */
+        EVENT
+    }
+
+    private static final int ASYNC_QUEUE_SIZE = 10000;
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyCacheAudit.class);
+    private static final Logger audit = LoggerFactory.getLogger("AUDIT");
+
+    private final KeyCache keyCache;
+    private volatile Mode mode = Mode.SUMMARY;
+    private volatile int sampleRate = KeyCache.DEFAULT_KEY_CACHE_AUDIT_SAMPLE_RATE;
+    private long intervalSeconds = KeyCache.DEFAULT_KEY_CACHE_AUDIT_INTERVAL;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> summaryTask;
+    private volatile ThreadPoolExecutor asyncWriter;
+    // hits and misses per keyRef at the last summary, only used by the summary thread
+    private final Map<String, long[]> lastCounts = new HashMap<String, long[]>();
+
+    KeyCacheAudit(final KeyCache keyCache) {
+        this.keyCache = keyCache;
+    }
+
+    /**
+     * Sets the audit mode and the summary interval, and starts or stops the summary.
+     */
+    synchronized void configure(final Mode mode, final long intervalSeconds, final int sampleRate) {
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+        if (summaryTask != null && (mode != Mode.SUMMARY || intervalSeconds != this.intervalSeconds)) {
+            summaryTask.cancel(false);
+            summaryTask = null;
+        }
+        this.intervalSeconds = intervalSeconds;
+        if (mode == Mode.SUMMARY && summaryTask == null && intervalSeconds > 0) {
+            summaryTask = getScheduler().scheduleAtFixedRate(this::writeSummary,
+                    intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Audits a cache hit.  This is called on every crypto operation, so it must not block in SUMMARY mode.
+     */
+    void keyRetrieved(final String keyRef) {
+        switch (mode) {
+        case SAMPLED:
+            if (ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+                audit.info("KeyCache: Retrieved key {} from KMS key cache (sampled 1 in {}).", keyRef, sampleRate);
+            }
+            break;
+        case ASYNC:
+            getAsyncWriter().execute(() -> audit.info("KeyCache: Retrieved key {} from KMS key cache.", keyRef));
+            break;
+        case EVENT:
+            audit.info("KeyCache: Retrieved key {} from KMS key cache.", keyRef);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Writes the hits and misses of each keyRef since the last summary.
+     */
+    synchronized void writeSummary() {
+        try {
+            for (Map.Entry<String, KeyCache.KeyStats> e : keyCache.getAllStats().entrySet()) {
+                long hits = e.getValue().getHits();
+                long misses = e.getValue().getMisses();
+                long[] last = lastCounts.get(e.getKey());
+                if (last == null || hits < last[0] || misses < last[1]) {
+                    // first summary of the keyRef, or its statistics were reset
+                    last = new long[2];
+                }
+                if (hits != last[0] || misses != last[1]) {
+                    audit.info("KeyCache: key {} hits {} misses {} in the last {} seconds.",
+                            e.getKey(), hits - last[0], misses - last[1], intervalSeconds);
+                }
+                lastCounts.put(e.getKey(), new long[] {hits, misses});
+            }
+            lastCounts.keySet().retainAll(keyCache.getAllStats().keySet());
+        } catch (RuntimeException e) {
+            // keep the scheduled summary running
+            logger.error("Failed to write key cache audit summary: " + e);
+        }
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "KeyCache-audit");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return scheduler;
+    }
+
+    private ThreadPoolExecutor getAsyncWriter() {
+        ThreadPoolExecutor writer = asyncWriter;
+        if (writer != null) {
+            return writer;
+        }
+        synchronized (this) {
+            if (asyncWriter == null) {
+                asyncWriter = newAsyncWriter();
+            }
+            return asyncWriter;
+        }
+    }
+
+    private ThreadPoolExecutor newAsyncWriter() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(ASYNC_QUEUE_SIZE),
+                r -> {
+                    Thread t = new Thread(r, "KeyCache-audit-writer");
+                    t.setDaemon(true);
+                    return t;
+                },
+                // no audit event is lost, the calling thread writes it when the queue is full
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+}
@@ -34,7 +34,7 @@ public class KmcKeyServiceClient implements KeyServiceClient {
     public KmcKeyServiceClient(final KmcCryptoManager cryptoManager) throws KmcCryptoException {
         String kmsURI = cryptoManager.getKeyManagementServiceURI();
         if (kmsURI != null && !kmsURI.contains("fully-qualified-domain-name")) {
-            kmipKeyClient = new KmipKeyServiceClient(cryptoManager);
+            kmipKeyClient = KmipKeyServiceClient.getInstance(cryptoManager);
         }
 
         String keystoreLocation = cryptoManager.getCryptoKeystoreLocation();
@@ -1,11 +1,15 @@
 package gov.nasa.jpl.ammos.kmc.crypto.library;
 
+import java.lang.ref.Cleaner;
 import java.security.Key;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +43,8 @@ import ch.ntb.inf.kmip.stub.KMIPStub;
 /**
  * The KmipKeyServiceClient connects to the Key Management Service (KMS) for retrieving keys using the KMIP protocol.
  *
+ * {@link #getInstance(KmcCryptoManager)} shares one client, and thus one KMIP transport, among the
+ * {@link KmcCryptoManager}s of the same configuration, e.g. the copies made for each request by a service.
  *
  */
 public class KmipKeyServiceClient implements KeyServiceClient {
@@ -48,8 +54,69 @@ public class KmipKeyServiceClient implements KeyServiceClient {
     private final KMIPStub kmipServer;
     private final KeyCache keyCache;
 
+    // clients shared by configuration, the least recently used is no longer shared when there are more
+    // and closes its transport once the managers that still hold it are gone
+    private static final int MAX_SHARED_CLIENTS = 8;
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final Map<String, KmipKeyServiceClient> sharedClients =
+            new LinkedHashMap<String, KmipKeyServiceClient>(16, 0.75f, true);
+
     private static final Logger logger = LoggerFactory.getLogger(KmipKeyServiceClient.class);
 
+    /**
+     * Returns the KmipKeyServiceClient shared by the {@link KmcCryptoManager}s of the same configuration,
+     * creating it if there is none.  The parameters that a request may change, i.e. the default algorithms
+     * and the truncated MAC length, are not part of the configuration.
+     *
+     * @param cryptoManager The cryptoManger whose config parameters will be used to configure the connections to the KMIP server.
+     * @return The shared KmipKeyServiceClient.
+     * @throws KmcCryptoException if error in connecting to KMS.
+     */
+    public static KmipKeyServiceClient getInstance(final KmcCryptoManager cryptoManager) throws KmcCryptoException {
+        String key = getConfigurationKey(cryptoManager.getConfigParameters());
+        synchronized (sharedClients) {
+            KmipKeyServiceClient client = sharedClients.get(key);
+            if (client != null) {
+                return client;
+            }
+        }
+        // connecting to KMS must not block the managers of other configurations
+        KmipKeyServiceClient newClient = new KmipKeyServiceClient(cryptoManager);
+        KmipKeyServiceClient evicted = null;
+        synchronized (sharedClients) {
+            KmipKeyServiceClient client = sharedClients.get(key);
+            if (client == null) {
+                client = newClient;
+                sharedClients.put(key, client);
+                if (sharedClients.size() > MAX_SHARED_CLIENTS) {
+                    Iterator<KmipKeyServiceClient> eldest = sharedClients.values().iterator();
+                    evicted = eldest.next();
+                    eldest.remove();
+                }
+            }
+            if (client != newClient) {
+                // another thread shared a client first, ours has never been used
+                newClient.close();
+                return client;
+            }
+        }
+        if (evicted != null) {
+            // the evicted client may still be in use by managers that got it earlier
+            CLEANER.register(evicted, evicted.kmipServer::close);
+        }
+        return newClient;
+    }
+
+    private static String getConfigurationKey(final Properties configParams) {
+        Map<String, String> sorted = new TreeMap<String, String>();
+        for (final String name : configParams.stringPropertyNames()) {
+            if (!name.startsWith("default_") && !name.equals(KmcCryptoManager.CFG_TRUNCATED_MAC_LENGTH)) {
+                sorted.put(name, configParams.getProperty(name));
+            }
+        }
+        return sorted.toString();
+    }
+
     /**
      * Constructor of KmipKeyServiceClient.
      *
@@ -72,6 +139,16 @@ public class KmipKeyServiceClient implements KeyServiceClient {
             throw new KmcCryptoException(KmcCryptoErrorCode.KMS_CONNECTION_ERROR, msg, e);
         }
         keyCache = KeyCache.getInstance();
+        keyCache.configure(configParams);
+    }
+
+    /**
+     * Closes the KMIP transport.  This is for clients created by the constructor only; a client returned by
+     * {@link #getInstance(KmcCryptoManager)} may be in use by other managers and is never closed explicitly.
+     * When it is evicted by a newer configuration, its transport is closed after it becomes unreachable.
+     */
+    public void close() {
+        kmipServer.close();
     }
 
     /**
@@ -79,10 +156,16 @@ public class KmipKeyServiceClient implements KeyServiceClient {
      */
     @Override
     public final KmcKey getKmcKey(final String keyRef) throws KmcCryptoException {
-        KmcKey key = keyCache.getKey(keyRef);
-        if (key != null) {
-            return key;
-        }
+        return keyCache.getOrLoadKey(keyRef, this::loadKmcKey);
+    }
+
+    /**
+     * Retrieves a key and its attributes from KMS, bypassing the key cache.
+     * @param keyRef The keyRef of the key.
+     * @return The key.
+     * @throws KmcCryptoException if the key does not exist or error in retrieving the key.
+     */
+    private KmcKey loadKmcKey(final String keyRef) throws KmcCryptoException {
         String keyId = locateCryptographicKey(keyRef);
         if (keyId == null) {
             String msg = "Cryptographic key \"" + keyRef + "\" does not exist in KMS.";
@@ -95,12 +178,11 @@ public class KmipKeyServiceClient implements KeyServiceClient {
             logger.error(msg);
             throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, msg, null);
         }
-        key = new KmcKey(keyId);
+        KmcKey key = new KmcKey(keyId);
         key.setCryptographicObject(cryptoObject);
         List<Attribute> attributes = getAllAttributes(keyId);
         key.setAttributes(attributes);
         logger.info("Retrieved key {} from KMS at {}", keyRef, this.cryptoManager.getKeyManagementServiceURI());
-        keyCache.putKey(keyRef, key);
         return key;
     }
 
@@ -210,7 +292,7 @@ public class KmipKeyServiceClient implements KeyServiceClient {
         KMIPContainer request = createLocateKeyRequest(keyRef);
         KMIPContainer response;
         try {
-            response = kmipServer.processRequest(request);
+            response = processRequest(request, "Locate");
         } catch (Exception e) {
             String msg = "Exception during locating key from KMS: " + e;
             logger.error(msg);
@@ -241,6 +323,26 @@ public class KmipKeyServiceClient implements KeyServiceClient {
         return null;
     }
 
+    /**
+     * Sends the KMIP request to KMS and records the round-trip time in the CryptoMetrics.
+     * @param request The KMIP request.
+     * @param operation The KMIP operation of the request.
+     * @return The KMIP response, or null if KMS does not respond.
+     * @throws Exception if error in sending the request or decoding the response.
+     */
+    private KMIPContainer processRequest(final KMIPContainer request, final String operation) throws Exception {
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            KMIPContainer response = kmipServer.processRequest(request);
+            success = response != null;
+            return response;
+        } finally {
+            KmcCryptoManager.getCryptoMetrics().recordKeyServiceRequest(operation,
+                    System.nanoTime() - startTime, success);
+        }
+    }
+
     /**
      * Creates a KMIP request for locating a key with its keyRef.
      * @param keyRef The KMC KeyRef of the key.
@@ -271,7 +373,7 @@ public class KmipKeyServiceClient implements KeyServiceClient {
         KMIPContainer request = createGetCryptographicObjectRequest(keyId);
         KMIPContainer response;
         try {
-            response = kmipServer.processRequest(request);
+            response = processRequest(request, "Get");
         } catch (Exception e) {
             String msg = "Exception in Get cryptographic object from KMS: " + e;
             logger.error(msg);
@@ -332,7 +434,7 @@ public class KmipKeyServiceClient implements KeyServiceClient {
         KMIPContainer request = createGetAllAttributesRequest(keyId);
         KMIPContainer response;
         try {
-            response = kmipServer.processRequest(request);
+            response = processRequest(request, "GetAttributes");
         } catch (Exception e) {
             String msg = "Exception in creating key from KMS: " + e;
             logger.error(msg);
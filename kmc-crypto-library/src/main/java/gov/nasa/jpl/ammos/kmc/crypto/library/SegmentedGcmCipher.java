@@ -0,0 +1,374 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+
+/**
+ * Segmented AES-GCM encryption, which encrypts and decrypts the segments of the data in parallel.
+ * <p>
+ * The data are divided into segments of segmentSize bytes, the last segment can be shorter.
+ * Each segment is encrypted by AES-GCM with its own tag, using a nonce derived from the IV in the metadata:
+ * the big-endian segment index is XORed into bytes 7 to 10 of the IV, and byte 11 is XORed with 1
+ * for the last segment.  Reordered segments fail the tag check because of the index, and truncation
+ * at a segment boundary fails because the new last segment was not encrypted as the last one.
+ * </p>
+ * <p>
+ * The segments are not encrypted with the key itself but with a message key of the same length derived
+ * by HKDF-SHA256 (RFC 5869) from the key, with the 96-bit random IV as the salt.  The nonces of the segments
+ * of different messages would otherwise collide as soon as two IVs only differ in the bytes of the index,
+ * leaving about 56 random bits per message; with a key per message, the nonces only have to be unique
+ * within the message.
+ * The Additional Associated Data (AAD) is authenticated with the first segment.
+ * </p>
+ * <p>
+ * The encrypted data are the concatenation of the encrypted segments, each followed by its tag.
+ * The segments are processed in parallel on the common {@link ForkJoinPool}, each with a Cipher
+ * from the {@link CryptoEnginePool} of the worker thread.  Decrypted segments are written after
+ * their tags are verified, so a failure in a later segment can leave the earlier segments in the output.
+ * </p>
+ *
+ */
+final class SegmentedGcmCipher {
+    static final int NONCE_LENGTH = 12;
+    private static final int INDEX_OFFSET = 7;
+    private static final int LAST_SEGMENT_OFFSET = 11;
+    private static final int BYTE_SIZE = 8;
+    private static final String HKDF_MAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] HKDF_INFO = "KMC segmented AES-GCM".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    private final int mode;
+    private final Key key;
+    private final String transformation;
+    private final String provider;
+    private final byte[] iv;
+    private final int tagLength;
+    private final int segmentSize;
+    private Key messageKey;
+
+    /**
+     * Constructor of the SegmentedGcmCipher.
+     * @param mode Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE.
+     * @param key the AES key.
+     * @param transformation the AES/GCM transformation.
+     * @param provider the provider name, or null for the preferred provider.
+     * @param iv the 12-byte IV in the metadata.
+     * @param tagLength the length of the tag of each segment in bits.
+     * @param segmentSize the number of bytes of data in a segment.
+     */
+    SegmentedGcmCipher(final int mode, final Key key, final String transformation, final String provider,
+            final byte[] iv, final int tagLength, final int segmentSize) {
+        this.mode = mode;
+        this.key = key;
+        this.transformation = transformation;
+        this.provider = provider;
+        this.iv = iv.clone();
+        this.tagLength = tagLength;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Returns the number of output bytes of the segments with the number of input bytes.
+     * @param length number of input bytes, not including the AAD.
+     * @return number of output bytes, not including the AAD, or -1 if the encrypted data length is invalid.
+     */
+    int getOutputSize(final int length) {
+        int tagBytes = tagLength / BYTE_SIZE;
+        if (mode == Cipher.ENCRYPT_MODE) {
+            int segments = Math.max(1, (length + segmentSize - 1) / segmentSize);
+            return length + segments * tagBytes;
+        }
+        int inputSegmentSize = segmentSize + tagBytes;
+        int segments = (length + inputSegmentSize - 1) / inputSegmentSize;
+        int lastLength = length - (segments - 1) * inputSegmentSize;
+        if (segments == 0 || lastLength < tagBytes) {
+            return -1;
+        }
+        return length - segments * tagBytes;
+    }
+
+    /**
+     * Processes the remaining bytes of the input buffer and writes the result to the output buffer.
+     * @param aad the AAD, or null if no AAD.
+     * @param input the input buffer, whose position is set to its limit.
+     * @param output the output buffer with enough space for the result, whose position is advanced.
+     * @return number of bytes written to the output buffer.
+     * @throws KmcCryptoException if the encrypted data length is invalid.
+     * @throws GeneralSecurityException if error in encrypting or decrypting a segment.
+     */
+    int process(final ByteBuffer aad, final ByteBuffer input, final ByteBuffer output)
+            throws KmcCryptoException, GeneralSecurityException {
+        deriveMessageKey();
+        int inputSegmentSize = getInputSegmentSize();
+        int length = input.remaining();
+        if (getOutputSize(length) == -1) {
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE,
+                    "Invalid segmented encrypted data of " + length + " bytes.", null);
+        }
+        int segments = Math.max(1, (length + inputSegmentSize - 1) / inputSegmentSize);
+        ByteBuffer[] inputs = new ByteBuffer[segments];
+        ByteBuffer[] outputs = new ByteBuffer[segments];
+        int outputSegmentSize = getOutputSegmentSize();
+        for (int i = 0; i < segments; i++) {
+            inputs[i] = input.duplicate();
+            inputs[i].position(input.position() + i * inputSegmentSize);
+            inputs[i].limit(Math.min(input.limit(), inputs[i].position() + inputSegmentSize));
+            outputs[i] = output.duplicate();
+            outputs[i].position(output.position() + i * outputSegmentSize);
+        }
+        int total = processSegments(aad, 0, segments, true, inputs, outputs);
+        input.position(input.limit());
+        output.position(output.position() + total);
+        return total;
+    }
+
+    /**
+     * Processes the input stream and writes the result to the output stream.  At most one
+     * segment per thread of the pool, plus one segment read ahead, is held in memory.
+     * @param aad the AAD, or null if no AAD.
+     * @param inputStream the input stream.
+     * @param outputStream the output stream.
+     * @return number of bytes of the data, i.e. the input of encryption or the output of decryption.
+     * @throws KmcCryptoException if the input is empty or too large.
+     * @throws GeneralSecurityException if error in encrypting or decrypting a segment.
+     * @throws IOException if error in reading or writing the streams.
+     */
+    long process(final ByteBuffer aad, final InputStream inputStream, final OutputStream outputStream)
+            throws KmcCryptoException, GeneralSecurityException, IOException {
+        deriveMessageKey();
+        int batchSize = Math.max(1, POOL.getParallelism());
+        int inputSegmentSize = getInputSegmentSize();
+        byte[][] inputs = new byte[batchSize + 1][inputSegmentSize];
+        int[] inputLengths = new int[batchSize + 1];
+        byte[][] outputs = new byte[batchSize][getOutputSegmentSize()];
+        ByteBuffer[] inputBuffers = new ByteBuffer[batchSize];
+        ByteBuffer[] outputBuffers = new ByteBuffer[batchSize];
+
+        inputLengths[0] = readSegment(inputStream, inputs[0]);
+        if (inputLengths[0] == 0 && (mode == Cipher.DECRYPT_MODE || aad == null)) {
+            String msg;
+            if (mode == Cipher.ENCRYPT_MODE) {
+                msg = "Input stream for encryption cannot be empty.";
+            } else {
+                msg = "Invalid input encrypted data.";
+            }
+            throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        long index = 0;
+        long totalInput = 0;
+        long totalData = 0;
+        boolean last = false;
+        while (!last) {
+            int count = 0;
+            while (count < batchSize && !last) {
+                if (inputLengths[count] < inputSegmentSize) {
+                    last = true;
+                } else {
+                    inputLengths[count + 1] = readSegment(inputStream, inputs[count + 1]);
+                    last = inputLengths[count + 1] == 0;
+                }
+                inputBuffers[count] = ByteBuffer.wrap(inputs[count], 0, inputLengths[count]);
+                outputBuffers[count] = ByteBuffer.wrap(outputs[count]);
+                totalInput = totalInput + inputLengths[count];
+                count++;
+            }
+            if (totalInput > KmcCryptoManager.MAX_CRYPTO_SIZE) {
+                String msg = "Inupt stream exceeds maximum size of " + KmcCryptoManager.MAX_CRYPTO_SIZE + " bytes.";
+                throw new KmcCryptoException(KmcCryptoErrorCode.INVALID_INPUT_VALUE, msg, null);
+            }
+            processSegments(index == 0 ? aad : null, index, count, last, inputBuffers, outputBuffers);
+            for (int i = 0; i < count; i++) {
+                outputStream.write(outputs[i], 0, outputBuffers[i].position());
+                if (mode == Cipher.ENCRYPT_MODE) {
+                    totalData = totalData + inputLengths[i];
+                } else {
+                    totalData = totalData + outputBuffers[i].position();
+                }
+            }
+            index = index + count;
+            if (!last) {
+                // the segment read ahead is the first of the next batch
+                byte[] next = inputs[count];
+                inputs[count] = inputs[0];
+                inputs[0] = next;
+                inputLengths[0] = inputLengths[count];
+            }
+        }
+        return totalData;
+    }
+
+    /**
+     * Derives the key of the segments of this message from the key and the IV by HKDF-SHA256,
+     * in which the output of a single expand step covers the AES key lengths.
+     * @throws GeneralSecurityException if the key cannot be encoded or HMAC-SHA256 is not available.
+     */
+    private void deriveMessageKey() throws GeneralSecurityException {
+        if (messageKey != null) {
+            return;
+        }
+        byte[] keyBytes = key.getEncoded();
+        if (keyBytes == null) {
+            throw new InvalidKeyException("Segmented AES-GCM requires a key that can be encoded.");
+        }
+        byte[] prk = null;
+        byte[] okm = null;
+        try {
+            Mac mac = provider == null ? Mac.getInstance(HKDF_MAC_ALGORITHM)
+                    : Mac.getInstance(HKDF_MAC_ALGORITHM, provider);
+            // extract with the IV as the salt, then expand with the info and counter 1
+            mac.init(new SecretKeySpec(iv, HKDF_MAC_ALGORITHM));
+            prk = mac.doFinal(keyBytes);
+            mac.init(new SecretKeySpec(prk, HKDF_MAC_ALGORITHM));
+            mac.update(HKDF_INFO);
+            mac.update((byte) 1);
+            okm = mac.doFinal();
+            messageKey = new SecretKeySpec(okm, 0, keyBytes.length, key.getAlgorithm());
+        } finally {
+            Arrays.fill(keyBytes, (byte) 0);
+            if (prk != null) {
+                Arrays.fill(prk, (byte) 0);
+            }
+            if (okm != null) {
+                Arrays.fill(okm, (byte) 0);
+            }
+        }
+    }
+
+    private int getInputSegmentSize() {
+        if (mode == Cipher.ENCRYPT_MODE) {
+            return segmentSize;
+        } else {
+            return segmentSize + tagLength / BYTE_SIZE;
+        }
+    }
+
+    private int getOutputSegmentSize() {
+        if (mode == Cipher.ENCRYPT_MODE) {
+            return segmentSize + tagLength / BYTE_SIZE;
+        } else {
+            return segmentSize;
+        }
+    }
+
+    private static int readSegment(final InputStream inputStream, final byte[] segment) throws IOException {
+        int length = 0;
+        while (length < segment.length) {
+            int nData = inputStream.read(segment, length, segment.length - length);
+            if (nData == -1) {
+                break;
+            }
+            length = length + nData;
+        }
+        return length;
+    }
+
+    /**
+     * Processes count segments in parallel, the first one has the segment index firstIndex.
+     * @return the total number of output bytes.
+     */
+    private int processSegments(final ByteBuffer aad, final long firstIndex, final int count, final boolean last,
+            final ByteBuffer[] inputs, final ByteBuffer[] outputs) throws GeneralSecurityException {
+        if (count == 1) {
+            return processSegment(aad, firstIndex, last, inputs[0], outputs[0]);
+        }
+        List<SegmentTask> tasks = new ArrayList<SegmentTask>(count);
+        for (int i = 0; i < count; i++) {
+            SegmentTask task = new SegmentTask(i == 0 ? aad : null, firstIndex + i,
+                    last && i == count - 1, inputs[i], outputs[i]);
+            tasks.add(task);
+            POOL.execute(task);
+        }
+        int total = 0;
+        GeneralSecurityException failure = null;
+        for (SegmentTask task : tasks) {
+            total = total + task.join();
+            if (failure == null) {
+                failure = task.failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return total;
+    }
+
+    private int processSegment(final ByteBuffer aad, final long index, final boolean last,
+            final ByteBuffer input, final ByteBuffer output) throws GeneralSecurityException {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        System.arraycopy(iv, 0, nonce, 0, NONCE_LENGTH);
+        for (int i = 0; i < 4; i++) {
+            nonce[INDEX_OFFSET + i] ^= (byte) (index >>> (BYTE_SIZE * (3 - i)));
+        }
+        if (last) {
+            nonce[LAST_SEGMENT_OFFSET] ^= 1;
+        }
+        GCMParameterSpec spec = new GCMParameterSpec(tagLength, nonce);
+
+        Cipher cipher = CryptoEnginePool.getCipher(transformation, provider);
+        try {
+            // the Cipher rejects the key and nonce of its previous encryption
+            cipher.init(mode, messageKey, spec);
+            if (aad != null) {
+                cipher.updateAAD(aad.duplicate());
+            }
+            return cipher.doFinal(input, output);
+        } finally {
+            CryptoEnginePool.releaseCipher(cipher, transformation, provider);
+        }
+    }
+
+    /**
+     * Encrypts or decrypts a segment in the pool.
+     */
+    private final class SegmentTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer aad;
+        private final long index;
+        private final boolean last;
+        private final transient ByteBuffer input;
+        private final transient ByteBuffer output;
+        private transient GeneralSecurityException failure;
+
+        SegmentTask(final ByteBuffer aad, final long index, final boolean last,
+                final ByteBuffer input, final ByteBuffer output) {
+            this.aad = aad;
+            this.index = index;
+            this.last = last;
+            this.input = input;
+            this.output = output;
+        }
+
+        @Override
+        protected Integer compute() {
+            try {
+                return processSegment(aad, index, last, input, output);
+            } catch (GeneralSecurityException e) {
+                failure = e;
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import gov.nasa.jpl.ammos.kmc.crypto.Decrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.Encrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.IcvCreator;
+import gov.nasa.jpl.ammos.kmc.crypto.IcvVerifier;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Unit tests for the byte array and ByteBuffer methods of Encrypter, Decrypter, IcvCreator and IcvVerifier.
+ *
+ *
+ */
+public class ByteBufferCryptoTest {
+    private static final String TEST_STRING = "This is the test string for testing the byte array and ByteBuffer methods";
+    private static final byte[] TEST_BYTES = TEST_STRING.getBytes(StandardCharsets.UTF_8);
+    private static final int AAD_SIZE = 9;
+    private static final int PADDING = 5;
+
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final String KEYNAME_HEAD = "kmc/test/";
+    private static final String KEYREF_AES256 = KEYNAME_HEAD + "AES256";
+    private static final String KEYREF_HMAC = KEYNAME_HEAD + "HmacSHA256";
+
+    private static KmcCryptoManager cryptoManager;
+
+    @BeforeClass
+    public static void setUp() throws KmcCryptoManagerException {
+        cryptoManager = new KmcCryptoManager(null);
+    }
+
+    @Test
+    public final void testEncryptDecryptByteArray() throws KmcCryptoException, KmcCryptoManagerException {
+        Encrypter encrypter = cryptoManager.createEncrypter(KEYREF_AES256);
+        // the input is in the middle of an array
+        byte[] input = new byte[PADDING + TEST_BYTES.length + PADDING];
+        System.arraycopy(TEST_BYTES, 0, input, PADDING, TEST_BYTES.length);
+        ByteBuffer encrypted = ByteBuffer.allocate(encrypter.getOutputSize(TEST_BYTES.length));
+        String metadata = encrypter.encrypt(input, PADDING, TEST_BYTES.length, encrypted);
+        assertFalse(encrypted.hasRemaining());
+
+        Decrypter decrypter = cryptoManager.createDecrypter();
+        byte[] output = new byte[PADDING + encrypted.capacity()];
+        int length = decrypter.decrypt(encrypted.array(), 0, encrypted.capacity(), output, PADDING, metadata);
+        assertEquals(TEST_BYTES.length, length);
+        assertEquals(TEST_STRING, new String(output, PADDING, length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public final void testDirectBuffersWithAad() throws KmcCryptoException, KmcCryptoManagerException {
+        KmcCryptoManager manager = new KmcCryptoManager(null);
+        manager.setCipherTransformation(GCM_TRANSFORMATION);
+        Encrypter encrypter = manager.createEncrypter(KEYREF_AES256);
+        ByteBuffer input = ByteBuffer.allocateDirect(TEST_BYTES.length);
+        input.put(TEST_BYTES).flip();
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(encrypter.getOutputSize(TEST_BYTES.length));
+        String metadata = encrypter.encrypt(input, AAD_SIZE, null, encrypted);
+        assertFalse(input.hasRemaining());
+        assertFalse(encrypted.hasRemaining());
+        encrypted.flip();
+        for (int i = 0; i < AAD_SIZE; i++) {
+            assertEquals(TEST_BYTES[i], encrypted.get(i));
+        }
+
+        // the buffer result is decrypted by the stream method
+        byte[] encryptedBytes = new byte[encrypted.remaining()];
+        encrypted.duplicate().get(encryptedBytes);
+        ByteArrayOutputStream dos = new ByteArrayOutputStream();
+        Decrypter decrypter = manager.createDecrypter();
+        decrypter.decrypt(new ByteArrayInputStream(encryptedBytes), dos, metadata);
+        assertArrayEquals(TEST_BYTES, dos.toByteArray());
+
+        ByteBuffer decrypted = ByteBuffer.allocateDirect(encryptedBytes.length);
+        decrypter.decrypt(encrypted, decrypted, metadata);
+        decrypted.flip();
+        byte[] decryptedBytes = new byte[decrypted.remaining()];
+        decrypted.get(decryptedBytes);
+        assertArrayEquals(TEST_BYTES, decryptedBytes);
+    }
+
+    @Test
+    public final void testOutputBufferTooSmall() throws KmcCryptoException, KmcCryptoManagerException {
+        Encrypter encrypter = cryptoManager.createEncrypter(KEYREF_AES256);
+        ByteBuffer output = ByteBuffer.allocate(TEST_BYTES.length);
+        try {
+            encrypter.encrypt(ByteBuffer.wrap(TEST_BYTES), output);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.INVALID_INPUT_VALUE, e.getErrorCode());
+        }
+        assertEquals(0, output.position());
+    }
+
+    @Test
+    public final void testEmptyInput() throws KmcCryptoException, KmcCryptoManagerException {
+        Encrypter encrypter = cryptoManager.createEncrypter(KEYREF_AES256);
+        try {
+            encrypter.encrypt(new byte[0], 0, 0, ByteBuffer.allocate(encrypter.getOutputSize(0)));
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.INVALID_INPUT_VALUE, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public final void testMessageDigest() throws KmcCryptoException, KmcCryptoManagerException {
+        IcvCreator creator = cryptoManager.createIcvCreator();
+        String metadata = creator.createIntegrityCheckValue(TEST_BYTES, 0, TEST_BYTES.length);
+        // same ICV as the stream method
+        assertEquals(metadata, creator.createIntegrityCheckValue(new ByteArrayInputStream(TEST_BYTES)));
+
+        IcvVerifier verifier = cryptoManager.createIcvVerifier();
+        ByteBuffer input = ByteBuffer.allocateDirect(TEST_BYTES.length);
+        input.put(TEST_BYTES).flip();
+        assertTrue(verifier.verifyIntegrityCheckValue(input, metadata));
+        assertFalse(verifier.verifyIntegrityCheckValue(TEST_BYTES, 1, TEST_BYTES.length - 1, metadata));
+    }
+
+    @Test
+    public final void testHmac() throws KmcCryptoException, KmcCryptoManagerException {
+        IcvCreator creator = cryptoManager.createIcvCreator(KEYREF_HMAC);
+        String metadata = creator.createIntegrityCheckValue(ByteBuffer.wrap(TEST_BYTES));
+
+        IcvVerifier verifier = cryptoManager.createIcvVerifier();
+        assertTrue(verifier.verifyIntegrityCheckValue(TEST_BYTES, 0, TEST_BYTES.length, metadata));
+        assertTrue(verifier.verifyIntegrityCheckValue(new ByteArrayInputStream(TEST_BYTES), metadata));
+    }
+
+}
@@ -0,0 +1,161 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.After;
+import org.junit.Test;
+
+import gov.nasa.jpl.ammos.kmc.crypto.library.CryptoEnginePool;
+import gov.nasa.jpl.ammos.kmc.crypto.library.KeyCache;
+
+/**
+ * Unit tests for CryptoEnginePool.
+ *
+ *
+ */
+public class CryptoEnginePoolTest {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String HMAC = "HmacSHA256";
+    private static final byte[] DATA = "data for crypto engine pool".getBytes();
+
+    @After
+    public final void clearPool() {
+        CryptoEnginePool.clear();
+    }
+
+    @Test
+    public final void testReuseOnSameThread() throws Exception {
+        Cipher cipher = CryptoEnginePool.getCipher(TRANSFORMATION, null);
+        CryptoEnginePool.releaseCipher(cipher, TRANSFORMATION, null);
+        assertEquals(1, CryptoEnginePool.idleCount());
+        assertSame(cipher, CryptoEnginePool.getCipher(TRANSFORMATION, null));
+        assertEquals(0, CryptoEnginePool.idleCount());
+
+        // an engine in use is not given out again
+        Cipher another = CryptoEnginePool.getCipher(TRANSFORMATION, null);
+        assertNotSame(cipher, another);
+    }
+
+    @Test
+    public final void testNotSharedAcrossThreads() throws Exception {
+        final Cipher cipher = CryptoEnginePool.getCipher(TRANSFORMATION, null);
+        CryptoEnginePool.releaseCipher(cipher, TRANSFORMATION, null);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Cipher> other = executor.submit(() -> CryptoEnginePool.getCipher(TRANSFORMATION, null));
+            assertNotSame(cipher, other.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertSame(cipher, CryptoEnginePool.getCipher(TRANSFORMATION, null));
+    }
+
+    @Test
+    public final void testMaxIdleEngines() throws Exception {
+        MessageDigest[] mds = new MessageDigest[CryptoEnginePool.MAX_IDLE_ENGINES + 2];
+        for (int i = 0; i < mds.length; i++) {
+            mds[i] = CryptoEnginePool.getMessageDigest("SHA-256", null);
+        }
+        for (MessageDigest md : mds) {
+            CryptoEnginePool.releaseMessageDigest(md, "SHA-256", null);
+        }
+        assertEquals(CryptoEnginePool.MAX_IDLE_ENGINES, CryptoEnginePool.idleCount());
+    }
+
+    @Test
+    public final void testMacKey() throws Exception {
+        SecretKeySpec key1 = new SecretKeySpec(new byte[32], HMAC);
+        byte[] bytes2 = new byte[32];
+        bytes2[0] = 1;
+        SecretKeySpec key2 = new SecretKeySpec(bytes2, HMAC);
+
+        Mac mac1 = CryptoEnginePool.getMac(HMAC, null, key1);
+        byte[] icv1 = mac1.doFinal(DATA);
+        Mac mac2 = CryptoEnginePool.getMac(HMAC, null, key2);
+        assertFalse(Arrays.equals(icv1, mac2.doFinal(DATA)));
+        CryptoEnginePool.releaseMac(mac1, HMAC, null, key1);
+        CryptoEnginePool.releaseMac(mac2, HMAC, null, key2);
+
+        // the idle Mac of the same key is preferred, it is not initialized again
+        Mac mac = CryptoEnginePool.getMac(HMAC, null, new SecretKeySpec(new byte[32], HMAC));
+        assertSame(mac1, mac);
+        assertArrayEquals(icv1, mac.doFinal(DATA));
+
+        // a partially used Mac is reset before reuse
+        mac.update(DATA);
+        CryptoEnginePool.releaseMac(mac, HMAC, null, key1);
+        assertArrayEquals(icv1, CryptoEnginePool.getMac(HMAC, null, key1).doFinal(DATA));
+
+        // without an idle Mac of the key, the remaining Mac is initialized with the key
+        SecretKeySpec key3 = new SecretKeySpec(new byte[16], HMAC);
+        mac = CryptoEnginePool.getMac(HMAC, null, key3);
+        assertSame(mac2, mac);
+        assertArrayEquals(initMac(key3).doFinal(DATA), mac.doFinal(DATA));
+        assertEquals(0, CryptoEnginePool.idleCount());
+    }
+
+    @Test
+    public final void testKeyedEnginesDiscardedWithKeys() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[32], HMAC);
+        Mac mac = CryptoEnginePool.getMac(HMAC, null, key);
+        Cipher cipher = CryptoEnginePool.getCipher(TRANSFORMATION, null);
+        MessageDigest md = CryptoEnginePool.getMessageDigest("SHA-256", null);
+        CryptoEnginePool.releaseMac(mac, HMAC, null, key);
+        CryptoEnginePool.releaseCipher(cipher, TRANSFORMATION, null);
+        CryptoEnginePool.releaseMessageDigest(md, "SHA-256", null);
+        assertEquals(3, CryptoEnginePool.idleCount());
+
+        // removing keys from the cache discards the engines that may keep a key
+        KeyCache.getInstance().invalidateAll();
+        assertEquals(1, CryptoEnginePool.idleCount());
+        assertNotSame(mac, CryptoEnginePool.getMac(HMAC, null, key));
+        assertNotSame(cipher, CryptoEnginePool.getCipher(TRANSFORMATION, null));
+        assertSame(md, CryptoEnginePool.getMessageDigest("SHA-256", null));
+    }
+
+    @Test
+    public final void testKeyedEnginesExpire() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[32], HMAC);
+        KeyCache keyCache = KeyCache.getInstance();
+        try {
+            keyCache.setTimeToLive(1, TimeUnit.MILLISECONDS);
+            Mac mac = CryptoEnginePool.getMac(HMAC, null, key);
+            CryptoEnginePool.releaseMac(mac, HMAC, null, key);
+            Thread.sleep(5);
+            assertEquals(0, CryptoEnginePool.idleCount());
+
+            // nothing that keeps a key is pooled while the key cache is disabled
+            keyCache.setTimeToLive(KeyCache.DEFAULT_KEY_CACHE_TTL, TimeUnit.MINUTES);
+            keyCache.setEnabled(false);
+            CryptoEnginePool.releaseMac(mac, HMAC, null, key);
+            CryptoEnginePool.releaseCipher(CryptoEnginePool.getCipher(TRANSFORMATION, null), TRANSFORMATION, null);
+            assertEquals(0, CryptoEnginePool.idleCount());
+        } finally {
+            keyCache.setEnabled(KeyCache.DEFAULT_KEY_CACHE_ENABLE);
+            keyCache.setTimeToLive(KeyCache.DEFAULT_KEY_CACHE_TTL, TimeUnit.MINUTES);
+        }
+    }
+
+    private Mac initMac(final SecretKeySpec key) throws Exception {
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(key);
+        return mac;
+    }
+
+}
@@ -0,0 +1,90 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.nasa.jpl.ammos.kmc.crypto.CryptoMetrics;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Unit tests for recording the crypto operations in the {@link CryptoMetrics}.
+ *
+ *
+ */
+public class CryptoMetricsTest {
+    private static final String KEYREF_AES256 = "kmc/test/AES256";
+    private static final String KEYREF_HMAC = "kmc/test/HmacSHA256";
+    private static final int DATA_SIZE = 1000;
+
+    private final List<String> operations = Collections.synchronizedList(new ArrayList<String>());
+    private KmcCryptoManager cryptoManager;
+    private byte[] data;
+
+    @Before
+    public final void setUp() throws KmcCryptoManagerException {
+        cryptoManager = new KmcCryptoManager(null);
+        data = new byte[DATA_SIZE];
+        new Random(DATA_SIZE).nextBytes(data);
+        KmcCryptoManager.setCryptoMetrics(new CryptoMetrics() {
+            @Override
+            public void recordOperation(final String operation, final String algorithm, final long bytes,
+                    final long nanos, final boolean success) {
+                assertTrue(nanos >= 0);
+                operations.add(operation + ":" + bytes + ":" + success);
+            }
+        });
+    }
+
+    @After
+    public final void tearDown() {
+        KmcCryptoManager.setCryptoMetrics(null);
+    }
+
+    @Test
+    public final void testNoMetrics() {
+        KmcCryptoManager.setCryptoMetrics(null);
+        assertSame(CryptoMetrics.NONE, KmcCryptoManager.getCryptoMetrics());
+    }
+
+    @Test
+    public final void testEncryptDecrypt() throws KmcCryptoException, KmcCryptoManagerException {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256)
+                .encrypt(new ByteArrayInputStream(data), encrypted);
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        cryptoManager.createDecrypter()
+                .decrypt(new ByteArrayInputStream(encrypted.toByteArray()), decrypted, metadata);
+
+        assertEquals(2, operations.size());
+        assertEquals(CryptoMetrics.ENCRYPT + ":" + DATA_SIZE + ":true", operations.get(0));
+        assertEquals(CryptoMetrics.DECRYPT + ":" + DATA_SIZE + ":true", operations.get(1));
+    }
+
+    @Test
+    public final void testIcv() throws KmcCryptoException, KmcCryptoManagerException {
+        String metadata = cryptoManager.createIcvCreator(KEYREF_HMAC)
+                .createIntegrityCheckValue(new ByteArrayInputStream(data));
+        boolean verified = cryptoManager.createIcvVerifier()
+                .verifyIntegrityCheckValue(new ByteArrayInputStream(data), metadata);
+
+        assertTrue(verified);
+        assertEquals(2, operations.size());
+        assertEquals(CryptoMetrics.ICV_CREATE + ":" + DATA_SIZE + ":true", operations.get(0));
+        assertEquals(CryptoMetrics.ICV_VERIFY + ":" + DATA_SIZE + ":true", operations.get(1));
+    }
+
+}
@@ -0,0 +1,149 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import gov.nasa.jpl.ammos.kmc.crypto.Encrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.IcvCreator;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Unit tests for the memory-mapped file input of encryption and integrity check.
+ *
+ *
+ */
+public class FileCryptoTest {
+    private static final String KEYREF_AES256 = "kmc/test/AES256";
+    private static final String KEYREF_HMAC = "kmc/test/HmacSHA256";
+    private static final int DATA_SIZE = 10000;
+    private static final int AAD_SIZE = 10;
+
+    private static KmcCryptoManager cryptoManager;
+    private static byte[] data;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUp() throws KmcCryptoManagerException {
+        cryptoManager = new KmcCryptoManager(null);
+        data = new byte[DATA_SIZE];
+        new Random(DATA_SIZE).nextBytes(data);
+    }
+
+    @Test
+    public final void testEncryptDecrypt() throws KmcCryptoException, KmcCryptoManagerException, IOException {
+        Path input = writeFile("input", data);
+        Path encrypted = folder.getRoot().toPath().resolve("encrypted");
+        Path decrypted = folder.getRoot().toPath().resolve("decrypted");
+
+        Encrypter encrypter = cryptoManager.createEncrypter(KEYREF_AES256);
+        String metadata = encrypter.encrypt(input, encrypted);
+        assertTrue(Files.size(encrypted) <= encrypter.getOutputSize(DATA_SIZE));
+        cryptoManager.createDecrypter().decrypt(encrypted, decrypted, metadata);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+    }
+
+    @Test
+    public final void testEncryptDecryptGcmWithAad()
+            throws KmcCryptoException, KmcCryptoManagerException, IOException {
+        KmcCryptoManager manager = new KmcCryptoManager(null);
+        manager.setCipherTransformation("AES/GCM/NoPadding");
+        Path input = writeFile("input", data);
+        Path encrypted = folder.getRoot().toPath().resolve("encrypted");
+        // an existing output file is overwritten
+        Path decrypted = writeFile("decrypted", new byte[2 * DATA_SIZE]);
+
+        String metadata = manager.createEncrypter(KEYREF_AES256).encrypt(input, AAD_SIZE, null, encrypted);
+        byte[] encryptedBytes = Files.readAllBytes(encrypted);
+        assertArrayEquals(Arrays.copyOf(data, AAD_SIZE), Arrays.copyOf(encryptedBytes, AAD_SIZE));
+        manager.createDecrypter().decrypt(encrypted, decrypted, metadata);
+        assertArrayEquals(data, Files.readAllBytes(decrypted));
+
+        // a failed decryption leaves no output file
+        encryptedBytes[0] ^= 1;
+        Path modified = writeFile("modified", encryptedBytes);
+        Path output = folder.getRoot().toPath().resolve("output");
+        try {
+            manager.createDecrypter().decrypt(modified, output, metadata);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR, e.getErrorCode());
+        }
+        assertFalse(Files.exists(output));
+    }
+
+    @Test
+    public final void testIntegrityCheck() throws KmcCryptoException, KmcCryptoManagerException, IOException {
+        Path input = writeFile("input", data);
+        for (String keyRef : new String[] {null, KEYREF_HMAC}) {
+            IcvCreator creator = keyRef == null ? cryptoManager.createIcvCreator()
+                    : cryptoManager.createIcvCreator(keyRef);
+            String metadata = creator.createIntegrityCheckValue(input);
+            // the file and the stream have the same ICV
+            assertEquals(metadata, creator.createIntegrityCheckValue(new ByteArrayInputStream(data)));
+            assertTrue(cryptoManager.createIcvVerifier().verifyIntegrityCheckValue(input, metadata));
+
+            byte[] modified = data.clone();
+            modified[0] ^= 1;
+            Path modifiedFile = writeFile("modified", modified);
+            assertFalse(cryptoManager.createIcvVerifier().verifyIntegrityCheckValue(modifiedFile, metadata));
+        }
+    }
+
+    @Test
+    public final void testSameInputAndOutput() throws KmcCryptoException, KmcCryptoManagerException, IOException {
+        Path input = writeFile("input", data);
+        try {
+            cryptoManager.createEncrypter(KEYREF_AES256).encrypt(input, input);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.INVALID_INPUT_VALUE, e.getErrorCode());
+        }
+        assertArrayEquals(data, Files.readAllBytes(input));
+    }
+
+    @Test
+    public final void testInvalidInputFile() throws KmcCryptoException, KmcCryptoManagerException, IOException {
+        Path missing = folder.getRoot().toPath().resolve("missing");
+        Path output = folder.getRoot().toPath().resolve("output");
+        try {
+            cryptoManager.createEncrypter(KEYREF_AES256).encrypt(missing, output);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.INVALID_INPUT_VALUE, e.getErrorCode());
+        }
+        assertFalse(Files.exists(output));
+        try {
+            cryptoManager.createIcvCreator().createIntegrityCheckValue((Path) null);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.INVALID_INPUT_VALUE, e.getErrorCode());
+        }
+    }
+
+    private Path writeFile(final String name, final byte[] content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, content);
+        return file;
+    }
+
+}
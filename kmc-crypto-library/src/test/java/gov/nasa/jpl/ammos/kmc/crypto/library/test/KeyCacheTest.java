@@ -1,11 +1,24 @@
 package gov.nasa.jpl.ammos.kmc.crypto.library.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -14,6 +27,8 @@ import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+import gov.nasa.jpl.ammos.kmc.crypto.library.KeyCache;
+import gov.nasa.jpl.ammos.kmc.crypto.library.KmcKey;
 
 /**
  * Unit tests for KeyCache.
@@ -24,6 +39,7 @@ public class KeyCacheTest {
     private static final String KEYNAME_HEAD = "kmc/test/";
     private static final String KEYREF_AES128 = KEYNAME_HEAD + "AES128";
     private static final String KEYREF_AES256 = KEYNAME_HEAD + "AES256";
+    private static final String KEYREF_CACHE = KEYNAME_HEAD + "cache/";
     private static KmcCryptoManager cryptoManager;
 
     @BeforeClass
@@ -45,4 +61,209 @@ public class KeyCacheTest {
         }
     }
 
+    @After
+    public final void resetKeyCache() throws KmcCryptoException {
+        KeyCache cache = KeyCache.getInstance();
+        cache.configure(new Properties());
+        cache.setTimeToLive(KeyCache.DEFAULT_KEY_CACHE_TTL, TimeUnit.MINUTES);
+        cache.setMaxSize(KeyCache.DEFAULT_KEY_CACHE_MAX_SIZE);
+        cache.setRefreshAhead(KeyCache.DEFAULT_KEY_CACHE_REFRESH_AHEAD);
+        cache.setFailureBackoff(KeyCache.DEFAULT_KEY_CACHE_FAILURE_BACKOFF, TimeUnit.SECONDS);
+        cache.setEnabled(true);
+        cache.invalidateAll();
+        cache.clearStats();
+    }
+
+    @Test
+    public final void testPutGetInvalidate() {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "invalidate";
+        KmcKey key = new KmcKey("1");
+        KmcKey privateKey = new KmcKey("2");
+        assertNull(cache.getKey(keyRef));
+        cache.putKey(keyRef, key);
+        cache.putKey(keyRef + "_:_private", privateKey);
+        assertSame(key, cache.getKey(keyRef));
+        cache.invalidate(keyRef);
+        assertNull(cache.getKey(keyRef));
+        assertNull(cache.getKey(keyRef + "_:_private"));
+
+        cache.putKey(keyRef, key);
+        cache.invalidateAll();
+        assertNull(cache.getKey(keyRef));
+    }
+
+    @Test
+    public final void testMaxSize() {
+        KeyCache cache = KeyCache.getInstance();
+        cache.setMaxSize(2);
+        cache.putKey(KEYREF_CACHE + "1", new KmcKey("1"));
+        cache.putKey(KEYREF_CACHE + "2", new KmcKey("2"));
+        // key 1 is used after key 2, so key 2 is evicted
+        assertNotNull(cache.getKey(KEYREF_CACHE + "1"));
+        cache.putKey(KEYREF_CACHE + "3", new KmcKey("3"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getKey(KEYREF_CACHE + "1"));
+        assertNull(cache.getKey(KEYREF_CACHE + "2"));
+        assertNotNull(cache.getKey(KEYREF_CACHE + "3"));
+    }
+
+    @Test
+    public final void testTimeToLive() throws InterruptedException {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "ttl";
+        cache.setTimeToLive(100, TimeUnit.MILLISECONDS);
+        cache.putKey(keyRef, new KmcKey("1"));
+        assertNotNull(cache.getKey(keyRef));
+        Thread.sleep(200);
+        assertNull(cache.getKey(keyRef));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public final void testRefreshAhead() throws InterruptedException {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "refresh";
+        KmcKey key = new KmcKey("1");
+        KmcKey refreshedKey = new KmcKey("2");
+        CountDownLatch loaded = new CountDownLatch(1);
+        cache.setTimeToLive(2, TimeUnit.SECONDS);
+        cache.setRefreshAhead(10);
+        cache.putKey(keyRef, key);
+        // not yet due for refresh
+        assertSame(key, cache.getKey(keyRef, k -> {
+            throw new AssertionError("Key refreshed too early");
+        }));
+        Thread.sleep(400);
+        assertSame(key, cache.getKey(keyRef, k -> {
+            loaded.countDown();
+            return refreshedKey;
+        }));
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && cache.getKey(keyRef) != refreshedKey; i++) {
+            Thread.sleep(20);
+        }
+        assertSame(refreshedKey, cache.getKey(keyRef));
+    }
+
+    @Test
+    public final void testStats() {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "stats";
+        assertNull(cache.getStats(keyRef));
+        cache.getKey(keyRef);
+        cache.putKey(keyRef, new KmcKey("1"));
+        cache.getKey(keyRef);
+        cache.getKey(keyRef);
+        KeyCache.KeyStats stats = cache.getStats(keyRef);
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertTrue(cache.getAllStats().containsKey(keyRef));
+    }
+
+    @Test
+    public final void testSingleFlight() throws Exception {
+        final KeyCache cache = KeyCache.getInstance();
+        final String keyRef = KEYREF_CACHE + "singleflight";
+        final int nThreads = 8;
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            List<Future<KmcKey>> results = new ArrayList<Future<KmcKey>>();
+            for (int i = 0; i < nThreads; i++) {
+                results.add(executor.submit(() -> cache.getOrLoadKey(keyRef, k -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, e.toString(), e);
+                    }
+                    return new KmcKey("1");
+                })));
+            }
+            // let all threads reach the cache before the load completes
+            Thread.sleep(200);
+            release.countDown();
+            KmcKey key = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<KmcKey> f : results) {
+                assertSame(key, f.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertSame(key, cache.getKey(keyRef));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public final void testFailureBackoff() throws Exception {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "backoff";
+        final AtomicInteger loads = new AtomicInteger();
+        KeyCache.KeyLoader failingLoader = k -> {
+            loads.incrementAndGet();
+            throw new KmcCryptoException(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, "Key " + k + " does not exist.", null);
+        };
+        cache.setFailureBackoff(300, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.getOrLoadKey(keyRef, failingLoader);
+                assertTrue("getOrLoadKey() should fail", false);
+            } catch (KmcCryptoException e) {
+                assertEquals(KmcCryptoErrorCode.CRYPTO_KEY_ERROR, e.getErrorCode());
+            }
+        }
+        assertEquals(1, loads.get());
+
+        Thread.sleep(400);
+        KmcKey key = new KmcKey("1");
+        assertSame(key, cache.getOrLoadKey(keyRef, k -> key));
+    }
+
+    @Test
+    public final void testConfigure() throws KmcCryptoException {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "config";
+        Properties config = new Properties();
+        config.setProperty(KeyCache.CFG_KEY_CACHE_ENABLE, "false");
+        cache.configure(config);
+        cache.putKey(keyRef, new KmcKey("1"));
+        assertNull(cache.getKey(keyRef));
+
+        config.setProperty(KeyCache.CFG_KEY_CACHE_MAX_SIZE, "0");
+        try {
+            cache.configure(config);
+            assertTrue("configure() should fail for key_cache_max_size 0", false);
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, e.getErrorCode());
+        }
+
+        config = new Properties();
+        config.setProperty(KeyCache.CFG_KEY_CACHE_AUDIT_MODE, "verbose");
+        try {
+            cache.configure(config);
+            assertTrue("configure() should fail for key_cache_audit_mode verbose", false);
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.CRYPTO_MISC_ERROR, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public final void testAuditModes() throws KmcCryptoException {
+        KeyCache cache = KeyCache.getInstance();
+        String keyRef = KEYREF_CACHE + "audit";
+        cache.putKey(keyRef, new KmcKey("1"));
+        for (String mode : new String[] {"none", "summary", "sampled", "async", "event"}) {
+            Properties config = new Properties();
+            config.setProperty(KeyCache.CFG_KEY_CACHE_AUDIT_MODE, mode);
+            config.setProperty(KeyCache.CFG_KEY_CACHE_AUDIT_SAMPLE_RATE, "2");
+            cache.configure(config);
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(cache.getKey(keyRef));
+            }
+        }
+        assertEquals(50, cache.getStats(keyRef).getHits());
+    }
+
 }
@@ -0,0 +1,207 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import gov.nasa.jpl.ammos.kmc.crypto.Decrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.Encrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Unit tests for segmented AES-GCM encryption.
+ *
+ *
+ */
+public class SegmentedEncryptionTest {
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String KEYREF_AES256 = "kmc/test/AES256";
+    private static final int SEGMENT_SIZE = KmcCryptoManager.MIN_ENCRYPTION_SEGMENT_SIZE;
+    private static final int TAG_SIZE = 16;
+    private static final int AAD_SIZE = 10;
+
+    private static KmcCryptoManager cryptoManager;
+
+    @BeforeClass
+    public static void setUp() throws KmcCryptoManagerException {
+        cryptoManager = new KmcCryptoManager(null);
+        cryptoManager.setCipherTransformation(GCM_TRANSFORMATION);
+        cryptoManager.setEncryptionSegmentSize(SEGMENT_SIZE);
+    }
+
+    @Test
+    public final void testStreamRoundTrip() throws KmcCryptoException, KmcCryptoManagerException {
+        for (int length : new int[] {1, SEGMENT_SIZE - 1, SEGMENT_SIZE, 10 * SEGMENT_SIZE, 100 * SEGMENT_SIZE + 7}) {
+            byte[] data = randomBytes(length);
+            ByteArrayOutputStream eos = new ByteArrayOutputStream();
+            Encrypter encrypter = cryptoManager.createEncrypter(KEYREF_AES256);
+            String metadata = encrypter.encrypt(new ByteArrayInputStream(data), eos);
+            assertTrue(metadata.contains("segmentSize:" + SEGMENT_SIZE));
+            assertEquals(encrypter.getOutputSize(length), eos.size());
+
+            assertArrayEquals(data, decryptStream(eos.toByteArray(), metadata));
+        }
+    }
+
+    @Test
+    public final void testAadWithBuffers() throws KmcCryptoException, KmcCryptoManagerException {
+        byte[] data = randomBytes(5 * SEGMENT_SIZE + 3);
+        Encrypter encrypter = cryptoManager.createEncrypter(KEYREF_AES256);
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(encrypter.getOutputSize(data.length));
+        String metadata = encrypter.encrypt(ByteBuffer.wrap(data), AAD_SIZE, null, encrypted);
+        encrypted.flip();
+        byte[] encryptedBytes = new byte[encrypted.remaining()];
+        encrypted.duplicate().get(encryptedBytes);
+        assertArrayEquals(Arrays.copyOf(data, AAD_SIZE), Arrays.copyOf(encryptedBytes, AAD_SIZE));
+
+        // the buffer result is decrypted by the stream method, and the other way around
+        assertArrayEquals(data, decryptStream(encryptedBytes, metadata));
+        ByteBuffer decrypted = ByteBuffer.allocate(encryptedBytes.length);
+        cryptoManager.createDecrypter().decrypt(encrypted, decrypted, metadata);
+        assertArrayEquals(data, Arrays.copyOf(decrypted.array(), decrypted.position()));
+
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        metadata = encrypter.encrypt(new ByteArrayInputStream(data), AAD_SIZE, null, eos);
+        decrypted = ByteBuffer.allocate(eos.size());
+        cryptoManager.createDecrypter().decrypt(ByteBuffer.wrap(eos.toByteArray()), decrypted, metadata);
+        assertArrayEquals(data, Arrays.copyOf(decrypted.array(), decrypted.position()));
+
+        // modified AAD
+        encryptedBytes[0] ^= 1;
+        assertDecryptFails(encryptedBytes, metadata, KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR);
+    }
+
+    @Test
+    public final void testTruncatedAtSegmentBoundary() throws KmcCryptoException, KmcCryptoManagerException {
+        byte[] data = randomBytes(4 * SEGMENT_SIZE);
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256).encrypt(new ByteArrayInputStream(data), eos);
+        byte[] truncated = Arrays.copyOf(eos.toByteArray(), 3 * (SEGMENT_SIZE + TAG_SIZE));
+        assertDecryptFails(truncated, metadata, KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR);
+    }
+
+    @Test
+    public final void testReorderedSegments() throws KmcCryptoException, KmcCryptoManagerException {
+        byte[] data = randomBytes(4 * SEGMENT_SIZE);
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256).encrypt(new ByteArrayInputStream(data), eos);
+        byte[] encrypted = eos.toByteArray();
+        int inputSegmentSize = SEGMENT_SIZE + TAG_SIZE;
+        byte[] swapped = encrypted.clone();
+        System.arraycopy(encrypted, 0, swapped, inputSegmentSize, inputSegmentSize);
+        System.arraycopy(encrypted, inputSegmentSize, swapped, 0, inputSegmentSize);
+        assertDecryptFails(swapped, metadata, KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR);
+    }
+
+    @Test
+    public final void testInvalidLength() throws KmcCryptoException, KmcCryptoManagerException {
+        byte[] data = randomBytes(2 * SEGMENT_SIZE);
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256).encrypt(new ByteArrayInputStream(data), eos);
+        // the last segment is shorter than a tag
+        byte[] truncated = Arrays.copyOf(eos.toByteArray(), SEGMENT_SIZE + TAG_SIZE + 1);
+        try {
+            cryptoManager.createDecrypter().decrypt(ByteBuffer.wrap(truncated),
+                    ByteBuffer.allocate(truncated.length), metadata);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(KmcCryptoErrorCode.INVALID_INPUT_VALUE, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public final void testSegmentSizeTooLarge() throws KmcCryptoException, KmcCryptoManagerException {
+        try {
+            cryptoManager.copy().setEncryptionSegmentSize(KmcCryptoManager.MAX_ENCRYPTION_SEGMENT_SIZE + 1);
+            fail("Expected KmcCryptoManagerException not received.");
+        } catch (KmcCryptoManagerException e) {
+            assertTrue(e.getMessage().contains("segment size"));
+        }
+
+        byte[] data = randomBytes(2 * SEGMENT_SIZE);
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256).encrypt(new ByteArrayInputStream(data), eos);
+        for (int segmentSize : new int[] {KmcCryptoManager.MAX_ENCRYPTION_SEGMENT_SIZE + 1, Integer.MAX_VALUE}) {
+            String modified = metadata.replace("segmentSize:" + SEGMENT_SIZE, "segmentSize:" + segmentSize);
+            assertDecryptFails(eos.toByteArray(), modified, KmcCryptoErrorCode.CRYPTO_METADATA_ERROR);
+        }
+    }
+
+    @Test
+    public final void testSegmentSizeTooSmall() throws KmcCryptoException, KmcCryptoManagerException {
+        for (int segmentSize : new int[] {0, 1, KmcCryptoManager.MIN_ENCRYPTION_SEGMENT_SIZE - 1}) {
+            try {
+                cryptoManager.copy().setEncryptionSegmentSize(segmentSize);
+                fail("Expected KmcCryptoManagerException not received.");
+            } catch (KmcCryptoManagerException e) {
+                assertTrue(e.getMessage().contains("segment size"));
+            }
+        }
+
+        byte[] data = randomBytes(2 * SEGMENT_SIZE);
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256).encrypt(new ByteArrayInputStream(data), eos);
+        for (int segmentSize : new int[] {1, KmcCryptoManager.MIN_ENCRYPTION_SEGMENT_SIZE - 1}) {
+            String modified = metadata.replace("segmentSize:" + SEGMENT_SIZE, "segmentSize:" + segmentSize);
+            assertDecryptFails(eos.toByteArray(), modified, KmcCryptoErrorCode.CRYPTO_METADATA_ERROR);
+        }
+    }
+
+    @Test
+    public final void testInvalidIvLength() throws KmcCryptoException, KmcCryptoManagerException {
+        byte[] data = randomBytes(2 * SEGMENT_SIZE);
+        ByteArrayOutputStream eos = new ByteArrayOutputStream();
+        String metadata = cryptoManager.createEncrypter(KEYREF_AES256).encrypt(new ByteArrayInputStream(data), eos);
+        for (int ivLength : new int[] {0, 8, 16}) {
+            String iv = Base64.getUrlEncoder().encodeToString(new byte[ivLength]);
+            String modified = metadata.replaceFirst("initialVector:[^,]*", "initialVector:" + iv);
+            assertDecryptFails(eos.toByteArray(), modified, KmcCryptoErrorCode.CRYPTO_METADATA_ERROR);
+        }
+    }
+
+    private byte[] decryptStream(final byte[] encrypted, final String metadata)
+            throws KmcCryptoException, KmcCryptoManagerException {
+        ByteArrayOutputStream dos = new ByteArrayOutputStream();
+        Decrypter decrypter = cryptoManager.createDecrypter();
+        decrypter.decrypt(new ByteArrayInputStream(encrypted), dos, metadata);
+        return dos.toByteArray();
+    }
+
+    private void assertDecryptFails(final byte[] encrypted, final String metadata,
+            final KmcCryptoErrorCode errorCode) throws KmcCryptoException, KmcCryptoManagerException {
+        try {
+            decryptStream(encrypted, metadata);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(errorCode, e.getErrorCode());
+        }
+        try {
+            cryptoManager.createDecrypter().decrypt(ByteBuffer.wrap(encrypted),
+                    ByteBuffer.allocate(encrypted.length), metadata);
+            fail("Expected KmcCryptoException not received.");
+        } catch (KmcCryptoException e) {
+            assertEquals(errorCode, e.getErrorCode());
+        }
+    }
+
+    private static byte[] randomBytes(final int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+}
@@ -0,0 +1,130 @@
+package gov.nasa.jpl.ammos.kmc.crypto.library.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import gov.nasa.jpl.ammos.kmc.crypto.IcvCreator;
+import gov.nasa.jpl.ammos.kmc.crypto.IcvVerifier;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Unit tests for tree-hashed integrity check.
+ *
+ *
+ */
+public class TreeHashIcvTest {
+    private static final String KEYREF_HMAC = "kmc/test/HmacSHA256";
+    private static final int CHUNK_SIZE = KmcCryptoManager.MIN_ICV_CHUNK_SIZE;
+    // more than 256 (the fanout) chunks for a tree of two levels
+    private static final int DATA_SIZE = 257 * CHUNK_SIZE + 100;
+
+    private static KmcCryptoManager cryptoManager;
+    private static byte[] data;
+
+    @BeforeClass
+    public static void setUp() throws KmcCryptoManagerException {
+        cryptoManager = new KmcCryptoManager(null);
+        cryptoManager.setIcvChunkSize(CHUNK_SIZE);
+        data = new byte[DATA_SIZE];
+        new Random(DATA_SIZE).nextBytes(data);
+    }
+
+    @Test
+    public final void testMessageDigest() throws KmcCryptoException, KmcCryptoManagerException {
+        IcvCreator creator = cryptoManager.createIcvCreator();
+        String metadata = creator.createIntegrityCheckValue(new ByteArrayInputStream(data));
+        assertTrue(metadata.contains("icvChunkSize:" + CHUNK_SIZE));
+        // the stream and the buffer have the same tree
+        assertEquals(metadata, creator.createIntegrityCheckValue(ByteBuffer.wrap(data)));
+
+        // the verifier uses the tree parameters in the metadata
+        KmcCryptoManager manager = new KmcCryptoManager(null);
+        String sequentialMetadata = manager.createIcvCreator().createIntegrityCheckValue(data, 0, data.length);
+        assertNotEquals(metadata, sequentialMetadata);
+        IcvVerifier verifier = manager.createIcvVerifier();
+        assertTrue(verifier.verifyIntegrityCheckValue(new ByteArrayInputStream(data), metadata));
+        assertTrue(verifier.verifyIntegrityCheckValue(ByteBuffer.wrap(data), metadata));
+        assertTrue(verifier.verifyIntegrityCheckValue(data, 0, data.length, sequentialMetadata));
+
+        byte[] modified = data.clone();
+        modified[DATA_SIZE - 1] ^= 1;
+        assertFalse(verifier.verifyIntegrityCheckValue(modified, 0, modified.length, metadata));
+        assertFalse(verifier.verifyIntegrityCheckValue(data, 0, data.length - 1, metadata));
+    }
+
+    @Test
+    public final void testHmac() throws KmcCryptoException, KmcCryptoManagerException {
+        IcvCreator creator = cryptoManager.createIcvCreator(KEYREF_HMAC);
+        ByteBuffer input = ByteBuffer.allocateDirect(DATA_SIZE);
+        input.put(data).flip();
+        String metadata = creator.createIntegrityCheckValue(input);
+        assertFalse(input.hasRemaining());
+        assertEquals(metadata, creator.createIntegrityCheckValue(new ByteArrayInputStream(data)));
+
+        IcvVerifier verifier = cryptoManager.createIcvVerifier();
+        assertTrue(verifier.verifyIntegrityCheckValue(new ByteArrayInputStream(data), metadata));
+        byte[] modified = data.clone();
+        modified[0] ^= 1;
+        assertFalse(verifier.verifyIntegrityCheckValue(new ByteArrayInputStream(modified), metadata));
+    }
+
+    @Test
+    public final void testInvalidTreeMetadata() throws KmcCryptoException, KmcCryptoManagerException {
+        String metadata = cryptoManager.createIcvCreator().createIntegrityCheckValue(data, 0, data.length);
+        IcvVerifier verifier = cryptoManager.createIcvVerifier();
+        String[] invalidMetadata = {
+            metadata.replaceAll("icvTreeFanout:[0-9]+,?", ""),
+            metadata.replaceAll("icvTreeFanout:[0-9]+", "icvTreeFanout:1"),
+            metadata.replaceAll("icvChunkSize:[0-9]+", "icvChunkSize:x"),
+            metadata.replaceAll("icvChunkSize:[0-9]+", "icvChunkSize:1"),
+            metadata.replaceAll("icvChunkSize:[0-9]+", "icvChunkSize:" + (KmcCryptoManager.MIN_ICV_CHUNK_SIZE - 1)),
+            metadata.replaceAll("icvChunkSize:[0-9]+", "icvChunkSize:" + (KmcCryptoManager.MAX_ICV_CHUNK_SIZE + 1)),
+            metadata.replaceAll("icvChunkSize:[0-9]+", "icvChunkSize:" + Integer.MAX_VALUE)
+        };
+        for (String invalid : invalidMetadata) {
+            assertNotEquals(metadata, invalid);
+            try {
+                verifier.verifyIntegrityCheckValue(data, 0, data.length, invalid);
+                fail("Expected KmcCryptoException not received.");
+            } catch (KmcCryptoException e) {
+                assertEquals(KmcCryptoErrorCode.CRYPTO_METADATA_ERROR, e.getErrorCode());
+            }
+        }
+    }
+
+    @Test
+    public final void testChunkSizeTooLarge() {
+        try {
+            cryptoManager.copy().setIcvChunkSize(KmcCryptoManager.MAX_ICV_CHUNK_SIZE + 1);
+            fail("Expected KmcCryptoManagerException not received.");
+        } catch (KmcCryptoManagerException e) {
+            assertTrue(e.getMessage().contains("chunk size"));
+        }
+    }
+
+    @Test
+    public final void testChunkSizeTooSmall() {
+        for (int chunkSize : new int[] {0, 1, KmcCryptoManager.MIN_ICV_CHUNK_SIZE - 1}) {
+            try {
+                cryptoManager.copy().setIcvChunkSize(chunkSize);
+                fail("Expected KmcCryptoManagerException not received.");
+            } catch (KmcCryptoManagerException e) {
+                assertTrue(e.getMessage().contains("chunk size"));
+            }
+        }
+    }
+
+}
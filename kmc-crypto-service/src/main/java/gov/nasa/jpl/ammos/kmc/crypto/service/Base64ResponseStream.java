@@ -0,0 +1,74 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Base64;
+
+/**
+ * Writes the output of a crypto function to the response in base64 encoding as it is produced,
+ * so that the JSON response is not built in memory.  Closing the stream writes the end of
+ * the base64 encoding but leaves the response open for the rest of the JSON response.
+ *
+ *
+ */
+public final class Base64ResponseStream extends OutputStream {
+    /**
+     * Size of the response buffer.  Errors that occur before the buffer is full
+     * can still be returned as a failure response.
+     */
+    public static final int RESPONSE_BUFFER_SIZE = 65536;
+
+    private final OutputStream encoder;
+    private long bytesWritten;
+    private boolean closed;
+
+    /**
+     * Constructor of the Base64ResponseStream.
+     * @param out the output stream of the response.
+     */
+    public Base64ResponseStream(final OutputStream out) {
+        // the base64 encoder closes its output stream when it is closed
+        OutputStream nonClosing = new FilterOutputStream(out) {
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        this.encoder = Base64.getEncoder().wrap(nonClosing);
+    }
+
+    /**
+     * Returns the number of bytes written before base64 encoding.
+     * @return the number of bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        encoder.write(b);
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        encoder.write(b, off, len);
+        bytesWritten = bytesWritten + len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            encoder.close();
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+
+/**
+ * The body of a batch request, which is a sequence of items.  Each item consists of
+ * <ul>
+ * <li>the length of the item options in bytes (4-byte big-endian integer),</li>
+ * <li>the item options, a UTF-8 JSON object of the request parameters for the item,
+ *     e.g. {"keyRef":"kmc/test/AES256","iv":"..."},</li>
+ * <li>the length of the item data in bytes (4-byte big-endian integer),</li>
+ * <li>the item data.</li>
+ * </ul>
+ * An option that is not in the item options is taken from the parameters of the HTTP request.
+ * The items are read one at a time, so only one item is held in memory.  The buffer of an item
+ * grows as its data arrive, so a length prefix alone does not allocate the memory it claims.
+ *
+ *
+ */
+public final class BatchRequestStream {
+    /**
+     * Maximum number of bytes of the options of an item.
+     */
+    public static final int MAX_OPTIONS_BYTES = 8192;
+
+    // initial buffer size of the data of an item, doubled as the data arrive
+    private static final int READ_BUFFER_BYTES = 65536;
+
+    private final RequestBodyStream body;
+    private final DataInputStream in;
+    private final Map<String, String> defaultOptions;
+    private final int maxItemBytes;
+    private final Gson gson = new Gson();
+    private int itemCount;
+
+    /**
+     * Constructor of the BatchRequestStream.
+     * @param body the request body.
+     * @param defaultOptions the parameters of the HTTP request, used for options not in an item.
+     * @param maxItemBytes the maximum number of bytes of data in an item.
+     */
+    public BatchRequestStream(final RequestBodyStream body, final Map<String, String> defaultOptions,
+            final int maxItemBytes) {
+        this.body = body;
+        this.in = new DataInputStream(body);
+        this.defaultOptions = defaultOptions;
+        this.maxItemBytes = maxItemBytes;
+    }
+
+    /**
+     * Returns the number of items read.
+     * @return number of items read.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Returns the number of bytes read from the request body.
+     * @return number of bytes read.
+     */
+    public long getBytesRead() {
+        return body.getBytesRead();
+    }
+
+    /**
+     * Reads the next item of the request.
+     * @return the next item, or null at the end of the request.
+     * @throws IOException if the request is malformed or error in reading the request.
+     */
+    public Item next() throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        int optionsLength = first << 24 | readLength(3, "options length");
+        if (optionsLength < 0 || optionsLength > MAX_OPTIONS_BYTES) {
+            throw new IOException("Invalid options length (" + optionsLength + ") of item " + itemCount
+                    + ", the maximum is " + MAX_OPTIONS_BYTES + " bytes.");
+        }
+        byte[] optionsBytes = readFully(optionsLength, "options");
+        Map<String, String> options = new HashMap<String, String>(defaultOptions);
+        if (optionsLength > 0) {
+            parseOptions(new String(optionsBytes, StandardCharsets.UTF_8), options);
+        }
+
+        int dataLength = readLength(Integer.BYTES, "data length");
+        if (dataLength < 0 || dataLength > maxItemBytes) {
+            throw new IOException("Invalid data length (" + dataLength + ") of item " + itemCount
+                    + ", the maximum is " + maxItemBytes + " bytes.");
+        }
+        byte[] data = readFully(dataLength, "data");
+        return new Item(itemCount++, options, data);
+    }
+
+    private int readLength(final int length, final String part) throws IOException {
+        int value = 0;
+        for (byte b : readFully(length, part)) {
+            value = value << 8 | (b & 0xFF);
+        }
+        return value;
+    }
+
+    private byte[] readFully(final int length, final String part) throws IOException {
+        byte[] bytes = new byte[Math.min(length, READ_BUFFER_BYTES)];
+        int count = 0;
+        while (count < length) {
+            if (count == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int n = in.read(bytes, count, bytes.length - count);
+            if (n == -1) {
+                throw new IOException("Truncated " + part + " of item " + itemCount);
+            }
+            count = count + n;
+        }
+        return bytes;
+    }
+
+    private void parseOptions(final String json, final Map<String, String> options) throws IOException {
+        JsonObject object;
+        try {
+            object = gson.fromJson(json, JsonObject.class);
+        } catch (JsonSyntaxException e) {
+            throw new IOException("Invalid options of item " + itemCount + ": " + e.getMessage());
+        }
+        if (object == null) {
+            throw new IOException("Invalid options of item " + itemCount + ": not a JSON object");
+        }
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            JsonElement value = entry.getValue();
+            if (value.isJsonNull()) {
+                options.remove(entry.getKey());
+            } else if (value.isJsonPrimitive()) {
+                options.put(entry.getKey(), value.getAsString());
+            } else {
+                throw new IOException("Invalid value of option " + entry.getKey() + " of item " + itemCount);
+            }
+        }
+    }
+
+    /**
+     * An item of a batch request.
+     */
+    public static final class Item {
+        private final int index;
+        private final Map<String, String> options;
+        private final byte[] data;
+
+        Item(final int index, final Map<String, String> options, final byte[] data) {
+            this.index = index;
+            this.options = options;
+            this.data = data;
+        }
+
+        /**
+         * Returns the position of the item in the request, starting from 0.
+         * @return index of the item.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the value of an option of the item.
+         * @param name name of the option.
+         * @return value of the option, or null if the option is not specified.
+         */
+        public String getOption(final String name) {
+            return options.get(name);
+        }
+
+        /**
+         * Returns the data of the item.
+         * @return data of the item.
+         */
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+}
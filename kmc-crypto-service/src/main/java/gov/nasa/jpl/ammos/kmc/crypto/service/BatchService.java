@@ -0,0 +1,308 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException.KmcCryptoErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException.KmcCryptoManagerErrorCode;
+import gov.nasa.jpl.ammos.kmc.crypto.library.KmcKeyServiceClient;
+import gov.nasa.jpl.ammos.kmc.crypto.model.CryptoServiceResponse;
+import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
+
+/**
+ * Base class of the servlets that process many small items in one request.  The request body
+ * is read by {@link BatchRequestStream}, and the response is a JSON array of the responses of
+ * the items, in the order of the items.  Each response has its own status, the same as the
+ * response of the service for a single item, so a failed item does not fail the other items.
+ *
+ * The crypto function (e.g. {@link gov.nasa.jpl.ammos.kmc.crypto.Encrypter}) is created once for
+ * the items with the same options, so the items sharing a key resolve the key only once.
+ * The response of each item is sent as soon as the item is processed.
+ *
+ * The data of an item is limited to {@value #DEFAULT_MAX_ITEM_BYTES} bytes, or the value of the
+ * Spring property {@value #MAX_ITEM_BYTES_PROPERTY}.
+ *
+ * @param <E> the crypto function used for the items.
+ *
+ */
+public abstract class BatchService<E> extends HttpServlet {
+    private static final long serialVersionUID = -2904187437562087329L;
+
+    /**
+     * Spring property for the maximum number of bytes of data in an item.
+     */
+    public static final String MAX_ITEM_BYTES_PROPERTY = "kmc.crypto.service.batch.max.item.bytes";
+    /**
+     * Default maximum number of bytes of data in an item.
+     */
+    public static final int DEFAULT_MAX_ITEM_BYTES = 1048576;
+
+    private static final Logger audit = LoggerFactory.getLogger("AUDIT");
+
+    private final transient Logger logger = LoggerFactory.getLogger(getClass());
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final int maxBytes = KmcCryptoServiceConfiguration.MAX_CRYPTO_SERVICE_BYTES;
+    private int maxItemBytes = DEFAULT_MAX_ITEM_BYTES;
+
+    @Override
+    public final void init(final ServletConfig config) throws ServletException {
+        super.init(config);
+        maxItemBytes = Math.min(maxBytes,
+                CryptoServiceExecutor.getProperty(MAX_ITEM_BYTES_PROPERTY, DEFAULT_MAX_ITEM_BYTES, 1));
+
+        try {
+            SharedCryptoManager.init();
+        } catch (KmcCryptoManagerException e) {
+            // each request returns the error until the config can be loaded
+            logger.error("Failed to load KMC Crypto config: " + e);
+        }
+    }
+
+    /**
+     * Returns the key of the crypto function for the item.  Items with the same key
+     * are processed by the same crypto function.
+     * @param item the item of the request.
+     * @return key of the crypto function.
+     */
+    protected abstract String getFunctionKey(BatchRequestStream.Item item);
+
+    /**
+     * Creates the crypto function for the options of the item.
+     * @param cryptoManager a {@link KmcCryptoManager} for this crypto function only.
+     * @param item the first item that uses the crypto function.
+     * @return the crypto function.
+     * @throws ItemException if the crypto function cannot be created.
+     */
+    protected abstract E createFunction(KmcCryptoManager cryptoManager, BatchRequestStream.Item item)
+            throws ItemException;
+
+    /**
+     * Processes the data of the item.
+     * @param function the crypto function for the item.
+     * @param item the item of the request.
+     * @return the response of the item.
+     * @throws ItemException if error in processing the item.
+     */
+    protected abstract Object processItem(E function, BatchRequestStream.Item item) throws ItemException;
+
+    @Override
+    protected final void doPost(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
+        CryptoServiceExecutor.execute(request, response, this::process);
+    }
+
+    private void process(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
+        String serviceName = getClass().getSimpleName();
+        ServletOutputStream out = response.getOutputStream();
+        response.setContentType("application/json");
+
+        KmcCryptoManager cryptoManager;
+        try {
+            cryptoManager = SharedCryptoManager.getCryptoManager();
+        } catch (KmcCryptoManagerException e) {
+            String msg = serviceName + ": failed to create KmcCryptoManager: " + e;
+            failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+            return;
+        }
+
+        CryptoServiceUtilities.logRequestParameters(logger, audit, request);
+
+        if (request.getContentLengthLong() > maxBytes) {
+            String msg = serviceName + ": input data exceeds maximum size of " + maxBytes + " bytes.";
+            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            return;
+        }
+        // the request parameters are the default options of the items
+        Map<String, String> defaultOptions = new HashMap<String, String>();
+        for (Map.Entry<String, String[]> param : request.getParameterMap().entrySet()) {
+            defaultOptions.put(param.getKey(), param.getValue()[0]);
+        }
+        BatchRequestStream items = new BatchRequestStream(
+                new RequestBodyStream(request.getInputStream(), maxBytes), defaultOptions, maxItemBytes);
+        BatchRequestStream.Item item;
+        try {
+            item = items.next();
+        } catch (IOException e) {
+            String msg = serviceName + ": invalid batch request: " + e.getMessage();
+            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            return;
+        }
+        if (item == null) {
+            String msg = serviceName + ": empty batch request.";
+            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            return;
+        }
+
+        response.setBufferSize(Base64ResponseStream.RESPONSE_BUFFER_SIZE);
+        response.setStatus(HttpServletResponse.SC_OK);
+        Map<String, E> functions = new HashMap<String, E>();
+        Map<String, ItemException> functionErrors = new HashMap<String, ItemException>();
+        int failures = 0;
+        out.print("[");
+        while (item != null) {
+            Object result;
+            try {
+                result = processBatchItem(cryptoManager, functions, functionErrors, item);
+            } catch (ItemException e) {
+                String msg = serviceName + ": item " + item.getIndex() + ": " + e.getMessage();
+                audit.info(serviceName + ": Failure response: code " + e.getHttpCode() + ", error: " + msg);
+                logger.error("HTTP code: {}, {}", e.getHttpCode(), msg);
+                result = new CryptoServiceResponse(new Status(e.getHttpCode(), msg), null);
+                failures++;
+            }
+            if (item.getIndex() > 0) {
+                out.print(",");
+            }
+            out.print(gson.toJson(result));
+
+            try {
+                item = items.next();
+            } catch (IOException e) {
+                // the rest of the request cannot be read, the error is the last response
+                String msg = serviceName + ": invalid batch request: " + e.getMessage();
+                audit.info(serviceName + ": Failure response: code " + HttpServletResponse.SC_BAD_REQUEST
+                        + ", error: " + msg);
+                logger.error("HTTP code: {}, {}", HttpServletResponse.SC_BAD_REQUEST, msg);
+                Status status = new Status(HttpServletResponse.SC_BAD_REQUEST, msg);
+                out.print("," + gson.toJson(new CryptoServiceResponse(status, null)));
+                failures++;
+                item = null;
+            }
+        }
+        out.print("]");
+        out.flush();
+        logger.debug("{} items, {} failures, {} crypto functions, request size = {}",
+                items.getItemCount(), failures, functions.size() + functionErrors.size(), items.getBytesRead());
+        audit.info(serviceName + ": User processed " + items.getItemCount() + " items of "
+                + items.getBytesRead() + " bytes, " + failures + " items failed.");
+    }
+
+    private Object processBatchItem(final KmcCryptoManager cryptoManager, final Map<String, E> functions,
+            final Map<String, ItemException> functionErrors, final BatchRequestStream.Item item)
+            throws ItemException {
+        if (item.getData().length == 0) {
+            throw new ItemException(HttpServletResponse.SC_BAD_REQUEST, "empty input data.");
+        }
+        String functionKey = getFunctionKey(item);
+        E function = functions.get(functionKey);
+        if (function == null) {
+            ItemException error = functionErrors.get(functionKey);
+            if (error != null) {
+                throw error;
+            }
+            try {
+                function = createFunction(cryptoManager.copy(), item);
+            } catch (ItemException e) {
+                functionErrors.put(functionKey, e);
+                throw e;
+            }
+            functions.put(functionKey, function);
+        }
+        return processItem(function, item);
+    }
+
+    /**
+     * Converts the error in creating a crypto function to the error of the item.
+     * @param e the error in creating the crypto function.
+     * @return the error of the item.
+     */
+    protected static ItemException toItemException(final KmcCryptoManagerException e) {
+        String msg;
+        if (e.getCause() == null) {
+            msg = e.getMessage();
+        } else {
+            msg = e.getCause().getMessage();
+        }
+        if (e.getErrorCode() == KmcCryptoManagerErrorCode.CRYPTO_KEY_ERROR) {
+            if (msg != null && msg.contains(KmcKeyServiceClient.NO_KEY_SOURCE_ERROR_MSG)) {
+                // no key source
+                return new ItemException(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+            }
+            // non-exist keyRef
+            return new ItemException(HttpServletResponse.SC_BAD_REQUEST, msg);
+        } else if (e.getErrorCode() == KmcCryptoManagerErrorCode.CRYPTO_ALGORITHM_ERROR) {
+            return new ItemException(HttpServletResponse.SC_BAD_REQUEST, msg);
+        }
+        return new ItemException(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+    }
+
+    /**
+     * Converts the error of a crypto function to the error of the item.
+     * @param e the error of the crypto function.
+     * @return the error of the item.
+     */
+    protected static ItemException toItemException(final KmcCryptoException e) {
+        String msg = e.toString();
+        KmcCryptoErrorCode errorCode = e.getErrorCode();
+        if (errorCode == KmcCryptoErrorCode.CRYPTO_KEY_ERROR) {
+            if (msg.contains(KmcKeyServiceClient.NO_KEY_SOURCE_ERROR_MSG)) {
+                // no key source
+                return new ItemException(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+            }
+            return new ItemException(HttpServletResponse.SC_BAD_REQUEST, msg);
+        } else if (errorCode == KmcCryptoErrorCode.INVALID_INPUT_VALUE
+                || errorCode == KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR
+                || errorCode == KmcCryptoErrorCode.CRYPTO_METADATA_ERROR) {
+            return new ItemException(HttpServletResponse.SC_BAD_REQUEST, msg);
+        }
+        return new ItemException(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+    }
+
+    private void failureResponse(final HttpServletResponse response, final int errorCode, final String msg)
+            throws IOException {
+        audit.info(getClass().getSimpleName() + ": Failure response: code " + errorCode + ", error: " + msg);
+        logger.error("HTTP code: {}, {}", errorCode, msg);
+        Status status = new Status(errorCode, msg);
+        CryptoServiceResponse res = new CryptoServiceResponse(status, null);
+        response.setStatus(errorCode);
+        response.getOutputStream().print(gson.toJson(res));
+        response.getOutputStream().flush();
+    }
+
+    /**
+     * Error of an item of the batch request, which is returned in the response of the item.
+     */
+    protected static final class ItemException extends Exception {
+        private static final long serialVersionUID = 6017390232467520114L;
+
+        private final int httpCode;
+
+        /**
+         * Constructor of the ItemException.
+         * @param httpCode the HTTP code in the status of the item.
+         * @param message the reason in the status of the item.
+         */
+        public ItemException(final int httpCode, final String message) {
+            super(message);
+            this.httpCode = httpCode;
+        }
+
+        /**
+         * Returns the HTTP code in the status of the item.
+         * @return HTTP code of the error.
+         */
+        public int getHttpCode() {
+            return httpCode;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import gov.nasa.jpl.ammos.kmc.crypto.EncryptionMetadataSink;
+
+/**
+ * Writes the output of a crypto function as the raw bytes of an application/octet-stream response.
+ * The encryption metadata is sent in the response headers, which the Encrypter provides before
+ * the encrypted data.  Closing the stream leaves the response open.
+ *
+ *
+ */
+public final class BinaryResponseStream extends FilterOutputStream implements EncryptionMetadataSink {
+    /**
+     * Content type of the binary request and response.
+     */
+    public static final String CONTENT_TYPE = "application/octet-stream";
+    /**
+     * Header of the metadata returned by encryption, which is also accepted by decryption.
+     */
+    public static final String METADATA_HEADER = "X-KMC-Metadata";
+    /**
+     * Header of the keyRef used for encryption.
+     */
+    public static final String KEY_REF_HEADER = "X-KMC-KeyRef";
+    /**
+     * Header of the initial vector (URL-safe base64) used for encryption.
+     */
+    public static final String IV_HEADER = "X-KMC-IV";
+    /**
+     * Header of the MAC length used for authenticated encryption.
+     */
+    public static final String MAC_LENGTH_HEADER = "X-KMC-MacLength";
+
+    private final HttpServletResponse response;
+    private long bytesWritten;
+
+    /**
+     * Constructor of the BinaryResponseStream.
+     * @param response the response the output is written to.
+     * @throws IOException if error getting the output stream of the response.
+     */
+    public BinaryResponseStream(final HttpServletResponse response) throws IOException {
+        super(response.getOutputStream());
+        this.response = response;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     * @return the number of bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void setEncryptionMetadata(final String metadata) {
+        response.setHeader(METADATA_HEADER, metadata);
+        // metadata is a comma separated list of name:value
+        for (String attribute : metadata.split(",")) {
+            int i = attribute.indexOf(':');
+            if (i == -1) {
+                continue;
+            }
+            String name = attribute.substring(0, i);
+            String value = attribute.substring(i + 1);
+            if ("keyRef".equals(name)) {
+                response.setHeader(KEY_REF_HEADER, value);
+            } else if ("initialVector".equals(name)) {
+                response.setHeader(IV_HEADER, value);
+            } else if ("macLength".equals(name)) {
+                response.setHeader(MAC_LENGTH_HEADER, value);
+            }
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        out.write(b);
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        bytesWritten = bytesWritten + len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+}
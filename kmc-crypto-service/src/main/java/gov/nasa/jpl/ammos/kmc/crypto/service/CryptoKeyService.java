@@ -33,7 +33,7 @@ import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
  *
  *
  */
-@WebServlet("/key-info")
+@WebServlet(value = "/key-info", asyncSupported = true)
 public class CryptoKeyService extends HttpServlet {
     private static final long serialVersionUID = 1056079085902283284L;
 
@@ -42,30 +42,33 @@ public class CryptoKeyService extends HttpServlet {
 
     private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
 
-    private String kmcHome;
 
     @Override
     public final void init(final ServletConfig config) throws ServletException {
         super.init(config);
 
-        kmcHome = System.getenv(KmcCryptoManager.ENV_KMC_CRYPTO_SERVICE_HOME);
-        if (kmcHome == null) {
-            kmcHome = KmcCryptoManager.DEFAULT_KMC_CRYPTO_SERVICE_HOME;
+        try {
+            SharedCryptoManager.init();
+        } catch (KmcCryptoManagerException e) {
+            // each request returns the error until the config can be loaded
+            logger.error("Failed to load KMC Crypto config: " + e);
         }
     }
 
     @Override
     protected final void doGet(final HttpServletRequest request, final HttpServletResponse response)
             throws ServletException, IOException {
+        CryptoServiceExecutor.execute(request, response, this::process);
+    }
+
+    private void process(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
         ServletOutputStream out = response.getOutputStream();
         response.setContentType("application/json");
 
         KmcCryptoManager cryptoManager;
         try {
-            String[] args = new String[] {
-                    "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + kmcHome + "/etc"
-            };
-            cryptoManager = new KmcCryptoManager(args);
+            cryptoManager = SharedCryptoManager.getCryptoManager();
         } catch (KmcCryptoManagerException e) {
             String msg = "CryptoKeyService: Failed to get KmcCryptoManager: " + e;
             failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -6,6 +6,7 @@ import java.security.Security;
 import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletResponse;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.Response;
 import org.apache.catalina.filters.HttpHeaderSecurityFilter;
@@ -78,6 +79,15 @@ public class CryptoKeyServiceApplication extends SpringBootServletInitializer {
 		return registration;	
 	}
 
+    /**
+     * Records the crypto metrics in the Micrometer registry of Spring Boot actuator.
+     * @return the metrics of the Crypto Service.
+     */
+    @Bean
+    public MeterBinder cryptoMetrics() {
+        return CryptoMetricsRegistry.getInstance();
+    }
+
     @Bean
     public TomcatServletWebServerFactory tomcatServletWebServerFactory() {
 
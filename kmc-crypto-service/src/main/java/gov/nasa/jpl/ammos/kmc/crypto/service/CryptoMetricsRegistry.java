@@ -0,0 +1,143 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import gov.nasa.jpl.ammos.kmc.crypto.CryptoMetrics;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+
+/**
+ * The {@link CryptoMetrics} of the Crypto Service.  It records the crypto operations by operation and
+ * algorithm, the key cache hits and misses, the round-trip times and errors of the KMS requests, and
+ * the number of requests rejected because the service is busy in a Micrometer registry.
+ *
+ * As a {@link MeterBinder}, the registry records them in the meters of Spring Boot actuator,
+ * e.g. /actuator/metrics/kmc.crypto.operation, which are also published in JMX under the
+ * metrics domain by micrometer-registry-jmx.  Until it is bound, it records them in the
+ * Micrometer global registry.
+ * <ul>
+ * <li>kmc.crypto.operation: timer with percentile histogram, tags operation, algorithm and outcome</li>
+ * <li>kmc.crypto.operation.bytes: bytes processed, tags operation and algorithm</li>
+ * <li>kmc.crypto.key.cache: key cache lookups, tag result (hit or miss)</li>
+ * <li>kmc.crypto.kms.request: timer of the KMS requests, tags operation and outcome</li>
+ * <li>kmc.crypto.rejected.requests: requests rejected because the service is busy</li>
+ * </ul>
+ *
+ *
+ */
+public final class CryptoMetricsRegistry implements CryptoMetrics, MeterBinder {
+
+    private static CryptoMetricsRegistry instance;
+
+    // the meters of the registry bound last, replaced together when another registry is bound
+    private static final class Meters {
+        private final MeterRegistry registry;
+        private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, DistributionSummary> byteSummaries = new ConcurrentHashMap<>();
+        private final Counter keyCacheHits;
+        private final Counter keyCacheMisses;
+        private final Counter rejectedRequests;
+
+        Meters(final MeterRegistry registry) {
+            this.registry = registry;
+            keyCacheHits = Counter.builder("kmc.crypto.key.cache")
+                    .description("Key cache lookups").tags("result", "hit").register(registry);
+            keyCacheMisses = Counter.builder("kmc.crypto.key.cache")
+                    .description("Key cache lookups").tags("result", "miss").register(registry);
+            rejectedRequests = Counter.builder("kmc.crypto.rejected.requests")
+                    .description("Requests rejected because the Crypto Service is busy").register(registry);
+        }
+    }
+
+    private volatile Meters meters = new Meters(Metrics.globalRegistry);
+
+    private CryptoMetricsRegistry() {
+    }
+
+    /**
+     * Returns the metrics of the Crypto Service.  The first call sets it as the {@link CryptoMetrics}
+     * of the crypto library.
+     * @return the metrics of the Crypto Service.
+     */
+    public static synchronized CryptoMetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new CryptoMetricsRegistry();
+            KmcCryptoManager.setCryptoMetrics(instance);
+        }
+        return instance;
+    }
+
+    @Override
+    public void recordOperation(final String operation, final String algorithm, final long bytes,
+            final long nanos, final boolean success) {
+        Meters m = meters;
+        String outcome = outcome(success);
+        m.timers.computeIfAbsent(operation + ":" + algorithm + ":" + outcome,
+                k -> Timer.builder("kmc.crypto.operation")
+                        .description("Duration of the crypto operations")
+                        .tags("operation", operation, "algorithm", algorithm, "outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(m.registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (bytes >= 0) {
+            m.byteSummaries.computeIfAbsent(operation + ":" + algorithm,
+                    k -> DistributionSummary.builder("kmc.crypto.operation.bytes")
+                            .description("Bytes processed by the crypto operations")
+                            .baseUnit("bytes")
+                            .tags("operation", operation, "algorithm", algorithm)
+                            .register(m.registry))
+                    .record(bytes);
+        }
+    }
+
+    @Override
+    public void recordKeyCacheLookup(final boolean hit) {
+        Meters m = meters;
+        if (hit) {
+            m.keyCacheHits.increment();
+        } else {
+            m.keyCacheMisses.increment();
+        }
+    }
+
+    @Override
+    public void recordKeyServiceRequest(final String operation, final long nanos, final boolean success) {
+        Meters m = meters;
+        String outcome = outcome(success);
+        m.timers.computeIfAbsent("kms:" + operation + ":" + outcome,
+                k -> Timer.builder("kmc.crypto.kms.request")
+                        .description("Round-trip time of the KMS requests")
+                        .tags("operation", operation, "outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(m.registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a request rejected because the Crypto Service is busy.
+     */
+    public void recordRejectedRequest() {
+        meters.rejectedRequests.increment();
+    }
+
+    /**
+     * Records the crypto metrics in the Micrometer registry of Spring Boot actuator from then on.
+     * @param registry the Micrometer registry.
+     */
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        meters = new Meters(registry);
+    }
+
+    private static String outcome(final boolean success) {
+        return success ? "success" : "failure";
+    }
+
+}
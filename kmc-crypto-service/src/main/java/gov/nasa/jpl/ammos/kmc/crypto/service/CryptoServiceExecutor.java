@@ -0,0 +1,402 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import gov.nasa.jpl.ammos.kmc.crypto.model.CryptoServiceResponse;
+import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
+
+/**
+ * Processes the Crypto Service requests asynchronously in a bounded pool of crypto threads,
+ * so that a slow key fetch or a large crypto operation does not hold a container thread.
+ * The servlet hands the request over with {@link #execute(HttpServletRequest, HttpServletResponse, Handler)},
+ * which returns the container thread to Tomcat.
+ *
+ * The Spring property kmc.crypto.service.threads is the number of crypto threads, i.e. the maximum
+ * number of requests processed concurrently, and kmc.crypto.service.queue.size is the number of
+ * requests waiting for a crypto thread.  When both are used up, the request is rejected with
+ * HTTP code 429 (Too Many Requests) and a Retry-After header, so that the clients back off
+ * instead of piling up in the container.
+ *
+ * If the Spring property kmc.crypto.service.virtual.threads is true and the service runs on Java 21
+ * or later, each request is processed in a new virtual thread, so that a large number of requests
+ * waiting for the KMS costs no platform threads.  The virtual threads are not pooled: semaphores
+ * bound the requests processed concurrently by kmc.crypto.service.threads and the requests waiting
+ * by kmc.crypto.service.queue.size, so kmc.crypto.service.threads should be raised well above its
+ * default with virtual threads.  The service is built for Java 17, so the virtual threads are
+ * created by reflection, and a pool of platform threads is used on Java 17.
+ *
+ * The crypto threads are shut down by {@link CryptoServiceExecutorListener} when the service stops.
+ *
+ *
+ */
+public final class CryptoServiceExecutor {
+    /**
+     * Spring property for the number of crypto threads.
+     */
+    public static final String THREADS_PROPERTY = "kmc.crypto.service.threads";
+    /**
+     * Spring property for the number of requests waiting for a crypto thread.
+     */
+    public static final String QUEUE_SIZE_PROPERTY = "kmc.crypto.service.queue.size";
+    /**
+     * Spring property to use virtual crypto threads on Java 21 or later.
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "kmc.crypto.service.virtual.threads";
+    /**
+     * Default number of crypto threads.
+     */
+    public static final int DEFAULT_THREADS = 32;
+    /**
+     * Default number of requests waiting for a crypto thread.
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+    /**
+     * HTTP code of a rejected request.
+     */
+    public static final int SC_TOO_MANY_REQUESTS = 429;
+    /**
+     * Seconds in the Retry-After header of a rejected request.
+     */
+    public static final String RETRY_AFTER_SECONDS = "1";
+    /**
+     * Seconds to wait for the requests in process when the service stops.
+     */
+    public static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Request attribute of the error of a request whose response has been committed.
+     */
+    private static final String FAILURE_ATTRIBUTE = CryptoServiceExecutor.class.getName() + ".failure";
+
+    private static final Logger logger = LoggerFactory.getLogger(CryptoServiceExecutor.class);
+    private static final Logger audit = LoggerFactory.getLogger("AUDIT");
+
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static CryptoThreads cryptoThreads;
+
+    private CryptoServiceExecutor() {
+    }
+
+    /**
+     * Processing of a request in a crypto thread.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * Processes the request and writes the response.
+         * @param request the HTTP request.
+         * @param response the HTTP response.
+         * @throws ServletException if error in processing the request.
+         * @throws IOException if error in reading the request or writing the response.
+         */
+        void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    /**
+     * Starts asynchronous processing of the request and processes it in a crypto thread.  The request is
+     * rejected with HTTP code 429 if all the crypto threads are busy and the queue is full.
+     * The servlet must support asynchronous processing.
+     * @param request the HTTP request.
+     * @param response the HTTP response.
+     * @param handler the processing of the request.
+     * @throws IOException if error in writing the rejected response, or the error of a request
+     * whose response has been committed.
+     */
+    public static void execute(final HttpServletRequest request, final HttpServletResponse response,
+            final Handler handler) throws IOException {
+        Object failure = request.getAttribute(FAILURE_ATTRIBUTE);
+        if (failure != null) {
+            // dispatched back by the crypto thread, the container aborts the partially sent response
+            request.removeAttribute(FAILURE_ATTRIBUTE);
+            throw (IOException) failure;
+        }
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        // the crypto threads limit the processing time, not the container
+        asyncContext.setTimeout(0);
+        CryptoThreads threads = getCryptoThreads();
+        try {
+            threads.execute(() -> handle(asyncContext, handler));
+        } catch (RejectedExecutionException e) {
+            try {
+                tooManyRequestsResponse(threads, request, response);
+            } finally {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Shuts down the crypto threads, waiting up to {@link #SHUTDOWN_TIMEOUT_SECONDS} for the requests
+     * in process.  New crypto threads are started by the next request.
+     */
+    public static void shutdown() {
+        CryptoThreads threads;
+        synchronized (CryptoServiceExecutor.class) {
+            threads = cryptoThreads;
+            cryptoThreads = null;
+        }
+        if (threads == null) {
+            return;
+        }
+        threads.executor.shutdown();
+        try {
+            if (!threads.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Crypto Service requests still in process after {} seconds, interrupting them.",
+                        SHUTDOWN_TIMEOUT_SECONDS);
+                threads.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            threads.executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Crypto Service threads shut down.");
+    }
+
+    private static void handle(final AsyncContext asyncContext, final Handler handler) {
+        HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        boolean dispatched = false;
+        try {
+            handler.handle(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            // the container does not see the exceptions of a crypto thread
+            logger.error("Error in processing request {}: {}", request.getRequestURI(), e.toString());
+            if (response.isCommitted()) {
+                // completing the response would look like a success to the client,
+                // so the error is rethrown in a container thread
+                IOException failure = e instanceof IOException ? (IOException) e : new IOException(e);
+                request.setAttribute(FAILURE_ATTRIBUTE, failure);
+                asyncContext.dispatch();
+                dispatched = true;
+            } else {
+                try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException | IllegalStateException ex) {
+                    logger.error("Failed to send error response: {}", ex.toString());
+                }
+            }
+        } finally {
+            if (!dispatched) {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    private static void tooManyRequestsResponse(final CryptoThreads threads, final HttpServletRequest request,
+            final HttpServletResponse response) throws IOException {
+        CryptoMetricsRegistry.getInstance().recordRejectedRequest();
+        String msg = "Crypto Service is busy processing " + threads.getActiveCount() + " requests with "
+                + threads.getWaitingCount() + " requests waiting, retry later.";
+        audit.info("User request " + request.getRequestURI() + " rejected: code " + SC_TOO_MANY_REQUESTS
+                + ", error: " + msg);
+        logger.warn("HTTP code: {}, {}", SC_TOO_MANY_REQUESTS, msg);
+        Status status = new Status(SC_TOO_MANY_REQUESTS, msg);
+        CryptoServiceResponse res = new CryptoServiceResponse(status, null);
+        response.setStatus(SC_TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+        response.setContentType("application/json");
+        response.getOutputStream().print(gson.toJson(res));
+        response.getOutputStream().flush();
+    }
+
+    private static synchronized CryptoThreads getCryptoThreads() {
+        if (cryptoThreads == null) {
+            int threads = getProperty(THREADS_PROPERTY, DEFAULT_THREADS, 1);
+            int queueSize = getProperty(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE, 0);
+            ExecutorService virtualExecutor = null;
+            if (KmcCryptoServiceConfiguration.springEnv != null && Boolean.parseBoolean(
+                    KmcCryptoServiceConfiguration.springEnv.getProperty(VIRTUAL_THREADS_PROPERTY))) {
+                virtualExecutor = newVirtualThreadExecutor();
+            }
+            if (virtualExecutor != null) {
+                cryptoThreads = new CryptoThreads(virtualExecutor, threads, queueSize);
+            } else {
+                BlockingQueue<Runnable> queue;
+                if (queueSize == 0) {
+                    queue = new SynchronousQueue<Runnable>();
+                } else {
+                    queue = new ArrayBlockingQueue<Runnable>(queueSize);
+                }
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, queue,
+                        new CryptoThreadFactory());
+                pool.allowCoreThreadTimeOut(true);
+                cryptoThreads = new CryptoThreads(pool);
+            }
+            logger.info("Crypto Service processes {} requests concurrently in {} threads with {} requests waiting.",
+                    threads, virtualExecutor == null ? "platform" : "virtual", queueSize);
+        }
+        return cryptoThreads;
+    }
+
+    /**
+     * Creates the executor starting a virtual crypto thread per request with
+     * Executors.newThreadPerTaskExecutor(), which is not in Java 17.
+     * @return the executor, or null if virtual threads are not supported by the Java runtime.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        ThreadFactory threadFactory = newVirtualThreadFactory();
+        if (threadFactory == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not supported by Java {}, using platform threads: {}",
+                    System.getProperty("java.version"), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Creates the factory of virtual crypto threads with Thread.ofVirtual(), which is not in Java 17.
+     * @return the thread factory, or null if virtual threads are not supported by the Java runtime.
+     */
+    static ThreadFactory newVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, "kmc-crypto-service-virtual-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not supported by Java {}, using platform threads: {}",
+                    System.getProperty("java.version"), e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the integer value of a Spring property.
+     * @param name name of the property.
+     * @param defaultValue value if the property is not set or invalid.
+     * @param minValue the minimum valid value.
+     * @return value of the property.
+     */
+    static int getProperty(final String name, final int defaultValue, final int minValue) {
+        if (KmcCryptoServiceConfiguration.springEnv == null) {
+            return defaultValue;
+        }
+        String value = KmcCryptoServiceConfiguration.springEnv.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int intValue = Integer.parseInt(value.trim());
+            if (intValue >= minValue) {
+                return intValue;
+            }
+        } catch (NumberFormatException e) {
+            // use the default value
+        }
+        logger.error("Invalid value of {} ({}), using the default value {}", name, value, defaultValue);
+        return defaultValue;
+    }
+
+    /**
+     * The executor of the crypto threads.  A pool of platform threads bounds the requests by its threads
+     * and queue.  Virtual threads are not pooled, so the requests are bounded by semaphores instead:
+     * a request is rejected if no request permit is available, and waits in its virtual thread for
+     * a thread permit.
+     */
+    private static final class CryptoThreads {
+        private final ExecutorService executor;
+        private final int threads;
+        // null for the pool of platform threads
+        private final Semaphore requestPermits;
+        private final Semaphore threadPermits;
+
+        CryptoThreads(final ThreadPoolExecutor pool) {
+            this.executor = pool;
+            this.threads = pool.getMaximumPoolSize();
+            this.requestPermits = null;
+            this.threadPermits = null;
+        }
+
+        CryptoThreads(final ExecutorService virtualExecutor, final int threads, final int queueSize) {
+            this.executor = virtualExecutor;
+            this.threads = threads;
+            this.requestPermits = new Semaphore(threads + queueSize);
+            this.threadPermits = new Semaphore(threads);
+        }
+
+        void execute(final Runnable task) {
+            if (requestPermits == null) {
+                executor.execute(task);
+                return;
+            }
+            if (!requestPermits.tryAcquire()) {
+                throw new RejectedExecutionException("No request permit available.");
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        threadPermits.acquireUninterruptibly();
+                        try {
+                            task.run();
+                        } finally {
+                            threadPermits.release();
+                        }
+                    } finally {
+                        requestPermits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                requestPermits.release();
+                throw e;
+            }
+        }
+
+        int getActiveCount() {
+            if (requestPermits == null) {
+                return ((ThreadPoolExecutor) executor).getActiveCount();
+            }
+            return threads - threadPermits.availablePermits();
+        }
+
+        int getWaitingCount() {
+            if (requestPermits == null) {
+                return ((ThreadPoolExecutor) executor).getQueue().size();
+            }
+            return threadPermits.getQueueLength();
+        }
+    }
+
+    /**
+     * Creates the daemon crypto threads.
+     */
+    private static final class CryptoThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "kmc-crypto-service-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
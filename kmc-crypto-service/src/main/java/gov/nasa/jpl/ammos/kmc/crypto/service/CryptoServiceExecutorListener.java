@@ -0,0 +1,24 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Shuts down the crypto threads of {@link CryptoServiceExecutor} when the Crypto Service stops.
+ *
+ *
+ */
+@WebListener
+public class CryptoServiceExecutorListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(final ServletContextEvent event) {
+    }
+
+    @Override
+    public void contextDestroyed(final ServletContextEvent event) {
+        CryptoServiceExecutor.shutdown();
+    }
+
+}
@@ -0,0 +1,151 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.util.function.Function;
+
+import javax.servlet.http.HttpServletResponse;
+
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Checks of the request parameters that configure the crypto function, shared by the
+ * servlets of one request and the batch servlets.  The parameters are read with a function
+ * from the parameter name to its value, e.g. HttpServletRequest.getParameter or
+ * BatchRequestStream.Item.getOption.
+ *
+ *
+ */
+final class CryptoServiceParameters {
+
+    private CryptoServiceParameters() {
+    }
+
+    /**
+     * Checks the keyRef, algorithm, macLength and transformation parameters of encryption
+     * and sets the macLength and transformation in the KmcCryptoManager.
+     * @param cryptoManager the KmcCryptoManager that creates the Encrypter.
+     * @param parameters the request parameters.
+     * @return the keyRef of the encryption key.
+     * @throws ParameterException if a parameter is missing or invalid.
+     */
+    static String checkEncryptParameters(final KmcCryptoManager cryptoManager,
+            final Function<String, String> parameters) throws ParameterException {
+        String keyRef = parameters.apply("keyRef");
+        if (keyRef == null) {
+            throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, "Missing keyRef parameter.");
+        }
+        if (parameters.apply("algorithm") != null) {
+            String msg = "Encryption does not use the algorithm parameter.  The key determines the crypto algorithm.";
+            throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+        }
+        String macLength = parameters.apply("macLength");
+        if (macLength != null) {
+            try {
+                cryptoManager.setMacLength(macLength);
+            } catch (KmcCryptoManagerException e) {
+                String msg = "Invalid macLength value (" + macLength + "): " + e;
+                throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+            }
+        }
+        String transformation = parameters.apply("transformation");
+        if (transformation != null) {
+            try {
+                cryptoManager.setCipherTransformation(transformation);
+            } catch (KmcCryptoManagerException e) {
+                String msg = "Error in cipher transformation: " + e;
+                throw new ParameterException(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+            }
+        }
+        return keyRef;
+    }
+
+    /**
+     * Checks the keyRef, algorithm and macLength parameters of ICV creation and sets the
+     * algorithm and macLength in the KmcCryptoManager.  Only Message Digest, which does not
+     * use a key, and Digital Signature use the algorithm parameter.
+     * @param cryptoManager the KmcCryptoManager that creates the IcvCreator.
+     * @param parameters the request parameters.
+     * @return the keyRef of the integrity check key, null for Message Digest.
+     * @throws ParameterException if a parameter is invalid.
+     */
+    static String checkIcvCreateParameters(final KmcCryptoManager cryptoManager,
+            final Function<String, String> parameters) throws ParameterException {
+        String keyRef = parameters.apply("keyRef");
+        if ("null".equals(keyRef)) {
+            keyRef = null;
+        }
+        String algorithm = parameters.apply("algorithm");
+        String macLength = parameters.apply("macLength");
+
+        try {
+            if (algorithm != null) {
+                if (keyRef == null) {
+                    if (!cryptoManager.isAllowedAlgorithm(algorithm,
+                            KmcCryptoManager.CFG_ALLOWED_MESSAGE_DIGEST_ALGORITHMS)) {
+                        String msg = "keyRef is not found in the request and the algorithm ("
+                                + algorithm + ") is not an allowed Message Digest algorithm";
+                        throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+                    }
+                    cryptoManager.setMessageDigestAlgorithm(algorithm);
+                } else if (algorithm.startsWith("SHA") && algorithm.endsWith("withRSA")) {
+                    if (!cryptoManager.isAllowedAlgorithm(algorithm,
+                            KmcCryptoManager.CFG_ALLOWED_DIGITAL_SIGNATURE_ALGORITHMS)) {
+                        String msg = "the algorithm (" + algorithm
+                                + ") is not an allowed Digital Signature algorithm";
+                        throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+                    }
+                    if (macLength != null) {
+                        String msg = "Digital Signature does not support macLength.";
+                        throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+                    }
+                    cryptoManager.setDigitalSignatureAlgorithm(algorithm);
+                } else {
+                    String msg = "The algorithm parameter"
+                            + " is only allowed for Message Digest or Digital Signature."
+                            + " Other crypto functions use the algorithm specified by the key.";
+                    throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+                }
+            }
+        } catch (KmcCryptoManagerException e) {
+            String msg = "Exception in setting algorithm: " + e;
+            throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+        }
+        if (macLength != null) {
+            try {
+                cryptoManager.setMacLength(macLength);
+            } catch (KmcCryptoManagerException e) {
+                String msg = "bad macLength parameter (" + macLength + "): " + e;
+                throw new ParameterException(HttpServletResponse.SC_BAD_REQUEST, msg);
+            }
+        }
+        return keyRef;
+    }
+
+    /**
+     * Error in the request parameters, which is returned with the HTTP code.
+     */
+    static final class ParameterException extends Exception {
+        private static final long serialVersionUID = -2630870148216395214L;
+
+        private final int httpCode;
+
+        /**
+         * Constructor of the ParameterException.
+         * @param httpCode the HTTP code of the error response.
+         * @param message the reason of the error.
+         */
+        ParameterException(final int httpCode, final String message) {
+            super(message);
+            this.httpCode = httpCode;
+        }
+
+        /**
+         * Returns the HTTP code of the error response.
+         * @return HTTP code of the error.
+         */
+        int getHttpCode() {
+            return httpCode;
+        }
+    }
+
+}
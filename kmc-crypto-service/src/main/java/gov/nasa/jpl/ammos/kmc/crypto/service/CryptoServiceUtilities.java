@@ -40,6 +40,43 @@ public final class CryptoServiceUtilities {
         audit.info("User requested service: " + message);
     }
 
+    /**
+     * Returns whether the client asks for a binary (application/octet-stream) response in the Accept header.
+     * The binary response is returned only if application/octet-stream is accepted
+     * and not ranked lower than application/json.
+     * @param request the HTTP request.
+     * @return true if the response should be binary.
+     */
+    public static boolean acceptsBinary(final HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        if (accept == null) {
+            return false;
+        }
+        double binaryQuality = 0;
+        double jsonQuality = 0;
+        for (String mediaRange : accept.split(",")) {
+            String[] params = mediaRange.split(";");
+            String type = params[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (BinaryResponseStream.CONTENT_TYPE.equals(type)) {
+                binaryQuality = Math.max(binaryQuality, quality);
+            } else if ("application/json".equals(type)) {
+                jsonQuality = Math.max(jsonQuality, quality);
+            }
+        }
+        return binaryQuality > 0 && binaryQuality >= jsonQuality;
+    }
+
     /**
      * Add the crypto algorithm provider class so that the provider can be used for cryptographic functions.
      * @param providerClassName the class name of the provider.
@@ -0,0 +1,65 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletResponse;
+
+import gov.nasa.jpl.ammos.kmc.crypto.Decrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+import gov.nasa.jpl.ammos.kmc.crypto.model.DecryptServiceResponse;
+import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
+
+/**
+ * The servlet decrypts many small items in one request.  Each item has the metadata
+ * option of the Decrypt Service and the raw ciphertext as its data, and the response of
+ * each item is the JSON response of the Decrypt Service.  All the items share one Decrypter,
+ * which caches the keys in the metadata.
+ *
+ * @see BatchService
+ * @see DecryptService
+ *
+ */
+@WebServlet(value = "/decrypt-batch", asyncSupported = true)
+public class DecryptBatchService extends BatchService<Decrypter> {
+    private static final long serialVersionUID = 2749903671380166254L;
+
+    @Override
+    protected final String getFunctionKey(final BatchRequestStream.Item item) {
+        return "";
+    }
+
+    @Override
+    protected final Decrypter createFunction(final KmcCryptoManager cryptoManager, final BatchRequestStream.Item item)
+            throws ItemException {
+        try {
+            return cryptoManager.createDecrypter();
+        } catch (KmcCryptoManagerException e) {
+            throw toItemException(e);
+        }
+    }
+
+    @Override
+    protected final Object processItem(final Decrypter decrypter, final BatchRequestStream.Item item)
+            throws ItemException {
+        String metadata = item.getOption("metadata");
+        if (metadata == null) {
+            throw new ItemException(HttpServletResponse.SC_BAD_REQUEST, "missing metadata.");
+        }
+        // the decrypted data is never longer than the encrypted data
+        byte[] data = item.getData();
+        byte[] cleartext = new byte[data.length];
+        ByteBuffer output = ByteBuffer.wrap(cleartext);
+        try {
+            decrypter.decrypt(ByteBuffer.wrap(data), output, metadata);
+            Status status = new Status(HttpServletResponse.SC_OK, "OK");
+            return new DecryptServiceResponse(status, Arrays.copyOf(cleartext, output.position()));
+        } catch (KmcCryptoException e) {
+            throw toItemException(e);
+        }
+    }
+
+}
@@ -1,10 +1,7 @@
 package gov.nasa.jpl.ammos.kmc.crypto.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
 import java.util.Base64;
 
 import javax.servlet.ServletConfig;
@@ -29,7 +26,6 @@ import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException.KmcCryptoManagerErrorCode;
 import gov.nasa.jpl.ammos.kmc.crypto.library.KmcKeyServiceClient;
 import gov.nasa.jpl.ammos.kmc.crypto.model.CryptoServiceResponse;
-import gov.nasa.jpl.ammos.kmc.crypto.model.DecryptServiceResponse;
 import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
 
 /**
@@ -37,9 +33,13 @@ import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
  * Depending on the specified key, the data could be encrypted with a symmetric or
  * asymmetric algorithm.
  *
+ * The plaintext is returned in base64 encoding in a JSON response, or as the raw bytes
+ * of an application/octet-stream response if the Accept header asks for it.  The metadata
+ * can be given in the metadata parameter or in the X-KMC-Metadata header.
+ *
  *
  */
-@WebServlet("/decrypt")
+@WebServlet(value = "/decrypt", asyncSupported = true)
 public class DecryptService extends HttpServlet {
     private static final long serialVersionUID = 3114402936011612851L;
 
@@ -49,15 +49,16 @@ public class DecryptService extends HttpServlet {
     private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
 
     private final int maxBytes = KmcCryptoServiceConfiguration.MAX_CRYPTO_SERVICE_BYTES;
-    private String kmcHome;
 
     @Override
     public final void init(final ServletConfig config) throws ServletException {
         super.init(config);
 
-        kmcHome = System.getenv(KmcCryptoManager.ENV_KMC_CRYPTO_SERVICE_HOME);
-        if (kmcHome == null) {
-            kmcHome = KmcCryptoManager.DEFAULT_KMC_CRYPTO_SERVICE_HOME;
+        try {
+            SharedCryptoManager.init();
+        } catch (KmcCryptoManagerException e) {
+            // each request returns the error until the config can be loaded
+            logger.error("Failed to load KMC Crypto config: " + e);
         }
     }
 
@@ -71,6 +72,11 @@ public class DecryptService extends HttpServlet {
     @Override
     protected final void doPost(final HttpServletRequest request, final HttpServletResponse response)
             throws ServletException, IOException {
+        CryptoServiceExecutor.execute(request, response, this::process);
+    }
+
+    private void process(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
 
         ServletOutputStream out = response.getOutputStream();
         response.setContentType("application/json");
@@ -78,10 +84,7 @@ public class DecryptService extends HttpServlet {
         // create KmcCryptoManager early to initialize the logger.
         KmcCryptoManager cryptoManager;
         try {
-            String[] args = new String[] {
-                    "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + kmcHome + "/etc"
-            };
-            cryptoManager = new KmcCryptoManager(args);
+            cryptoManager = SharedCryptoManager.getCryptoManager();
         } catch (KmcCryptoManagerException e) {
             String msg = "DecryptService: failed to create KmcCryptoManager: " + e;
             failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -91,6 +94,10 @@ public class DecryptService extends HttpServlet {
         CryptoServiceUtilities.logRequestParameters(logger, audit, request);
 
         String metadata = request.getParameter("metadata");
+        if (metadata == null) {
+            // binary clients may return the metadata header of the encryption
+            metadata = request.getHeader(BinaryResponseStream.METADATA_HEADER);
+        }
         if (metadata == null) {
             String msg = "DecryptService: missing metadata.";
             failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
@@ -98,43 +105,28 @@ public class DecryptService extends HttpServlet {
         }
         logger.debug("DecryptService: metadata = {}", metadata);
 
-        // Read the ciphertext from request
-        InputStream reader = request.getInputStream();
-        int bufSize = maxBytes + 1;  // add a byte to detect exceeding max
-        byte[] readBuffer = new byte[bufSize];
-        int offset = 0;
-        int bytesRead = -1;
-        while ((bytesRead = reader.read(readBuffer, offset, bufSize - offset)) > 0) {
-            logger.trace("DecryptService: offset = {}, read {} bytes.", offset, bytesRead);
-            if (offset + bytesRead > maxBytes) {
-                String msg = "DecryptService: input data exceeds maximum size of " + maxBytes + " bytes.";
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            } else {
-                offset = offset + bytesRead;
-            }
+        // The ciphertext is streamed from the request through the decrypter to the response.
+        if (request.getContentLengthLong() > maxBytes) {
+            String msg = "DecryptService: input data exceeds maximum size of " + maxBytes + " bytes.";
+            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            return;
         }
-        logger.debug("DecryptService: Finished reading input stream of {} bytes.", offset);
-        if (offset == 0) {
+        RequestBodyStream body = new RequestBodyStream(request.getInputStream(), maxBytes);
+        if (body.isEmpty()) {
             String msg = "DecryptService: empty input ciphertext.";
             failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             return;
         }
 
         // input can be ciphertext with or without base64 encoding
-        byte[] ciphertext = Arrays.copyOfRange(readBuffer, 0, offset);
-        try {
-            String cipherString = new String(ciphertext, "UTF-8");
-            logger.trace("cipherString = {}", cipherString);
-            ciphertext = Base64.getDecoder().decode(cipherString);
-            logger.debug("input is ciphertext with base64 encoding, encoded length = {}, ciphertext length = {}", offset, ciphertext.length);
-        } catch (IllegalArgumentException e) {
-            logger.trace("Failed to base64 decode input: {}", e.toString());
-            logger.debug("input is ciphertext without base64 encoding, ciphertext length = {}", ciphertext.length);
+        InputStream bis;
+        if (body.isBase64()) {
+            logger.debug("input is ciphertext with base64 encoding");
+            bis = Base64.getDecoder().wrap(body);
+        } else {
+            logger.debug("input is ciphertext without base64 encoding");
+            bis = body;
         }
-        InputStream bis = new ByteArrayInputStream(ciphertext);
-        int decryptedSize = ciphertext.length;
-        ByteArrayOutputStream eos = new ByteArrayOutputStream(decryptedSize);
 
         Decrypter decrypter;
         try {
@@ -154,19 +146,29 @@ public class DecryptService extends HttpServlet {
             }
             return;
         }
+        response.setBufferSize(Base64ResponseStream.RESPONSE_BUFFER_SIZE);
         try {
-            decrypter.decrypt(bis, eos, metadata);
-            byte[] plaintext = eos.toByteArray();
-            logger.debug("plaintext size = {}", plaintext.length);
-            logger.trace("plaintext = {}", new String(plaintext));
-            Status status = new Status(HttpServletResponse.SC_OK, "OK");
-            DecryptServiceResponse res = new DecryptServiceResponse(status, plaintext);
-            logger.trace("DecryptServiceResponse = {}", gson.toJson(res));
-            response.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(res));
-            out.flush();
-
-            audit.info("DecryptService: User successfully decrypted data of " + offset + " bytes.");
+            long plaintextSize;
+            if (CryptoServiceUtilities.acceptsBinary(request)) {
+                BinaryResponseStream eos = new BinaryResponseStream(response);
+                response.setContentType(BinaryResponseStream.CONTENT_TYPE);
+                response.setStatus(HttpServletResponse.SC_OK);
+                decrypter.decrypt(bis, eos, metadata);
+                out.flush();
+                plaintextSize = eos.getBytesWritten();
+            } else {
+                Base64ResponseStream eos = new Base64ResponseStream(out);
+                Status status = new Status(HttpServletResponse.SC_OK, "OK");
+                response.setStatus(HttpServletResponse.SC_OK);
+                out.print("{\"status\":" + gson.toJson(status) + ",\"base64cleartext\":\"");
+                decrypter.decrypt(bis, eos, metadata);
+                out.print("\"}");
+                out.flush();
+                plaintextSize = eos.getBytesWritten();
+            }
+            logger.debug("ciphertext size = {}, plaintext size = {}", body.getBytesRead(), plaintextSize);
+
+            audit.info("DecryptService: User successfully decrypted data of " + body.getBytesRead() + " bytes.");
         } catch (KmcCryptoException e) {
             /*
             if (e.getMessage().contains("does not exist")
@@ -178,7 +180,10 @@ public class DecryptService extends HttpServlet {
                 failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
             }*/
             String msg = "DecryptService: Exception during decryption: " + e;
-            if (e.getErrorCode() == KmcCryptoErrorCode.CRYPTO_KEY_ERROR) {
+            if (body.isLimitExceeded()) {
+                msg = "DecryptService: input data exceeds maximum size of " + maxBytes + " bytes.";
+                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            } else if (e.getErrorCode() == KmcCryptoErrorCode.CRYPTO_KEY_ERROR) {
                 failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             } else if (e.getErrorCode() == KmcCryptoErrorCode.CRYPTO_ALGORITHM_ERROR) {
                 failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
@@ -194,6 +199,13 @@ public class DecryptService extends HttpServlet {
             throws IOException {
         audit.info("DecryptService: Failure response: code " + errorCode + ", error: " + msg);
         logger.error("HTTP code: {}, {}", errorCode, msg);
+        if (response.isCommitted()) {
+            // part of the plaintext has been sent, abort the response so that the client sees the failure
+            throw new IOException(msg);
+        }
+        // discard the headers and data of a binary or JSON response that has not been sent
+        response.reset();
+        response.setContentType("application/json");
         Status status = new Status(errorCode, msg);
         CryptoServiceResponse res = new CryptoServiceResponse(status, null);
         response.setStatus(errorCode);
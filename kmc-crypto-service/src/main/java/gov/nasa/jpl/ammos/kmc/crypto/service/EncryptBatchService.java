@@ -0,0 +1,75 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletResponse;
+
+import gov.nasa.jpl.ammos.kmc.crypto.Encrypter;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+import gov.nasa.jpl.ammos.kmc.crypto.model.EncryptServiceResponse;
+import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
+
+/**
+ * The servlet encrypts many small items in one request.  Each item has the options
+ * keyRef, transformation, iv, encryptOffset and macLength of the Encrypt Service, and
+ * the response of each item is the JSON response of the Encrypt Service.
+ *
+ * @see BatchService
+ * @see EncryptService
+ *
+ */
+@WebServlet(value = "/encrypt-batch", asyncSupported = true)
+public class EncryptBatchService extends BatchService<Encrypter> {
+    private static final long serialVersionUID = -5183620441572310263L;
+
+    @Override
+    protected final String getFunctionKey(final BatchRequestStream.Item item) {
+        return item.getOption("keyRef") + "|" + item.getOption("transformation") + "|" + item.getOption("macLength");
+    }
+
+    @Override
+    protected final Encrypter createFunction(final KmcCryptoManager cryptoManager, final BatchRequestStream.Item item)
+            throws ItemException {
+        String keyRef;
+        try {
+            keyRef = CryptoServiceParameters.checkEncryptParameters(cryptoManager, item::getOption);
+        } catch (CryptoServiceParameters.ParameterException e) {
+            throw new ItemException(e.getHttpCode(), e.getMessage());
+        }
+        try {
+            return cryptoManager.createEncrypter(keyRef);
+        } catch (KmcCryptoManagerException e) {
+            throw toItemException(e);
+        }
+    }
+
+    @Override
+    protected final Object processItem(final Encrypter encrypter, final BatchRequestStream.Item item)
+            throws ItemException {
+        int encryptOffset = 0;
+        String encryptOffsetParam = item.getOption("encryptOffset");
+        if (encryptOffsetParam != null) {
+            try {
+                encryptOffset = Integer.parseInt(encryptOffsetParam);
+            } catch (NumberFormatException e) {
+                String msg = "Invalid encryptOffset value: " + encryptOffsetParam;
+                throw new ItemException(HttpServletResponse.SC_BAD_REQUEST, msg);
+            }
+        }
+        byte[] data = item.getData();
+        byte[] ciphertext = new byte[encrypter.getOutputSize(data.length)];
+        ByteBuffer output = ByteBuffer.wrap(ciphertext);
+        try {
+            String metadata = encrypter.encrypt(ByteBuffer.wrap(data), encryptOffset, item.getOption("iv"), output);
+            Status status = new Status(HttpServletResponse.SC_OK, "OK");
+            return new EncryptServiceResponse(status, metadata, Arrays.copyOf(ciphertext, output.position()));
+        } catch (KmcCryptoException e) {
+            throw toItemException(e);
+        }
+    }
+
+}
@@ -1,10 +1,6 @@
 package gov.nasa.jpl.ammos.kmc.crypto.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Arrays;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -28,7 +24,6 @@ import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
 import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException.KmcCryptoManagerErrorCode;
 import gov.nasa.jpl.ammos.kmc.crypto.library.KmcKeyServiceClient;
 import gov.nasa.jpl.ammos.kmc.crypto.model.CryptoServiceResponse;
-import gov.nasa.jpl.ammos.kmc.crypto.model.EncryptServiceResponse;
 import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
 
 /**
@@ -36,9 +31,14 @@ import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
  * Depending on the specified key, the data could be encrypted with a symmetric or
  * asymmetric algorithm.
  *
+ * The ciphertext is returned in base64 encoding in a JSON response, or as the raw bytes
+ * of an application/octet-stream response if the Accept header asks for it.  The binary
+ * response returns the metadata in the X-KMC-Metadata header, and the keyRef, IV and
+ * MAC length in the X-KMC-KeyRef, X-KMC-IV and X-KMC-MacLength headers.
+ *
  *
  */
-@WebServlet("/encrypt")
+@WebServlet(value = "/encrypt", asyncSupported = true)
 public class EncryptService extends HttpServlet {
     private static final long serialVersionUID = 3114402936011612850L;
 
@@ -48,16 +48,16 @@ public class EncryptService extends HttpServlet {
     private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
 
     private final int maxBytes = KmcCryptoServiceConfiguration.MAX_CRYPTO_SERVICE_BYTES;
-    private static final int AES_BLOCK_SIZE = 16;  // AES block size in bytes
-    private String kmcHome;
 
     @Override
     public final void init(final ServletConfig config) throws ServletException {
         super.init(config);
 
-        kmcHome = System.getenv(KmcCryptoManager.ENV_KMC_CRYPTO_SERVICE_HOME);
-        if (kmcHome == null) {
-            kmcHome = KmcCryptoManager.DEFAULT_KMC_CRYPTO_SERVICE_HOME;
+        try {
+            SharedCryptoManager.init();
+        } catch (KmcCryptoManagerException e) {
+            // each request returns the error until the config can be loaded
+            logger.error("Failed to load KMC Crypto config: " + e);
         }
     }
 
@@ -69,6 +69,11 @@ public class EncryptService extends HttpServlet {
     @Override
     protected final void doPost(final HttpServletRequest request, final HttpServletResponse response)
             throws ServletException, IOException {
+        CryptoServiceExecutor.execute(request, response, this::process);
+    }
+
+    private void process(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
 
         ServletOutputStream out = response.getOutputStream();
         response.setContentType("application/json");
@@ -76,10 +81,7 @@ public class EncryptService extends HttpServlet {
         // create KmcCryptoManager early to initialize the logger.
         KmcCryptoManager cryptoManager = null;
         try {
-            String[] args = new String[] {
-                    "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + kmcHome + "/etc"
-            };
-            cryptoManager = new KmcCryptoManager(args);
+            cryptoManager = SharedCryptoManager.getCryptoManager();
         } catch (KmcCryptoManagerException e) {
             String msg = "Failed to create KmcCryptoManager: " + e;
             failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -89,14 +91,14 @@ public class EncryptService extends HttpServlet {
         CryptoServiceUtilities.logRequestParameters(logger, audit, request);
 
         // get request parameters
-        String keyRef = request.getParameter("keyRef");
-        if (keyRef == null) {
-            String msg = "Missing keyRef parameter.";
-            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+        String keyRef;
+        try {
+            keyRef = CryptoServiceParameters.checkEncryptParameters(cryptoManager, request::getParameter);
+        } catch (CryptoServiceParameters.ParameterException e) {
+            failureResponse(response, e.getHttpCode(), e.getMessage());
             return;
-        } else {
-            logger.debug("request parameter: keyRef = {}", keyRef);
         }
+        logger.debug("request parameter: keyRef = {}", keyRef);
         String transformation = request.getParameter("transformation");
         if (transformation != null) {
             logger.debug("request parameter: EncryptService: transformation = {}", transformation);
@@ -120,59 +122,20 @@ public class EncryptService extends HttpServlet {
         String macLength = request.getParameter("macLength");
         if (macLength != null) {
             logger.debug("request parameter: macLength = {}", macLength);
-            try {
-                cryptoManager.setMacLength(macLength);
-            } catch (KmcCryptoManagerException e) {
-                String msg = "Invalid macLength value (" + macLength + "): " + e;
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            }
         }
-        String algorithm = request.getParameter("algorithm");
-        if (algorithm != null) {
-            String msg = "Encryption does not use the algorithm parameter.  The key determines the crypto algorithm.";
+
+        // The plaintext is streamed from the request through the encrypter to the response.
+        if (request.getContentLengthLong() > maxBytes) {
+            String msg = "Input data exceeds maximum size of " + maxBytes + " bytes.";
             failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             return;
         }
-
-        // Read the plaintext from request
-        InputStream reader = request.getInputStream();
-        int bufSize = maxBytes + 1;  // add a byte to detect exceeding max
-        byte[] readBuffer = new byte[bufSize];
-        int offset = 0;
-        int bytesRead = -1;
-        while ((bytesRead = reader.read(readBuffer, offset, bufSize - offset)) > 0) {
-            if (logger.isTraceEnabled()) {
-                logger.trace("EncryptService: offset = {}, read {} bytes.", offset, bytesRead);
-            }
-            if (offset + bytesRead > maxBytes) {
-                String msg = "Input data exceeds maximum size of " + maxBytes + " bytes.";
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            } else {
-                offset = offset + bytesRead;
-            }
-        }
-        logger.debug("Finished reading input stream of {} bytes.", offset);
-        if (offset == 0) {
+        RequestBodyStream body = new RequestBodyStream(request.getInputStream(), maxBytes);
+        if (body.isEmpty()) {
             String msg = "Input has 0 byte to encrypt.";
             failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             return;
         }
-        byte[] plaintext = Arrays.copyOf(readBuffer, offset);
-        InputStream bis = new ByteArrayInputStream(plaintext);
-        int encryptedSize = (plaintext.length / AES_BLOCK_SIZE + 1) * AES_BLOCK_SIZE;
-        ByteArrayOutputStream eos = new ByteArrayOutputStream(encryptedSize);
-
-        try {
-            if (transformation != null) {
-                cryptoManager.setCipherTransformation(transformation);
-            }
-        } catch (KmcCryptoManagerException e) {
-            String msg = "Error in cipher transformation: " + e;
-            failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
-            return;
-        }
 
         Encrypter encrypter;
         try {
@@ -199,22 +162,39 @@ public class EncryptService extends HttpServlet {
             }
             return;
         }
+        response.setBufferSize(Base64ResponseStream.RESPONSE_BUFFER_SIZE);
         try {
-            String metadata = encrypter.encrypt(bis, encryptOffset, iv, eos);
+            String metadata;
+            long encryptedSize;
+            if (CryptoServiceUtilities.acceptsBinary(request)) {
+                // the metadata is sent in the headers before the ciphertext
+                BinaryResponseStream eos = new BinaryResponseStream(response);
+                response.setContentType(BinaryResponseStream.CONTENT_TYPE);
+                response.setStatus(HttpServletResponse.SC_OK);
+                metadata = encrypter.encrypt(body, encryptOffset, iv, eos);
+                out.flush();
+                encryptedSize = eos.getBytesWritten();
+            } else {
+                // the metadata is known after encryption, so it follows the ciphertext
+                Base64ResponseStream eos = new Base64ResponseStream(out);
+                Status status = new Status(HttpServletResponse.SC_OK, "OK");
+                response.setStatus(HttpServletResponse.SC_OK);
+                out.print("{\"status\":" + gson.toJson(status) + ",\"base64ciphertext\":\"");
+                metadata = encrypter.encrypt(body, encryptOffset, iv, eos);
+                out.print("\",\"metadata\":" + gson.toJson(metadata) + "}");
+                out.flush();
+                encryptedSize = eos.getBytesWritten();
+            }
             logger.debug("metadata = {}", metadata);
-            byte[] encryptedData = eos.toByteArray();
-            Status status = new Status(HttpServletResponse.SC_OK, "OK");
-            EncryptServiceResponse res = new EncryptServiceResponse(status, metadata, encryptedData);
-            logger.debug("encryptedData size = {}, base64 size = {}", encryptedData.length, res.getBase64Ciphertext().length());
-            logger.trace("EncryptServiceResponse = {}", gson.toJson(res));
-            response.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(res));
-            out.flush();
-            audit.info("EncryptService: User successfully encrypted data of " + offset + " bytes using keyRef " + keyRef);
+            logger.debug("plaintext size = {}, encryptedData size = {}", body.getBytesRead(), encryptedSize);
+            audit.info("EncryptService: User successfully encrypted data of " + body.getBytesRead() + " bytes using keyRef " + keyRef);
         } catch (KmcCryptoException e) {
             String msg = "Exception during encryption: " + e;
             logger.error(msg);
-            if (e.getErrorCode() == KmcCryptoErrorCode.INVALID_INPUT_VALUE) {
+            if (body.isLimitExceeded()) {
+                msg = "Input data exceeds maximum size of " + maxBytes + " bytes.";
+                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            } else if (e.getErrorCode() == KmcCryptoErrorCode.INVALID_INPUT_VALUE) {
                 failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             } else {
                 failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -226,6 +206,13 @@ public class EncryptService extends HttpServlet {
             throws IOException {
         audit.info("EncryptService: Failure response: code " + errorCode + ", error: " + msg);
         logger.error("failureResponse() HTTP code: {}, {}", errorCode, msg);
+        if (response.isCommitted()) {
+            // part of the ciphertext has been sent, abort the response so that the client sees the failure
+            throw new IOException(msg);
+        }
+        // discard the headers and data of a binary or JSON response that has not been sent
+        response.reset();
+        response.setContentType("application/json");
         Status status = new Status(errorCode, msg);
         CryptoServiceResponse res = new CryptoServiceResponse(status, null);
         response.setStatus(errorCode);
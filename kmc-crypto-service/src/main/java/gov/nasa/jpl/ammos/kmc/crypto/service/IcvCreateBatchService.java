@@ -0,0 +1,65 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletResponse;
+
+import gov.nasa.jpl.ammos.kmc.crypto.IcvCreator;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+import gov.nasa.jpl.ammos.kmc.crypto.model.IcvCreateServiceResponse;
+import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
+
+/**
+ * The servlet creates the integrity check values of many small items in one request.
+ * Each item has the options keyRef, algorithm and macLength of the ICV Create Service,
+ * and the response of each item is the JSON response of the ICV Create Service.
+ *
+ * @see BatchService
+ * @see IcvCreateService
+ *
+ */
+@WebServlet(value = "/icv-create-batch", asyncSupported = true)
+public class IcvCreateBatchService extends BatchService<IcvCreator> {
+    private static final long serialVersionUID = 7731926408815520937L;
+
+    @Override
+    protected final String getFunctionKey(final BatchRequestStream.Item item) {
+        return item.getOption("keyRef") + "|" + item.getOption("algorithm") + "|" + item.getOption("macLength");
+    }
+
+    @Override
+    protected final IcvCreator createFunction(final KmcCryptoManager cryptoManager,
+            final BatchRequestStream.Item item) throws ItemException {
+        String keyRef;
+        try {
+            keyRef = CryptoServiceParameters.checkIcvCreateParameters(cryptoManager, item::getOption);
+        } catch (CryptoServiceParameters.ParameterException e) {
+            throw new ItemException(e.getHttpCode(), e.getMessage());
+        }
+
+        try {
+            if (keyRef == null) {
+                return cryptoManager.createIcvCreator();
+            } else {
+                return cryptoManager.createIcvCreator(keyRef);
+            }
+        } catch (KmcCryptoManagerException e) {
+            throw toItemException(e);
+        }
+    }
+
+    @Override
+    protected final Object processItem(final IcvCreator icvCreator, final BatchRequestStream.Item item)
+            throws ItemException {
+        byte[] data = item.getData();
+        try {
+            String metadata = icvCreator.createIntegrityCheckValue(data, 0, data.length);
+            Status status = new Status(HttpServletResponse.SC_OK, "OK");
+            return new IcvCreateServiceResponse(status, metadata);
+        } catch (KmcCryptoException e) {
+            throw toItemException(e);
+        }
+    }
+
+}
@@ -1,9 +1,6 @@
 package gov.nasa.jpl.ammos.kmc.crypto.service;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Arrays;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -36,7 +33,7 @@ import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
  *
  *
  */
-@WebServlet("/icv-create")
+@WebServlet(value = "/icv-create", asyncSupported = true)
 public class IcvCreateService extends HttpServlet {
     private static final long serialVersionUID = 4114402936011612850L;
 
@@ -46,15 +43,16 @@ public class IcvCreateService extends HttpServlet {
     private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
 
     private final int maxBytes = KmcCryptoServiceConfiguration.MAX_CRYPTO_SERVICE_BYTES;
-    private String kmcHome;
 
     @Override
     public final void init(final ServletConfig config) throws ServletException {
         super.init(config);
 
-        kmcHome = System.getenv(KmcCryptoManager.ENV_KMC_CRYPTO_SERVICE_HOME);
-        if (kmcHome == null) {
-            kmcHome = KmcCryptoManager.DEFAULT_KMC_CRYPTO_SERVICE_HOME;
+        try {
+            SharedCryptoManager.init();
+        } catch (KmcCryptoManagerException e) {
+            // each request returns the error until the config can be loaded
+            logger.error("Failed to load KMC Crypto config: " + e);
         }
     }
 
@@ -62,16 +60,18 @@ public class IcvCreateService extends HttpServlet {
     @Override
     protected final void doPost(final HttpServletRequest request, final HttpServletResponse response)
             throws ServletException, IOException {
+        CryptoServiceExecutor.execute(request, response, this::process);
+    }
+
+    private void process(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
         ServletOutputStream out = response.getOutputStream();
         response.setContentType("application/json");
 
         // create KmcCryptoManager early to initialize the logger.
         KmcCryptoManager cryptoManager;
         try {
-            String[] args = new String[] {
-                    "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + kmcHome + "/etc"
-            };
-            cryptoManager = new KmcCryptoManager(args);
+            cryptoManager = SharedCryptoManager.getCryptoManager();
         } catch (KmcCryptoManagerException e) {
             String msg = "IcvCreateService: failed to create KmcCryptoManager: " + e;
             failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -91,76 +91,20 @@ public class IcvCreateService extends HttpServlet {
         String macLength = request.getParameter("macLength");
         if (macLength != null) {
             logger.debug("IcvCreateService: macLength = {}", macLength);
-            try {
-                cryptoManager.setMacLength(macLength);
-            } catch (KmcCryptoManagerException e) {
-                String msg = "IcvCreateService: bad macLength parameter (" + macLength + "): " + e;
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            }
         }
 
         // only Message Digest and Digital Signature use the algorithm parameter,
         // returns error for other crypto requests.
-        if (algorithm != null) {
-            try {
-                if (keyRef == null || "null".equals(keyRef)) {
-                    // Message Digest does not use a key
-                    boolean allowed = cryptoManager.isAllowedAlgorithm(algorithm,
-                            KmcCryptoManager.CFG_ALLOWED_MESSAGE_DIGEST_ALGORITHMS);
-                    if (allowed) {
-                        cryptoManager.setMessageDigestAlgorithm(algorithm);
-                    } else {
-                        String msg = "IcvCreateService: keyRef is not found in the request and the algorithm ("
-                                 + algorithm + ") is not an allowed Message Digest algorithm";
-                        failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                        return;
-                    }
-                } else if (algorithm.startsWith("SHA") && algorithm.endsWith("withRSA")) {
-                    // digital signature algorithm
-                    boolean allowed = cryptoManager.isAllowedAlgorithm(algorithm,
-                            KmcCryptoManager.CFG_ALLOWED_DIGITAL_SIGNATURE_ALGORITHMS);
-                    if (allowed) {
-                        if (macLength != null) {
-                            String msg = "Digital Signature does not support macLength.";
-                            logger.error(msg);
-                            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                            return;
-                        }
-                        cryptoManager.setDigitalSignatureAlgorithm(algorithm);
-                    } else {
-                        String msg = "IcvCreateService: the algorithm (" + algorithm
-                                + ") is not an allowed Digital Signature algorithm";
-                        failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                        return;
-                    }
-                } else {
-                    String msg = "IcvCreateService: The algorithm parameter"
-                            + " is only allowed for Message Digest or Digital Signature."
-                            + " Other crypto functions use the algorithm specified by the key.";
-                    failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                    return;
-                }
-            } catch (KmcCryptoManagerException e) {
-                String msg = "IcvCreateService: Exception in setting algorithm: " + e;
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            }
-        }
-
-        if (macLength != null) {
-            try {
-                cryptoManager.setMacLength(macLength);
-            } catch (KmcCryptoManagerException e) {
-                String msg = "IcvCreateService: bad macLength parameter (" + macLength + "): " + e;
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            }
+        try {
+            keyRef = CryptoServiceParameters.checkIcvCreateParameters(cryptoManager, request::getParameter);
+        } catch (CryptoServiceParameters.ParameterException e) {
+            failureResponse(response, e.getHttpCode(), "IcvCreateService: " + e.getMessage());
+            return;
         }
 
         IcvCreator icvCreator;
         try {
-            if (keyRef == null || "null".equals(keyRef)) {
+            if (keyRef == null) {
                 icvCreator = cryptoManager.createIcvCreator();
             } else {
                 icvCreator = cryptoManager.createIcvCreator(keyRef);
@@ -188,32 +132,18 @@ public class IcvCreateService extends HttpServlet {
             return;
         }
 
-        // Read the data from request
-        InputStream reader = request.getInputStream();
-        int bufSize = maxBytes + 1;  // add a byte to detect exceeding max
-        byte[] dataBuffer = new byte[bufSize];
-        int offset = 0;
-        int bytesRead = -1;
-        while ((bytesRead = reader.read(dataBuffer, offset, bufSize - offset)) > 0) {
-            if (logger.isTraceEnabled()) {
-                logger.trace("IcvCreateService: offset = " + offset + ", read " + bytesRead + " bytes.");
-            }
-            if (offset + bytesRead > maxBytes) {
-                String msg = "IcvCreateService: input data exceeds maximum size of " + maxBytes + " bytes.";
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            } else {
-                offset = offset + bytesRead;
-            }
+        // The data is streamed from the request through the ICV function.
+        if (request.getContentLengthLong() > maxBytes) {
+            String msg = "IcvCreateService: input data exceeds maximum size of " + maxBytes + " bytes.";
+            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            return;
         }
-        logger.debug("IcvCreateService: Finished reading input stream of " + offset + " bytes.");
-        if (offset == 0) {
+        RequestBodyStream bis = new RequestBodyStream(request.getInputStream(), maxBytes);
+        if (bis.isEmpty()) {
             String msg = "IcvCreateService: empty input data.";
             failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             return;
         }
-        byte[] data = Arrays.copyOf(dataBuffer, offset);
-        InputStream bis = new ByteArrayInputStream(data);
 
         try {
             String metadata = icvCreator.createIntegrityCheckValue(bis);
@@ -225,10 +155,15 @@ public class IcvCreateService extends HttpServlet {
             out.print(gson.toJson(res));
             out.flush();
 
-            audit.info("IcvCreateService: User successfully created ICV for data of " + offset + " bytes using keyRef " + keyRef);
+            audit.info("IcvCreateService: User successfully created ICV for data of " + bis.getBytesRead() + " bytes using keyRef " + keyRef);
         } catch (KmcCryptoException e) {
-            String msg = "IcvCreateService: Exception during ICV Creation: " + e;
-            failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+            if (bis.isLimitExceeded()) {
+                String msg = "IcvCreateService: input data exceeds maximum size of " + maxBytes + " bytes.";
+                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            } else {
+                String msg = "IcvCreateService: Exception during ICV Creation: " + e;
+                failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
+            }
         }
     }
 
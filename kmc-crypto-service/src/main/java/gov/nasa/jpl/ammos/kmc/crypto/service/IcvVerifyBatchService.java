@@ -0,0 +1,58 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServletResponse;
+
+import gov.nasa.jpl.ammos.kmc.crypto.IcvVerifier;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoException;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+import gov.nasa.jpl.ammos.kmc.crypto.model.IcvVerifyServiceResponse;
+import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
+
+/**
+ * The servlet verifies the integrity check values of many small items in one request.
+ * Each item has the metadata option of the ICV Verify Service, and the response of each
+ * item is the JSON response of the ICV Verify Service.
+ *
+ * @see BatchService
+ * @see IcvVerifyService
+ *
+ */
+@WebServlet(value = "/icv-verify-batch", asyncSupported = true)
+public class IcvVerifyBatchService extends BatchService<IcvVerifier> {
+    private static final long serialVersionUID = -8391027518730654431L;
+
+    @Override
+    protected final String getFunctionKey(final BatchRequestStream.Item item) {
+        return "";
+    }
+
+    @Override
+    protected final IcvVerifier createFunction(final KmcCryptoManager cryptoManager,
+            final BatchRequestStream.Item item) throws ItemException {
+        try {
+            return cryptoManager.createIcvVerifier();
+        } catch (KmcCryptoManagerException e) {
+            throw toItemException(e);
+        }
+    }
+
+    @Override
+    protected final Object processItem(final IcvVerifier icvVerifier, final BatchRequestStream.Item item)
+            throws ItemException {
+        String metadata = item.getOption("metadata");
+        if (metadata == null) {
+            throw new ItemException(HttpServletResponse.SC_BAD_REQUEST, "missing metadata parameter.");
+        }
+        byte[] data = item.getData();
+        try {
+            boolean result = icvVerifier.verifyIntegrityCheckValue(data, 0, data.length, metadata);
+            Status status = new Status(HttpServletResponse.SC_OK, "OK");
+            return new IcvVerifyServiceResponse(status, result);
+        } catch (KmcCryptoException e) {
+            throw toItemException(e);
+        }
+    }
+
+}
@@ -1,9 +1,6 @@
 package gov.nasa.jpl.ammos.kmc.crypto.service;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Arrays;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -37,7 +34,7 @@ import gov.nasa.jpl.ammos.kmc.crypto.model.Status;
  *
  *
  */
-@WebServlet("/icv-verify")
+@WebServlet(value = "/icv-verify", asyncSupported = true)
 public class IcvVerifyService extends HttpServlet {
     private static final long serialVersionUID = 4114402936011612851L;
 
@@ -47,30 +44,33 @@ public class IcvVerifyService extends HttpServlet {
     private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
 
     private final int maxBytes = KmcCryptoServiceConfiguration.MAX_CRYPTO_SERVICE_BYTES;
-    private String kmcHome;
 
     @Override
     public final void init(final ServletConfig config) throws ServletException {
         super.init(config);
 
-        kmcHome = System.getenv(KmcCryptoManager.ENV_KMC_CRYPTO_SERVICE_HOME);
-        if (kmcHome == null) {
-            kmcHome = KmcCryptoManager.DEFAULT_KMC_CRYPTO_SERVICE_HOME;
+        try {
+            SharedCryptoManager.init();
+        } catch (KmcCryptoManagerException e) {
+            // each request returns the error until the config can be loaded
+            logger.error("Failed to load KMC Crypto config: " + e);
         }
     }
 
     @Override
     protected final void doPost(final HttpServletRequest request, final HttpServletResponse response)
             throws ServletException, IOException {
+        CryptoServiceExecutor.execute(request, response, this::process);
+    }
+
+    private void process(final HttpServletRequest request, final HttpServletResponse response)
+            throws ServletException, IOException {
         ServletOutputStream out = response.getOutputStream();
         response.setContentType("application/json");
 
         KmcCryptoManager cryptoManager = null;
         try {
-            String[] args = new String[] {
-                    "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + kmcHome + "/etc"
-            };
-            cryptoManager = new KmcCryptoManager(args);
+            cryptoManager = SharedCryptoManager.getCryptoManager();
         } catch (KmcCryptoManagerException e) {
             String msg = "IcvVerifyService: failed to create KmcCryptoManager: " + e;
             failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -87,32 +87,18 @@ public class IcvVerifyService extends HttpServlet {
             return;
         }
 
-        // Read the data from request
-        InputStream reader = request.getInputStream();
-        int bufSize = maxBytes + 1;  // add a byte to detect exceeding max
-        byte[] dataBuffer = new byte[bufSize];
-        int offset = 0;
-        int bytesRead = -1;
-        while ((bytesRead = reader.read(dataBuffer, offset, bufSize - offset)) > 0) {
-            if (logger.isTraceEnabled()) {
-                logger.trace("IcvVerifyService: offset = " + offset + ", read " + bytesRead + " bytes.");
-            }
-            if (offset + bytesRead > maxBytes) {
-                String msg = "IcvVerifyService: input data exceeds maximum size of " + maxBytes + " bytes.";
-                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
-                return;
-            } else {
-                offset = offset + bytesRead;
-            }
+        // The data is streamed from the request through the ICV function.
+        if (request.getContentLengthLong() > maxBytes) {
+            String msg = "IcvVerifyService: input data exceeds maximum size of " + maxBytes + " bytes.";
+            failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            return;
         }
-        logger.debug("IcvVerifyService: Finished reading input stream of " + offset + " bytes.");
-        if (offset == 0) {
+        RequestBodyStream bis = new RequestBodyStream(request.getInputStream(), maxBytes);
+        if (bis.isEmpty()) {
             String msg = "IcvVerifyService: empty input data.";
             failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
             return;
         }
-        byte[] data = Arrays.copyOf(dataBuffer, offset);
-        InputStream bis = new ByteArrayInputStream(data);
 
         IcvVerifier icvVerifier;
         try {
@@ -142,10 +128,13 @@ public class IcvVerifyService extends HttpServlet {
             out.print(gson.toJson(res));
             out.flush();
 
-            audit.info("IcvVerifyService: User successfully verifed data of " + offset + " bytes with ICV");
+            audit.info("IcvVerifyService: User successfully verifed data of " + bis.getBytesRead() + " bytes with ICV");
         } catch (KmcCryptoException e) {
             String msg = "IcvVerifyService: " + e.getMessage();
-            if (e.getErrorCode() == KmcCryptoErrorCode.CRYPTO_KEY_ERROR) {
+            if (bis.isLimitExceeded()) {
+                msg = "IcvVerifyService: input data exceeds maximum size of " + maxBytes + " bytes.";
+                failureResponse(response, HttpServletResponse.SC_BAD_REQUEST, msg);
+            } else if (e.getErrorCode() == KmcCryptoErrorCode.CRYPTO_KEY_ERROR) {
                 if (msg.contains(KmcKeyServiceClient.NO_KEY_SOURCE_ERROR_MSG)) {
                     // no key source
                     failureResponse(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
@@ -0,0 +1,145 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The body of a Crypto Service request, read by the crypto functions in small chunks
+ * instead of being loaded into memory.  Reading more than the maximum number of bytes
+ * throws an IOException, and the beginning of the body can be examined before the
+ * crypto function reads it.
+ *
+ *
+ */
+public final class RequestBodyStream extends FilterInputStream {
+    /**
+     * Size of the buffer for reading the request body.
+     */
+    public static final int BUFFER_SIZE = 8192;
+
+    private final long maxBytes;
+    private long bytesRead;
+    private boolean limitExceeded;
+
+    /**
+     * Constructor of the RequestBodyStream.
+     * @param in the input stream of the request.
+     * @param maxBytes the maximum number of bytes allowed in the request body.
+     */
+    public RequestBodyStream(final InputStream in, final long maxBytes) {
+        super(new BufferedInputStream(in, BUFFER_SIZE));
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes read from the request body.
+     * @return the number of bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns whether the request body has more bytes than the maximum allowed.
+     * @return true if the maximum number of bytes is exceeded.
+     */
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    /**
+     * Returns whether the request body is empty, without consuming it.
+     * @return true if the request body has no data.
+     * @throws IOException if error reading the request.
+     */
+    public boolean isEmpty() throws IOException {
+        in.mark(1);
+        int b = in.read();
+        in.reset();
+        return b == -1;
+    }
+
+    /**
+     * Returns whether the beginning of the request body is base64 encoded, without consuming it.
+     * Only the first buffer is examined, the rest of the body is checked when it is decoded.
+     * @return true if the first buffer contains only base64 characters.
+     * @throws IOException if error reading the request.
+     */
+    public boolean isBase64() throws IOException {
+        byte[] head = new byte[BUFFER_SIZE];
+        in.mark(BUFFER_SIZE);
+        int length = 0;
+        int n;
+        while (length < BUFFER_SIZE && (n = in.read(head, length, BUFFER_SIZE - length)) != -1) {
+            length = length + n;
+        }
+        in.reset();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isBase64Char(head[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBase64Char(final byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+                || b == '+' || b == '/' || b == '=';
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        long skipped = in.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        // the byte count would be wrong after reset
+        return false;
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void count(final long n) throws IOException {
+        bytesRead = bytesRead + n;
+        if (bytesRead > maxBytes) {
+            limitExceeded = true;
+            throw new IOException("Input data exceeds maximum size of " + maxBytes + " bytes.");
+        }
+    }
+
+}
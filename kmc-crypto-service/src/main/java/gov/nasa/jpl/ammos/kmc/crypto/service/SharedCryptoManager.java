@@ -0,0 +1,153 @@
+package gov.nasa.jpl.ammos.kmc.crypto.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManager;
+import gov.nasa.jpl.ammos.kmc.crypto.KmcCryptoManagerException;
+
+/**
+ * Holds the {@link KmcCryptoManager} shared by the servlets of the Crypto Service.
+ * The config file is read once, when the first servlet is initialized, and each request
+ * gets a copy of the shared {@link KmcCryptoManager} for its own parameters
+ * (e.g. macLength or transformation) without reading the config file again.
+ *
+ * If the Spring property kmc.crypto.config.watch is true, the config file is watched
+ * and reloaded when it changes.  A config file that fails to load is logged and
+ * the previous configuration stays in use.
+ *
+ *
+ */
+public final class SharedCryptoManager {
+    /**
+     * Spring property for reloading kmc-crypto.cfg when it changes, default false.
+     */
+    public static final String WATCH_CONFIG_PROPERTY = "kmc.crypto.config.watch";
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCryptoManager.class);
+
+    private static volatile KmcCryptoManager sharedManager;
+    private static Thread watcher;
+
+    private SharedCryptoManager() {
+    }
+
+    /**
+     * Loads the shared {@link KmcCryptoManager} if it is not loaded yet, and starts watching
+     * the config file if enabled, and starts collecting the {@link CryptoMetricsRegistry metrics}.
+     * It is called by the servlets during initialization.
+     * @throws KmcCryptoManagerException if error loading the config file.
+     */
+    public static void init() throws KmcCryptoManagerException {
+        CryptoMetricsRegistry.getInstance();
+        getSharedManager();
+    }
+
+    /**
+     * Returns a copy of the shared {@link KmcCryptoManager} for processing one request.
+     * @return a {@link KmcCryptoManager} whose parameters can be changed by the request.
+     * @throws KmcCryptoManagerException if error loading the config file.
+     */
+    public static KmcCryptoManager getCryptoManager() throws KmcCryptoManagerException {
+        return getSharedManager().copy();
+    }
+
+    private static KmcCryptoManager getSharedManager() throws KmcCryptoManagerException {
+        KmcCryptoManager manager = sharedManager;
+        if (manager != null) {
+            return manager;
+        }
+        synchronized (SharedCryptoManager.class) {
+            if (sharedManager == null) {
+                sharedManager = loadCryptoManager();
+                if (isWatchEnabled()) {
+                    startWatcher(sharedManager.getKmcConfigDir());
+                }
+            }
+            return sharedManager;
+        }
+    }
+
+    private static KmcCryptoManager loadCryptoManager() throws KmcCryptoManagerException {
+        String kmcHome = System.getenv(KmcCryptoManager.ENV_KMC_CRYPTO_SERVICE_HOME);
+        if (kmcHome == null) {
+            kmcHome = KmcCryptoManager.DEFAULT_KMC_CRYPTO_SERVICE_HOME;
+        }
+        String[] args = new String[] {
+                "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + kmcHome + "/etc"
+        };
+        return new KmcCryptoManager(args);
+    }
+
+    private static boolean isWatchEnabled() {
+        if (KmcCryptoServiceConfiguration.springEnv == null) {
+            return false;
+        }
+        return Boolean.parseBoolean(KmcCryptoServiceConfiguration.springEnv.getProperty(WATCH_CONFIG_PROPERTY));
+    }
+
+    /**
+     * Reloads the config file.  The previous configuration stays in use if the reload fails.
+     */
+    static void reload() {
+        try {
+            KmcCryptoManager manager = loadCryptoManager();
+            sharedManager = manager;
+            logger.info("Reloaded KMC Crypto config from {}", manager.getKmcConfigDir());
+        } catch (KmcCryptoManagerException e) {
+            logger.error("Failed to reload KMC Crypto config, keeping the previous config: " + e);
+        }
+    }
+
+    private static void startWatcher(final String configDir) {
+        final Path dir = Paths.get(configDir);
+        final WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.error("Failed to watch KMC Crypto config directory {}: {}", configDir, e.toString());
+            return;
+        }
+        watcher = new Thread(() -> watchConfig(watchService), "kmc-crypto-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching {} for changes of {}", configDir, KmcCryptoManager.DEFAULT_CRYPTO_CONFIG_FILE);
+    }
+
+    private static void watchConfig(final WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path
+                            && KmcCryptoManager.DEFAULT_CRYPTO_CONFIG_FILE.equals(context.toString())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    logger.error("KMC Crypto config directory is no longer accessible, stopped watching it.");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.info("Stopped watching KMC Crypto config.");
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package gov.nasa.jpl.ammos.kmc.crypto;
+
+/**
+ * A CryptoMetrics receives the measurements of the crypto functions and the key services,
+ * e.g. for recording them in a metrics registry.  It is set by
+ * {@link KmcCryptoManager#setCryptoMetrics(CryptoMetrics)} and called by the threads doing
+ * the crypto operations, so the implementation must be thread-safe and should return quickly.
+ * The methods do nothing by default.
+ *
+ */
+public interface CryptoMetrics {
+    /**
+     * Operation of the {@link Encrypter}.
+     */
+    String ENCRYPT = "encrypt";
+    /**
+     * Operation of the {@link Decrypter}.
+     */
+    String DECRYPT = "decrypt";
+    /**
+     * Operation of the {@link IcvCreator}.
+     */
+    String ICV_CREATE = "icv-create";
+    /**
+     * Operation of the {@link IcvVerifier}.
+     */
+    String ICV_VERIFY = "icv-verify";
+
+    /**
+     * CryptoMetrics that ignores all the measurements.
+     */
+    CryptoMetrics NONE = new CryptoMetrics() { };
+
+    /**
+     * Records a crypto operation.
+     *
+     * @param operation the operation, e.g. {@link #ENCRYPT}.
+     * @param algorithm the algorithm or cipher transformation of the operation.
+     * @param bytes number of bytes of the input data processed.
+     * @param nanos duration of the operation in nanoseconds.
+     * @param success false if the operation failed.
+     */
+    default void recordOperation(String operation, String algorithm, long bytes, long nanos, boolean success) {
+    }
+
+    /**
+     * Records a lookup of a key in the key cache.
+     *
+     * @param hit true if the key is found in the cache.
+     */
+    default void recordKeyCacheLookup(boolean hit) {
+    }
+
+    /**
+     * Records a request to the Key Management Service (KMS).
+     *
+     * @param operation the KMS operation, e.g. Locate or Get.
+     * @param nanos round-trip time of the request in nanoseconds.
+     * @param success false if the request failed.
+     */
+    default void recordKeyServiceRequest(String operation, long nanos, boolean success) {
+    }
+}
@@ -2,6 +2,8 @@ package gov.nasa.jpl.ammos.kmc.crypto;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * The Decrypter performs decryption of the cipher text based on its associated metadata.
@@ -25,6 +27,48 @@ public interface Decrypter {
     void decrypt(final InputStream inputStream, final OutputStream outputStream, final String metadata)
             throws KmcCryptoException;
 
+    /**
+     * Decrypts the bytes from index offset to offset + length - 1 of the input array with the resulting
+     * decrypted data written to the output array.  The decrypted data is never longer than the encrypted data,
+     * so an output array with length bytes from outputOffset is large enough.
+     *
+     * @param input byte array of the encrypted data.
+     * @param offset index of the first byte of the encrypted data.
+     * @param length number of bytes of the encrypted data.
+     * @param output byte array for the decrypted data.
+     * @param outputOffset index of the output array where the decrypted data is written.
+     * @param metadata String containing the metadata to be used for decrypting the encrypted data.
+     * @return number of bytes written to the output array.
+     * @throws KmcCryptoException if any error occurs.
+     */
+    int decrypt(final byte[] input, final int offset, final int length,
+            final byte[] output, final int outputOffset, final String metadata) throws KmcCryptoException;
+
+    /**
+     * Decrypts the remaining bytes of the input buffer with the resulting decrypted data written to the output buffer.
+     * The buffers can be heap or direct buffers.
+     *
+     * @param input buffer of the encrypted data, which is read from its position to its limit.
+     *          Upon return its position is equal to its limit.
+     * @param output buffer for the decrypted data, which is written from its position.
+     *          Upon return its position is advanced by the number of bytes written.
+     * @param metadata String containing the metadata to be used for decrypting the encrypted data.
+     * @throws KmcCryptoException if any error occurs.
+     */
+    void decrypt(final ByteBuffer input, final ByteBuffer output, final String metadata) throws KmcCryptoException;
+
+    /**
+     * Decrypts the content of the input file with the resulting decrypted data written to the output file.
+     * Both files are memory-mapped, so the data are decrypted without copying.
+     *
+     * @param input path of the file of the encrypted data.
+     * @param output path of the file for the decrypted data, which is created or replaced.
+     *          It must not be the input file.
+     * @param metadata String containing the metadata to be used for decrypting the encrypted data.
+     * @throws KmcCryptoException if any error occurs.
+     */
+    void decrypt(final Path input, final Path output, final String metadata) throws KmcCryptoException;
+
     /**
      * Load the cryptographic key to the key cache.  The key will be refreshed if it is already existed in the cache.
      * The key is also cached when it is used by cryptographic functions if key caching is enabled.
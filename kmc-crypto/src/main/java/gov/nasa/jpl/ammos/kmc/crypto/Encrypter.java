@@ -2,6 +2,8 @@ package gov.nasa.jpl.ammos.kmc.crypto;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * The Encrypter performs encryption using the key retrieved from KMS or from a keystore.
@@ -38,12 +40,104 @@ public interface Encrypter {
      * @param outputStream output stream attached to the data sink for encrypted data.
      *          The outputStream will be closed upon completion.  If outputStream is empty,
      *          it means error that cannot be caught had occurred during encryption.
+     *          If outputStream is an {@link EncryptionMetadataSink}, it receives the metadata
+     *          before the encrypted data.
      * @return String containing the metadata to be used for decrypting the encrypted data.
      * @exception KmcCryptoException if any error occurs during encryption.
      */
     String encrypt(final InputStream inputStream, final int encryptOffset,
                    final String iv, final OutputStream outputStream) throws KmcCryptoException;
 
+    /**
+     * Encrypts the bytes from index offset to offset + length - 1 of the input array with the resulting
+     * encrypted data written to the output buffer.  The output buffer must have at least
+     * {@link #getOutputSize(int) getOutputSize(length)} bytes remaining.
+     *
+     * @param input byte array of the data to be encrypted.
+     * @param offset index of the first byte to be encrypted.
+     * @param length number of bytes to be encrypted.
+     * @param output buffer for the encrypted data, which is written from its position.
+     *          Upon return its position is advanced by the number of bytes written.
+     * @return String containing the metadata to be used for decrypting the encrypted data.
+     * @exception KmcCryptoException if any error occurs during encryption.
+     */
+    String encrypt(final byte[] input, final int offset, final int length, final ByteBuffer output)
+            throws KmcCryptoException;
+
+    /**
+     * Encrypts the remaining bytes of the input buffer with the resulting encrypted data written to the output buffer.
+     * The buffers can be heap or direct buffers.  The output buffer must have at least
+     * {@link #getOutputSize(int) getOutputSize(input.remaining())} bytes remaining.
+     *
+     * @param input buffer of the data to be encrypted, which is read from its position to its limit.
+     *          Upon return its position is equal to its limit.
+     * @param output buffer for the encrypted data, which is written from its position.
+     *          Upon return its position is advanced by the number of bytes written.
+     * @return String containing the metadata to be used for decrypting the encrypted data.
+     * @exception KmcCryptoException if any error occurs during encryption.
+     */
+    String encrypt(final ByteBuffer input, final ByteBuffer output) throws KmcCryptoException;
+
+    /**
+     * Encrypts the remaining bytes of the input buffer with the resulting encrypted data written to the output buffer.
+     * This method allows specifying the encryption offset for authenticated encryption, and the IV for encryption.
+     * The first encryptOffset bytes of the input are copied to the output unencrypted.
+     *
+     * @param input buffer of the data to be encrypted, which is read from its position to its limit.
+     *          Upon return its position is equal to its limit.
+     * @param encryptOffset The byte from which encryption is applied.
+     *          Only used for authenticated encryption.
+     * @param iv URL-safe Base64 encoded String for the initial vector in encryption.
+     *          Input null for randomly generated IV.
+     * @param output buffer for the encrypted data, which is written from its position.
+     *          Upon return its position is advanced by the number of bytes written.
+     * @return String containing the metadata to be used for decrypting the encrypted data.
+     * @exception KmcCryptoException if any error occurs during encryption.
+     */
+    String encrypt(final ByteBuffer input, final int encryptOffset,
+                   final String iv, final ByteBuffer output) throws KmcCryptoException;
+
+    /**
+     * Encrypts the content of the input file with the resulting encrypted data written to the output file.
+     * Both files are memory-mapped, so the data are encrypted without copying.
+     *
+     * @param input path of the file to be encrypted.
+     * @param output path of the file for the encrypted data, which is created or replaced.
+     *          It must not be the input file.
+     * @return String containing the metadata to be used for decrypting the encrypted data.
+     * @exception KmcCryptoException if any error occurs during encryption.
+     */
+    String encrypt(final Path input, final Path output) throws KmcCryptoException;
+
+    /**
+     * Encrypts the content of the input file with the resulting encrypted data written to the output file.
+     * This method allows specifying the encryption offset for authenticated encryption, and the IV for encryption.
+     * The first encryptOffset bytes of the input are copied to the output unencrypted.
+     * Both files are memory-mapped, so the data are encrypted without copying.
+     *
+     * @param input path of the file to be encrypted.
+     * @param encryptOffset The byte from which encryption is applied.
+     *          Only used for authenticated encryption.
+     * @param iv URL-safe Base64 encoded String for the initial vector in encryption.
+     *          Input null for randomly generated IV.
+     * @param output path of the file for the encrypted data, which is created or replaced.
+     *          It must not be the input file.
+     * @return String containing the metadata to be used for decrypting the encrypted data.
+     * @exception KmcCryptoException if any error occurs during encryption.
+     */
+    String encrypt(final Path input, final int encryptOffset, final String iv, final Path output)
+            throws KmcCryptoException;
+
+    /**
+     * Returns the maximum number of bytes of the encrypted data of the given number of input bytes,
+     * for sizing the output buffer of encryption.  With segmented AES-GCM encryption
+     * it includes the tag of every segment.
+     *
+     * @param length number of bytes of the input data, including the bytes before encryptOffset.
+     * @return the maximum number of bytes of the encrypted data.
+     */
+    int getOutputSize(final int length);
+
     /**
      * Load the cryptographic key to the key cache.  The key will be refreshed if it is already existed in the cache.
      * The key is also cached when it is used by cryptographic functions if key caching is enabled.
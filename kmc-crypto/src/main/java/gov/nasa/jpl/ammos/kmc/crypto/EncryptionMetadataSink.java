@@ -0,0 +1,19 @@
+package gov.nasa.jpl.ammos.kmc.crypto;
+
+/**
+ * An output stream given to the {@link Encrypter} that implements EncryptionMetadataSink receives
+ * the encryption metadata before any encrypted data is written to it.  This allows the metadata
+ * to be sent ahead of the encrypted data, e.g. in the headers of a streamed HTTP response.
+ *
+ */
+public interface EncryptionMetadataSink {
+
+    /**
+     * Receives the metadata of the encryption.  It is called once per encryption, after the cipher
+     * is initialized and before the encrypted data is written.  The metadata is the same as
+     * the one returned by the encrypt method.
+     *
+     * @param metadata String containing the metadata to be used for decrypting the encrypted data.
+     */
+    void setEncryptionMetadata(String metadata);
+}
@@ -1,6 +1,8 @@
 package gov.nasa.jpl.ammos.kmc.crypto;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * The IcvCreate creates an integrity check value (ICV) of the input data.  The resulting
@@ -24,6 +26,38 @@ public interface IcvCreator {
      */
     String createIntegrityCheckValue(final InputStream inputStream) throws KmcCryptoException;
 
+    /**
+     * Returns the integrity metadata for the bytes from index offset to offset + length - 1 of the input array.
+     *
+     * @param input byte array of the data for integrity check.
+     * @param offset index of the first byte of the data.
+     * @param length number of bytes of the data.
+     * @return String of the integrity metadata.
+     * @throws KmcCryptoException if error in the input data.
+     */
+    String createIntegrityCheckValue(final byte[] input, final int offset, final int length) throws KmcCryptoException;
+
+    /**
+     * Returns the integrity metadata for the remaining bytes of the input buffer.
+     * The buffer can be a heap or direct buffer.
+     *
+     * @param input buffer of the data for integrity check, which is read from its position to its limit.
+     *          Upon return its position is equal to its limit.
+     * @return String of the integrity metadata.
+     * @throws KmcCryptoException if error in the input data.
+     */
+    String createIntegrityCheckValue(final ByteBuffer input) throws KmcCryptoException;
+
+    /**
+     * Returns the integrity metadata for the content of the file.  The file is memory-mapped
+     * and read by the ICV algorithm without copying.
+     *
+     * @param file path of the file for integrity check.
+     * @return String of the integrity metadata.
+     * @throws KmcCryptoException if error in reading the file.
+     */
+    String createIntegrityCheckValue(final Path file) throws KmcCryptoException;
+
     /**
      * Load the cryptographic key to the key cache.  The key will be refreshed if it is already existed in the cache.
      * The key is also cached when it is used by cryptographic functions if key caching is enabled.
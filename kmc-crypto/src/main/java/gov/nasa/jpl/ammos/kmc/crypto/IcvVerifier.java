@@ -1,6 +1,8 @@
 package gov.nasa.jpl.ammos.kmc.crypto;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * The IcvVerifier checks the integrity of the input data based on its associated metadata.
@@ -26,6 +28,46 @@ public interface IcvVerifier {
     boolean verifyIntegrityCheckValue(final InputStream inputStream, final String integrityMetadata)
             throws KmcCryptoException;
 
+    /**
+     * Verifies the bytes from index offset to offset + length - 1 of the input array against the integrity check value.
+     *
+     * @param input byte array of the data to be verified.
+     * @param offset index of the first byte of the data.
+     * @param length number of bytes of the data.
+     * @param integrityMetadata metadata containing integrity check value and its associated
+     *        key and cryptographic attributes for verification.
+     * @return true if verification is successful.
+     * @throws KmcCryptoException if error in verifying the input data.
+     */
+    boolean verifyIntegrityCheckValue(final byte[] input, final int offset, final int length,
+            final String integrityMetadata) throws KmcCryptoException;
+
+    /**
+     * Verifies the remaining bytes of the input buffer against the integrity check value.
+     * The buffer can be a heap or direct buffer.
+     *
+     * @param input buffer of the data to be verified, which is read from its position to its limit.
+     *          Upon return its position is equal to its limit.
+     * @param integrityMetadata metadata containing integrity check value and its associated
+     *        key and cryptographic attributes for verification.
+     * @return true if verification is successful.
+     * @throws KmcCryptoException if error in verifying the input data.
+     */
+    boolean verifyIntegrityCheckValue(final ByteBuffer input, final String integrityMetadata)
+            throws KmcCryptoException;
+
+    /**
+     * Verifies the content of the file against the integrity check value.  The file is memory-mapped
+     * and read by the ICV algorithm without copying.
+     *
+     * @param file path of the file to be verified.
+     * @param integrityMetadata metadata containing integrity check value and its associated
+     *        key and cryptographic attributes for verification.
+     * @return true if verification is successful.
+     * @throws KmcCryptoException if error in reading or verifying the file.
+     */
+    boolean verifyIntegrityCheckValue(final Path file, final String integrityMetadata)
+            throws KmcCryptoException;
 
     /**
      * Load the cryptographic key to the key cache.  The key will be refreshed if it is already existed in the cache.
@@ -63,6 +63,8 @@ public class KmcCryptoManager {
 
     private static final Logger logger = LoggerFactory.getLogger(KmcCryptoManager.class);
 
+    private static volatile CryptoMetrics cryptoMetrics = CryptoMetrics.NONE;
+
     /**
      * The home directory of the KMC Crypto Client software.  Default of KMC_HOME is set in kmc.properties.
      */
@@ -309,6 +311,16 @@ public class KmcCryptoManager {
      * Config parameter for the default MAC length.  0 for algorithm specific full length.
      */
     public static final String CFG_TRUNCATED_MAC_LENGTH = "truncated_MAC_length";
+    /**
+     * Config parameter for the segment size (bytes) of segmented AES-GCM encryption.
+     * Not set for AES-GCM encryption of the whole data with one tag.
+     */
+    public static final String CFG_ENCRYPTION_SEGMENT_SIZE = "encryption_segment_size";
+    /**
+     * Config parameter for the chunk size (bytes) of tree-hashed integrity check.
+     * Not set for integrity check of the whole data in sequence.
+     */
+    public static final String CFG_ICV_CHUNK_SIZE = "icv_chunk_size";
     /**
      * The suffix of crypto algorithm provider.  The config parameter is &lt;algorithm&gt;_provider.
      */
@@ -321,6 +333,26 @@ public class KmcCryptoManager {
      * The maximum bytes of data accepted by KMC cryptographic functions.
      */
     public static final int MAX_CRYPTO_SIZE = 100000000;
+    /**
+     * The maximum segment size of segmented AES-GCM encryption.  Each thread of the encryption
+     * and decryption holds segment buffers of this size.
+     */
+    public static final int MAX_ENCRYPTION_SEGMENT_SIZE = 1048576;
+    /**
+     * The minimum segment size of segmented AES-GCM encryption.  Each segment is a task of
+     * its own, so small segments of large data would cost more than they encrypt.
+     */
+    public static final int MIN_ENCRYPTION_SEGMENT_SIZE = 4096;
+    /**
+     * The maximum chunk size of tree-hashed integrity check.  Each thread of the integrity check
+     * holds a chunk buffer of this size.
+     */
+    public static final int MAX_ICV_CHUNK_SIZE = 1048576;
+    /**
+     * The minimum chunk size of tree-hashed integrity check.  The digest of every chunk is kept
+     * until the tree is complete, so small chunks of large data would exhaust the memory.
+     */
+    public static final int MIN_ICV_CHUNK_SIZE = 4096;
 
     private static final String VALUE_SEPARATOR = ":";
     private static final String[] ALL_CFG_ALLOWED_ALGORITHMS = new String[] {
@@ -459,6 +491,12 @@ public class KmcCryptoManager {
             } else if (key.equals(CFG_TRUNCATED_MAC_LENGTH)) {
                 logger.debug("set mac length: " + key + " = " + value);
                 this.setMacLength(value);
+            } else if (key.equals(CFG_ENCRYPTION_SEGMENT_SIZE)) {
+                logger.debug("set encryption segment size: " + key + " = " + value);
+                this.setEncryptionSegmentSize(value);
+            } else if (key.equals(CFG_ICV_CHUNK_SIZE)) {
+                logger.debug("set ICV chunk size: " + key + " = " + value);
+                this.setIcvChunkSize(value);
             } else if (key.endsWith(ALGORITHM_PROVIDER_SUFFIX)) {
                 logger.debug("set algorithm provider: " + key + " = " + value);
                 config.setProperty(key, value);
@@ -473,6 +511,50 @@ public class KmcCryptoManager {
         checkConfigParameters();
     }
 
+    /**
+     * Copy constructor used by {@link #copy()}.
+     * @param cryptoManager the {@link KmcCryptoManager} to copy.
+     */
+    private KmcCryptoManager(final KmcCryptoManager cryptoManager) {
+        this.configDir = cryptoManager.configDir;
+        this.config = new Properties();
+        this.config.putAll(cryptoManager.config);
+        this.defaultTransformations = cryptoManager.defaultTransformations;
+    }
+
+    /**
+     * Returns a copy of this {@link KmcCryptoManager} without reading the configuration
+     * file again.  Changes to the parameters of the copy, e.g. by {@link #setMacLength(int)}
+     * or {@link #setCipherTransformation(String)}, do not affect this {@link KmcCryptoManager},
+     * so a service can share one {@link KmcCryptoManager} and apply the parameters of each
+     * request to a copy.
+     *
+     * @return a copy of this {@link KmcCryptoManager}.
+     */
+    public final KmcCryptoManager copy() {
+        return new KmcCryptoManager(this);
+    }
+
+    /**
+     * Sets the {@link CryptoMetrics} that receives the measurements of the crypto functions
+     * and the key services of all the {@link KmcCryptoManager}s.
+     *
+     * @param metrics the {@link CryptoMetrics}, or null for not recording the measurements.
+     */
+    public static void setCryptoMetrics(final CryptoMetrics metrics) {
+        cryptoMetrics = metrics == null ? CryptoMetrics.NONE : metrics;
+    }
+
+    /**
+     * Returns the {@link CryptoMetrics} that receives the measurements of the crypto functions
+     * and the key services.
+     *
+     * @return the {@link CryptoMetrics}, {@link CryptoMetrics#NONE} if it is not set.
+     */
+    public static CryptoMetrics getCryptoMetrics() {
+        return cryptoMetrics;
+    }
+
     /**
      * Initializes the {@link KmcCryptoManager} using the specified config file.
      * It loads the config file and sets up the {@link KmcCryptoManager}
@@ -558,6 +640,14 @@ public class KmcCryptoManager {
                 }
             }
         }
+        String segmentSize = config.getProperty(CFG_ENCRYPTION_SEGMENT_SIZE);
+        if (segmentSize != null && !segmentSize.trim().isEmpty()) {
+            setEncryptionSegmentSize(segmentSize.trim());
+        }
+        String chunkSize = config.getProperty(CFG_ICV_CHUNK_SIZE);
+        if (chunkSize != null && !chunkSize.trim().isEmpty()) {
+            setIcvChunkSize(chunkSize.trim());
+        }
     }
 
     /**
@@ -1546,6 +1636,111 @@ public class KmcCryptoManager {
         }
     }
 
+    /**
+     * Returns the segment size of segmented AES-GCM encryption.
+     * @return The segment size in bytes, or -1 if AES-GCM encryption is not segmented.
+     */
+    public final int getEncryptionSegmentSize() {
+        String value = config.getProperty(CFG_ENCRYPTION_SEGMENT_SIZE);
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        } else {
+            return Integer.parseInt(value.trim());
+        }
+    }
+
+    /**
+     * Sets the segment size of segmented AES-GCM encryption.
+     * Input "-1" to remove the segment size parameter.
+     * @param segmentSize The segment size in bytes.
+     * @throws KmcCryptoManagerException if segmentSize is not a valid segment size.
+     */
+    public final void setEncryptionSegmentSize(final String segmentSize) throws KmcCryptoManagerException {
+        try {
+            setEncryptionSegmentSize(Integer.parseInt(segmentSize));
+        } catch (NumberFormatException e) {
+            String error = "The encryption segment size (" + segmentSize + ") is not an integer.";
+            logger.error(error);
+            throw new KmcCryptoManagerException(
+                KmcCryptoManagerErrorCode.CONFIG_PARAMETER_VALUE_INVALID, error, null);
+        }
+    }
+
+    /**
+     * Sets the segment size of segmented AES-GCM encryption.  The data are encrypted in segments
+     * of the size, which are encrypted and decrypted in parallel.  It only applies to AES/GCM encryption.
+     * Input -1 to remove the segment size parameter.
+     * @param segmentSize The segment size in bytes.
+     * @throws KmcCryptoManagerException if segmentSize is less than {@link #MIN_ENCRYPTION_SEGMENT_SIZE}
+     * or exceeds {@link #MAX_ENCRYPTION_SEGMENT_SIZE}.
+     */
+    public final void setEncryptionSegmentSize(final int segmentSize) throws KmcCryptoManagerException {
+        if (segmentSize == -1) {
+            config.remove(CFG_ENCRYPTION_SEGMENT_SIZE);
+        } else if (segmentSize < MIN_ENCRYPTION_SEGMENT_SIZE || segmentSize > MAX_ENCRYPTION_SEGMENT_SIZE) {
+            String error = "The encryption segment size (" + segmentSize
+                    + ") must be between " + MIN_ENCRYPTION_SEGMENT_SIZE + " and "
+                    + MAX_ENCRYPTION_SEGMENT_SIZE + " bytes.";
+            logger.error(error);
+            throw new KmcCryptoManagerException(
+                    KmcCryptoManagerErrorCode.CONFIG_PARAMETER_VALUE_INVALID, error, null);
+        } else {
+            config.setProperty(CFG_ENCRYPTION_SEGMENT_SIZE, String.valueOf(segmentSize));
+        }
+    }
+
+    /**
+     * Returns the chunk size of tree-hashed integrity check.
+     * @return The chunk size in bytes, or -1 if integrity check is not tree-hashed.
+     */
+    public final int getIcvChunkSize() {
+        String value = config.getProperty(CFG_ICV_CHUNK_SIZE);
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        } else {
+            return Integer.parseInt(value.trim());
+        }
+    }
+
+    /**
+     * Sets the chunk size of tree-hashed integrity check.
+     * Input "-1" to remove the chunk size parameter.
+     * @param chunkSize The chunk size in bytes.
+     * @throws KmcCryptoManagerException if chunkSize is not a valid chunk size.
+     */
+    public final void setIcvChunkSize(final String chunkSize) throws KmcCryptoManagerException {
+        try {
+            setIcvChunkSize(Integer.parseInt(chunkSize));
+        } catch (NumberFormatException e) {
+            String error = "The ICV chunk size (" + chunkSize + ") is not an integer.";
+            logger.error(error);
+            throw new KmcCryptoManagerException(
+                KmcCryptoManagerErrorCode.CONFIG_PARAMETER_VALUE_INVALID, error, null);
+        }
+    }
+
+    /**
+     * Sets the chunk size of tree-hashed integrity check.  The digests or MACs of the chunks
+     * of the data are computed in parallel and combined in a tree, whose root is the ICV.
+     * Input -1 to remove the chunk size parameter.
+     * @param chunkSize The chunk size in bytes.
+     * @throws KmcCryptoManagerException if chunkSize is less than {@link #MIN_ICV_CHUNK_SIZE}
+     * or exceeds {@link #MAX_ICV_CHUNK_SIZE}.
+     */
+    public final void setIcvChunkSize(final int chunkSize) throws KmcCryptoManagerException {
+        if (chunkSize == -1) {
+            config.remove(CFG_ICV_CHUNK_SIZE);
+        } else if (chunkSize < MIN_ICV_CHUNK_SIZE || chunkSize > MAX_ICV_CHUNK_SIZE) {
+            String error = "The ICV chunk size (" + chunkSize
+                    + ") must be between " + MIN_ICV_CHUNK_SIZE + " and " + MAX_ICV_CHUNK_SIZE + " bytes.";
+            logger.error(error);
+            throw new KmcCryptoManagerException(
+                    KmcCryptoManagerErrorCode.CONFIG_PARAMETER_VALUE_INVALID, error, null);
+        } else {
+            config.setProperty(CFG_ICV_CHUNK_SIZE, String.valueOf(chunkSize));
+        }
+    }
+
     /**
      * Sets the SSO cookie for accessing CAM protected resources, such as the
      * KMC Crypto Service.
@@ -51,6 +51,30 @@ public class KmcCryptoManagerTest {
         assertTrue(manager.getKeyManagementServiceURI().contains("cli-config-dir-test-host.kms.example.com"));
     }
 
+    /**
+     * Test that parameters set on a copy of the KmcCryptoManager do not change the original.
+     * @throws KmcCryptoManagerException if the KmcCryptoManager cannot be created for any reason.
+     */
+    @Test
+    public final void testCopy() throws KmcCryptoManagerException  {
+        ClassLoader classLoader = getClass().getClassLoader();
+        File file = new File(classLoader.getResource("cli-config-dir").getFile());
+        String[] args = new String[] {
+                "-" + KmcCryptoManager.CFG_KMC_CRYPTO_CONFIG_DIR + "=" + file.getAbsolutePath()
+        };
+        KmcCryptoManager manager = new KmcCryptoManager(args);
+        KmcCryptoManager copy = manager.copy();
+        assertEquals(manager.getKmcConfigDir(), copy.getKmcConfigDir());
+        assertEquals(manager.getKeyManagementServiceURI(), copy.getKeyManagementServiceURI());
+        assertEquals(manager.getCipherTransformation("AES"), copy.getCipherTransformation("AES"));
+
+        copy.setMacLength(128);
+        copy.setKeyManagementServiceURI("tls12://copy-test-host.kms.example.com:5696");
+        assertEquals(128, copy.getMacLength());
+        assertEquals(-1, manager.getMacLength());
+        assertTrue(manager.getKeyManagementServiceURI().contains("cli-config-dir-test-host.kms.example.com"));
+    }
+
     /**
      * Test loading of kmc-crypto.cfg from KMC_HOME.  The test sets
      * KMC_HOME to the directory test-kmc-home under test resources.
@@ -156,6 +156,10 @@ public class KmcKeyClientManager {
      * Config parameter for the password of the keystore.
      */
     public static final String CFG_KEYSTORE_PASSWORD = "keystore_password";
+    /**
+     * Config parameter for the maximum number of keys retrieved in one KMIP request.
+     */
+    public static final String CFG_KMIP_BATCH_SIZE = "kmip_batch_size";
     /**
      * Config parameter for the default algorithm for Message Digest.
      */
@@ -1,5 +1,6 @@
 package gov.nasa.jpl.ammos.kmc.keyclient;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -26,6 +27,7 @@ import ch.ntb.inf.kmip.attributes.State;
 import ch.ntb.inf.kmip.attributes.UniqueIdentifier;
 import ch.ntb.inf.kmip.container.KMIPBatch;
 import ch.ntb.inf.kmip.container.KMIPContainer;
+import ch.ntb.inf.kmip.kmipenum.EnumBatchError;
 import ch.ntb.inf.kmip.kmipenum.EnumCryptographicAlgorithm;
 import ch.ntb.inf.kmip.kmipenum.EnumObjectType;
 import ch.ntb.inf.kmip.kmipenum.EnumOperation;
@@ -44,6 +46,7 @@ import ch.ntb.inf.kmip.objects.managed.PrivateKey;
 import ch.ntb.inf.kmip.objects.managed.PublicKey;
 import ch.ntb.inf.kmip.objects.managed.SymmetricKey;
 import ch.ntb.inf.kmip.stub.KMIPStub;
+import ch.ntb.inf.kmip.types.KMIPByteString;
 import ch.ntb.inf.kmip.types.KMIPTextString;
 
 /**
@@ -53,7 +56,11 @@ import ch.ntb.inf.kmip.types.KMIPTextString;
  */
 public class KmcKmipKeyClient implements KmcKeyClient {
 
+    // number of keys retrieved in one multi-batch KMIP request
+    private static final int DEFAULT_KMIP_BATCH_SIZE = 50;
+
     private final KMIPStub kmipServer;
+    private final int kmipBatchSize;
 
     private static final Logger logger = LoggerFactory.getLogger(KmcKmipKeyClient.class);
 
@@ -68,6 +75,7 @@ public class KmcKmipKeyClient implements KmcKeyClient {
         for (final String name: configParams.stringPropertyNames()) {
             configMap.put(name, configParams.getProperty(name));
         }
+        kmipBatchSize = getKmipBatchSize(configParams);
         try {
             kmipServer = new KMIPStub(configMap);
         } catch (Exception e) {
@@ -136,25 +144,98 @@ public class KmcKmipKeyClient implements KmcKeyClient {
             return keys;
         }
         logger.debug("getAllKeys() keyIds = {}", keyIds);
-        for (String keyId : keyIds) {
-            KmcKey key;
-            try {
-                key = getKeyById(keyId);
-                if (key == null) {
-                    logger.error("Error in getting attributes for key {}", keyId);
-                    // failed to get key attributes, key will only have keyId
-                    key = new KmcKey(keyId);
+        return getKeysById(keyIds);
+    }
+
+    /**
+     * Retrieves the keys from their keyIds.  The Get and Get Attributes operations of
+     * up to kmip_batch_size keys are sent to the KMS in one multi-batch KMIP request.
+     * A key that fails to be retrieved will only have its keyId.
+     * @param keyIds The KMIP unique identifiers of the keys.
+     * @return The list of keys, in the order of the keyIds.
+     * @throws KmcKeyClientException if the input keyIds is null.
+     */
+    public final List<KmcKey> getKeysById(final List<String> keyIds) throws KmcKeyClientException {
+        if (keyIds == null) {
+            String msg = "The input keyIds cannot be null.";
+            logger.error(msg);
+            throw new KmcKeyClientException(KmcKeyOpsErrorCode.INVALID_INPUT_VALUE, msg, null);
+        }
+        List<KmcKey> keys = new ArrayList<KmcKey>(keyIds.size());
+        for (int from = 0; from < keyIds.size(); from += kmipBatchSize) {
+            int to = Math.min(from + kmipBatchSize, keyIds.size());
+            keys.addAll(getKeyBatch(keyIds.subList(from, to)));
+        }
+        return keys;
+    }
+
+    private List<KmcKey> getKeyBatch(final List<String> keyIds) {
+        List<KmcKey> keys = new ArrayList<KmcKey>(keyIds.size());
+        KMIPContainer request = createGetKeysRequest(keyIds);
+        KMIPContainer response;
+        try {
+            response = kmipServer.processRequest(request);
+        } catch (Exception e) {
+            logger.error("Exception in getting {} keys from KMS: {}", keyIds.size(), e.toString());
+            // failed to get the keys, keys will only have keyId
+            for (String keyId : keyIds) {
+                keys.add(new KmcKey(keyId));
+            }
+            return keys;
+        }
+        Map<Integer, KMIPBatch> responseBatches = getResponseBatches(request, response);
+        for (int i = 0; i < keyIds.size(); i++) {
+            String keyId = keyIds.get(i);
+            KMIPBatch getBatch = responseBatches.get(2 * i);
+            KMIPBatch attributesBatch = responseBatches.get(2 * i + 1);
+            KmcKey key = new KmcKey(keyId);
+            CryptographicObject cryptoObject = null;
+            if (isSuccess(getBatch)) {
+                ManagedObject object = getBatch.getManagedObject();
+                if (object instanceof SymmetricKey || object instanceof PublicKey || object instanceof PrivateKey) {
+                    cryptoObject = (CryptographicObject) object;
                 }
-            } catch (KmcKeyClientException e) {
-                logger.error("Exception in getting attributes for key {}: {}", keyId, e.getMessage());
+            }
+            if (cryptoObject == null || !isSuccess(attributesBatch)) {
+                logger.error("Error in getting attributes for key {}", keyId);
                 // failed to get key attributes, key will only have keyId
-                key = new KmcKey(keyId);
+            } else {
+                key.setCryptographicObject(cryptoObject);
+                key.setAttributes(attributesBatch.getAttributes());
             }
             keys.add(key);
         }
         return keys;
     }
 
+    private boolean isSuccess(final KMIPBatch batch) {
+        return batch != null && batch.getResultStatus() != null
+                && batch.getResultStatus().getValue() == EnumResultStatus.Success;
+    }
+
+    /*
+     * Maps the response batch items to the index of their request batch items.  They are
+     * matched by the Unique Batch Item ID, or by position if the KMS omits the IDs.
+     */
+    private Map<Integer, KMIPBatch> getResponseBatches(final KMIPContainer request, final KMIPContainer response) {
+        Map<Integer, KMIPBatch> batches = new HashMap<Integer, KMIPBatch>();
+        List<KMIPBatch> responseBatches = response.getBatches();
+        for (int i = 0; i < responseBatches.size(); i++) {
+            KMIPBatch b = responseBatches.get(i);
+            if (b.hasUniqueBatchItemID()) {
+                byte[] id = b.getUniqueBatchItemID().getValue();
+                if (id.length == Integer.BYTES) {
+                    batches.put(ByteBuffer.wrap(id).getInt(), b);
+                }
+            } else if (i < request.getBatchCount()) {
+                batches.put(i, b);
+            }
+        }
+        logger.debug("getResponseBatches() {} request batch items, {} response batch items",
+                request.getBatchCount(), responseBatches.size());
+        return batches;
+    }
+
     /**
      * Retrieves the key from its keyId.
      * @param keyId The KMIP unique identifier of the key.
@@ -1230,9 +1311,13 @@ public class KmcKmipKeyClient implements KmcKeyClient {
     private KMIPContainer createGetCryptographicObjectRequest(final String keyId) {
         // Create Container with one Batch
         KMIPContainer container = new KMIPContainer();
-        KMIPBatch batch = new KMIPBatch();
-        container.addBatch(batch);
+        container.addBatch(createGetCryptographicObjectBatch(keyId));
         container.calculateBatchCount();
+        return container;
+    }
+
+    private KMIPBatch createGetCryptographicObjectBatch(final String keyId) {
+        KMIPBatch batch = new KMIPBatch();
 
         // Set Operation and Attribute
         batch.setOperation(EnumOperation.Get);
@@ -1242,7 +1327,7 @@ public class KmcKmipKeyClient implements KmcKeyClient {
         a.setValue(keyId, null);
         batch.addAttribute(a);
 
-        return container;
+        return batch;
     }
 /*
     private KMIPContainer createGetKeyRequest(final String uniqueIdentifier, final int keyType) {
@@ -1287,9 +1372,13 @@ public class KmcKmipKeyClient implements KmcKeyClient {
     private KMIPContainer createGetAllAttributesRequest(final String keyId) {
         // Create Container with one Batch
         KMIPContainer container = new KMIPContainer();
-        KMIPBatch batch = new KMIPBatch();
-        container.addBatch(batch);
+        container.addBatch(createGetAllAttributesBatch(keyId));
         container.calculateBatchCount();
+        return container;
+    }
+
+    private KMIPBatch createGetAllAttributesBatch(final String keyId) {
+        KMIPBatch batch = new KMIPBatch();
 
         // Set Operation
         batch.setOperation(EnumOperation.GetAttributes);
@@ -1309,9 +1398,52 @@ public class KmcKmipKeyClient implements KmcKeyClient {
         batch.addAttribute(new InitialDate());
         batch.addAttribute(new LastChangeDate());
 
+        return batch;
+    }
+
+    /*
+     * Creates a request with a Get and a Get Attributes batch item for each key.
+     * The Unique Batch Item ID of a batch item is its index in the request.
+     */
+    private KMIPContainer createGetKeysRequest(final List<String> keyIds) {
+        KMIPContainer container = new KMIPContainer();
+        // a key that fails does not stop the retrieval of the other keys
+        container.setBatchErrorContinuationOption(new EnumBatchError(EnumBatchError.Continue));
+        for (String keyId : keyIds) {
+            KMIPBatch getBatch = createGetCryptographicObjectBatch(keyId);
+            getBatch.setUniqueBatchItemID(createBatchItemId(container.getBatches().size()));
+            container.addBatch(getBatch);
+            KMIPBatch attributesBatch = createGetAllAttributesBatch(keyId);
+            attributesBatch.setUniqueBatchItemID(createBatchItemId(container.getBatches().size()));
+            container.addBatch(attributesBatch);
+        }
+        container.calculateBatchCount();
         return container;
     }
 
+    private KMIPByteString createBatchItemId(final int index) {
+        return new KMIPByteString(ByteBuffer.allocate(Integer.BYTES).putInt(index).array());
+    }
+
+    private int getKmipBatchSize(final Properties configParams) throws KmcKeyClientException {
+        String value = configParams.getProperty(KmcKeyClientManager.CFG_KMIP_BATCH_SIZE);
+        if (value == null) {
+            return DEFAULT_KMIP_BATCH_SIZE;
+        }
+        try {
+            int size = Integer.parseInt(value.trim());
+            if (size > 0) {
+                logger.debug("KMIP batch size = {}", size);
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to error
+        }
+        String msg = "Invalid " + KmcKeyClientManager.CFG_KMIP_BATCH_SIZE + " in config: " + value;
+        logger.error(msg);
+        throw new KmcKeyClientException(KmcKeyOpsErrorCode.CONFIG_VALUE_INVALID, msg, null);
+    }
+
 /*
     public KmcKey getKmcKey(final String keyId) throws KmcKeyClientException {
         KMIPContainer request = createGetKeyRequest(keyId, -1);
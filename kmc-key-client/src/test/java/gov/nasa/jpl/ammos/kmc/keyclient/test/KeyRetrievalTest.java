@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.BeforeClass;
@@ -70,6 +71,26 @@ public class KeyRetrievalTest {
         }
     }
 
+    @Test
+    public final void testGetKeysById() throws KmcKeyClientException {
+        String keyId = kmipClient.locateCryptoKey(ENCRYPTION_KEYREF);
+        assertNotNull(keyId);
+        List<String> keyIds = Arrays.asList(keyId, "nonExistKeyId", keyId);
+        long startTime = System.currentTimeMillis();
+        List<KmcKey> keys = kmipClient.getKeysById(keyIds);
+        long time = System.currentTimeMillis() - startTime;
+        System.out.println("Time to retrieve " + keys.size() + " keys in batch = " + time + " ms.");
+        assertEquals(keyIds.size(), keys.size());
+        for (int i = 0; i < keyIds.size(); i++) {
+            assertEquals(keyIds.get(i), keys.get(i).getKeyId());
+        }
+        assertEquals(ENCRYPTION_KEYREF, keys.get(0).getKeyRef());
+        assertNotNull(keys.get(0).getKeyMaterial());
+        // a key that cannot be retrieved only has its keyId
+        assertNull(keys.get(1).getKeyMaterial());
+        assertEquals(ENCRYPTION_KEYREF, keys.get(2).getKeyRef());
+    }
+
     /* Anomalies */
 
     @Test
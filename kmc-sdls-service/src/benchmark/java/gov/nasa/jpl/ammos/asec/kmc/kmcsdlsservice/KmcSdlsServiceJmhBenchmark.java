@@ -0,0 +1,201 @@
+package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
+
+import gov.nasa.jpl.ammos.asec.kmc.ConcurrentKmcSdlsEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  JMH benchmark of the Java layers of the SDLS service, with a regression check against a baseline.
+ *  As KmcSdlsServiceBenchmark, the requests go through MockMvc, KmcSdlsController, KmcSdlsService and
+ *  ConcurrentKmcSdlsEngine to a StubSdlsEngine.  Each benchmark thread sends its frames on a virtual
+ *  channel of its own.
+ *
+ *  The main method runs the benchmarks and compares the throughput of each benchmark, frame size and
+ *  number of threads with the baseline file.  The run fails if a throughput is lower than the baseline
+ *  by more than the tolerance.  The scores depend on the machine, so if the baseline file does not
+ *  exist it is written with the results of the run, which are the baseline of the next runs.
+ *
+ *  Run with: mvn -P benchmark test
+ *
+ *  System properties, all optional:
+ *  <ul>
+ *      <li>jmh.baseline: baseline CSV file, default benchmark-baseline.csv</li>
+ *      <li>jmh.tolerance: allowed throughput loss as a fraction of the baseline, default 0.1</li>
+ *      <li>jmh.update_baseline: true to write the results to the baseline file, default false</li>
+ *      <li>jmh.threads: number of threads, default 4</li>
+ *      <li>benchmark.lock_stripes: engine lock stripes, default 1 as the engine</li>
+ *      <li>jmh.forks, jmh.warmup_seconds, jmh.measure_seconds: default 1, 5, 10</li>
+ *  </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KmcSdlsServiceJmhBenchmark {
+
+    static final String BASELINE_HEADER = "benchmark,frame_size,threads,ops_per_ms";
+
+    @Param({"64", "512", "1024"})
+    public int frameSize;
+
+    private MockMvc mockMvc;
+    private byte[][] applyFrames;
+    private byte[][] processFrames;
+    private final AtomicInteger nextVcid = new AtomicInteger();
+
+    // Virtual channel of a benchmark thread
+    @State(Scope.Thread)
+    public static class Channel {
+        int vcid;
+
+        @Setup
+        public void setup(KmcSdlsServiceJmhBenchmark benchmark) {
+            this.vcid = benchmark.nextVcid.getAndIncrement() % KmcSdlsServiceBenchmark.MAX_VCID;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        int lockStripes = Integer.getInteger("benchmark.lock_stripes", ConcurrentKmcSdlsEngine.DEFAULT_LOCK_STRIPES);
+        KmcSdlsService.setKmcSdlsEngine(new ConcurrentKmcSdlsEngine(new StubSdlsEngine(), lockStripes));
+        this.mockMvc = MockMvcBuilders.standaloneSetup(new KmcSdlsController())
+                .setControllerAdvice(new KmcSdlsControllerAdvice()).build();
+        this.applyFrames = new byte[KmcSdlsServiceBenchmark.MAX_VCID][];
+        this.processFrames = new byte[KmcSdlsServiceBenchmark.MAX_VCID][];
+        for (int vcid = 0; vcid < KmcSdlsServiceBenchmark.MAX_VCID; vcid++) {
+            this.applyFrames[vcid] = KmcSdlsServiceBenchmark.createFrame("apply", this.frameSize, vcid);
+            this.processFrames[vcid] = KmcSdlsServiceBenchmark.createFrame("process", this.frameSize, vcid);
+        }
+    }
+
+    @Benchmark
+    public MvcResult apply(Channel channel) throws Exception {
+        return send("apply", this.applyFrames[channel.vcid]);
+    }
+
+    @Benchmark
+    public MvcResult process(Channel channel) throws Exception {
+        return send("process", this.processFrames[channel.vcid]);
+    }
+
+    @Benchmark
+    public MvcResult processBinary(Channel channel) throws Exception {
+        return send("process_binary", this.processFrames[channel.vcid]);
+    }
+
+    private MvcResult send(String operation, byte[] frame) throws Exception {
+        MvcResult result = this.mockMvc.perform(KmcSdlsServiceBenchmark.buildRequest(operation, frame)).andReturn();
+        if (result.getResponse().getStatus() != 200) {
+            throw new IllegalStateException(operation + " failed with HTTP status " + result.getResponse().getStatus()
+                    + ": " + result.getResponse().getContentAsString());
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path baseline = Paths.get(System.getProperty("jmh.baseline", "benchmark-baseline.csv"));
+        double tolerance = Double.parseDouble(System.getProperty("jmh.tolerance", "0.1"));
+        boolean updateBaseline = Boolean.getBoolean("jmh.update_baseline");
+
+        Options options = new OptionsBuilder()
+                .include(KmcSdlsServiceJmhBenchmark.class.getName())
+                .threads(Integer.getInteger("jmh.threads", 4))
+                .forks(Integer.getInteger("jmh.forks", 1))
+                .warmupIterations(1)
+                .warmupTime(TimeValue.seconds(Long.getLong("jmh.warmup_seconds", 5)))
+                .measurementIterations(1)
+                .measurementTime(TimeValue.seconds(Long.getLong("jmh.measure_seconds", 10)))
+                .build();
+        Map<String, Double> scores = getScores(new Runner(options).run());
+
+        if (updateBaseline || !Files.exists(baseline)) {
+            writeBaseline(baseline, scores);
+            System.out.println("Baseline written to " + baseline.toAbsolutePath());
+            return;
+        }
+        List<String> regressions = compare(readBaseline(baseline), scores, tolerance);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.err::println);
+            System.err.printf("%d benchmarks are slower than the baseline %s by more than %.0f%%%n",
+                    regressions.size(), baseline.toAbsolutePath(), tolerance * 100);
+            System.exit(1);
+        }
+        System.out.printf("No benchmark is slower than the baseline %s by more than %.0f%%%n",
+                baseline.toAbsolutePath(), tolerance * 100);
+    }
+
+    // Throughput of each benchmark, frame size and number of threads, keyed as in the baseline file
+    private static Map<String, Double> getScores(Collection<RunResult> results) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String key = benchmark.substring(benchmark.lastIndexOf('.') + 1) + ","
+                    + result.getParams().getParam("frameSize") + "," + result.getParams().getThreads();
+            scores.put(key, result.getPrimaryResult().getScore());
+        }
+        return scores;
+    }
+
+    // Benchmarks whose throughput is below the baseline less the tolerance
+    static List<String> compare(Map<String, Double> baseline, Map<String, Double> scores, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            Double baselineScore = baseline.get(score.getKey());
+            if (baselineScore == null) {
+                System.out.println("No baseline for " + score.getKey());
+            } else if (score.getValue() < baselineScore * (1 - tolerance)) {
+                regressions.add(String.format("%s: %.3f ops/ms, baseline %.3f ops/ms", score.getKey(),
+                        score.getValue(), baselineScore));
+            }
+        }
+        return regressions;
+    }
+
+    static Map<String, Double> readBaseline(Path baseline) throws IOException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty() || line.startsWith(BASELINE_HEADER)) {
+                continue;
+            }
+            int separator = line.lastIndexOf(',');
+            scores.put(line.substring(0, separator), Double.parseDouble(line.substring(separator + 1)));
+        }
+        return scores;
+    }
+
+    static void writeBaseline(Path baseline, Map<String, Double> scores) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(baseline, StandardCharsets.UTF_8))) {
+            writer.println(BASELINE_HEADER);
+            for (Map.Entry<String, Double> score : scores.entrySet()) {
+                writer.println(score.getKey() + "," + score.getValue());
+            }
+        }
+    }
+}
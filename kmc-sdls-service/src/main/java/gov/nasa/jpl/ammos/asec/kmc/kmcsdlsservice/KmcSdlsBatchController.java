@@ -0,0 +1,129 @@
+package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
+
+import gov.nasa.jpl.ammos.asec.kmc.KmcSdlsEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  SDLS REST Controller for sequences of frames
+ *
+ *  The request body is a sequence of frames, each preceded by its length as a 4-byte big-endian integer.
+ *  The frames are processed in order as they are read, and the response is the sequence of results in
+ *  the same order, each result being:
+ *  <ul>
+ *      <li>1-byte status: 0 if the frame was processed, 1 if it failed</li>
+ *      <li>4-byte big-endian length of the result</li>
+ *      <li>the SDLS applied frame (/apply_security_batch) or the frame data of the processed frame
+ *      (/process_security_batch), or the UTF-8 error message of the failed frame</li>
+ *  </ul>
+ *  A failed frame does not stop the processing of the following frames.  The response is flushed whenever
+ *  the request has no more frames buffered, so the endpoints serve a batch of frames in one request as well
+ *  as a long-lived chunked stream of frames.  A frame length that is negative or exceeds the maximum TC frame
+ *  length leaves the stream unreadable; it is reported as a failed frame and ends the response.
+ *
+ *  The WebSocket endpoints /apply_security_ws and /process_security_ws of KmcSdlsFrameWebSocketHandler take one
+ *  frame per message and respond the results in the same format, for clients or proxies that do not stream
+ *  chunked request bodies.
+ */
+
+@RestController
+public class KmcSdlsBatchController {
+
+    public static final byte FRAME_STATUS_SUCCESS = 0;
+    public static final byte FRAME_STATUS_ERROR = 1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(KmcSdlsBatchController.class);
+    private final KmcSdlsService kmcSdlsService = KmcSdlsService.getInstance();
+
+    @RequestMapping(value = "/apply_security_batch", method = RequestMethod.POST)
+    public void applySecurityBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String cookies = KmcSdlsController.buildCookiesString(request.getCookies());
+        processFrames("/apply_security_batch", request, response,
+                frame -> this.kmcSdlsService.getKmcSdlsEngine().applySecurity(frame, cookies));
+    }
+
+    @RequestMapping(value = "/process_security_batch", method = RequestMethod.POST)
+    public void processSecurityBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String cookies = KmcSdlsController.buildCookiesString(request.getCookies());
+        processFrames("/process_security_batch", request, response,
+                frame -> this.kmcSdlsService.getKmcSdlsEngine().processSecurityReturnDataOnly(frame, cookies));
+    }
+
+    private interface FrameOperation {
+        byte[] process(byte[] frame) throws Exception;
+    }
+
+    private void processFrames(String endpoint, HttpServletRequest request, HttpServletResponse response,
+                               FrameOperation operation) throws IOException {
+        ServletInputStream inputStream = request.getInputStream();
+        DataInputStream in = new DataInputStream(inputStream);
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(response.getOutputStream()));
+
+        int frames = 0;
+        int errors = 0;
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length < 0 || length > KmcSdlsEngine.TC_MAX_FRAME_LENGTH) {
+                LOG.error("{}: Invalid length {} of frame {}, ending the stream", endpoint, length, frames);
+                writeResult(out, FRAME_STATUS_ERROR, ("Invalid frame length " + length
+                        + ", the maximum is " + KmcSdlsEngine.TC_MAX_FRAME_LENGTH).getBytes(StandardCharsets.UTF_8));
+                errors++;
+                break;
+            }
+            byte[] frame = new byte[length];
+            try {
+                in.readFully(frame);
+            } catch (EOFException e) {
+                LOG.error("{}: Frame {} is truncated, expected {} bytes", endpoint, frames, length);
+                writeResult(out, FRAME_STATUS_ERROR, ("Frame truncated, expected " + length + " bytes")
+                        .getBytes(StandardCharsets.UTF_8));
+                errors++;
+                break;
+            }
+
+            try {
+                writeResult(out, FRAME_STATUS_SUCCESS, operation.process(frame));
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                LOG.error("{}: Encountered unexpected error while processing frame {} : {}",
+                        endpoint, frames, e.getMessage());
+                String message = e.getMessage() == null ? e.toString() : e.getMessage();
+                writeResult(out, FRAME_STATUS_ERROR, message.getBytes(StandardCharsets.UTF_8));
+                errors++;
+            }
+            frames++;
+
+            // flush before waiting for more frames of a stream, not after every frame of a batch
+            if (inputStream.available() == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        LOG.debug("{}: Processed {} frames with {} errors", endpoint, frames, errors);
+    }
+
+    static void writeResult(DataOutputStream out, byte status, byte[] result) throws IOException {
+        out.writeByte(status);
+        out.writeInt(result.length);
+        out.write(result);
+    }
+}
@@ -1,9 +1,11 @@
 package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
 
 import gov.nasa.jpl.ammos.asec.kmc.SDLS_TC_TransferFrame;
-import org.apache.commons.codec.DecoderException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import org.apache.commons.io.IOUtils;
@@ -13,6 +15,7 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -36,33 +39,36 @@ public class KmcSdlsController {
                     "process request Input Stream {} : {}", request, e.getMessage());
             throw new RuntimeException("Unable to read Input Stream due to error: " + e.getMessage());
         }
-        String transferFrameDataString = Hex.encodeHexString(transferFrameData);
-        LOG.debug("Received Transfer Frame Hex: " + transferFrameDataString);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Received Transfer Frame Hex: " + Hex.encodeHexString(transferFrameData));
+        }
 
         String cookies = buildCookiesString(request.getCookies());
 
-        String transferFrameSDLSApplied = null;
+        byte[] transferFrameSDLSApplied;
         try {
-            transferFrameSDLSApplied = this.kmcSdlsService.getKmcSdlsEngine().applySecurity(transferFrameDataString,cookies);
+            transferFrameSDLSApplied = this.kmcSdlsService.getKmcSdlsEngine().applySecurity(transferFrameData,cookies);
         } catch (Exception e) {
             LOG.error("Encountered unexpected exception while attempting applySecurity() " +
-                    "on frame {} : {}", transferFrameDataString, e.getMessage());
+                    "on frame {} : {}", Hex.encodeHexString(transferFrameData), e.getMessage());
             throw new RuntimeException("Unable to execute applySecurity() due to error: " + e.getMessage());
         }
 
-        LOG.debug("SDLS Applied Transfer Frame Hex: " + transferFrameSDLSApplied);
-
-        try {
-            return Hex.decodeHex(transferFrameSDLSApplied);
-        } catch (DecoderException e) {
-            LOG.error("Encountered an error while attempting to decode HEX {} : {}",
-                    transferFrameSDLSApplied, e.getMessage());
-            throw new RuntimeException("Unable to decode due to error: " + e.getMessage());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("SDLS Applied Transfer Frame Hex: " + Hex.encodeHexString(transferFrameSDLSApplied));
         }
+
+        return transferFrameSDLSApplied;
     }
 
+    /**
+     * Responds the processed frame as SDLS_TC_TransferFrame JSON, or in the binary layout of
+     * SDLS_TC_TransferFrame if the Accept header prefers application/octet-stream.  There is no CBOR
+     * response, see the binary layout in SDLS_TC_TransferFrame.
+     */
     @RequestMapping(value = "/process_security", method = RequestMethod.POST)
-    public SDLS_TC_TransferFrame processSecurity(HttpServletRequest request) {
+    public ResponseEntity<?> processSecurity(HttpServletRequest request,
+                                             @RequestHeader(value = "Accept", required = false) String accept) {
         byte[] sdlsTransferFrameData;
         try {
             sdlsTransferFrameData = IOUtils.toByteArray(request.getInputStream());
@@ -71,21 +77,34 @@ public class KmcSdlsController {
                     "read request Input Stream {} : {}", request, e.getMessage());
             throw new RuntimeException("Unable to read Input Stream due to error: " + e.getMessage());
         }
-        String sdlsTransferFrameDataString = Hex.encodeHexString(sdlsTransferFrameData);
-        LOG.debug("Received SDLS Transfer Frame Hex: " + sdlsTransferFrameDataString);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Received SDLS Transfer Frame Hex: " + Hex.encodeHexString(sdlsTransferFrameData));
+        }
 
         String cookies = buildCookiesString(request.getCookies());
 
+        if (acceptsBinaryFrame(accept)) {
+            byte[] binaryFrame;
+            try {
+                binaryFrame = this.kmcSdlsService.getKmcSdlsEngine().processSecurityReturnBinary(sdlsTransferFrameData,cookies);
+            } catch (Exception e) {
+                LOG.error("Encountered unexpected error while calling processSecurityReturnBinary() on frame {} : {}",
+                        Hex.encodeHexString(sdlsTransferFrameData), e.getMessage());
+                throw new RuntimeException("Unable to execute processSecurity() due to error: " + e.getMessage());
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(binaryFrame);
+        }
+
         SDLS_TC_TransferFrame processSecurityResult;
         try {
-            processSecurityResult = this.kmcSdlsService.getKmcSdlsEngine().processSecurity(sdlsTransferFrameDataString,cookies);
+            processSecurityResult = this.kmcSdlsService.getKmcSdlsEngine().processSecurity(sdlsTransferFrameData,cookies);
         } catch (Exception e) {
             LOG.error("Encountered unexpected error while calling processSecurity() on frame {} : {}",
-                    sdlsTransferFrameDataString, e.getMessage());
+                    Hex.encodeHexString(sdlsTransferFrameData), e.getMessage());
             throw new RuntimeException("Unable to execute processSecurity() due to error: " + e.getMessage());
         }
 
-        return processSecurityResult;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(processSecurityResult);
     }
 
     @RequestMapping(value = "/status", method = RequestMethod.GET)
@@ -105,7 +124,31 @@ public class KmcSdlsController {
         return "Service is UP\n";
     }
 
-    private String buildCookiesString(Cookie[] cookies)
+    // True if application/octet-stream is preferred to JSON, wildcards select JSON
+    static boolean acceptsBinaryFrame(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            LOG.debug("Invalid Accept header {} : {}", accept, e.getMessage());
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (MediaType.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(mediaType)) {
+                return true;
+            }
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    static String buildCookiesString(Cookie[] cookies)
     {
         if (cookies != null) {
             String cookiesStr = Arrays.stream(cookies)
@@ -0,0 +1,73 @@
+package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ *  SDLS WebSocket handler for long-lived streams of frames
+ *
+ *  Each binary message of the client is one frame, and each binary message of the service is the result of the
+ *  frame in the order of the frames, in the result format of KmcSdlsBatchController: the 1-byte status, the 4-byte
+ *  big-endian length and the result or the UTF-8 error message.  A failed frame is reported in its result and
+ *  the session stays open for the following frames.  The cookies of the handshake request are passed to the
+ *  engine for every frame of the session.
+ */
+public class KmcSdlsFrameWebSocketHandler extends BinaryWebSocketHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KmcSdlsFrameWebSocketHandler.class);
+
+    private final String endpoint;
+    private final FrameOperation operation;
+
+    interface FrameOperation {
+        byte[] process(byte[] frame, String cookies) throws Exception;
+    }
+
+    KmcSdlsFrameWebSocketHandler(String endpoint, FrameOperation operation) {
+        this.endpoint = endpoint;
+        this.operation = operation;
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        ByteBuffer payload = message.getPayload();
+        byte[] frame = new byte[payload.remaining()];
+        payload.get(frame);
+
+        byte status = KmcSdlsBatchController.FRAME_STATUS_SUCCESS;
+        byte[] result;
+        try {
+            result = this.operation.process(frame, getCookies(session));
+        } catch (Exception e) {
+            LOG.error("{}: Encountered unexpected error while processing frame of session {} : {}",
+                    this.endpoint, session.getId(), e.getMessage());
+            String errorMessage = e.getMessage() == null ? e.toString() : e.getMessage();
+            status = KmcSdlsBatchController.FRAME_STATUS_ERROR;
+            result = errorMessage.getBytes(StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + result.length);
+        KmcSdlsBatchController.writeResult(new DataOutputStream(bytes), status, result);
+        session.sendMessage(new BinaryMessage(bytes.toByteArray()));
+    }
+
+    // Cookie header of the handshake request, in the format of KmcSdlsController.buildCookiesString()
+    private static String getCookies(WebSocketSession session) {
+        List<String> cookies = session.getHandshakeHeaders().get(HttpHeaders.COOKIE);
+        if (cookies == null || cookies.isEmpty()) {
+            return null;
+        }
+        return String.join("; ", cookies);
+    }
+}
@@ -1,6 +1,6 @@
 package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
 
-import gov.nasa.jpl.ammos.asec.kmc.KmcSdlsEngine;
+import gov.nasa.jpl.ammos.asec.kmc.ConcurrentKmcSdlsEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,7 +11,7 @@ public final class KmcSdlsService
 {
     private static KmcSdlsService INSTANCE = null;
     private static Logger LOG = LoggerFactory.getLogger(KmcSdlsService.class);
-    private KmcSdlsEngine kmcSdlsEngine = null;
+    private volatile ConcurrentKmcSdlsEngine kmcSdlsEngine = null;
     private KmcSdlsServiceConfiguration kmcConfig = null;
 
     private KmcSdlsService(){
@@ -26,8 +26,9 @@ public final class KmcSdlsService
         Properties props = INSTANCE.kmcConfig.getConfiguration();
         try
         {
-            INSTANCE.kmcSdlsEngine = new KmcSdlsEngine(props);
-            INSTANCE.LOG.info("KMC SDLS Service Initialized Successfully.");
+            INSTANCE.kmcSdlsEngine = new ConcurrentKmcSdlsEngine(props);
+            INSTANCE.LOG.info("KMC SDLS Service Initialized Successfully with {} engine lock stripes.",
+                    INSTANCE.kmcSdlsEngine.getLockStripes());
         } catch (Exception e)
         {
             INSTANCE.LOG.error("KMC SDLS Service Initialization Failure!");
@@ -44,7 +45,7 @@ public final class KmcSdlsService
 
     // Initialization must happen here otherwise the Spring Environment hasn't had time to start up and load necessary properties.
     @PostConstruct
-    public static KmcSdlsEngine getKmcSdlsEngine(){
+    public static ConcurrentKmcSdlsEngine getKmcSdlsEngine(){
         if(INSTANCE.kmcSdlsEngine == null){
             synchronized (KmcSdlsService.class) {
                 INSTANCE.initKmcConfiguration();
@@ -53,5 +54,10 @@ public final class KmcSdlsService
         return INSTANCE.kmcSdlsEngine;
     }
 
+    // Replaces the engine configured from the properties, e.g. by a stub engine without the native library.
+    static synchronized void setKmcSdlsEngine(ConcurrentKmcSdlsEngine kmcSdlsEngine){
+        getInstance().kmcSdlsEngine = kmcSdlsEngine;
+    }
+
 }
 
@@ -0,0 +1,27 @@
+package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ *  WebSocket endpoints of the SDLS service for continuous frame pipelines, see KmcSdlsFrameWebSocketHandler
+ */
+
+@Configuration
+@EnableWebSocket
+public class KmcSdlsWebSocketConfig implements WebSocketConfigurer {
+
+    private final KmcSdlsService kmcSdlsService = KmcSdlsService.getInstance();
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new KmcSdlsFrameWebSocketHandler("/apply_security_ws",
+                (frame, cookies) -> this.kmcSdlsService.getKmcSdlsEngine().applySecurity(frame, cookies)),
+                "/apply_security_ws");
+        registry.addHandler(new KmcSdlsFrameWebSocketHandler("/process_security_ws",
+                (frame, cookies) -> this.kmcSdlsService.getKmcSdlsEngine().processSecurityReturnDataOnly(frame, cookies)),
+                "/process_security_ws");
+    }
+}
@@ -1,20 +1,37 @@
 package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.nasa.jpl.ammos.asec.kmc.SDLS_TC_TransferFrame;
 import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -32,6 +49,9 @@ public class KmcSdlsServiceApplicationTests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @LocalServerPort
+    private int port;
+
     @Test
     public void contextLoads() {
     }
@@ -76,4 +96,115 @@ public class KmcSdlsServiceApplicationTests {
 
     }
 
+    @Test
+    public void testProcessSecurityEndpointBinary() throws Exception {
+        byte[] tcSdlsFrame = Hex.decodeHex("200300230000000100000000000000000000000080d2c70008197f0b00310000b1fefe0f");
+
+        MvcResult result = mockMvc.perform(post("/process_security").contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .accept(MediaType.APPLICATION_OCTET_STREAM).content(tcSdlsFrame)).andReturn();
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM_VALUE, result.getResponse().getContentType());
+        SDLS_TC_TransferFrame frame = SDLS_TC_TransferFrame.fromBinary(result.getResponse().getContentAsByteArray());
+        assertEquals("80D2C70008197F0B00310000B1FE", frame.tc_pdu);
+        assertEquals(14, frame.tc_pdu_len);
+        assertEquals(1, frame.spi);
+        assertEquals(0xFE0F, frame.fecf);
+    }
+
+    @Test
+    public void testApplySecurityBatchEndpoint() throws Exception {
+        byte[] tcFrame = Hex.decodeHex("20030015000080d2c70008197f0b00310000b1fe3128");
+
+        MvcResult result = mockMvc.perform(post("/apply_security_batch").contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .content(toFrameBatch(tcFrame, tcFrame))).andReturn();
+        assertEquals(200, result.getResponse().getStatus());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        byte[][] sdlsFrames = new byte[2][];
+        for (int i = 0; i < sdlsFrames.length; i++) {
+            assertEquals(KmcSdlsBatchController.FRAME_STATUS_SUCCESS, in.readByte());
+            sdlsFrames[i] = new byte[in.readInt()];
+            in.readFully(sdlsFrames[i]);
+        }
+        assertEquals(0, in.available());
+
+        result = mockMvc.perform(post("/process_security_batch").contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .content(toFrameBatch(sdlsFrames))).andReturn();
+        in = new DataInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        for (int i = 0; i < sdlsFrames.length; i++) {
+            assertEquals(KmcSdlsBatchController.FRAME_STATUS_SUCCESS, in.readByte());
+            byte[] pdu = new byte[in.readInt()];
+            in.readFully(pdu);
+            assertEquals("80d2c70008197f0b00310000b1fe", Hex.encodeHexString(pdu));
+        }
+    }
+
+    @Test
+    public void testProcessSecurityBatchEndpointWithInvalidFrame() throws Exception {
+        byte[] tcSdlsFrame = Hex.decodeHex("200300230000000100000000000000000000000080d2c70008197f0b00310000b1fefe0f");
+        byte[] invalidFrame = Hex.decodeHex("2003");
+
+        MvcResult result = mockMvc.perform(post("/process_security_batch").contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                .content(toFrameBatch(tcSdlsFrame, invalidFrame, tcSdlsFrame))).andReturn();
+        assertEquals(200, result.getResponse().getStatus());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        byte[] expectedStatus = {KmcSdlsBatchController.FRAME_STATUS_SUCCESS, KmcSdlsBatchController.FRAME_STATUS_ERROR,
+                KmcSdlsBatchController.FRAME_STATUS_SUCCESS};
+        for (byte status : expectedStatus) {
+            assertEquals(status, in.readByte());
+            byte[] frameResult = new byte[in.readInt()];
+            in.readFully(frameResult);
+            if (status == KmcSdlsBatchController.FRAME_STATUS_SUCCESS) {
+                assertEquals("80d2c70008197f0b00310000b1fe", Hex.encodeHexString(frameResult));
+            }
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void testProcessSecurityWebSocketWithInvalidFrame() throws Exception {
+        byte[] tcSdlsFrame = Hex.decodeHex("200300230000000100000000000000000000000080d2c70008197f0b00310000b1fefe0f");
+        byte[] invalidFrame = Hex.decodeHex("2003");
+
+        BlockingQueue<byte[]> results = new LinkedBlockingQueue<>();
+        WebSocketSession session = new StandardWebSocketClient().doHandshake(new BinaryWebSocketHandler() {
+            @Override
+            protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+                ByteBuffer payload = message.getPayload();
+                byte[] result = new byte[payload.remaining()];
+                payload.get(result);
+                results.add(result);
+            }
+        }, "ws://localhost:" + port + "/sdls-service/process_security_ws").get(10, TimeUnit.SECONDS);
+        try {
+            byte[] expectedStatus = {KmcSdlsBatchController.FRAME_STATUS_SUCCESS, KmcSdlsBatchController.FRAME_STATUS_ERROR,
+                    KmcSdlsBatchController.FRAME_STATUS_SUCCESS};
+            byte[][] frames = {tcSdlsFrame, invalidFrame, tcSdlsFrame};
+            for (int i = 0; i < frames.length; i++) {
+                session.sendMessage(new BinaryMessage(frames[i]));
+                byte[] result = results.poll(10, TimeUnit.SECONDS);
+                assertNotNull("No result of frame " + i, result);
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(result));
+                assertEquals(expectedStatus[i], in.readByte());
+                byte[] frameResult = new byte[in.readInt()];
+                in.readFully(frameResult);
+                assertEquals(0, in.available());
+                if (expectedStatus[i] == KmcSdlsBatchController.FRAME_STATUS_SUCCESS) {
+                    assertEquals("80d2c70008197f0b00310000b1fe", Hex.encodeHexString(frameResult));
+                }
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    private static byte[] toFrameBatch(byte[]... frames) throws IOException {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(batch);
+        for (byte[] frame : frames) {
+            out.writeInt(frame.length);
+            out.write(frame);
+        }
+        return batch.toByteArray();
+    }
+
 }
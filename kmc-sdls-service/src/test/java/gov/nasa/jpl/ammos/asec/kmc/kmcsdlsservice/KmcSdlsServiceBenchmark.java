@@ -0,0 +1,275 @@
+package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
+
+import gov.nasa.jpl.ammos.asec.kmc.ConcurrentKmcSdlsEngine;
+import gov.nasa.jpl.ammos.asec.kmc.KmcSdlsEngine;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ *  Load test of the Java layers of the SDLS service: the requests go through the Spring MVC dispatch,
+ *  KmcSdlsController, KmcSdlsService and ConcurrentKmcSdlsEngine to a StubSdlsEngine, so neither
+ *  CryptoLib nor the native library is needed.  The HTTP connector is not part of the measurement.
+ *
+ *  For each operation, frame size and number of threads, the threads send frames for the warmup
+ *  time, then for the measurement time, and the frames per second and latency percentiles of the
+ *  measurement are reported.  The frame size is the size of the SDLS frame, the frames applied
+ *  security to are shorter by the security header and trailer.  Each thread sends its frames on a
+ *  virtual channel of its own, as with independent uplinks.
+ *
+ *  Run with: mvn -P benchmark test, which also runs KmcSdlsServiceJmhBenchmark, the JMH benchmark of the same
+ *  path that fails the build on a throughput regression.
+ *
+ *  System properties, all optional:
+ *  <ul>
+ *      <li>benchmark.operations: apply, process (JSON response), process_binary (binary response),
+ *      default all</li>
+ *      <li>benchmark.frame_sizes: SDLS frame sizes in bytes, default 64,512,1024</li>
+ *      <li>benchmark.threads: numbers of threads, default 1,4,16</li>
+ *      <li>benchmark.lock_stripes: engine lock stripes, default 1 as the engine, 16 to measure striping</li>
+ *      <li>benchmark.warmup_seconds: default 2</li>
+ *      <li>benchmark.measure_seconds: default 5</li>
+ *      <li>benchmark.output: CSV file of the results</li>
+ *  </ul>
+ */
+public class KmcSdlsServiceBenchmark {
+
+    private static final String[] DEFAULT_OPERATIONS = {"apply", "process", "process_binary"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    static final int MAX_VCID = 64;
+    private static final int SCID = 3;
+
+    private final MockMvc mockMvc;
+    private final long warmupNanos;
+    private final long measureNanos;
+
+    public KmcSdlsServiceBenchmark(int lockStripes, long warmupSeconds, long measureSeconds) {
+        KmcSdlsService.setKmcSdlsEngine(new ConcurrentKmcSdlsEngine(new StubSdlsEngine(), lockStripes));
+        this.mockMvc = MockMvcBuilders.standaloneSetup(new KmcSdlsController())
+                .setControllerAdvice(new KmcSdlsControllerAdvice()).build();
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.measureNanos = TimeUnit.SECONDS.toNanos(measureSeconds);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] operations = getList("benchmark.operations", DEFAULT_OPERATIONS);
+        int[] frameSizes = toInts(getList("benchmark.frame_sizes", new String[]{"64", "512", "1024"}));
+        int[] threads = toInts(getList("benchmark.threads", new String[]{"1", "4", "16"}));
+        int lockStripes = Integer.getInteger("benchmark.lock_stripes", ConcurrentKmcSdlsEngine.DEFAULT_LOCK_STRIPES);
+        long warmupSeconds = Long.getLong("benchmark.warmup_seconds", 2);
+        long measureSeconds = Long.getLong("benchmark.measure_seconds", 5);
+        String output = System.getProperty("benchmark.output");
+
+        for (int frameSize : frameSizes) {
+            if (frameSize < StubSdlsEngine.MIN_FRAME_LENGTH + StubSdlsEngine.SECURITY_OVERHEAD
+                    || frameSize > KmcSdlsEngine.TC_MAX_FRAME_LENGTH) {
+                throw new IllegalArgumentException("Frame size " + frameSize + " out of range "
+                        + (StubSdlsEngine.MIN_FRAME_LENGTH + StubSdlsEngine.SECURITY_OVERHEAD) + " to "
+                        + KmcSdlsEngine.TC_MAX_FRAME_LENGTH);
+            }
+        }
+
+        KmcSdlsServiceBenchmark benchmark = new KmcSdlsServiceBenchmark(lockStripes, warmupSeconds, measureSeconds);
+        System.out.printf("SDLS service benchmark: stub engine, %d lock stripes, %d s warmup, %d s measurement%n",
+                lockStripes, warmupSeconds, measureSeconds);
+        System.out.println(Result.HEADER);
+        List<Result> results = new ArrayList<>();
+        for (String operation : operations) {
+            for (int frameSize : frameSizes) {
+                for (int threadCount : threads) {
+                    Result result = benchmark.run(operation, frameSize, threadCount);
+                    System.out.println(result);
+                    results.add(result);
+                }
+            }
+        }
+
+        if (output != null) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(output))) {
+                writer.println(Result.CSV_HEADER);
+                for (Result result : results) {
+                    writer.println(result.toCsv());
+                }
+            }
+            System.out.println("Results written to " + output);
+        }
+    }
+
+    public Result run(String operation, int frameSize, int threadCount) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<long[]>> latencies = new ArrayList<>();
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < threadCount; i++) {
+                byte[] frame = createFrame(operation, frameSize, i % MAX_VCID);
+                latencies.add(executor.submit(() -> {
+                    start.await();
+                    sendFrames(operation, frame, System.nanoTime() + this.warmupNanos, null);
+                    return sendFrames(operation, frame, System.nanoTime() + this.measureNanos, new LatencyRecorder());
+                }));
+            }
+            start.countDown();
+
+            LatencyRecorder total = new LatencyRecorder();
+            for (Future<long[]> threadLatencies : latencies) {
+                total.addAll(threadLatencies.get());
+            }
+            return new Result(operation, frameSize, threadCount, total.toSortedArray(), this.measureNanos);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Sends the frame until the deadline, returns the latencies if recorded
+    private long[] sendFrames(String operation, byte[] frame, long deadline, LatencyRecorder recorder) throws Exception {
+        while (true) {
+            long begin = System.nanoTime();
+            if (begin >= deadline) {
+                return recorder == null ? null : recorder.toArray();
+            }
+            MvcResult result = this.mockMvc.perform(buildRequest(operation, frame)).andReturn();
+            long end = System.nanoTime();
+            if (result.getResponse().getStatus() != 200) {
+                throw new IllegalStateException(operation + " failed with HTTP status " + result.getResponse().getStatus()
+                        + ": " + result.getResponse().getContentAsString());
+            }
+            if (recorder != null) {
+                recorder.add(end - begin);
+            }
+        }
+    }
+
+    static MockHttpServletRequestBuilder buildRequest(String operation, byte[] frame) {
+        switch (operation) {
+            case "apply":
+                return post("/apply_security").contentType(MediaType.APPLICATION_OCTET_STREAM).content(frame);
+            case "process":
+                return post("/process_security").contentType(MediaType.APPLICATION_OCTET_STREAM).content(frame);
+            case "process_binary":
+                return post("/process_security").contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .accept(MediaType.APPLICATION_OCTET_STREAM).content(frame);
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    // Frame to apply security to, or SDLS frame to process, of frameSize bytes once SDLS applied
+    static byte[] createFrame(String operation, int frameSize, int vcid) throws Exception {
+        byte[] frame = new byte[frameSize - StubSdlsEngine.SECURITY_OVERHEAD];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = (byte) i;
+        }
+        frame[0] = (byte) ((SCID >> 8) & 0x03);
+        frame[1] = (byte) SCID;
+        frame[2] = (byte) ((vcid << 2) | (((frame.length - 1) >> 8) & 0x03));
+        frame[3] = (byte) (frame.length - 1);
+        frame[4] = 0;
+        if ("apply".equals(operation)) {
+            return frame;
+        }
+        return new StubSdlsEngine().applySecurity(frame, null);
+    }
+
+    private static String[] getList(String name, String[] defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).toArray(String[]::new);
+    }
+
+    private static int[] toInts(String[] values) {
+        return Arrays.stream(values).mapToInt(Integer::parseInt).toArray();
+    }
+
+    // Growable array of latencies in nanoseconds, of one thread
+    private static final class LatencyRecorder {
+        private long[] latencies = new long[1 << 16];
+        private int size = 0;
+
+        void add(long latency) {
+            if (this.size == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.size * 2);
+            }
+            this.latencies[this.size++] = latency;
+        }
+
+        void addAll(long[] values) {
+            for (long value : values) {
+                add(value);
+            }
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(this.latencies, this.size);
+        }
+
+        long[] toSortedArray() {
+            long[] sorted = toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    public static final class Result {
+        static final String HEADER = String.format("%-15s %6s %8s %12s %10s %10s %10s %10s %10s",
+                "operation", "frame", "threads", "frames/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        static final String CSV_HEADER = "operation,frame_size,threads,frames_per_second,p50_us,p90_us,p99_us,p99_9_us,max_us";
+
+        final String operation;
+        final int frameSize;
+        final int threads;
+        final double framesPerSecond;
+        final double[] percentilesMicros = new double[PERCENTILES.length];
+        final double maxMicros;
+
+        Result(String operation, int frameSize, int threads, long[] sortedLatencies, long measureNanos) {
+            this.operation = operation;
+            this.frameSize = frameSize;
+            this.threads = threads;
+            this.framesPerSecond = sortedLatencies.length * 1e9 / measureNanos;
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                this.percentilesMicros[i] = percentile(sortedLatencies, PERCENTILES[i]) / 1e3;
+            }
+            this.maxMicros = sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1] / 1e3;
+        }
+
+        // Nearest-rank percentile
+        private static long percentile(long[] sortedLatencies, double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+            return sortedLatencies[Math.max(rank, 1) - 1];
+        }
+
+        String toCsv() {
+            return String.format("%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f", this.operation, this.frameSize, this.threads,
+                    this.framesPerSecond, this.percentilesMicros[0], this.percentilesMicros[1],
+                    this.percentilesMicros[2], this.percentilesMicros[3], this.maxMicros);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-15s %6d %8d %12.1f %10.1f %10.1f %10.1f %10.1f %10.1f", this.operation,
+                    this.frameSize, this.threads, this.framesPerSecond, this.percentilesMicros[0],
+                    this.percentilesMicros[1], this.percentilesMicros[2], this.percentilesMicros[3], this.maxMicros);
+        }
+    }
+}
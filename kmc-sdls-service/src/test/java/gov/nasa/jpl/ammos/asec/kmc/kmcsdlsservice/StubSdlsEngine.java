@@ -0,0 +1,195 @@
+package gov.nasa.jpl.ammos.asec.kmc.kmcsdlsservice;
+
+import gov.nasa.jpl.ammos.asec.kmc.KmcSdlsEngine;
+import gov.nasa.jpl.ammos.asec.kmc.SDLS_TC_TransferFrame;
+import gov.nasa.jpl.ammos.asec.kmc.SdlsEngine;
+import org.apache.commons.codec.binary.Hex;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  SDLS engine without CryptoLib, for measuring the Java layers of the service.
+ *
+ *  Applying security inserts an SPI and a counter IV after the segment header and a MAC before the FECF,
+ *  the frame data is copied as is.  Processing security removes them and returns the fields the way
+ *  KmcSdlsEngine does, so that the service does the same conversions as with the native engine.
+ */
+public class StubSdlsEngine implements SdlsEngine {
+
+    public static final int PRIMARY_HEADER_LENGTH = 5;
+    public static final int SEGMENT_HEADER_LENGTH = 1;
+    public static final int SPI_LENGTH = 2;
+    public static final int IV_LENGTH = 12;
+    public static final int MAC_LENGTH = 16;
+    public static final int FECF_LENGTH = 2;
+    // Bytes added to the frame by applying security
+    public static final int SECURITY_OVERHEAD = SPI_LENGTH + IV_LENGTH + MAC_LENGTH;
+    // Shortest frame to apply security to, without frame data
+    public static final int MIN_FRAME_LENGTH = PRIMARY_HEADER_LENGTH + SEGMENT_HEADER_LENGTH + FECF_LENGTH;
+
+    private static final int SPI = 1;
+    private static final int DATA_OFFSET = PRIMARY_HEADER_LENGTH + SEGMENT_HEADER_LENGTH + SPI_LENGTH + IV_LENGTH;
+
+    private final AtomicLong ivCounter = new AtomicLong();
+
+    @Override
+    public int getEngineStatus() {
+        return 0;
+    }
+
+    @Override
+    public String getCryptoLibErrorCodeEnum(int errorCode) {
+        return errorCode == 0 ? "CRYPTO_LIB_SUCCESS" : "CRYPTO_LIB_ERROR";
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public byte[] applySecurity(byte[] unencryptedFrame, String camCookies) throws Exception {
+        int length = unencryptedFrame.length + SECURITY_OVERHEAD;
+        if (unencryptedFrame.length < MIN_FRAME_LENGTH || length > KmcSdlsEngine.TC_MAX_FRAME_LENGTH) {
+            throw new Exception("Unable to Apply Security on TC Frame, invalid frame length " + unencryptedFrame.length);
+        }
+        int dataLength = unencryptedFrame.length - MIN_FRAME_LENGTH;
+        ByteBuffer frame = ByteBuffer.allocate(length);
+        frame.put(unencryptedFrame, 0, PRIMARY_HEADER_LENGTH + SEGMENT_HEADER_LENGTH);
+        // frame length field is the frame length - 1
+        frame.putShort(2, (short) ((frame.getShort(2) & 0xFC00) | ((length - 1) & 0x03FF)));
+        frame.putShort((short) SPI);
+        frame.putInt(0);
+        frame.putLong(this.ivCounter.incrementAndGet());
+        frame.put(unencryptedFrame, PRIMARY_HEADER_LENGTH + SEGMENT_HEADER_LENGTH, dataLength);
+        frame.put(new byte[MAC_LENGTH]);
+        frame.put(unencryptedFrame, unencryptedFrame.length - FECF_LENGTH, FECF_LENGTH);
+        return frame.array();
+    }
+
+    @Override
+    public SDLS_TC_TransferFrame processSecurity(byte[] encryptedFrame, String camCookies) throws Exception {
+        checkSdlsFrame(encryptedFrame);
+        ByteBuffer frame = ByteBuffer.wrap(encryptedFrame);
+        SDLS_TC_TransferFrame sdlsTCFrame = new SDLS_TC_TransferFrame();
+        int header = frame.getShort(0) & 0xFFFF;
+        sdlsTCFrame.tfvn = header >> 14;
+        sdlsTCFrame.bypass = (header >> 13) & 0x01;
+        sdlsTCFrame.cc = (header >> 12) & 0x01;
+        sdlsTCFrame.spare = (header >> 10) & 0x03;
+        sdlsTCFrame.scid = header & 0x03FF;
+        sdlsTCFrame.vcid = (frame.get(2) & 0xFF) >> 2;
+        sdlsTCFrame.fl = frame.getShort(2) & 0x03FF;
+        sdlsTCFrame.fsn = frame.get(4) & 0xFF;
+        sdlsTCFrame.sh = frame.get(PRIMARY_HEADER_LENGTH) & 0xFF;
+        sdlsTCFrame.spi = frame.getShort(PRIMARY_HEADER_LENGTH + SEGMENT_HEADER_LENGTH) & 0xFFFF;
+        sdlsTCFrame.iv_field_len = IV_LENGTH;
+        sdlsTCFrame.iv = toHexString(encryptedFrame, DATA_OFFSET - IV_LENGTH, IV_LENGTH);
+        sdlsTCFrame.sn = "";
+        sdlsTCFrame.pad = "";
+        sdlsTCFrame.tc_pdu_len = getDataLength(encryptedFrame);
+        sdlsTCFrame.tc_pdu = toHexString(encryptedFrame, DATA_OFFSET, sdlsTCFrame.tc_pdu_len);
+        sdlsTCFrame.mac_field_len = MAC_LENGTH;
+        sdlsTCFrame.mac = toHexString(encryptedFrame, DATA_OFFSET + sdlsTCFrame.tc_pdu_len, MAC_LENGTH);
+        sdlsTCFrame.fecf = frame.getShort(encryptedFrame.length - FECF_LENGTH) & 0xFFFF;
+        return sdlsTCFrame;
+    }
+
+    @Override
+    public byte[] processSecurityReturnDataOnly(byte[] encryptedFrame, String camCookies) throws Exception {
+        checkSdlsFrame(encryptedFrame);
+        return Arrays.copyOfRange(encryptedFrame, DATA_OFFSET, DATA_OFFSET + getDataLength(encryptedFrame));
+    }
+
+    @Override
+    public byte[] processSecurityReturnBinary(byte[] encryptedFrame, String camCookies) throws Exception {
+        checkSdlsFrame(encryptedFrame);
+        int dataLength = getDataLength(encryptedFrame);
+        ByteBuffer frame = ByteBuffer.wrap(encryptedFrame);
+        int header = frame.getShort(0) & 0xFFFF;
+        ByteBuffer binaryFrame = ByteBuffer.allocate(SDLS_TC_TransferFrame.BINARY_HEADER_LENGTH + IV_LENGTH
+                + dataLength + MAC_LENGTH);
+        binaryFrame.put((byte) (header >> 14));
+        binaryFrame.put((byte) ((header >> 13) & 0x01));
+        binaryFrame.put((byte) ((header >> 12) & 0x01));
+        binaryFrame.put((byte) ((header >> 10) & 0x03));
+        binaryFrame.putShort((short) (header & 0x03FF));
+        binaryFrame.put((byte) ((frame.get(2) & 0xFF) >> 2));
+        binaryFrame.put(frame.get(4));
+        binaryFrame.putShort((short) (frame.getShort(2) & 0x03FF));
+        binaryFrame.put(frame.get(PRIMARY_HEADER_LENGTH));
+        binaryFrame.put((byte) 0);
+        binaryFrame.putShort(frame.getShort(PRIMARY_HEADER_LENGTH + SEGMENT_HEADER_LENGTH));
+        binaryFrame.putShort((short) IV_LENGTH);
+        binaryFrame.putShort((short) 0);
+        binaryFrame.putShort((short) 0);
+        binaryFrame.putShort((short) dataLength);
+        binaryFrame.putShort((short) MAC_LENGTH);
+        binaryFrame.putShort(frame.getShort(encryptedFrame.length - FECF_LENGTH));
+        binaryFrame.put(encryptedFrame, DATA_OFFSET - IV_LENGTH, IV_LENGTH + dataLength + MAC_LENGTH);
+        return binaryFrame.array();
+    }
+
+    @Override
+    public String applySecurity(String unencryptedFrameHexbytesString, String camCookies) throws Exception {
+        return Hex.encodeHexString(this.applySecurity(Hex.decodeHex(unencryptedFrameHexbytesString), camCookies), false);
+    }
+
+    @Override
+    public int applySecurity(ByteBuffer unencryptedFrame, ByteBuffer encryptedFrame, String camCookies) throws Exception {
+        byte[] encrypted = this.applySecurity(toByteArray(unencryptedFrame), camCookies);
+        encryptedFrame.put(encrypted);
+        return encrypted.length;
+    }
+
+    @Override
+    public SDLS_TC_TransferFrame processSecurity(String encryptedFrameHexbytesString, String camCookies) throws Exception {
+        return this.processSecurity(Hex.decodeHex(encryptedFrameHexbytesString), camCookies);
+    }
+
+    @Override
+    public SDLS_TC_TransferFrame processSecurity(ByteBuffer encryptedFrame, String camCookies) throws Exception {
+        return this.processSecurity(toByteArray(encryptedFrame), camCookies);
+    }
+
+    @Override
+    public String processSecurityReturnDataOnly(String encryptedFrameHexbytesString, String camCookies) throws Exception {
+        return Hex.encodeHexString(this.processSecurityReturnDataOnly(Hex.decodeHex(encryptedFrameHexbytesString), camCookies), false);
+    }
+
+    @Override
+    public int processSecurityReturnDataOnly(ByteBuffer encryptedFrame, ByteBuffer data, String camCookies) throws Exception {
+        byte[] pdu = this.processSecurityReturnDataOnly(toByteArray(encryptedFrame), camCookies);
+        data.put(pdu);
+        return pdu.length;
+    }
+
+    @Override
+    public int processSecurityReturnBinary(ByteBuffer encryptedFrame, ByteBuffer binaryFrame, String camCookies) throws Exception {
+        byte[] binary = this.processSecurityReturnBinary(toByteArray(encryptedFrame), camCookies);
+        binaryFrame.put(binary);
+        return binary.length;
+    }
+
+    private static void checkSdlsFrame(byte[] encryptedFrame) throws Exception {
+        if (encryptedFrame.length < MIN_FRAME_LENGTH + SECURITY_OVERHEAD) {
+            throw new Exception("Unable to Process Security on TC Frame, invalid frame length " + encryptedFrame.length);
+        }
+    }
+
+    private static int getDataLength(byte[] encryptedFrame) {
+        return encryptedFrame.length - MIN_FRAME_LENGTH - SECURITY_OVERHEAD;
+    }
+
+    // Upper case, as the hex strings of KmcSdlsEngine
+    private static String toHexString(byte[] bytes, int offset, int length) {
+        return Hex.encodeHexString(Arrays.copyOfRange(bytes, offset, offset + length), false);
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * KMIPCodecBenchmark.java
+ * -----------------------------------------------------------------
+ *     __ __ __  ___________
+ *    / //_//  |/  /  _/ __ \	  .--.
+ *   / ,<  / /|_/ // // /_/ /	 /.-. '----------.
+ *  / /| |/ /  / // // ____/ 	 \'-' .--"--""-"-'
+ * /_/ |_/_/  /_/___/_/      	  '--'
+ *
+ * -----------------------------------------------------------------
+ * Description:
+ * JMH benchmark of the KMIP codec. It measures the creation of the
+ * decoded attributes through the KMIPObjectRegistry against the
+ * Class.forName() lookup the decoder used before, the encoding of a
+ * request, and the decoding of the response to a Get and a Get
+ * Attributes of a symmetric key, as the KMC key client retrieves a
+ * key, with the registry and with a decoder that creates the
+ * attributes by reflection as before.
+ *
+ * Run with: mvn -P benchmark test
+ *
+ * The run fails if creating the attributes or decoding the response
+ * through the registry is not faster than by reflection by at least
+ * the factor of the system property kmip.benchmark.min_speedup
+ * (default 1). The ratio of the two does not depend on the speed of
+ * the machine.
+ *
+ */
+
+package ch.ntb.inf.kmip.process;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import ch.ntb.inf.kmip.attributes.ContactInformation;
+import ch.ntb.inf.kmip.attributes.CryptographicAlgorithm;
+import ch.ntb.inf.kmip.attributes.CryptographicLength;
+import ch.ntb.inf.kmip.attributes.CryptographicUsageMask;
+import ch.ntb.inf.kmip.attributes.Name;
+import ch.ntb.inf.kmip.attributes.InitialDate;
+import ch.ntb.inf.kmip.attributes.LastChangeDate;
+import ch.ntb.inf.kmip.attributes.ObjectType;
+import ch.ntb.inf.kmip.attributes.UniqueIdentifier;
+import ch.ntb.inf.kmip.container.KMIPBatch;
+import ch.ntb.inf.kmip.container.KMIPContainer;
+import ch.ntb.inf.kmip.kmipenum.EnumCryptographicAlgorithm;
+import ch.ntb.inf.kmip.kmipenum.EnumKeyFormatType;
+import ch.ntb.inf.kmip.kmipenum.EnumObjectType;
+import ch.ntb.inf.kmip.kmipenum.EnumOperation;
+import ch.ntb.inf.kmip.kmipenum.EnumResultStatus;
+import ch.ntb.inf.kmip.kmipenum.EnumState;
+import ch.ntb.inf.kmip.objects.KeyMaterial;
+import ch.ntb.inf.kmip.objects.base.Attribute;
+import ch.ntb.inf.kmip.objects.base.KeyBlock;
+import ch.ntb.inf.kmip.objects.base.KeyValue;
+import ch.ntb.inf.kmip.objects.base.TemplateAttribute;
+import ch.ntb.inf.kmip.objects.base.TemplateAttributeStructure;
+import ch.ntb.inf.kmip.objects.managed.SymmetricKey;
+import ch.ntb.inf.kmip.process.decoder.KMIPDecoder;
+import ch.ntb.inf.kmip.process.encoder.KMIPEncoder;
+import ch.ntb.inf.kmip.types.KMIPByteString;
+import ch.ntb.inf.kmip.types.KMIPType;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KMIPCodecBenchmark {
+
+	// the locations of the classes that the decoder loaded by reflection before the registry
+	private static final String ATTRIBUTE_LOCATION = "ch.ntb.inf.kmip.attributes.";
+	private static final String ENUM_LOCATION = "ch.ntb.inf.kmip.kmipenum.";
+	private static final String OPERATION_PARAMETER_LOCATION = "ch.ntb.inf.kmip.operationparameters.";
+
+	// attribute names as on the wire, the last one is an operation parameter
+	private static final String[] ATTRIBUTE_NAMES = {"Unique Identifier", "Name", "Object Type",
+			"Cryptographic Algorithm", "Cryptographic Length", "Cryptographic Usage Mask", "State",
+			"Contact Information", "Initial Date", "Last Change Date", "x-Purpose", "Maximum Items"};
+	// attribute names and values of type Enumeration
+	private static final String[] ENUMERATION_NAMES = {"Cryptographic Algorithm", "Object Type", "State"};
+	private static final int[] ENUMERATION_VALUES = {3, 2, 2};
+
+	private KMIPEncoder encoder;
+	private KMIPDecoder decoder;
+	private KMIPDecoder reflectionDecoder;
+	private KMIPContainer request;
+	private byte[] getResponse;
+
+	/**
+	 * The decoder as it was before the registry, which loads the attribute classes by name.
+	 */
+	static class ReflectionDecoder extends KMIPDecoder {
+
+		@Override
+		protected Attribute newAttribute(String attributeName) {
+			String className = attributeName.replaceAll("-", "");
+			className = (Character.toUpperCase(className.charAt(0)) + className.substring(1)).replaceAll("\\s", "");
+			try {
+				return (Attribute) Class.forName(ATTRIBUTE_LOCATION + className).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException e1) {
+				try {
+					return (Attribute) Class.forName(OPERATION_PARAMETER_LOCATION + className).getDeclaredConstructor().newInstance();
+				} catch (ReflectiveOperationException e2) {
+					return null;
+				}
+			}
+		}
+
+		@Override
+		protected Attribute newEnumerationAttribute(String attributeName, int value) {
+			String className = attributeName.replaceAll("\\s", "");
+			try {
+				Object enumeration = Class.forName(ENUM_LOCATION + "Enum" + className).getConstructor(Integer.TYPE)
+						.newInstance(value);
+				return (Attribute) Class.forName(ATTRIBUTE_LOCATION + className).getConstructor(KMIPType.class)
+						.newInstance(enumeration);
+			} catch (ReflectiveOperationException e) {
+				return null;
+			}
+		}
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		this.encoder = new KMIPEncoder();
+		this.decoder = new KMIPDecoder();
+		this.reflectionDecoder = new ReflectionDecoder();
+		this.request = createRequest();
+		this.getResponse = this.encoder.encodeResponseBytes(createGetResponse());
+	}
+
+	@Benchmark
+	public void newAttributeRegistry(Blackhole blackhole) {
+		for (String attributeName : ATTRIBUTE_NAMES) {
+			Attribute a = KMIPObjectRegistry.newAttribute(attributeName);
+			if (a == null) {
+				// as the decoder, try the class name (e.g. "x-Purpose" -> "XPurpose")
+				String className = attributeName.replaceAll("[\\s-]", "");
+				a = KMIPObjectRegistry.newAttribute(Character.toUpperCase(className.charAt(0)) + className.substring(1));
+			}
+			blackhole.consume(a);
+		}
+	}
+
+	@Benchmark
+	public void newAttributeReflection(Blackhole blackhole) throws ReflectiveOperationException {
+		for (String attributeName : ATTRIBUTE_NAMES) {
+			String className = attributeName.replaceAll("-", "");
+			className = (Character.toUpperCase(className.charAt(0)) + className.substring(1)).replaceAll("\\s", "");
+			Attribute a;
+			try {
+				a = (Attribute) Class.forName(ATTRIBUTE_LOCATION + className).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				a = (Attribute) Class.forName(OPERATION_PARAMETER_LOCATION + className).getDeclaredConstructor().newInstance();
+			}
+			blackhole.consume(a);
+		}
+	}
+
+	@Benchmark
+	public void newEnumerationAttributeRegistry(Blackhole blackhole) {
+		for (int i = 0; i < ENUMERATION_NAMES.length; i++) {
+			blackhole.consume(KMIPObjectRegistry.newEnumerationAttribute(ENUMERATION_NAMES[i], ENUMERATION_VALUES[i]));
+		}
+	}
+
+	@Benchmark
+	public void newEnumerationAttributeReflection(Blackhole blackhole) throws ReflectiveOperationException {
+		for (int i = 0; i < ENUMERATION_NAMES.length; i++) {
+			String className = ENUMERATION_NAMES[i].replaceAll("\\s", "");
+			Object enumeration = Class.forName(ENUM_LOCATION + "Enum" + className).getConstructor(Integer.TYPE)
+					.newInstance(ENUMERATION_VALUES[i]);
+			blackhole.consume(Class.forName(ATTRIBUTE_LOCATION + className).getConstructor(KMIPType.class)
+					.newInstance(enumeration));
+		}
+	}
+
+	@Benchmark
+	public byte[] encodeRequest() {
+		return this.encoder.encodeRequestBytes(this.request);
+	}
+
+	@Benchmark
+	public KMIPContainer decodeGetResponseRegistry() throws Exception {
+		return this.decoder.decodeResponse(this.getResponse);
+	}
+
+	@Benchmark
+	public KMIPContainer decodeGetResponseReflection() throws Exception {
+		return this.reflectionDecoder.decodeResponse(this.getResponse);
+	}
+
+	// Create request of a symmetric key with text, integer, enumeration and structure attributes
+	private static KMIPContainer createRequest() throws Exception {
+		KMIPContainer container = new KMIPContainer();
+		KMIPBatch batch = new KMIPBatch();
+		container.addBatch(batch);
+		container.calculateBatchCount();
+		batch.setOperation(EnumOperation.Create);
+		batch.addAttribute(new ObjectType(EnumObjectType.SymmetricKey));
+
+		UniqueIdentifier uniqueIdentifier = new UniqueIdentifier();
+		uniqueIdentifier.setValue("c4f5ed2b-5ad4-4b52-9f8e-0bd1a4e2b3a1", null);
+		ContactInformation contactInformation = new ContactInformation();
+		contactInformation.setValue("kmc", "ContactInformation");
+		Name name = new Name();
+		name.setValue("kmc/test/AES256", "namevalue");
+		name.setValue("UninterpretedTextString", "nametype");
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(uniqueIdentifier);
+		attributes.add(contactInformation);
+		attributes.add(name);
+		attributes.add(new CryptographicAlgorithm(new EnumCryptographicAlgorithm("AES")));
+		attributes.add(new CryptographicLength(256));
+		attributes.add(new CryptographicUsageMask(12));
+		TemplateAttributeStructure templateAttribute = new TemplateAttribute();
+		templateAttribute.setAttributes(attributes);
+		batch.addTemplateAttributeStructure(templateAttribute);
+		return container;
+	}
+
+	// Response to a batch of a Get and a Get Attributes of a symmetric key, as the KMC key client retrieves a key
+	static KMIPContainer createGetResponse() throws Exception {
+		KMIPContainer container = new KMIPContainer();
+		String uid = "c4f5ed2b-5ad4-4b52-9f8e-0bd1a4e2b3a1";
+
+		KMIPBatch get = new KMIPBatch();
+		container.addBatch(get);
+		get.setOperation(EnumOperation.Get);
+		get.setUniqueBatchItemID(new KMIPByteString(new byte[] {0, 0, 0, 0}));
+		get.setResultStatus(new EnumResultStatus(EnumResultStatus.Success));
+		get.addAttribute(new ObjectType(EnumObjectType.SymmetricKey));
+		get.addAttribute(newUniqueIdentifier(uid));
+		KeyBlock keyBlock = new KeyBlock(new KeyValue(new KeyMaterial(new KMIPByteString(new byte[32]))));
+		keyBlock.setKeyFormatType(new EnumKeyFormatType(EnumKeyFormatType.Raw));
+		keyBlock.setCryptographicAlgorithm(new CryptographicAlgorithm(new EnumCryptographicAlgorithm("AES")));
+		keyBlock.setCryptographicLength(new CryptographicLength(256));
+		get.setManagedObject(new SymmetricKey(keyBlock));
+
+		KMIPBatch getAttributes = new KMIPBatch();
+		container.addBatch(getAttributes);
+		getAttributes.setOperation(EnumOperation.GetAttributes);
+		getAttributes.setUniqueBatchItemID(new KMIPByteString(new byte[] {0, 0, 0, 1}));
+		getAttributes.setResultStatus(new EnumResultStatus(EnumResultStatus.Success));
+		getAttributes.addAttribute(newUniqueIdentifier(uid));
+		Name name = new Name();
+		name.setValue("kmc/test/AES256", "namevalue");
+		name.setValue("UninterpretedTextString", "nametype");
+		getAttributes.addAttribute(name);
+		getAttributes.addAttribute(new ObjectType(EnumObjectType.SymmetricKey));
+		getAttributes.addAttribute(new CryptographicAlgorithm(new EnumCryptographicAlgorithm("AES")));
+		getAttributes.addAttribute(new CryptographicLength(256));
+		getAttributes.addAttribute(new CryptographicUsageMask(12));
+		getAttributes.addAttribute(new ch.ntb.inf.kmip.attributes.State(EnumState.Active));
+		ContactInformation contactInformation = new ContactInformation();
+		contactInformation.setValue("kmc", "ContactInformation");
+		getAttributes.addAttribute(contactInformation);
+		long date = 1700000000L;
+		InitialDate initialDate = new InitialDate();
+		initialDate.setValue(Long.toString(date), null);
+		getAttributes.addAttribute(initialDate);
+		LastChangeDate lastChangeDate = new LastChangeDate();
+		lastChangeDate.setValue(Long.toString(date), null);
+		getAttributes.addAttribute(lastChangeDate);
+
+		container.calculateBatchCount();
+		return container;
+	}
+
+	private static UniqueIdentifier newUniqueIdentifier(String uid) {
+		UniqueIdentifier uniqueIdentifier = new UniqueIdentifier();
+		uniqueIdentifier.setValue(uid, null);
+		return uniqueIdentifier;
+	}
+
+	public static void main(String[] args) throws Exception {
+		double minSpeedup = Double.parseDouble(System.getProperty("kmip.benchmark.min_speedup", "1"));
+		Options options = new OptionsBuilder()
+				.include(KMIPCodecBenchmark.class.getName())
+				.forks(Integer.getInteger("kmip.benchmark.forks", 1))
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(2))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(2))
+				.build();
+		Collection<RunResult> results = new Runner(options).run();
+
+		Map<String, Double> scores = new HashMap<String, Double>();
+		for (RunResult result : results) {
+			String benchmark = result.getParams().getBenchmark();
+			scores.put(benchmark.substring(benchmark.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+		}
+		boolean passed = checkSpeedup(scores, "newAttribute", minSpeedup);
+		passed &= checkSpeedup(scores, "newEnumerationAttribute", minSpeedup);
+		passed &= checkSpeedup(scores, "decodeGetResponse", minSpeedup);
+		if (!passed) {
+			System.exit(1);
+		}
+	}
+
+	// Compares the throughput of the registry and reflection benchmarks of the prefix
+	private static boolean checkSpeedup(Map<String, Double> scores, String prefix, double minSpeedup) {
+		double speedup = scores.get(prefix + "Registry") / scores.get(prefix + "Reflection");
+		if (speedup < minSpeedup) {
+			System.err.printf("%s: the registry is %.2f times as fast as reflection, expected at least %.2f%n",
+					prefix, speedup, minSpeedup);
+			return false;
+		}
+		System.out.printf("%s: the registry is %.2f times as fast as reflection%n", prefix, speedup);
+		return true;
+	}
+
+}
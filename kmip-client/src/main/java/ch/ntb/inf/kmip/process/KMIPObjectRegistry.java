@@ -0,0 +1,228 @@
+/**
+ * KMIPObjectRegistry.java
+ * -----------------------------------------------------------------
+ *     __ __ __  ___________
+ *    / //_//  |/  /  _/ __ \	  .--.
+ *   / ,<  / /|_/ // // /_/ /	 /.-. '----------.
+ *  / /| |/ /  / // // ____/ 	 \'-' .--"--""-"-'
+ * /_/ |_/_/  /_/___/_/      	  '--'
+ *
+ * -----------------------------------------------------------------
+ * Description:
+ * The KMIPObjectRegistry creates the attributes, enumerations,
+ * encoders and decoders that used to be loaded by reflection. The
+ * constructors are registered once when the class is loaded, so
+ * that decoding an attribute is a map lookup instead of a
+ * Class.forName() per attribute.
+ *
+ */
+
+package ch.ntb.inf.kmip.process;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import ch.ntb.inf.kmip.attributes.ActivationDate;
+import ch.ntb.inf.kmip.attributes.ApplicationSpecificInformation;
+import ch.ntb.inf.kmip.attributes.ArchiveDate;
+import ch.ntb.inf.kmip.attributes.CertificateIdentifier;
+import ch.ntb.inf.kmip.attributes.CertificateIssuer;
+import ch.ntb.inf.kmip.attributes.CertificateSubject;
+import ch.ntb.inf.kmip.attributes.CertificateType;
+import ch.ntb.inf.kmip.attributes.CompromiseDate;
+import ch.ntb.inf.kmip.attributes.CompromiseOccurrenceDate;
+import ch.ntb.inf.kmip.attributes.ContactInformation;
+import ch.ntb.inf.kmip.attributes.CryptographicAlgorithm;
+import ch.ntb.inf.kmip.attributes.CryptographicDomainParameters;
+import ch.ntb.inf.kmip.attributes.CryptographicLength;
+import ch.ntb.inf.kmip.attributes.CryptographicParameters;
+import ch.ntb.inf.kmip.attributes.CryptographicUsageMask;
+import ch.ntb.inf.kmip.attributes.DeactivationDate;
+import ch.ntb.inf.kmip.attributes.DestroyDate;
+import ch.ntb.inf.kmip.attributes.Digest;
+import ch.ntb.inf.kmip.attributes.InitialDate;
+import ch.ntb.inf.kmip.attributes.LastChangeDate;
+import ch.ntb.inf.kmip.attributes.LeaseTime;
+import ch.ntb.inf.kmip.attributes.Link;
+import ch.ntb.inf.kmip.attributes.Name;
+import ch.ntb.inf.kmip.attributes.ObjectGroup;
+import ch.ntb.inf.kmip.attributes.ObjectType;
+import ch.ntb.inf.kmip.attributes.OperationPolicyName;
+import ch.ntb.inf.kmip.attributes.ProcessStartDate;
+import ch.ntb.inf.kmip.attributes.ProtectStopDate;
+import ch.ntb.inf.kmip.attributes.RevocationReason;
+import ch.ntb.inf.kmip.attributes.State;
+import ch.ntb.inf.kmip.attributes.UniqueIdentifier;
+import ch.ntb.inf.kmip.attributes.UsageLimits;
+import ch.ntb.inf.kmip.attributes.XPurpose;
+import ch.ntb.inf.kmip.attributes.Xattribute1;
+import ch.ntb.inf.kmip.attributes.Xattribute2;
+import ch.ntb.inf.kmip.attributes.Xprovider;
+import ch.ntb.inf.kmip.kmipenum.EnumCryptographicAlgorithm;
+import ch.ntb.inf.kmip.kmipenum.EnumObjectType;
+import ch.ntb.inf.kmip.kmipenum.EnumState;
+import ch.ntb.inf.kmip.objects.base.Attribute;
+import ch.ntb.inf.kmip.operationparameters.AsynchronousCorrelationValue;
+import ch.ntb.inf.kmip.operationparameters.CertificateRequest;
+import ch.ntb.inf.kmip.operationparameters.MaximumItems;
+import ch.ntb.inf.kmip.operationparameters.Offset;
+import ch.ntb.inf.kmip.operationparameters.QueryFunction;
+import ch.ntb.inf.kmip.operationparameters.QueryOperation;
+import ch.ntb.inf.kmip.operationparameters.ReplacedUniqueIdentifier;
+import ch.ntb.inf.kmip.operationparameters.ServerInformation;
+import ch.ntb.inf.kmip.operationparameters.StorageStatusMask;
+import ch.ntb.inf.kmip.operationparameters.ValidityDate;
+import ch.ntb.inf.kmip.operationparameters.VendorIdentification;
+import ch.ntb.inf.kmip.process.decoder.KMIPDecoder;
+import ch.ntb.inf.kmip.process.decoder.KMIPDecoderInterface;
+import ch.ntb.inf.kmip.process.encoder.KMIPEncoder;
+import ch.ntb.inf.kmip.process.encoder.KMIPEncoderInterface;
+
+/**
+ * The KMIPObjectRegistry maps attribute names and class names to the constructors
+ * of the attributes, enumeration attributes, encoders and decoders of this library.
+ * All maps are filled once when the class is loaded and are read-only afterwards,
+ * so the registry may be used by concurrent decoders without locking.
+ */
+public final class KMIPObjectRegistry {
+
+	// attributes by name as on the wire (e.g. "Cryptographic Length") and by class name (e.g. "CryptographicLength")
+	private static final Map<String, Supplier<Attribute>> ATTRIBUTES = new HashMap<String, Supplier<Attribute>>();
+	// attributes of type Enumeration, created from the enumeration value
+	private static final Map<String, IntFunction<Attribute>> ENUMERATION_ATTRIBUTES = new HashMap<String, IntFunction<Attribute>>();
+	private static final Map<String, Supplier<KMIPEncoderInterface>> ENCODERS = new HashMap<String, Supplier<KMIPEncoderInterface>>();
+	private static final Map<String, Supplier<KMIPDecoderInterface>> DECODERS = new HashMap<String, Supplier<KMIPDecoderInterface>>();
+
+	static {
+		// ch.ntb.inf.kmip.attributes
+		registerAttribute(ActivationDate::new);
+		registerAttribute(ApplicationSpecificInformation::new);
+		registerAttribute(ArchiveDate::new);
+		registerAttribute(CertificateIdentifier::new);
+		registerAttribute(CertificateIssuer::new);
+		registerAttribute(CertificateSubject::new);
+		registerAttribute(CertificateType::new);
+		registerAttribute(CompromiseDate::new);
+		registerAttribute(CompromiseOccurrenceDate::new);
+		registerAttribute(ContactInformation::new);
+		registerAttribute(CryptographicAlgorithm::new);
+		registerAttribute(CryptographicDomainParameters::new);
+		registerAttribute(CryptographicLength::new);
+		registerAttribute(CryptographicParameters::new);
+		registerAttribute(CryptographicUsageMask::new);
+		registerAttribute(DeactivationDate::new);
+		registerAttribute(DestroyDate::new);
+		registerAttribute(Digest::new);
+		registerAttribute(InitialDate::new);
+		registerAttribute(LastChangeDate::new);
+		registerAttribute(LeaseTime::new);
+		registerAttribute(Link::new);
+		registerAttribute(Name::new);
+		registerAttribute(ObjectGroup::new);
+		registerAttribute(ObjectType::new);
+		registerAttribute(OperationPolicyName::new);
+		registerAttribute(ProcessStartDate::new);
+		registerAttribute(ProtectStopDate::new);
+		registerAttribute(RevocationReason::new);
+		registerAttribute(State::new);
+		registerAttribute(UniqueIdentifier::new);
+		registerAttribute(UsageLimits::new);
+		registerAttribute(XPurpose::new);
+		registerAttribute(Xattribute1::new);
+		registerAttribute(Xattribute2::new);
+		registerAttribute(Xprovider::new);
+
+		// ch.ntb.inf.kmip.operationparameters, looked up after the attributes
+		registerAttribute(AsynchronousCorrelationValue::new);
+		registerAttribute(CertificateRequest::new);
+		registerAttribute(MaximumItems::new);
+		registerAttribute(Offset::new);
+		registerAttribute(QueryFunction::new);
+		registerAttribute(QueryOperation::new);
+		registerAttribute(ReplacedUniqueIdentifier::new);
+		registerAttribute(ServerInformation::new);
+		registerAttribute(StorageStatusMask::new);
+		registerAttribute(ValidityDate::new);
+		registerAttribute(VendorIdentification::new);
+
+		// attributes of type Enumeration, which have a matching Enum<AttributeName> class
+		registerEnumerationAttribute("Cryptographic Algorithm", value -> new CryptographicAlgorithm(new EnumCryptographicAlgorithm(value)));
+		registerEnumerationAttribute("Object Type", value -> new ObjectType(new EnumObjectType(value)));
+		registerEnumerationAttribute("State", value -> new State(new EnumState(value)));
+
+		ENCODERS.put(KMIPEncoder.class.getName(), KMIPEncoder::new);
+		DECODERS.put(KMIPDecoder.class.getName(), KMIPDecoder::new);
+	}
+
+	private KMIPObjectRegistry() {
+	}
+
+	/**
+	 * Creates an attribute without value.
+	 *
+	 * @param attributeName :	the attribute name as on the wire (e.g. "Cryptographic Length") or the class name (e.g. "CryptographicLength").
+	 * @return				the new <code>Attribute</code>, or <code>null</code> if the name is unknown.
+	 */
+	public static Attribute newAttribute(String attributeName) {
+		Supplier<Attribute> constructor = ATTRIBUTES.get(attributeName);
+		return constructor == null ? null : constructor.get();
+	}
+
+	/**
+	 * Creates an attribute of type Enumeration with the given enumeration value.
+	 *
+	 * @param attributeName :	the attribute name as on the wire or the class name.
+	 * @param value :			the value of the enumeration.
+	 * @return				the new <code>Attribute</code>, or <code>null</code> if the name is unknown.
+	 */
+	public static Attribute newEnumerationAttribute(String attributeName, int value) {
+		IntFunction<Attribute> constructor = ENUMERATION_ATTRIBUTES.get(attributeName);
+		return constructor == null ? null : constructor.apply(value);
+	}
+
+	/**
+	 * Creates an encoder. Encoders of this library are created directly, other
+	 * encoders are loaded by reflection.
+	 *
+	 * @param className :	the fully qualified class name of the encoder.
+	 * @return				the new <code>KMIPEncoderInterface</code>.
+	 * @throws ReflectiveOperationException if the class cannot be loaded or instantiated.
+	 */
+	public static KMIPEncoderInterface newEncoder(String className) throws ReflectiveOperationException {
+		Supplier<KMIPEncoderInterface> constructor = ENCODERS.get(className);
+		if (constructor != null) {
+			return constructor.get();
+		}
+		return (KMIPEncoderInterface) Class.forName(className).getDeclaredConstructor().newInstance();
+	}
+
+	/**
+	 * Creates a decoder. Decoders of this library are created directly, other
+	 * decoders are loaded by reflection.
+	 *
+	 * @param className :	the fully qualified class name of the decoder.
+	 * @return				the new <code>KMIPDecoderInterface</code>.
+	 * @throws ReflectiveOperationException if the class cannot be loaded or instantiated.
+	 */
+	public static KMIPDecoderInterface newDecoder(String className) throws ReflectiveOperationException {
+		Supplier<KMIPDecoderInterface> constructor = DECODERS.get(className);
+		if (constructor != null) {
+			return constructor.get();
+		}
+		return (KMIPDecoderInterface) Class.forName(className).getDeclaredConstructor().newInstance();
+	}
+
+	private static void registerAttribute(Supplier<Attribute> constructor) {
+		Attribute a = constructor.get();
+		ATTRIBUTES.putIfAbsent(a.getAttributeName(), constructor);
+		ATTRIBUTES.putIfAbsent(a.getClass().getSimpleName(), constructor);
+	}
+
+	private static void registerEnumerationAttribute(String attributeName, IntFunction<Attribute> constructor) {
+		ENUMERATION_ATTRIBUTES.put(attributeName, constructor);
+		ENUMERATION_ATTRIBUTES.put(attributeName.replaceAll("\\s", ""), constructor);
+	}
+
+}
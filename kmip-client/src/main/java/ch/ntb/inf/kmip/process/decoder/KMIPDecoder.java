@@ -11,7 +11,8 @@
  * Description:
  * The KMIPDecoder decodes the received KMIP-Message and returns a 
  * KMIPContainer with KMIPObjects. The KMIP-Message is a TTLV- 
- * encoded hexadecimal string stored in an ArrayList<Byte>.
+ * encoded hexadecimal string stored in an ArrayList<Byte>, a byte
+ * array or a ByteBuffer.
  *
  * @author     Stefanie Meile <stefaniemeile@gmail.com>
  * @author     Michael Guster <michael.guster@gmail.com>
@@ -27,9 +28,8 @@
 package ch.ntb.inf.kmip.process.decoder;
 
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.List;
 
 import ch.ntb.inf.kmip.attributes.CompromiseOccurrenceDate;
 import ch.ntb.inf.kmip.attributes.CryptographicAlgorithm;
@@ -109,6 +109,7 @@ import ch.ntb.inf.kmip.operationparameters.ReplacedUniqueIdentifier;
 import ch.ntb.inf.kmip.operationparameters.StorageStatusMask;
 import ch.ntb.inf.kmip.operationparameters.ValidityDate;
 import ch.ntb.inf.kmip.process.EnumStaticValues;
+import ch.ntb.inf.kmip.process.KMIPObjectRegistry;
 import ch.ntb.inf.kmip.types.KMIPBigInteger;
 import ch.ntb.inf.kmip.types.KMIPBoolean;
 import ch.ntb.inf.kmip.types.KMIPByteString;
@@ -119,6 +120,7 @@ import ch.ntb.inf.kmip.types.KMIPInterval;
 import ch.ntb.inf.kmip.types.KMIPLongInteger;
 import ch.ntb.inf.kmip.types.KMIPTextString;
 import ch.ntb.inf.kmip.types.KMIPType;
+import ch.ntb.inf.kmip.utils.KMIPByteList;
 import ch.ntb.inf.kmip.utils.KMIPUtils;
 
 
@@ -130,9 +132,6 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 	private final int TTL_SIZE = TAG_SIZE + TYPE_SIZE + LENGTH_SIZE;
 	private final int PADDING_SIZE_INT = 4;
 	private final int PADDING_SIZE_ENUM = 4;
-	private final String ATTRIBUTE_LOCATION = "ch.ntb.inf.kmip.attributes.";
-	private final String ENUM_LOCATION = "ch.ntb.inf.kmip.kmipenum.";
-	private final String OPERATION_PARAMETER_LOCATION = "ch.ntb.inf.kmip.operationparameters.";
 
 	private int subItemLength = 0;
 	
@@ -141,6 +140,20 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 	}
 	
 	public KMIPContainer decodeRequest(ArrayList<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeRequest(new KMIPByteList(KMIPUtils.toByteArray(al)));
+	}
+
+	@Override
+	public KMIPContainer decodeRequest(byte[] b) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeRequest(new KMIPByteList(b));
+	}
+
+	@Override
+	public KMIPContainer decodeRequest(ByteBuffer buffer) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeRequest(KMIPByteList.wrap(buffer));
+	}
+
+	private KMIPContainer decodeRequest(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
 		KMIPContainer container = new KMIPContainer();
 		resetDecoder();
 		checkTagAndType(EnumTag.RequestMessage, EnumType.Structure, al);
@@ -161,6 +174,20 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 	}
 	
 	public KMIPContainer decodeResponse(ArrayList<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeResponse(new KMIPByteList(KMIPUtils.toByteArray(al)));
+	}
+
+	@Override
+	public KMIPContainer decodeResponse(byte[] b) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeResponse(new KMIPByteList(b));
+	}
+
+	@Override
+	public KMIPContainer decodeResponse(ByteBuffer buffer) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeResponse(KMIPByteList.wrap(buffer));
+	}
+
+	private KMIPContainer decodeResponse(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
 		KMIPContainer container = new KMIPContainer();
 		resetDecoder();
 		checkTagAndType(EnumTag.ResponseMessage, EnumType.Structure, al);
@@ -180,7 +207,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return container;
 	}
 	
-	private void decodeRequestHeader(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException{
+	private void decodeRequestHeader(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException{
 		checkTagAndType(EnumTag.RequestHeader, EnumType.Structure, al);
 		
 		// Protocol Version 		(Required)
@@ -233,7 +260,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeResponseHeader(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException{
+	private void decodeResponseHeader(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException{
 		checkTagAndType(EnumTag.ResponseHeader, EnumType.Structure, al);
 		
 		// Protocol Version (Required)
@@ -249,7 +276,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE; 
 	}
 	
-	private void decodeProtocolVersion(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException{
+	private void decodeProtocolVersion(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException{
 		checkTagAndType(EnumTag.ProtocolVersion, EnumType.Structure, al);
 		int length = decodeLength(al);
 		decodeProtocolVersionMajor(al.subList(TTL_SIZE, TTL_SIZE + length));
@@ -257,7 +284,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeProtocolVersionMajor(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException{
+	private void decodeProtocolVersionMajor(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException{
 		checkTagAndType(EnumTag.ProtocolVersionMajor, EnumType.Integer, al);
 		KMIPInteger value = decodeKMIPInteger(al);
 		if(value.getValue() != EnumStaticValues.ProtocolVersionMajor.getValue()){
@@ -265,7 +292,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		}
 	}
 	
-	private void decodeProtocolVersionMinor(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPProtocolVersionException, KMIPPaddingExpectedException{
+	private void decodeProtocolVersionMinor(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPProtocolVersionException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.ProtocolVersionMinor, EnumType.Integer, al);
 		KMIPInteger value = decodeKMIPInteger(al);
 		if(value.getValue() != EnumStaticValues.ProtocolVersionMinor.getValue()){
@@ -273,24 +300,24 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		}
 	}
 	
-	private void decodeMaximumResponseSize(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeMaximumResponseSize(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.MaximumResponseSize, EnumType.Integer, al);
 		container.setMaximumResponseSize(decodeKMIPInteger(al));
 	}
 	
-	private void decodeAsynchronousIndicator(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeAsynchronousIndicator(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.AsynchronousIndicator, EnumType.Boolean, al);
 		container.setAsynchronousIndicator(decodeKMIPBoolean(al));
 	}
 		
-	private void decodeAuthentication(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException{
+	private void decodeAuthentication(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException{
 		checkTagAndType(EnumTag.Authentication, EnumType.Structure, al);
 		int length = decodeLength(al);
 		container.setAuthentication(new Authentication(decodeCredential(al.subList(TTL_SIZE, TTL_SIZE + length))));		
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private Credential decodeCredential(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException{
+	private Credential decodeCredential(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException{
 		checkTagAndType(EnumTag.Credential, EnumType.Structure, al);
 		Credential credential = new Credential();
 		int length = decodeLength(al);
@@ -300,12 +327,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return credential;
 	}
 	
-	private void decodeCredentialType(List<Byte> al, Credential credential) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
+	private void decodeCredentialType(KMIPByteList al, Credential credential) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.CredentialType, EnumType.Enumeration, al);
 		credential.setCredentialType(new EnumCredentialType(decodeKMIPEnumeration(al)));
 	}
 		
-	private void decodeCredentialValue(List<Byte> al, Credential credential) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException{
+	private void decodeCredentialValue(KMIPByteList al, Credential credential) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException{
 		if(credential.getCredentialType().getValue() == EnumCredentialType.UsernameAndPassword){
 			// Structure
 			checkTagAndType(EnumTag.CredentialValue, EnumType.Structure, al);
@@ -327,37 +354,37 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		}
 	}
 	
-	private void decodeUsername(List<Byte> al, Credential credential) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeUsername(KMIPByteList al, Credential credential) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.Username, EnumType.TextString, al);
 		credential.getCredentialValue().setUsername(decodeKMIPTextString(al));
 	}
 		
-	private void decodePassword(List<Byte> al, Credential credential) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodePassword(KMIPByteList al, Credential credential) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.Password, EnumType.TextString, al);
 		credential.getCredentialValue().setPassword(decodeKMIPTextString(al));
 	}
 	
-	private void docodeBatchErrorContinuation(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void docodeBatchErrorContinuation(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.BatchErrorContinuationOption, EnumType.Enumeration, al);
 		container.setBatchErrorContinuationOption(new EnumBatchError(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeBatchOrderOption(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeBatchOrderOption(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.BatchOrderOption, EnumType.Boolean, al);
 		container.setBatchOrderOption(decodeKMIPBoolean(al));
 	}
 
-	private void decodeTimeStamp(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeTimeStamp(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.TimeStamp, EnumType.DateTime, al);
 		container.setTimeStamp(decodeKMIPDateTime(al));
 	}
 	
-	private void decodeBatchCount(List<Byte> al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
+	private void decodeBatchCount(KMIPByteList al, KMIPContainer container) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.BatchCount, EnumType.Integer, al);
 		container.createBatches(decodeKMIPInteger(al).getValue());
 	}
 
-	private void decodeRequestBatchItem(List<Byte> al, KMIPBatch batch, boolean hasMultipleBatchItems) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException{
+	private void decodeRequestBatchItem(KMIPByteList al, KMIPBatch batch, boolean hasMultipleBatchItems) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.BatchItem, EnumType.Structure, al);
 		int length = decodeLength(al);
 		decodeOperation(al.subList(TTL_SIZE, TTL_SIZE + length), batch);
@@ -381,7 +408,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE; 
 	}
 	
-	private void decodeResponseBatchItem(List<Byte> al, KMIPBatch batch, boolean hasMultipleBatchItems) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException{
+	private void decodeResponseBatchItem(KMIPByteList al, KMIPBatch batch, boolean hasMultipleBatchItems) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.BatchItem, EnumType.Structure, al);
 		int length = decodeLength(al);
 		int offset = 0;
@@ -448,37 +475,37 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 	}
 	
 
-	private void decodeOperation(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
+	private void decodeOperation(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.Operation, EnumType.Enumeration, al);
 		batch.setOperation(new EnumOperation(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeUniqueBatchItemID(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException{
+	private void decodeUniqueBatchItemID(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.UniqueBatchItemID, EnumType.ByteString, al);
 		batch.setUniqueBatchItemID(decodeKMIPByteString(al));
 	}
 		
-	private void decodeResultStatus(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
+	private void decodeResultStatus(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.ResultStatus, EnumType.Enumeration, al);
 		batch.setResultStatus(new EnumResultStatus(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeResultReason(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeResultReason(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.ResultReason, EnumType.Enumeration, al);
 		batch.setResultReason(new EnumResultReason(decodeKMIPEnumeration(al)));	
 	}
 	
-	private void decodeResultMessage(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeResultMessage(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.ResultMessage, EnumType.TextString, al);
 		batch.setResultMessage(decodeKMIPTextString(al));
 	}
 	
-	private KMIPByteString decodeAsynchronousCorrelationValue(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private KMIPByteString decodeAsynchronousCorrelationValue(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.AsynchronousCorrelationValue, EnumType.ByteString, al);
 		return decodeKMIPByteString(al);
 	}
 	
-	private void decodePayload(int tag, List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodePayload(int tag, KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(tag, EnumType.Structure, al);
 		int length = decodeLength(al);
 		for(int i = TTL_SIZE; i < length; i += subItemLength){
@@ -487,7 +514,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 
-	private void decodePayloadElement(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException{
+	private void decodePayloadElement(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException{
 		int tag = decodeTag(al.subList(0, 3));
 		
 		switch(tag){
@@ -510,9 +537,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 			case EnumTag.AttributeName:
 				try{
 					KMIPTextString attributeName = decodeAttributeName(al);
-	                String className = attributeName.getValue().replaceAll("-", "");
-	                String classNameFinal = Character.toUpperCase(className.charAt(0)) + className.substring(1);
-	                Attribute  a = loadAttributeInstance(new KMIPTextString(classNameFinal));
+	                Attribute  a = loadAttributeInstance(attributeName);
 	                batch.addAttribute(a);
 				} catch(Exception e){
 					e.printStackTrace();
@@ -688,52 +713,52 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		}
 	}
 
-	private void decodeApplicationNamespace(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeApplicationNamespace(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkType(EnumTag.ApplicationNamespace, EnumType.TextString, al);
 		batch.addKMIPType(decodeKMIPTextString(al));
 	}
 	
-	private void decodeAttributeIndex(List<Byte> al, Attribute a) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeAttributeIndex(KMIPByteList al, Attribute a) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.AttributeIndex, EnumType.Integer, al);
 		a.setAttributeIndex(decodeKMIPInteger(al));
 	}
 	
-	private void decodeQueryOperation(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
+	private void decodeQueryOperation(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.Operation, EnumType.Enumeration, al);
 		batch.addAttribute(new QueryOperation(new EnumOperation(decodeKMIPEnumeration(al))));
 	}
 	
-	private void decodeQueryObjectType(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException{
+	private void decodeQueryObjectType(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException{
 		checkType(EnumTag.ObjectType, EnumType.Enumeration, al);
 		batch.addAttribute(new ObjectType(new EnumObjectType(decodeKMIPEnumeration(al))));
 	}
 	
-	private void decodeOffset(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeOffset(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkType(EnumTag.Offset, EnumType.Interval, al);
 		batch.addAttribute(new Offset(decodeKMIPInterval(al)));
 	}
 		
-	private void decodeLeaseTime(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeLeaseTime(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkType(EnumTag.LeaseTime, EnumType.Interval, al);
 		batch.addAttribute(new LeaseTime(decodeKMIPInterval(al)));
 	}
 	
-	private void decodeMaximumItems(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeMaximumItems(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.MaximumItems, EnumType.Integer, al);
 		batch.addAttribute(new MaximumItems(decodeKMIPInteger(al)));
 	}
 	
-	private void decodeKeyFormatType(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeKeyFormatType(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.KeyFormatType, EnumType.Enumeration, al);
 		batch.addKMIPType(new EnumKeyFormatType(decodeKMIPEnumeration(al)));
 	}
 	
-	private EnumKeyCompressionType decodeKeyCompressionType(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private EnumKeyCompressionType decodeKeyCompressionType(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.KeyCompressionType, EnumType.Enumeration, al);
 		return new EnumKeyCompressionType(decodeKMIPEnumeration(al));
 	}
 	
-	private void decodeKeyWrappingSpecification(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodeKeyWrappingSpecification(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.KeyWrappingSpecification, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KeyWrappingSpecification kws = new KeyWrappingSpecification();
@@ -776,12 +801,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private EnumWrappingMethod decodeWrappingMethod(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private EnumWrappingMethod decodeWrappingMethod(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.WrappingMethod, EnumType.Enumeration, al);
 		return new EnumWrappingMethod(decodeKMIPEnumeration(al));
 	}
 	
-	private EncryptionKeyInformation decodeEncryptionKeyInformation(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private EncryptionKeyInformation decodeEncryptionKeyInformation(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.EncryptionKeyInformation, EnumType.Structure, al);
 		int length = decodeLength(al);
 		EncryptionKeyInformation eki = new EncryptionKeyInformation();
@@ -798,7 +823,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return eki;
 	}
 	
-	private MACorSignatureKeyInformation decodeMACSignatureKeyInformation(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private MACorSignatureKeyInformation decodeMACSignatureKeyInformation(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.MACSignatureKeyInformation, EnumType.Structure, al);
 		int length = decodeLength(al);
 		MACorSignatureKeyInformation macSigKeyInfo = new MACorSignatureKeyInformation();
@@ -815,22 +840,22 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return macSigKeyInfo;
 	}
 		
-	private void decodeLastChangeDate(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
+	private void decodeLastChangeDate(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
 		checkTagAndType(EnumTag.LastChangeDate, EnumType.DateTime, al);
 		batch.addAttribute(new LastChangeDate(decodeKMIPDateTime(al)));
 	}
 	
-	private void decodeQueryFunction(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeQueryFunction(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.QueryFunction, EnumType.Enumeration, al);
 		batch.addAttribute(new QueryFunction(new EnumQueryFunction(decodeKMIPEnumeration(al))));	
 	}
 
-	private void decodeCompromiseOccurrenceDate(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
+	private void decodeCompromiseOccurrenceDate(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
 		checkTagAndType(EnumTag.CompromiseOccurrenceDate, EnumType.DateTime, al);
 		batch.addAttribute(new CompromiseOccurrenceDate(decodeKMIPDateTime(al)));
 	}
 	
-	private void decodeCommonTemplateAttribute(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodeCommonTemplateAttribute(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.CommonTemplateAttribute, EnumType.Structure, al);
 		int length = decodeLength(al);
 		CommonTemplateAttribute cta = new CommonTemplateAttribute();
@@ -839,17 +864,17 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeCryptographicUsageMask(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeCryptographicUsageMask(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.CryptographicUsageMask, EnumType.Integer, al);
 		batch.addAttribute(new CryptographicUsageMask(decodeKMIPInteger(al)));
 	}
 	
-	private void decodeDerivationMethod(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeDerivationMethod(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.DerivationMethod, EnumType.Enumeration, al);
 		batch.addKMIPType(new EnumDerivationMethod(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeDerivationParameters(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodeDerivationParameters(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.DerivationParameters, EnumType.Structure, al);
 		int length = decodeLength(al);
 		DerivationParameters dp = new DerivationParameters();
@@ -908,7 +933,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private CryptographicParameters decodeCryptographicParameters(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private CryptographicParameters decodeCryptographicParameters(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.CryptographicParameters, EnumType.Structure, al);
 		int length = decodeLength(al);
 		CryptographicParameters cp = new CryptographicParameters();
@@ -941,47 +966,47 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return cp;
 	}
 	
-	private void decodeBlockCipherMode(List<Byte> al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeBlockCipherMode(KMIPByteList al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.BlockCipherMode, EnumType.Enumeration, al);
 		cp.setBlockCipherMode(new EnumBlockCipherMode(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodePaddingMethod(List<Byte> al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodePaddingMethod(KMIPByteList al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.PaddingMethod, EnumType.Enumeration, al);
 		cp.setPaddingMethod(new EnumPaddingMethod(decodeKMIPEnumeration(al))); 
 	}
 	
-	private void decodeHashingAlgorithm(List<Byte> al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeHashingAlgorithm(KMIPByteList al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.HashingAlgorithm, EnumType.Enumeration, al);
 		cp.setHashingAlgorithm(new EnumHashingAlgorithm(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeKeyRoleType(List<Byte> al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeKeyRoleType(KMIPByteList al, CryptographicParameters cp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.KeyRoleType, EnumType.Enumeration, al);
 		cp.setKeyRoleType(new EnumKeyRoleType(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeInitializationVector(List<Byte> al, DerivationParameters dp) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeInitializationVector(KMIPByteList al, DerivationParameters dp) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.InitializationVector, EnumType.ByteString, al);
 		dp.setInitializationVector(decodeKMIPByteString(al));
 	}
 	
-	private void decodeDerivationData(List<Byte> al, DerivationParameters dp) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeDerivationData(KMIPByteList al, DerivationParameters dp) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.DerivationData, EnumType.ByteString, al);
 		dp.setDerivationData(decodeKMIPByteString(al));		
 	}
 	
-	private void decodeSalt(List<Byte> al, DerivationParameters dp) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeSalt(KMIPByteList al, DerivationParameters dp) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.Salt, EnumType.ByteString, al);
 		dp.setSalt(decodeKMIPByteString(al));		
 	}
 	
-	private void decodeIterationCount(List<Byte> al, DerivationParameters dp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeIterationCount(KMIPByteList al, DerivationParameters dp) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.IterationCount, EnumType.Integer, al);
 		dp.setIterationCount(decodeKMIPInteger(al));
 	}
 		
-	private void decodePrivateKeyTemplateAttribute(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodePrivateKeyTemplateAttribute(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.PrivateKeyTemplateAttribute, EnumType.Structure, al);
 		int length = decodeLength(al);
 		PrivateKeyTemplateAttribute pkta = new PrivateKeyTemplateAttribute();
@@ -990,7 +1015,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodePublicKeyTemplateAttribute(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodePublicKeyTemplateAttribute(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.PublicKeyTemplateAttribute, EnumType.Structure, al);
 		int length = decodeLength(al);
 		PublicKeyTemplateAttribute pkta = new PublicKeyTemplateAttribute();
@@ -999,12 +1024,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodePutFunction(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodePutFunction(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.PutFunction, EnumType.Enumeration, al);
 		batch.addKMIPType(new EnumPutFunction(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeTemplateAttribute(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeTemplateAttribute(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.TemplateAttribute, EnumType.Structure, al);
 		int length = decodeLength(al);
 		TemplateAttribute ta = new TemplateAttribute();
@@ -1013,7 +1038,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeTemplateAttributeStructure(List<Byte> al, TemplateAttributeStructure tas, int length) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeTemplateAttributeStructure(KMIPByteList al, TemplateAttributeStructure tas, int length) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		for(int i=TTL_SIZE; i<=length; i+=subItemLength){	
 			if(decodeTag(al.subList(i, i + TAG_SIZE)) == EnumTag.Name){
 				decodeName(al.subList(i, TTL_SIZE + length), tas);
@@ -1025,12 +1050,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		}
 	}
 	
-	private void decodeObjectType(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException{
+	private void decodeObjectType(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException{
 		checkType(EnumTag.ObjectType, EnumType.Enumeration, al);
 		batch.addAttribute(new ObjectType((KMIPEnumeration) new EnumObjectType(decodeKMIPEnumeration(al))));
 	}
 	
-	private void decodeRevocationReason(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException, UnsupportedEncodingException {
+	private void decodeRevocationReason(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException, UnsupportedEncodingException {
 		checkTagAndType(EnumTag.RevocationReason, EnumType.Structure, al);
 		int length = decodeLength(al);
 		RevocationReason rr = new RevocationReason();
@@ -1044,34 +1069,34 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE; 
 	}
 	
-	private void decodeRevocationReasonCode(List<Byte> al, RevocationReason rr) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeRevocationReasonCode(KMIPByteList al, RevocationReason rr) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkType(EnumTag.RevocationReasonCode, EnumType.Enumeration, al);
 		rr.setValue(Integer.toString(decodeKMIPEnumeration(al)), "RevocationReasonCode");	
 	}
 
-	private void decodeRevocationMessage(List<Byte> al, RevocationReason rr) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeRevocationMessage(KMIPByteList al, RevocationReason rr) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkType(EnumTag.RevocationMessage, EnumType.TextString, al);
 		rr.setValue(decodeKMIPTextString(al).getValue(), "RevocationMessage");
 	}
 	
-	private void decodeReplacedUniqueIdentifier(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, UnsupportedEncodingException{
+	private void decodeReplacedUniqueIdentifier(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, UnsupportedEncodingException{
 		checkType(EnumTag.ReplacedUniqueIdentifier, EnumType.TextString, al);
 		batch.addAttribute(new ReplacedUniqueIdentifier(decodeKMIPTextString(al)));
 	}
 	
-	private UniqueIdentifier decodeUniqueIdentifier(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, UnsupportedEncodingException{
+	private UniqueIdentifier decodeUniqueIdentifier(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, UnsupportedEncodingException{
 		checkType(EnumTag.UniqueIdentifier, EnumType.TextString, al);
 		return new UniqueIdentifier(decodeKMIPTextString(al));
 	}
 		
-	private void decodeUsageLimitsCount(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
+	private void decodeUsageLimitsCount(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
 		checkTagAndType(EnumTag.UsageLimitsCount, EnumType.LongInteger, al);
 		UsageLimits usageLimits = new UsageLimits();
 		usageLimits.setUsageLimitsCount(decodeKMIPLongInteger(al));
 		batch.addAttribute(usageLimits);
 	}
 		
-	private void decodeName(List<Byte> al, TemplateAttributeStructure tas) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException{
+	private void decodeName(KMIPByteList al, TemplateAttributeStructure tas) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, UnsupportedEncodingException{
 		checkTagAndType(EnumTag.Name, EnumType.Structure, al);
 		int length = decodeLength(al);
 		Name name = new Name();
@@ -1081,17 +1106,17 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE; 
 	}
 	
-	private void decodeNameValue(List<Byte> al, Name name) throws UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeNameValue(KMIPByteList al, Name name) throws UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.NameValue, EnumType.TextString, al);
 		name.setValue(decodeKMIPTextString(al).getValue(), "NameValue");
 	}
 	
-	private void decodeNameType(List<Byte> al, Name name) throws UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeNameType(KMIPByteList al, Name name) throws UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.NameType, EnumType.Enumeration, al); 		
 		name.setValue(Integer.toString(decodeKMIPEnumeration(al)), "NameType");
 	}
 	
-	private void decodeTemplate(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeTemplate(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.Template, EnumType.Structure, al);
 		int length = decodeLength(al);
 		Template template = new Template();
@@ -1102,7 +1127,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeSecretData(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodeSecretData(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.SecretData, EnumType.Structure, al);
 		int length = decodeLength(al);
 		SecretData sd = new SecretData();
@@ -1118,17 +1143,17 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;	
 	}
 	
-	private void decodeSecretDataType(List<Byte> al, SecretData sd) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeSecretDataType(KMIPByteList al, SecretData sd) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.SecretDataType, EnumType.Enumeration, al);
 		sd.setSecretDataType(new EnumSecretDataType(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeServerInformation(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeServerInformation(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.VendorIdentification, EnumType.TextString, al);
 		batch.addKMIPType(decodeKMIPTextString(al));
 	}
 	
-	private void decodeCertificate(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeCertificate(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.Certificate, EnumType.Structure, al);
 		int length = decodeLength(al);
 		Certificate cert = new Certificate();
@@ -1139,32 +1164,32 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeCertificateType(List<Byte> al, Certificate cert) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeCertificateType(KMIPByteList al, Certificate cert) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.CertificateType, EnumType.Enumeration, al);
 		cert.setCertificateType(new EnumCertificateType(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeCertificateValue(List<Byte> al, Certificate cert) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeCertificateValue(KMIPByteList al, Certificate cert) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.CertificateValue, EnumType.ByteString, al);
 		cert.setCertificateValue(decodeKMIPByteString(al));		
 	}
 	
-	private void decodeCertificateRequestType(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeCertificateRequestType(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.CertificateRequestType, EnumType.Enumeration, al);
 		batch.addKMIPType(new EnumCertificateRequestType(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeCertificateRequest(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeCertificateRequest(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.CertificateRequest, EnumType.ByteString, al);
 		batch.addAttribute(new CertificateRequest(decodeKMIPByteString(al)));		
 	}
 	
-	private void decodeCancellationResult(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeCancellationResult(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.CancellationResult, EnumType.Enumeration, al);
 		batch.addKMIPType(new EnumCancellationResult(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeOpaqueObject(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeOpaqueObject(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.OpaqueObject, EnumType.Structure, al);
 		int length = decodeLength(al);
 		OpaqueObject opaque = new OpaqueObject();
@@ -1175,17 +1200,17 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 
-	private void decodeOpaqueDataType(List<Byte> al, OpaqueObject opaque) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeOpaqueDataType(KMIPByteList al, OpaqueObject opaque) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.CertificateType, EnumType.Enumeration, al);
 		opaque.setOpaqueDataType(new EnumOpaqueDataType(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeOpaqueDataValue(List<Byte> al, OpaqueObject opaque) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeOpaqueDataValue(KMIPByteList al, OpaqueObject opaque) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.CertificateValue, EnumType.ByteString, al);
 		opaque.setOpaqueDataValue(decodeKMIPByteString(al));	
 	}
 	
-	private void decodeSplitKey(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeSplitKey(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.SplitKey, EnumType.Structure, al);
 		int length = decodeLength(al);
 		SplitKey splitKey = new SplitKey();
@@ -1214,37 +1239,37 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 
-	private void decodeSplitKeyParts(List<Byte> al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeSplitKeyParts(KMIPByteList al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.SplitKeyParts, EnumType.Integer, al);   
         splitKey.setSplitKeyParts(decodeKMIPInteger(al));
 	}
 	
-	private void decodeKeyPartIdentifier(List<Byte> al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeKeyPartIdentifier(KMIPByteList al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.KeyPartIdentifier, EnumType.Integer, al);
         splitKey.setKeyPartIdentifier(decodeKMIPInteger(al));
 	}
 	
-	private void decodeSplitKeyThreshold(List<Byte> al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeSplitKeyThreshold(KMIPByteList al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.SplitKeyThreshold, EnumType.Integer, al);
         splitKey.setSplitKeyThreshhosd(decodeKMIPInteger(al));
 	}
 	
-	private void decodeSplitKeyMethod(List<Byte> al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private void decodeSplitKeyMethod(KMIPByteList al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.SplitKeyMethod, EnumType.Enumeration, al);
         splitKey.setSplitKeyMethod(new EnumSplitKeyMethod(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodePrimeFieldSize(List<Byte> al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private void decodePrimeFieldSize(KMIPByteList al, SplitKey splitKey) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.PrimeFieldSize, EnumType.BigInteger, al);
         splitKey.setPrimeFieldSize(decodeKMIPBigInteger(al));
 	}
 	
-	private void decodeStorageStatusMask(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private void decodeStorageStatusMask(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.StorageStatusMask, EnumType.Integer, al);
 		batch.addAttribute(new StorageStatusMask(decodeKMIPInteger(al)));
 	}
 	
-	private void decodeSymmetricKey(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodeSymmetricKey(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.SymmetricKey, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KeyBlock keyBlock = decodeKeyBlock(al.subList(TTL_SIZE, TTL_SIZE + length));
@@ -1252,7 +1277,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodePrivateKey(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodePrivateKey(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.PrivateKey, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KeyBlock keyBlock = decodeKeyBlock(al.subList(TTL_SIZE, TTL_SIZE + length));
@@ -1260,7 +1285,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodePublicKey(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private void decodePublicKey(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.PublicKey, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KeyBlock keyBlock = decodeKeyBlock(al.subList(TTL_SIZE, TTL_SIZE + length));
@@ -1268,7 +1293,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private KeyBlock decodeKeyBlock(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private KeyBlock decodeKeyBlock(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.KeyBlock, EnumType.Structure, al);
 		int length = decodeLength(al);
 
@@ -1293,12 +1318,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return keyBlock;
 	}
 	
-	private void decodeKeyFormatType(List<Byte> al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private void decodeKeyFormatType(KMIPByteList al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.KeyFormatType, EnumType.Enumeration, al);
         keyBlock.setKeyFormatType(new EnumKeyFormatType(decodeKMIPEnumeration(al)));
 	}
 	
-	private void decodeKeyWrappingData(List<Byte> al, KeyBlock keyBlock) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
+	private void decodeKeyWrappingData(KMIPByteList al, KeyBlock keyBlock) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException {
 		checkTagAndType(EnumTag.KeyWrappingData, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KeyWrappingData kwd = new KeyWrappingData();
@@ -1348,17 +1373,17 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private KMIPByteString decodeMACSignature(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private KMIPByteString decodeMACSignature(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.MACSignature, EnumType.ByteString, al);
 		return decodeKMIPByteString(al);
 	}
 	
-	private KMIPByteString decodeIVCounterNonce(List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private KMIPByteString decodeIVCounterNonce(KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.IVCounterNonce, EnumType.ByteString, al);
 		return decodeKMIPByteString(al);
 	}
 	
-	private void decodeKeyValue(List<Byte> al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPUnexpectedAttributeNameException, UnsupportedEncodingException {
+	private void decodeKeyValue(KMIPByteList al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPUnexpectedAttributeNameException, UnsupportedEncodingException {
 		checkTagAndType(EnumTag.KeyValue, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KeyValue keyValue = new KeyValue();
@@ -1375,7 +1400,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
 	
-	private void decodeKeyMaterial(List<Byte> al, KeyValue keyValue, EnumKeyFormatType keyFormatType) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException {
+	private void decodeKeyMaterial(KMIPByteList al, KeyValue keyValue, EnumKeyFormatType keyFormatType) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException {
 		checkTag(EnumTag.KeyMaterial, al);
 		int type = decodeType(al.get(3));
 	
@@ -1400,15 +1425,15 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 	}
 	
 	// Not tested yet
-	private TransparentKeyStructure decodeKeyMaterialStructure(List<Byte> al, EnumKeyFormatType keyFormatType, int length) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException{
+	private TransparentKeyStructure decodeKeyMaterialStructure(KMIPByteList al, EnumKeyFormatType keyFormatType, int length) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException{
 		TransparentKeyStructure tks = new TransparentKeyStructure(keyFormatType);
 		decodeTransparentKeyStructureParameters(al, tks, length);		
 		return tks;
 	}
 	
 	// Not tested yet
-	private void decodeTransparentKeyStructureParameters(List<Byte> al, TransparentKeyStructure tks, int length) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException, UnsupportedEncodingException {
-		List<Byte> subAl;
+	private void decodeTransparentKeyStructureParameters(KMIPByteList al, TransparentKeyStructure tks, int length) throws KMIPUnexpectedTypeException, KMIPPaddingExpectedException, KMIPUnexpectedTagException, UnsupportedEncodingException {
+		KMIPByteList subAl;
 		int tag; 
 		for(int i=TTL_SIZE; i<=length; i+=subItemLength){	
 			subAl = al.subList(i, TTL_SIZE + length);
@@ -1481,95 +1506,95 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		}
 	}
 		
-	private KMIPBigInteger decodeModulus(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeModulus(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.Modulus, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodePrivateExponent(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodePrivateExponent(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.PrivateExponent, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodePublicExponent(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodePublicExponent(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.PublicExponent, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodeP(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeP(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.P, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodeQ(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeQ(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.Q, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodeG(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeG(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.G, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodeJ(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeJ(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.J, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodeX(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeX(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.X, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodeY(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeY(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.Y, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodePrimeExponentP(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodePrimeExponentP(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.PrimeExponentP, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPBigInteger decodePrimeExponentQ(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodePrimeExponentQ(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.PrimeExponentQ, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 		
-	private KMIPBigInteger decodeCRTCoefficient(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeCRTCoefficient(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.CRTCoefficient, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private EnumRecommendedCurve decodeRecommendedCurve(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private EnumRecommendedCurve decodeRecommendedCurve(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.RecommendedCurve, EnumType.Enumeration, al);
 		return new EnumRecommendedCurve(decodeKMIPEnumeration(al));	
 	}
 	
-	private KMIPBigInteger decodeD(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
+	private KMIPBigInteger decodeD(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException {
 		checkType(EnumTag.D, EnumType.BigInteger, al);
 		return decodeKMIPBigInteger(al);
 	}
 	
-	private KMIPByteString decodeQString(List<Byte> al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException {
+	private KMIPByteString decodeQString(KMIPByteList al) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException {
 		checkType(EnumTag.QString, EnumType.ByteString, al);
 		return decodeKMIPByteString(al);
 	}
 	
-	private void decodeCryptographicAlgorithm(List<Byte> al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeCryptographicAlgorithm(KMIPByteList al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.CryptographicAlgorithm, EnumType.Enumeration, al);
         CryptographicAlgorithm cryptographicAlgorithm = new CryptographicAlgorithm(new EnumCryptographicAlgorithm(decodeKMIPEnumeration(al)));
         keyBlock.setCryptographicAlgorithm(cryptographicAlgorithm);
 	}
 	
-	private void decodeCryptographicLength(List<Byte> al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
+	private void decodeCryptographicLength(KMIPByteList al, KeyBlock keyBlock) throws KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedTagException{
 		checkTagAndType(EnumTag.CryptographicLength, EnumType.Integer, al);
         CryptographicLength cryptographicLength = new CryptographicLength(decodeKMIPInteger(al));
         keyBlock.setCryptographicLength(cryptographicLength);
 	}
 
 
-	private Attribute decodeAttribute(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
+	private Attribute decodeAttribute(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedAttributeNameException{
 		checkTagAndType(EnumTag.Attribute, EnumType.Structure, al);
 		int length = decodeLength(al);
 		KMIPTextString attributeName = decodeAttributeName(al.subList(TTL_SIZE, TTL_SIZE+length));
@@ -1578,12 +1603,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return a;
 	}
 	
-	private KMIPTextString decodeAttributeName(List<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException{
+	private KMIPTextString decodeAttributeName(KMIPByteList al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, UnsupportedEncodingException, KMIPPaddingExpectedException{
 		checkTagAndType(EnumTag.AttributeName, EnumType.TextString, al);
 		return decodeKMIPTextString(al);
 	}
 	
-    private Attribute decodeAttributeValue(List<Byte> al, KMIPTextString attributeName) throws KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedAttributeNameException, UnsupportedEncodingException{
+    private Attribute decodeAttributeValue(KMIPByteList al, KMIPTextString attributeName) throws KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPUnexpectedTypeException, KMIPUnexpectedAttributeNameException, UnsupportedEncodingException{
     	checkTag(EnumTag.AttributeValue, al);
  
 		int type = decodeType(al.get(3));
@@ -1617,33 +1642,21 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		} else if (type == EnumType.Enumeration) {
 
 			int value = decodeEnumeration(al, length);
-			String enumName = "Enum" + attributeName.getValue().replaceAll("\\s", "");
-
-			try {
-				Class<?> enumClass = Class.forName(ENUM_LOCATION + enumName);
-				Constructor<?> enumClassConstructor = enumClass.getConstructor(Integer.TYPE);
-				KMIPEnumeration enumeration = (KMIPEnumeration) enumClassConstructor.newInstance(value);
-
-				Class<?> retClass = Class.forName(ATTRIBUTE_LOCATION + attributeName.getValue().replaceAll("\\s", ""));
-				Constructor<?> attributeConstructor = retClass.getConstructor(KMIPType.class);
-				Attribute retAttrib = (Attribute) attributeConstructor.newInstance(enumeration);
-
-				return retAttrib;
-			} catch (Exception e) {
+			Attribute retAttrib = newEnumerationAttribute(attributeName.getValue(), value);
+			if (retAttrib == null) {
 				throw new KMIPUnexpectedAttributeNameException("Unexpected Attribute: " + attributeName.getValue());
 			}
+			return retAttrib;
 
 		} else if (type == EnumType.TextString) {
 			int paddingLength = getPaddingLength(length);
 			String value = decodeTextString(al.subList(TTL_SIZE, TTL_SIZE + length + paddingLength),paddingLength).toString();
 
 			try {
-				String className = attributeName.getValue().replaceAll("-", "");
-				String classNameFinal = Character.toUpperCase(className.charAt(0)) + className.substring(1);
-				Attribute a = loadAttributeInstance(new KMIPTextString(classNameFinal));
+				Attribute a = loadAttributeInstance(attributeName);
 				a.setValue(value, null);
 				if (a.getAttributeType() != type) {
-					throw new KMIPUnexpectedTypeException(className, a.getValues()[0].getTypeAsEnumType().getKey());
+					throw new KMIPUnexpectedTypeException(attributeName.getValue(), a.getValues()[0].getTypeAsEnumType().getKey());
 				}
 				return a;
 			} catch (Exception e) {
@@ -1669,7 +1682,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
     
 
   
-    private void decodeValueStructure(List<Byte> al, Attribute a) throws KMIPPaddingExpectedException, UnsupportedEncodingException{
+    private void decodeValueStructure(KMIPByteList al, Attribute a) throws KMIPPaddingExpectedException, UnsupportedEncodingException{
     	EnumTag tag = new EnumTag(decodeTag(al.subList(0, 3)));
     	EnumType type = new EnumType(decodeType(al.get(3)));
     	int length = decodeLength(al);
@@ -1700,7 +1713,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
     	// Other KMIPTypes for ValueStructure come here
     }
     
-	private void decodeMessageExtension(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeMessageExtension(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.MessageExtension, EnumType.Structure, al);
 		int length = decodeLength(al);
 		MessageExtension me = new MessageExtension();
@@ -1714,17 +1727,17 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		subItemLength = length + TTL_SIZE;
 	}
     
-	private KMIPTextString decodeVendorIdentification(List<Byte> al) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
+	private KMIPTextString decodeVendorIdentification(KMIPByteList al) throws KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException, KMIPUnexpectedTagException {
 		checkTagAndType(EnumTag.VendorIdentification, EnumType.TextString, al);
 		return decodeKMIPTextString(al);
 	}
 	
-	private void decodeCriticalityIndicator(List<Byte> al, MessageExtension me) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeCriticalityIndicator(KMIPByteList al, MessageExtension me) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.CriticalityIndicator, EnumType.Boolean, al);
 		me.setCriticalityIndicator(decodeKMIPBoolean(al));
 	}
 	
-	private void decodeVendorExtension(List<Byte> al, MessageExtension me) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeVendorExtension(KMIPByteList al, MessageExtension me) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, UnsupportedEncodingException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.VendorExtension, EnumType.Structure, al);
 		int length = decodeLength(al);
 		decodeExtension(al, me);
@@ -1732,7 +1745,7 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 	}
 	
 
-	private void decodeExtension(List<Byte> al, MessageExtension me) throws UnsupportedEncodingException, KMIPPaddingExpectedException {
+	private void decodeExtension(KMIPByteList al, MessageExtension me) throws UnsupportedEncodingException, KMIPPaddingExpectedException {
 		int tag = decodeTag(al);
 		EnumType type =  new EnumType(decodeType(al.get(3)));
 		int length = decodeLength(al);
@@ -1752,12 +1765,12 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		me.setVendorExtension(ve);
 	}
 	
-	private void decodeValidityDate(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
+	private void decodeValidityDate(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException {
 		checkTagAndType(EnumTag.ValidityDate, EnumType.DateTime, al);
 		batch.addAttribute(new ValidityDate(decodeKMIPDateTime(al)));
 	}
 	
-	private void decodeValidityIndicator(List<Byte> al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
+	private void decodeValidityIndicator(KMIPByteList al, KMIPBatch batch) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException, KMIPPaddingExpectedException {
 		checkTagAndType(EnumTag.ValidityIndicator, EnumType.Enumeration, al);
 		batch.addKMIPType(new EnumValidityIndicator(decodeKMIPEnumeration(al)));
 	}
@@ -1765,19 +1778,19 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 
 ///////////////////////////////////////////////////////////// Supporting Methods
     
-	private void checkTag(int tag, List<Byte> al) throws KMIPUnexpectedTagException{
+	private void checkTag(int tag, KMIPByteList al) throws KMIPUnexpectedTagException{
 		if(!(decodeTag(al.subList(0, 3)) == tag)){
 			throw new KMIPUnexpectedTagException(new EnumTag(tag).getKey());
 		}
 	}
 	
-	private void checkType(int tag, int type, List<Byte> al) throws KMIPUnexpectedTypeException{
+	private void checkType(int tag, int type, KMIPByteList al) throws KMIPUnexpectedTypeException{
 		if(!(decodeType(al.get(3)) == type)){
 			throw new KMIPUnexpectedTypeException(new EnumTag(tag).getKey(), new EnumType(type).getKey());
 		} 
 	}
     
-	private void checkTagAndType(int tag, int type, List<Byte> al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException{
+	private void checkTagAndType(int tag, int type, KMIPByteList al) throws KMIPUnexpectedTagException, KMIPUnexpectedTypeException{
 		if(!(decodeTag(al.subList(0, 3)) == tag)){
 			throw new KMIPUnexpectedTagException(new EnumTag(tag).getKey());
 		}
@@ -1786,122 +1799,94 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		} 
 	}
     
-	private int decodeTag(List<Byte> al) {
-		int tag = al.get(2) >= 0 ? al.get(2) : al.get(2) + 256;
-		tag += al.get(1) >= 0 ? al.get(1) << 8 : (al.get(1) + 256) << 8;
-		tag += al.get(0) >= 0 ? al.get(0) << 16 : (al.get(0) + 256) << 16;
-		return tag;
+	private int decodeTag(KMIPByteList al) {
+		return (al.getUnsignedByte(0) << 16) | (al.getUnsignedByte(1) << 8) | al.getUnsignedByte(2);
 	}
 	
-	private int decodeType(Byte b) {		
-		return b >= 0 ? b : b + 256;
+	private int decodeType(byte b) {		
+		return b & 0xFF;
 	}
 	
-	private int decodeLength(List<Byte> al) {
-		int len = al.get(7) >= 0 ? al.get(7) : al.get(7) + 256;
-		len += al.get(6) >= 0 ? al.get(6) << 8 : (al.get(6) + 256) << 8;
-		len += al.get(5) >= 0 ? al.get(5) << 16 : (al.get(5) + 256) << 16;
-		len += al.get(4) >= 0 ? al.get(4) << 24 : (al.get(4) + 256) << 24;
-		return len;
+	private int decodeLength(KMIPByteList al) {
+		return al.getInt(4);
 	}
 	
-	private KMIPInteger decodeKMIPInteger(List<Byte> al) throws KMIPPaddingExpectedException{
+	private KMIPInteger decodeKMIPInteger(KMIPByteList al) throws KMIPPaddingExpectedException{
 		int length = decodeLength(al);
 		subItemLength = length + PADDING_SIZE_INT + TTL_SIZE; 
 		return new KMIPInteger(decodeInteger(al, length));
 	}
 	
-	private int decodeInteger(List<Byte> al, int length) throws KMIPPaddingExpectedException { 	
-		List<Byte> subal = al.subList(TTL_SIZE,	TTL_SIZE + PADDING_SIZE_INT + length);
-		int val = subal.get(3) >= 0 ? subal.get(3) : subal.get(3) + 256;
-		val += subal.get(2) >= 0 ? subal.get(2) << 8 : (subal.get(2) + 256) << 8;
-		val += subal.get(1) >= 0 ? subal.get(1) << 16 : (subal.get(1) + 256) << 16;
-		val += subal.get(0) >= 0 ? subal.get(0) << 24 : (subal.get(0) + 256) << 24;
-		
-		if(subal.get(4) != 0 || subal.get(5) != 0 || subal.get(6) != 0 || subal.get(7) != 0){
+	private int decodeInteger(KMIPByteList al, int length) throws KMIPPaddingExpectedException { 	
+		int val = al.getInt(TTL_SIZE);
+		if(al.getInt(TTL_SIZE + length) != 0){
 			throw new KMIPPaddingExpectedException();
 		}
 		return val;
 	}
 	
-	private KMIPBigInteger decodeKMIPBigInteger(List<Byte> al){
+	private KMIPBigInteger decodeKMIPBigInteger(KMIPByteList al){
 		int length = decodeLength(al);
 		subItemLength = length + TTL_SIZE;
         return decodeBigInteger(al, length);
 	}
 	
-	private KMIPDateTime decodeKMIPDateTime(List<Byte> al){
+	private KMIPDateTime decodeKMIPDateTime(KMIPByteList al){
 		int length = decodeLength(al);
 		subItemLength = length + TTL_SIZE; 
 		return new KMIPDateTime(decodeLong(al.subList(TTL_SIZE, TTL_SIZE + length)));
 	}
 	
-	private KMIPLongInteger decodeKMIPLongInteger(List<Byte> al){
+	private KMIPLongInteger decodeKMIPLongInteger(KMIPByteList al){
 		int length = decodeLength(al);
 		subItemLength = length + TTL_SIZE; 
 		return new KMIPLongInteger(decodeLong(al.subList(TTL_SIZE, TTL_SIZE + length)));
 	}
 	
-	private long decodeLong(List<Byte> al) { 			
-		long val = al.get(7) >= 0 ? (long) al.get(7) : (long)al.get(7) + 256;
-		val += al.get(6) >= 0 ? (long)al.get(6) << 8 : (long)(al.get(6) + 256) << 8;
-		val += al.get(5) >= 0 ? (long)al.get(5) << 16 : (long)(al.get(5) + 256) << 16;
-		val += al.get(4) >= 0 ? (long)al.get(4) << 24 : (long)(al.get(4) + 256) << 24;
-		val += al.get(3) >= 0 ? (long)al.get(3) << 32 : (long)(al.get(3) + 256) << 32;
-		val += al.get(2) >= 0 ? (long)al.get(2) << 40 : (long)(al.get(2) + 256) << 40;
-		val += al.get(1) >= 0 ? (long)al.get(1) << 48 : (long)(al.get(1) + 256) << 48;
-		val += al.get(0) >= 0 ? (long)al.get(0) << 56 : (long)(al.get(0) + 256) << 56;
-		return val;
+	private long decodeLong(KMIPByteList al) { 			
+		return al.getLong(0);
 	}
 	
-	private KMIPInterval decodeKMIPInterval(List<Byte> al) throws KMIPPaddingExpectedException{
+	private KMIPInterval decodeKMIPInterval(KMIPByteList al) throws KMIPPaddingExpectedException{
 		int length = decodeLength(al);
 		long value = decodeInterval(al, length);
 		subItemLength = length + PADDING_SIZE_INT + TTL_SIZE; 
 		return new KMIPInterval(value);
 	}
 	
-	private long decodeInterval(List<Byte> al, int length) throws KMIPPaddingExpectedException { 	
+	private long decodeInterval(KMIPByteList al, int length) throws KMIPPaddingExpectedException { 	
 		return decodeInteger(al, length);
 	}
 	
-	private int decodeKMIPEnumeration(List<Byte> al) throws KMIPPaddingExpectedException{
+	private int decodeKMIPEnumeration(KMIPByteList al) throws KMIPPaddingExpectedException{
 		int length = decodeLength(al);
 		subItemLength = length + PADDING_SIZE_ENUM + TTL_SIZE;
 		return decodeEnumeration(al, length);
 	}
 	
-	private int decodeEnumeration(List<Byte> al, int length) throws KMIPPaddingExpectedException{    
+	private int decodeEnumeration(KMIPByteList al, int length) throws KMIPPaddingExpectedException{    
 		return decodeInteger(al, length);
 	}
 	
-	private KMIPBoolean decodeKMIPBoolean(List<Byte> al){
+	private KMIPBoolean decodeKMIPBoolean(KMIPByteList al){
 		int length = decodeLength(al);
 		subItemLength = length + TTL_SIZE; 
 		return new KMIPBoolean(decodeBoolean(al.subList(TTL_SIZE, TTL_SIZE + length)));
 	}
 	
-	private long decodeBoolean(List<Byte> al){
+	private long decodeBoolean(KMIPByteList al){
 		return decodeLong(al);
 	}
 	
-	private KMIPTextString decodeKMIPTextString(List<Byte> al) throws UnsupportedEncodingException, KMIPPaddingExpectedException{
+	private KMIPTextString decodeKMIPTextString(KMIPByteList al) throws UnsupportedEncodingException, KMIPPaddingExpectedException{
 		int length = decodeLength(al);
 		int paddingLength = getPaddingLength(length);
 		subItemLength = length + TTL_SIZE + paddingLength; 
 		return decodeTextString(al.subList(TTL_SIZE, TTL_SIZE + length + paddingLength), paddingLength);
 	}
 	
-	private KMIPTextString decodeTextString(List<Byte> al, int paddingLength) throws KMIPPaddingExpectedException, UnsupportedEncodingException{		
-		byte[] b = new byte[al.size()-paddingLength];
-		for(int i = 0; i<b.length; i++){
-			b[i] = al.get(i);
-		}
-		for(int i = (al.size()-paddingLength); i < b.length; i++){
-			if(al.get(i) != 0){
-				throw new KMIPPaddingExpectedException();
-			}
-		}
+	private KMIPTextString decodeTextString(KMIPByteList al, int paddingLength) throws KMIPPaddingExpectedException, UnsupportedEncodingException{		
+		byte[] b = al.getBytes(0, al.size() - paddingLength);
 		return new KMIPTextString(new String(b , "UTF-8"));
 	}
 	
@@ -1914,45 +1899,57 @@ public class KMIPDecoder implements KMIPDecoderInterface{
 		return 0;
 	}	
 	
-	private KMIPByteString decodeKMIPByteString(List<Byte> al) throws UnsupportedEncodingException, KMIPPaddingExpectedException{
+	private KMIPByteString decodeKMIPByteString(KMIPByteList al) throws UnsupportedEncodingException, KMIPPaddingExpectedException{
 		int length = decodeLength(al);
 		int paddingLength = getPaddingLength(length);
-		subItemLength = length + TTL_SIZE;
+		subItemLength = length + TTL_SIZE + paddingLength;
 		return decodeByteString(al.subList(TTL_SIZE, TTL_SIZE + length + paddingLength), paddingLength);
 	}
 	
-	private KMIPByteString decodeByteString(List<Byte> al, int paddingLength) throws KMIPPaddingExpectedException, UnsupportedEncodingException{		
-		byte[] b = new byte[al.size()-paddingLength];
-		for(int i = 0; i<b.length; i++){
-			b[i] = al.get(i);
-		}
-		for(int i = (al.size()-paddingLength); i < b.length; i++){
-			if(al.get(i) != 0){
-				throw new KMIPPaddingExpectedException();
-			}
-		}
-		return new KMIPByteString(b);
+	private KMIPByteString decodeByteString(KMIPByteList al, int paddingLength) throws KMIPPaddingExpectedException, UnsupportedEncodingException{		
+		return new KMIPByteString(al.getBytes(0, al.size() - paddingLength));
 	}
 	
-	private KMIPBigInteger decodeBigInteger(List<Byte> al, int length){		
-		return new KMIPBigInteger((ArrayList<Byte>) al);
+	private KMIPBigInteger decodeBigInteger(KMIPByteList al, int length){		
+		return new KMIPBigInteger(new ArrayList<Byte>(al.subList(TTL_SIZE, TTL_SIZE + length)));
 	}
 	
 	
     private Attribute loadAttributeInstance(KMIPTextString attributeName) throws KMIPUnexpectedAttributeNameException{
-		String className = attributeName.getValue().replaceAll("\\s","");
-		try{
-			return (Attribute) Class.forName(ATTRIBUTE_LOCATION + className).newInstance();
+		Attribute a = newAttribute(attributeName.getValue());
+		if(a == null){
+			throw new KMIPUnexpectedAttributeNameException("Unexpected Attribute: " + attributeName.getValue());
 		}
-		catch(Exception e1){
-			try{
-				return (Attribute) Class.forName(OPERATION_PARAMETER_LOCATION + className).newInstance();
-			}
-			catch(Exception e2){
-				throw new KMIPUnexpectedAttributeNameException("Unexpected Attribute: " + attributeName.getValue());
+		return a;
+    }
+
+	/**
+	 * Creates an empty attribute for an attribute name of a message, through the {@link KMIPObjectRegistry}.
+	 *
+	 * @param attributeName :	the attribute name as in the message, e.g. "Cryptographic Length".
+	 * @return			the new <code>Attribute</code>, or null if there is no attribute of the name.
+	 */
+	protected Attribute newAttribute(String attributeName){
+		Attribute a = KMIPObjectRegistry.newAttribute(attributeName);
+		if(a == null){
+			// not the registered attribute name, try the class name (e.g. "x-Purpose" -> "XPurpose")
+			String className = attributeName.replaceAll("[\\s-]","");
+			if(!className.isEmpty()){
+				a = KMIPObjectRegistry.newAttribute(Character.toUpperCase(className.charAt(0)) + className.substring(1));
 			}
 		}
-    }
-    
+		return a;
+	}
+
+	/**
+	 * Creates an attribute of type Enumeration with its value, through the {@link KMIPObjectRegistry}.
+	 *
+	 * @param attributeName :	the attribute name as in the message, e.g. "Object Type".
+	 * @param value :			the enumeration value.
+	 * @return			the new <code>Attribute</code>, or null if there is no enumeration attribute of the name.
+	 */
+	protected Attribute newEnumerationAttribute(String attributeName, int value){
+		return KMIPObjectRegistry.newEnumerationAttribute(attributeName, value);
+	}
 
 }
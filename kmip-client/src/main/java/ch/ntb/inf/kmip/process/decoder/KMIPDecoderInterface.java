@@ -28,9 +28,11 @@
 package ch.ntb.inf.kmip.process.decoder;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import ch.ntb.inf.kmip.container.KMIPContainer;
+import ch.ntb.inf.kmip.utils.KMIPUtils;
 
 /**
  * The KMIPDecoderInterface is the interface for all decoders. It 
@@ -70,5 +72,76 @@ public interface KMIPDecoderInterface {
 	 */
 	public KMIPContainer decodeResponse(ArrayList<Byte> al) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException;
 
+	/**
+	 * Decodes a KMIP-Request-Message stored in a byte array and returns a <code>KMIPContainer</code>.
+	 * The default implementation converts the array to an <code>ArrayList{@literal <}Byte{@literal >}</code>.
+	 * 
+	 * @param b 	: the byte array to be decoded.
+	 * @return		<code>KMIPContainer</code> if the request is well formed and no exception was thrown.
+	 * @throws KMIPUnexpectedTypeException
+	 * @throws KMIPUnexpectedTagException
+	 * @throws KMIPPaddingExpectedException
+	 * @throws KMIPProtocolVersionException
+	 * @throws UnsupportedEncodingException
+	 * @throws KMIPUnexpectedAttributeNameException
+	 */
+	public default KMIPContainer decodeRequest(byte[] b) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeRequest(KMIPUtils.convertByteArrayToArrayList(b));
+	}
+
+	/**
+	 * Decodes a KMIP-Request-Message stored in the remaining bytes of a <code>ByteBuffer</code> and
+	 * returns a <code>KMIPContainer</code>. The position of the buffer is not changed.
+	 * 
+	 * @param buffer 	: the <code>ByteBuffer</code> to be decoded.
+	 * @return		<code>KMIPContainer</code> if the request is well formed and no exception was thrown.
+	 * @throws KMIPUnexpectedTypeException
+	 * @throws KMIPUnexpectedTagException
+	 * @throws KMIPPaddingExpectedException
+	 * @throws KMIPProtocolVersionException
+	 * @throws UnsupportedEncodingException
+	 * @throws KMIPUnexpectedAttributeNameException
+	 */
+	public default KMIPContainer decodeRequest(ByteBuffer buffer) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		byte[] b = new byte[buffer.remaining()];
+		buffer.duplicate().get(b);
+		return decodeRequest(b);
+	}
+
+	/**
+	 * Decodes a KMIP-Response-Message stored in a byte array and returns a <code>KMIPContainer</code>.
+	 * The default implementation converts the array to an <code>ArrayList{@literal <}Byte{@literal >}</code>.
+	 * 
+	 * @param b 	: the byte array to be decoded.
+	 * @return		<code>KMIPContainer</code> if the response is well formed and no exception was thrown.
+	 * @throws KMIPUnexpectedTypeException
+	 * @throws KMIPUnexpectedTagException
+	 * @throws KMIPPaddingExpectedException
+	 * @throws KMIPProtocolVersionException
+	 * @throws UnsupportedEncodingException
+	 * @throws KMIPUnexpectedAttributeNameException
+	 */
+	public default KMIPContainer decodeResponse(byte[] b) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		return decodeResponse(KMIPUtils.convertByteArrayToArrayList(b));
+	}
+
+	/**
+	 * Decodes a KMIP-Response-Message stored in the remaining bytes of a <code>ByteBuffer</code> and
+	 * returns a <code>KMIPContainer</code>. The position of the buffer is not changed.
+	 * 
+	 * @param buffer 	: the <code>ByteBuffer</code> to be decoded.
+	 * @return		<code>KMIPContainer</code> if the response is well formed and no exception was thrown.
+	 * @throws KMIPUnexpectedTypeException
+	 * @throws KMIPUnexpectedTagException
+	 * @throws KMIPPaddingExpectedException
+	 * @throws KMIPProtocolVersionException
+	 * @throws UnsupportedEncodingException
+	 * @throws KMIPUnexpectedAttributeNameException
+	 */
+	public default KMIPContainer decodeResponse(ByteBuffer buffer) throws KMIPUnexpectedTypeException, KMIPUnexpectedTagException, KMIPPaddingExpectedException, KMIPProtocolVersionException, UnsupportedEncodingException, KMIPUnexpectedAttributeNameException {
+		byte[] b = new byte[buffer.remaining()];
+		buffer.duplicate().get(b);
+		return decodeResponse(b);
+	}
 
 }
@@ -31,6 +31,8 @@ package ch.ntb.inf.kmip.process.decoder;
 import java.util.Enumeration;
 import java.util.Hashtable;
 
+import ch.ntb.inf.kmip.process.KMIPObjectRegistry;
+
 public class KMIPDecoderPool {
 
 	private Hashtable<KMIPDecoderInterface, Boolean> decoders = new Hashtable<KMIPDecoderInterface, Boolean>();
@@ -61,9 +63,9 @@ public class KMIPDecoderPool {
 			KMIPDecoderInterface decoder = null;
 			try {
 				if(decoderPath != null){
-					decoder = (KMIPDecoderInterface) Class.forName(decoderPath).newInstance();
+					decoder = KMIPObjectRegistry.newDecoder(decoderPath);
 				} else{
-					decoder = (KMIPDecoderInterface) Class.forName(defaultPath).newInstance();
+					decoder = KMIPObjectRegistry.newDecoder(defaultPath);
 				}
 				numberOfcreatedDecoders++;
 				decoders.put(decoder, Boolean.TRUE);
@@ -11,7 +11,7 @@
  * Description:
  * The KMIPEncoder encodes the KMIPContainer and returns a KMIP-
  * Message. This message is a TTLV- encoded hexadecimal string 
- * stored in an ArrayList<Byte>.
+ * stored in an ArrayList<Byte> or a byte array.
  *
  * @author     Stefanie Meile <stefaniemeile@gmail.com>
  * @author     Michael Guster <michael.guster@gmail.com>
@@ -82,6 +82,7 @@ import ch.ntb.inf.kmip.types.KMIPEnumeration;
 import ch.ntb.inf.kmip.types.KMIPInteger;
 import ch.ntb.inf.kmip.types.KMIPTextString;
 import ch.ntb.inf.kmip.types.KMIPType;
+import ch.ntb.inf.kmip.utils.KMIPByteList;
 
 public class KMIPEncoder implements KMIPEncoderInterface {
 	
@@ -95,18 +96,36 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	private final int INTERVAL_LENGTH = 4;
 
 	public ArrayList<Byte> encodeRequest(KMIPContainer container) {
-		 ArrayList<Byte> al = new ArrayList<Byte>();
-		 encodeRequestMessage(container, al);
-		 return al;
+		 return new ArrayList<Byte>(encodeRequestMessage(container));
 	}
 		
 	public ArrayList<Byte> encodeResponse(KMIPContainer container) {
-		ArrayList<Byte> al = new ArrayList<Byte>();
+		return new ArrayList<Byte>(encodeResponseMessage(container));
+	}
+
+	@Override
+	public byte[] encodeRequestBytes(KMIPContainer container) {
+		return encodeRequestMessage(container).toByteArray();
+	}
+
+	@Override
+	public byte[] encodeResponseBytes(KMIPContainer container) {
+		return encodeResponseMessage(container).toByteArray();
+	}
+
+	private KMIPByteList encodeRequestMessage(KMIPContainer container) {
+		KMIPByteList al = new KMIPByteList();
+		encodeRequestMessage(container, al);
+		return al;
+	}
+
+	private KMIPByteList encodeResponseMessage(KMIPContainer container) {
+		KMIPByteList al = new KMIPByteList();
 		encodeResponseMessage(container, al);
 		return al;
 	}
 
-	private void encodeRequestMessage(KMIPContainer container, ArrayList<Byte> al) {	
+	private void encodeRequestMessage(KMIPContainer container, KMIPByteList al) {	
 		encodeTagAndType(EnumTag.RequestMessage, EnumType.Structure, al);
 		int pos = al.size();
 		encodeRequestHeader(container, al);
@@ -116,7 +135,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeResponseMessage(KMIPContainer container, ArrayList<Byte> al) {
+	private void encodeResponseMessage(KMIPContainer container, KMIPByteList al) {
 		encodeTagAndType(EnumTag.ResponseMessage, EnumType.Structure, al);
 		int pos = al.size();
 		encodeResponseHeader(container, al);
@@ -126,7 +145,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeRequestHeader(KMIPContainer container, ArrayList<Byte> al) {
+	private void encodeRequestHeader(KMIPContainer container, KMIPByteList al) {
 		encodeTagAndType(EnumTag.RequestHeader, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -160,7 +179,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 
-	private void encodeResponseHeader(KMIPContainer container, ArrayList<Byte> al) {
+	private void encodeResponseHeader(KMIPContainer container, KMIPByteList al) {
 		encodeTagAndType(EnumTag.ResponseHeader, EnumType.Structure, al);
 		int pos = al.size();
 		encodeProtocolVersion(al);
@@ -169,7 +188,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeProtocolVersion(ArrayList<Byte> al) {
+	private void encodeProtocolVersion(KMIPByteList al) {
 		encodeTagAndType(EnumTag.ProtocolVersion, EnumType.Structure, al);
 		int pos = al.size();
 		encodeInteger(EnumTag.ProtocolVersionMajor, EnumStaticValues.ProtocolVersionMajor.getValue(), al);
@@ -177,14 +196,14 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeAuthentication(Authentication authentication, ArrayList<Byte> al) {
+	private void encodeAuthentication(Authentication authentication, KMIPByteList al) {
 		encodeTagAndType(EnumTag.Authentication, EnumType.Structure, al);
 		int pos = al.size();
 		encodeCredential(authentication.getCredential(), al);
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeCredential(Credential credential, ArrayList<Byte> al){
+	private void encodeCredential(Credential credential, KMIPByteList al){
 		encodeTagAndType(EnumTag.Credential, EnumType.Structure, al);
 		int pos = al.size();
 		encodeEnumeration(EnumTag.CredentialType, credential.getCredentialType(), al);
@@ -192,7 +211,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeCredentialValue(CredentialValue credentialValue, ArrayList<Byte> al) {
+	private void encodeCredentialValue(CredentialValue credentialValue, KMIPByteList al) {
 		encodeTagAndType(EnumTag.CredentialValue, EnumType.Structure, al);
 		int pos = al.size();
 		encodeTextString(EnumTag.Username, credentialValue.getUsername(), al);
@@ -200,7 +219,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeTimeStamp(KMIPDateTime dateTime, ArrayList<Byte> al){
+	private void encodeTimeStamp(KMIPDateTime dateTime, KMIPByteList al){
 		encodeTagAndType(EnumTag.TimeStamp, EnumType.DateTime, al);
 		createLength(DATETIME_LENGTH, al.size(), al);
 		if(dateTime == null){
@@ -210,7 +229,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		}
 	}
 
-	private void encodeRequestBatchItem(KMIPBatch batch,  ArrayList<Byte> al) {
+	private void encodeRequestBatchItem(KMIPBatch batch,  KMIPByteList al) {
 		encodeTagAndType(EnumTag.BatchItem, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -234,7 +253,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 
-	private void encodeResponseBatchItem(KMIPBatch batch, ArrayList<Byte> al ) {
+	private void encodeResponseBatchItem(KMIPBatch batch, KMIPByteList al ) {
 		encodeTagAndType(EnumTag.BatchItem, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -280,7 +299,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 
 	
-	private void encodeMessageExtension(MessageExtension messageExtension, ArrayList<Byte> al) {
+	private void encodeMessageExtension(MessageExtension messageExtension, KMIPByteList al) {
 		encodeTagAndType(EnumTag.MessageExtension, EnumType.Structure, al);
 		int pos = al.size();
 		encodeBoolean(EnumTag.CriticalityIndicator, messageExtension.getCriticalityIndicator(), al);
@@ -289,14 +308,14 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeVendorExtension(VendorExtension vendorExtension, ArrayList<Byte> al) {
+	private void encodeVendorExtension(VendorExtension vendorExtension, KMIPByteList al) {
 		encodeTagAndType(EnumTag.VendorExtension, EnumType.Structure, al);
 		int pos = al.size();
 		encodeUnknownTag(vendorExtension, al);
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeUnknownTag(VendorExtension vendorExtension, ArrayList<Byte> al) {
+	private void encodeUnknownTag(VendorExtension vendorExtension, KMIPByteList al) {
 		encodeTagAndType(vendorExtension.getTag(), vendorExtension.getType(), al);
 		int pos = al.size();
 		al.addAll(vendorExtension.getValue());
@@ -309,7 +328,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 
 	
-	private void encodeRequestPayload(KMIPBatch batch, ArrayList<Byte> al) {
+	private void encodeRequestPayload(KMIPBatch batch, KMIPByteList al) {
 		encodeTagAndType(EnumTag.RequestPayload, EnumType.Structure, al);
 		int pos = al.size();
 		Iterator<Attribute> it;			
@@ -388,7 +407,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 
 	
-	private void encodeResponsePayload(KMIPBatch batch, ArrayList<Byte> al) {
+	private void encodeResponsePayload(KMIPBatch batch, KMIPByteList al) {
 		encodeTagAndType(EnumTag.ResponsePayload, EnumType.Structure, al);
 		int pos = al.size();
 		Iterator<Attribute> it = batch.getAttributes().iterator();
@@ -452,7 +471,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 
 
 
-	private void encodeTemplateAttributeStructure(TemplateAttributeStructure tas, ArrayList<Byte> al) {
+	private void encodeTemplateAttributeStructure(TemplateAttributeStructure tas, KMIPByteList al) {
 		encodeTagAndType(tas.getTag().getValue(), EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -468,7 +487,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeAttributeStructure(Attribute attribute, ArrayList<Byte> al) {
+	private void encodeAttributeStructure(Attribute attribute, KMIPByteList al) {
 		encodeTagAndType(EnumTag.Attribute, EnumType.Structure, al);
 		int pos = al.size();
 		encodeAttributeName(attribute, al);
@@ -476,7 +495,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeAttributeName(Attribute attribute, ArrayList<Byte> al) {
+	private void encodeAttributeName(Attribute attribute, KMIPByteList al) {
 		encodeTagAndType(EnumTag.AttributeName, EnumType.TextString, al);
 		int pos = al.size();
 		al.addAll(attribute.getEncodedAttributeName());
@@ -484,7 +503,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 
-	private void encodeAttributeValue(Attribute attribute, ArrayList<Byte> al) {
+	private void encodeAttributeValue(Attribute attribute, KMIPByteList al) {
 		encodeTagAndType(EnumTag.AttributeValue, attribute.getAttributeType(), al);
 		int pos = al.size(); 
 		if(attribute.getAttributeType() == EnumType.Structure){
@@ -507,7 +526,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	
 
 	
-	private void encodeManagedObject(ManagedObject managedObject, ArrayList<Byte> al) {
+	private void encodeManagedObject(ManagedObject managedObject, KMIPByteList al) {
 		
 		if(managedObject instanceof Template){
 			encodeTemplate((Template)managedObject, al);
@@ -535,7 +554,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		}
 	}
 	
-	private void encodeTemplate(Template template, ArrayList<Byte> al) {
+	private void encodeTemplate(Template template, KMIPByteList al) {
 		encodeTagAndType(EnumTag.Template, EnumType.Structure, al);
 		int pos = al.size();
 
@@ -546,14 +565,14 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeSymmetricKey(SymmetricKey symmetricKey, ArrayList<Byte> al) {
+	private void encodeSymmetricKey(SymmetricKey symmetricKey, KMIPByteList al) {
 		encodeTagAndType(EnumTag.SymmetricKey, EnumType.Structure, al);
 		int pos = al.size();
 		encodeKeyBlock(symmetricKey.getKeyBlock(), al); 
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeSecretData(SecretData secretData, ArrayList<Byte> al) {
+	private void encodeSecretData(SecretData secretData, KMIPByteList al) {
 		encodeTagAndType(EnumTag.SecretData, EnumType.Structure, al);
 		int pos = al.size();
 		encodeEnumeration(EnumTag.SecretDataType, secretData.getSecretDataType(), al);
@@ -561,21 +580,21 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodePrivateKey(PrivateKey privateKey, ArrayList<Byte> al) {
+	private void encodePrivateKey(PrivateKey privateKey, KMIPByteList al) {
 		encodeTagAndType(EnumTag.PrivateKey, EnumType.Structure, al);
 		int pos = al.size();
 		encodeKeyBlock(privateKey.getKeyBlock(), al); 
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodePublicKey(PublicKey publicKey, ArrayList<Byte> al) {
+	private void encodePublicKey(PublicKey publicKey, KMIPByteList al) {
 		encodeTagAndType(EnumTag.PublicKey, EnumType.Structure, al);
 		int pos = al.size();
 		encodeKeyBlock(publicKey.getKeyBlock(), al); 
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeCertificate(Certificate certificate, ArrayList<Byte> al) {
+	private void encodeCertificate(Certificate certificate, KMIPByteList al) {
 		encodeTagAndType(EnumTag.Certificate, EnumType.Structure, al);
 		int pos = al.size();
 		encodeEnumeration(EnumTag.CertificateType, certificate.getCertificateType(), al);
@@ -583,14 +602,14 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeCertificateValue(KMIPByteString certificateValue, ArrayList<Byte> al){
+	private void encodeCertificateValue(KMIPByteString certificateValue, KMIPByteList al){
 		encodeTagAndType(EnumTag.CertificateValue, EnumType.ByteString, al);
 		int pos = al.size();
 		al.addAll(certificateValue.toArrayList());
 		createLength(certificateValue.getLength(), pos, al);
 	}
 	
-	private void encodeSplitKey(SplitKey splitKey, ArrayList<Byte> al) {
+	private void encodeSplitKey(SplitKey splitKey, KMIPByteList al) {
 		encodeTagAndType(EnumTag.SplitKey, EnumType.Structure, al);
 		int pos = al.size();
 		encodeInteger(EnumTag.SplitKeyParts, splitKey.getSplitKeyParts(), al);
@@ -608,7 +627,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 	
-	private void encodeOpaqueObject(OpaqueObject opaqueObject, ArrayList<Byte> al) {
+	private void encodeOpaqueObject(OpaqueObject opaqueObject, KMIPByteList al) {
 		encodeTagAndType(EnumTag.OpaqueObject, EnumType.Structure, al);
 		int pos = al.size();
 
@@ -619,7 +638,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 
-	private void encodeKeyBlock(KeyBlock keyBlock, ArrayList<Byte> al){
+	private void encodeKeyBlock(KeyBlock keyBlock, KMIPByteList al){
 		encodeTagAndType(EnumTag.KeyBlock, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -646,7 +665,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 
 
-	private void encodeKeyValue(KeyValue keyValue, ArrayList<Byte> al){
+	private void encodeKeyValue(KeyValue keyValue, KMIPByteList al){
 		encodeTagAndType(EnumTag.KeyValue, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -659,7 +678,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeKeyMaterial(KeyMaterial keyMaterial, ArrayList<Byte> al){
+	private void encodeKeyMaterial(KeyMaterial keyMaterial, KMIPByteList al){
 		createTag(EnumTag.KeyMaterial, al);
 		KMIPByteString keyMaterialByteString =  keyMaterial.getKeyMaterialByteString();
 		TransparentKeyStructure transparentKeyStructure = keyMaterial.getTransparentKeyStructure();
@@ -678,7 +697,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 	// not tested yet
-	private void encodeTransparentKeyStructure(TransparentKeyStructure tks, ArrayList<Byte> al) {
+	private void encodeTransparentKeyStructure(TransparentKeyStructure tks, KMIPByteList al) {
 		if(tks.hasModulus()){
 			encodeBigInteger(EnumTag.Modulus, tks.getModulus(), al);
 		}
@@ -726,7 +745,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		}
 	}
 	
-	private void encodeKeyWrappingData(KeyWrappingData keyWrappingData, ArrayList<Byte> al) {
+	private void encodeKeyWrappingData(KeyWrappingData keyWrappingData, KMIPByteList al) {
 		encodeTagAndType(EnumTag.KeyWrappingData, EnumType.Structure, al);
 		encodeTagAndType(EnumTag.DerivationParameters, EnumType.Structure, al);
 		int pos = al.size();
@@ -749,7 +768,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 	
-	private void encodeDerivationParameters(DerivationParameters derivationParameters, ArrayList<Byte> al) {
+	private void encodeDerivationParameters(DerivationParameters derivationParameters, KMIPByteList al) {
 		encodeTagAndType(EnumTag.DerivationParameters, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -776,7 +795,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeKeyWrappingSpecification(KeyWrappingSpecification keyWrappingSpecification, ArrayList<Byte> al) {
+	private void encodeKeyWrappingSpecification(KeyWrappingSpecification keyWrappingSpecification, KMIPByteList al) {
 		encodeTagAndType(EnumTag.KeyWrappingSpecification, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -798,7 +817,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 	
-	private void encodeEncryptionKeyInformation(EncryptionKeyInformation encryptionKeyInformation, ArrayList<Byte> al) {
+	private void encodeEncryptionKeyInformation(EncryptionKeyInformation encryptionKeyInformation, KMIPByteList al) {
 		encodeTagAndType(EnumTag.EncryptionKeyInformation, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -811,7 +830,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 	
-	private void encodeMacSignatureKeyInformation(MACorSignatureKeyInformation macSignatureKeyInformation, ArrayList<Byte> al) {
+	private void encodeMacSignatureKeyInformation(MACorSignatureKeyInformation macSignatureKeyInformation, KMIPByteList al) {
 		encodeTagAndType(EnumTag.MACSignatureKeyInformation, EnumType.Structure, al);
 		int pos = al.size();
 		
@@ -823,7 +842,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		createLength(al.size() - pos, pos, al);
 	}
 
-	private void encodeKMIPType(KMIPType kmipType, ArrayList<Byte> al){
+	private void encodeKMIPType(KMIPType kmipType, KMIPByteList al){
 
 		if(kmipType instanceof EnumDerivationMethod){
 			encodeEnumeration(EnumTag.DerivationMethod, (KMIPEnumeration) kmipType, al);
@@ -849,14 +868,14 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 
 	
-	private void encodeAttributeValueElement(ArrayList<Byte> al, KMIPAttributeValue attributeValue) {
+	private void encodeAttributeValueElement(KMIPByteList al, KMIPAttributeValue attributeValue) {
 		encodeTagAndType(attributeValue.getTag(), attributeValue.getType(), al);
 		int pos = al.size();
 		al.addAll(attributeValue.getValue());
 		createLength(attributeValue.getLength(), pos, al);
 	}
 
-	private void encodeAttribute(Attribute attribute, ArrayList<Byte> al){
+	private void encodeAttribute(Attribute attribute, KMIPByteList al){
 		encodeTagAndType(attribute.getTag().getValue(), attribute.getAttributeType(), al);
 		int pos = al.size();	
 		if(attribute.getAttributeType() == EnumType.Structure){
@@ -879,7 +898,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		
 	}
 	
-	private void encodeUsageLimits(UsageLimits usageLimits, ArrayList<Byte> al) {
+	private void encodeUsageLimits(UsageLimits usageLimits, KMIPByteList al) {
 		encodeTagAndType(EnumTag.UsageLimitsCount, EnumType.LongInteger, al);
 		int pos = al.size();
 		al.addAll(usageLimits.getValues()[1].getValue());
@@ -887,44 +906,44 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	}
 	
 	
-	private void encodeEnumeration(int tag, KMIPEnumeration kmipEnum, ArrayList<Byte> al) {
+	private void encodeEnumeration(int tag, KMIPEnumeration kmipEnum, KMIPByteList al) {
 		encodeTagAndType(tag, EnumType.Enumeration, al);
 		createLength(ENUMERATION_LENGTH, al.size(), al);
 		toArrayList(kmipEnum.getValue(), al);
 	}
 	
-	private void encodeInteger(int tag, KMIPInteger kmipInteger, ArrayList<Byte> al) {
+	private void encodeInteger(int tag, KMIPInteger kmipInteger, KMIPByteList al) {
 		encodeInteger(tag, kmipInteger.getValue(), al);
 	}
 	
-	private void encodeInteger(int tag, int kmipInteger, ArrayList<Byte> al) {
+	private void encodeInteger(int tag, int kmipInteger, KMIPByteList al) {
 		encodeTagAndType(tag, EnumType.Integer, al);
 		createLength(INTEGER_LENGTH, al.size(), al);
 		toArrayList(kmipInteger, al);
 	}
 	
-	private void encodeBigInteger(int tag, KMIPBigInteger kmipBigInteger, ArrayList<Byte> al) {
+	private void encodeBigInteger(int tag, KMIPBigInteger kmipBigInteger, KMIPByteList al) {
 		encodeTagAndType(tag, EnumType.BigInteger, al);
 		int pos = al.size();
 		al.addAll(kmipBigInteger.toArrayList());
 		createLength(kmipBigInteger.getLength(), pos, al);
 	}
 	
-	private void encodeByteString(int tag, KMIPByteString kmipByteString, ArrayList<Byte> al) {
+	private void encodeByteString(int tag, KMIPByteString kmipByteString, KMIPByteList al) {
 		encodeTagAndType(tag, EnumType.ByteString, al);
 		int pos = al.size();
 		al.addAll(kmipByteString.toArrayList());
 		createLength(kmipByteString.getLength(), pos, al);
 	}
 	
-	private void encodeTextString(int tag, KMIPTextString kmipTextString, ArrayList<Byte> al) {
+	private void encodeTextString(int tag, KMIPTextString kmipTextString, KMIPByteList al) {
 		encodeTagAndType(tag, EnumType.TextString, al);
 		int pos = al.size();
 		al.addAll(kmipTextString.toArrayList());
 		createLength(kmipTextString.getLength(), pos, al);
 	}
 	
-	private void encodeBoolean(int tag, KMIPBoolean kmipBoolean, ArrayList<Byte> al) {
+	private void encodeBoolean(int tag, KMIPBoolean kmipBoolean, KMIPByteList al) {
 		encodeTagAndType(tag, EnumType.Boolean, al);
 		createLength(BOOLEAN_LENGTH, al.size(), al);
 		toArrayList(kmipBoolean.getValue(), al);
@@ -932,29 +951,26 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 	 
 	
 ///////////////////////////////////////////////////////////// Support Methods
-	public void encodeTagAndType(int tag, int type, ArrayList<Byte> al){
+	public void encodeTagAndType(int tag, int type, KMIPByteList al){
 		createTag(tag, al);
 		createType(type, al);
 	}
 	
-	public void createTag(int val, ArrayList<Byte> al) {
+	public void createTag(int val, KMIPByteList al) {
 		al.add((byte) (val >> 16));
 		al.add((byte) (val >> 8));
 		al.add((byte) val);
 	}
 	
-	public void createType(int type, ArrayList<Byte> al) {
+	public void createType(int type, KMIPByteList al) {
 		al.add((byte)type);
 	}
 	
-	public void createLength(int val, int pos, ArrayList<Byte> al) {
-		al.add(pos, (byte) (val >> 24));
-		al.add(pos + 1, (byte) (val >> 16));
-		al.add(pos + 2, (byte) (val >> 8));
-		al.add(pos + 3, (byte) val);
+	public void createLength(int val, int pos, KMIPByteList al) {
+		al.insertInt(pos, val);
 	}
 	
-	public void toArrayList(int val, ArrayList<Byte> al) {
+	public void toArrayList(int val, KMIPByteList al) {
 		al.add((byte) (val >> 24));
 		al.add((byte) (val >> 16));
 		al.add((byte) (val >> 8));
@@ -965,7 +981,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		al.add((byte) 0x00);
 	}
 	
-	public void toArrayList(long val, ArrayList<Byte> al) {
+	public void toArrayList(long val, KMIPByteList al) {
 		al.add((byte) (val >> 56));
 		al.add((byte) (val >> 48));
 		al.add((byte) (val >> 40));
@@ -976,7 +992,7 @@ public class KMIPEncoder implements KMIPEncoderInterface {
 		al.add((byte) val);
 	}
 	
-	public void toArrayList(boolean val, ArrayList<Byte> al) {
+	public void toArrayList(boolean val, KMIPByteList al) {
 		al.add((byte) 0x00);
 		al.add((byte) 0x00);
 		al.add((byte) 0x00);
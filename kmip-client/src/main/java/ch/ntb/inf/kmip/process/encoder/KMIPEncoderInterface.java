@@ -29,6 +29,7 @@ package ch.ntb.inf.kmip.process.encoder;
 
 import java.util.ArrayList;
 import ch.ntb.inf.kmip.container.KMIPContainer;
+import ch.ntb.inf.kmip.utils.KMIPUtils;
 
 /**
  * The KMIPEncoderInterface is the interface for all encoders. It 
@@ -56,4 +57,26 @@ public interface KMIPEncoderInterface {
 	 */
 	public ArrayList<Byte> encodeResponse(KMIPContainer c);
 
+	/**
+	 * Encodes a <code>KMIPContainer</code> and returns a KMIP-Request-Message as a TTLV-encoded
+	 * byte array. Encoders that only implement <code>encodeRequest</code> are adapted.
+	 *
+	 * @param c : 	the <code>KMIPContainer</code> to be encoded.
+	 * @return		<code>byte[]</code>
+	 */
+	public default byte[] encodeRequestBytes(KMIPContainer c) {
+		return KMIPUtils.toByteArray(encodeRequest(c));
+	}
+
+	/**
+	 * Encodes a <code>KMIPContainer</code> and returns a KMIP-Response-Message as a TTLV-encoded
+	 * byte array. Encoders that only implement <code>encodeResponse</code> are adapted.
+	 *
+	 * @param c : 	the <code>KMIPContainer</code> to be encoded.
+	 * @return		<code>byte[]</code>
+	 */
+	public default byte[] encodeResponseBytes(KMIPContainer c) {
+		return KMIPUtils.toByteArray(encodeResponse(c));
+	}
+
 }
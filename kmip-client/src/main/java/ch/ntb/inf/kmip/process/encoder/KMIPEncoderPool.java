@@ -31,6 +31,8 @@ package ch.ntb.inf.kmip.process.encoder;
 import java.util.Enumeration;
 import java.util.Hashtable;
 
+import ch.ntb.inf.kmip.process.KMIPObjectRegistry;
+
 
 public class KMIPEncoderPool {
 
@@ -62,9 +64,9 @@ public class KMIPEncoderPool {
 			KMIPEncoderInterface encoder = null;		
 			try{
 				if(encoderPath != null){
-					encoder = (KMIPEncoderInterface) Class.forName(encoderPath).newInstance();
+					encoder = KMIPObjectRegistry.newEncoder(encoderPath);
 				} else{
-					encoder = (KMIPEncoderInterface) Class.forName(defaultPath).newInstance();
+					encoder = KMIPObjectRegistry.newEncoder(defaultPath);
 				}
 				numberOfcreatedEncoders++;
 				encoders.put(encoder, Boolean.TRUE);
@@ -49,6 +49,7 @@ import ch.ntb.inf.kmip.process.decoder.KMIPDecoderPoolOverflowException;
 import ch.ntb.inf.kmip.process.encoder.KMIPEncoderInterface;
 import ch.ntb.inf.kmip.process.encoder.KMIPEncoderPool;
 import ch.ntb.inf.kmip.process.encoder.KMIPEncoderPoolOverflowException;
+import ch.ntb.inf.kmip.utils.KMIPUtils;
 
 /**
  * The Skeleton encapsulates the whole KMIP functionality of the
@@ -143,10 +144,16 @@ public class KMIPSkeleton implements KMIPSkeletonInterface{
 
 	@Override
     public ArrayList<Byte> processRequest(ArrayList<Byte> request) {
+		byte[] response = processRequest(KMIPUtils.toByteArray(request));
+		return response == null ? null : KMIPUtils.convertByteArrayToArrayList(response);
+	}
+
+	@Override
+	public byte[] processRequest(byte[] request) {
 		KMIPEncoderInterface encoder = getEncoder();
 		KMIPDecoderInterface decoder = getDecoder();
 
-		ArrayList<Byte> response = createResponse(request, decoder);
+		byte[] response = createResponse(request, decoder);
 
 		encoderPool.returnEncoder(encoder);
 		decoderPool.returnDecoder(decoder);
@@ -154,7 +161,7 @@ public class KMIPSkeleton implements KMIPSkeletonInterface{
 		return response;
 	}
 
-	private ArrayList<Byte> createResponse(ArrayList<Byte> request, KMIPDecoderInterface decoder){
+	private byte[] createResponse(byte[] request, KMIPDecoderInterface decoder){
 		KMIPContainer responseContainer = new KMIPContainer();
 		KMIPContainer requestContainer = decodeRequest(decoder, request);
 
@@ -163,9 +170,9 @@ public class KMIPSkeleton implements KMIPSkeletonInterface{
 		}
 
 		responseContainer.calculateBatchCount();
-		ArrayList<Byte> response = encodeResponse(responseContainer);
+		byte[] response = encodeResponse(responseContainer);
 
-		if(requestContainer.hasMaximumResponseSize() && response.size() > requestContainer.getMaximumResponseSize().getValue()){
+		if(requestContainer.hasMaximumResponseSize() && response.length > requestContainer.getMaximumResponseSize().getValue()){
 			response = createMaxResponseSizeResponse(response, requestContainer);
 		}
 		return response;
@@ -191,7 +198,7 @@ public class KMIPSkeleton implements KMIPSkeletonInterface{
 		return null;
 	}
 
-	private KMIPContainer decodeRequest(KMIPDecoderInterface decoder, ArrayList<Byte> request){
+	private KMIPContainer decodeRequest(KMIPDecoderInterface decoder, byte[] request){
 		try{
 			return decoder.decodeRequest(request);
 		}catch (Exception e){
@@ -215,23 +222,23 @@ public class KMIPSkeleton implements KMIPSkeletonInterface{
 	}
 
 
-	private ArrayList<Byte> createMaxResponseSizeResponse(ArrayList<Byte> response, KMIPContainer requestContainer) {
+	private byte[] createMaxResponseSizeResponse(byte[] response, KMIPContainer requestContainer) {
 		KMIPContainer responseContainer = new KMIPContainer();
 		KMIPBatch batch = new KMIPBatch();
 		batch.setResultStatus(new EnumResultStatus(EnumResultStatus.OperationFailed));
 		batch.setResultReason(new EnumResultReason(EnumResultReason.ResponseTooLarge));
-		batch.setResultMessage("Response size: " + response.size() + ", Maximum Response Size indicated in request: " + requestContainer.getMaximumResponseSize().getValue());
+		batch.setResultMessage("Response size: " + response.length + ", Maximum Response Size indicated in request: " + requestContainer.getMaximumResponseSize().getValue());
 		responseContainer.addBatch(batch);
 		responseContainer.calculateBatchCount();
 		return encodeResponse(responseContainer);
 	}
 
-	private ArrayList<Byte> encodeResponse(KMIPContainer container) {
-		ArrayList<Byte> response = null;
+	private byte[] encodeResponse(KMIPContainer container) {
+		byte[] response = null;
 		KMIPEncoderInterface encoder;
 		try {
 			encoder = encoderPool.getEncoder();
-			response = encoder.encodeResponse(container);
+			response = encoder.encodeResponseBytes(container);
 			encoderPool.returnEncoder(encoder);
 			return response;
 		} catch (KMIPEncoderPoolOverflowException e) {
@@ -29,6 +29,8 @@ package ch.ntb.inf.kmip.skeleton;
 
 import java.util.ArrayList;
 
+import ch.ntb.inf.kmip.utils.KMIPUtils;
+
 /**
  * The KMIPSkeletonInterface is the interface for all Skeletons. It 
  * provides the needful flexibility for the interchangeability of 
@@ -46,4 +48,17 @@ public interface KMIPSkeletonInterface {
 	 * @return					<code>ArrayList{@literal <}Byte{@literal >}</code>
 	 */
 	public ArrayList<Byte> processRequest(ArrayList<Byte> request);
+
+	/**
+	 * Processes a KMIP-Request-Message stored in a byte array and returns a corresponding
+	 * KMIP-Response-Message. The default implementation converts the message to and from an
+	 * <code>ArrayList{@literal <}Byte{@literal >}</code>.
+	 * 
+	 * @param request :       	the KMIP-Message to be processed
+	 * @return					<code>byte[]</code>
+	 */
+	public default byte[] processRequest(byte[] request) {
+		ArrayList<Byte> response = processRequest(KMIPUtils.convertByteArrayToArrayList(request));
+		return response == null ? null : KMIPUtils.toByteArray(response);
+	}
 }
@@ -29,7 +29,6 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
-import java.util.ArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,13 +56,13 @@ class KLMSServerHandler implements Runnable {
 	    	DataOutputStream outToClient = new DataOutputStream(clientSocket.getOutputStream());
 	    	InputStream is = clientSocket.getInputStream();
 
-	    	byte[] resultBuff = readBytes(is);
-	    	ArrayList<Byte> request = toArrayList(resultBuff);
+	    	byte[] request = readBytes(is);
+	    	logHex(request);
 
 	    	//logger.debug("delay 10 sec to test read timeout");
 	    	//try { Thread.sleep(10000); } catch (Exception e) {};
 
-	    	byte[] res = processRequest(request);
+	    	byte[] res = skeleton.processRequest(request);
 	    	writeBytes(res, outToClient);
 	    } catch (Exception e){
 	    	logger.error("Error while processing Request!");
@@ -120,31 +119,18 @@ class KLMSServerHandler implements Runnable {
         return resultBuff;
     }
 
-    private ArrayList<Byte> toArrayList(final byte[] resultBuff) {
-        ArrayList<Byte> request = new ArrayList<Byte>();
-        StringBuilder sb = new StringBuilder();
-        for(byte b:resultBuff){
-        	sb.append(String.format("%02X", b));
-        	request.add(b);
-        }
-        logger.debug(sb.toString());
-        return request;
-    }
-
-    private byte[] processRequest(final ArrayList<Byte> request) {
-        ArrayList<Byte> response = skeleton.processRequest(request);
-        byte[] res = new byte[response.size()];
-        for(int i = 0; i < res.length; i++){
-        	res[i] = response.get(i);
+    private void logHex(final byte[] resultBuff) {
+        if (logger.isDebugEnabled()) {
+            StringBuilder sb = new StringBuilder();
+            for(byte b:resultBuff){
+            	sb.append(String.format("%02X", b));
+            }
+            logger.debug(sb.toString());
         }
-        return res;
     }
 
     private void writeBytes(final byte[] res, final DataOutputStream outToClient) throws IOException {
-        if (logger.isDebugEnabled()) {
-            // ignore response, just wants to log the response.
-            toArrayList(res);
-        }
+        logHex(res);
         logger.debug("Write Data to Client...");
         outToClient.write(res);
         outToClient.flush();
@@ -31,13 +31,22 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ch.ntb.inf.kmip.container.KMIPContainer;
 import ch.ntb.inf.kmip.process.decoder.KMIPDecoderInterface;
+import ch.ntb.inf.kmip.process.decoder.KMIPDecoderPool;
 import ch.ntb.inf.kmip.process.encoder.KMIPEncoderInterface;
+import ch.ntb.inf.kmip.process.encoder.KMIPEncoderPool;
 import ch.ntb.inf.kmip.stub.transport.KMIPStubTransportLayerInterface;
 import ch.ntb.inf.kmip.test.UCStringCompare;
 import ch.ntb.inf.kmip.utils.KMIPUtils;
@@ -51,6 +60,7 @@ import ch.ntb.inf.kmip.utils.KMIPUtils;
  * methods:
  * <ul>
  * 	<li><code>processRequest(KMIPContainer c)</code> for common use</li>
+ * 	<li><code>processRequestAsync(KMIPContainer c)</code> for concurrent requests</li>
  * 	<li><code>processRequest(KMIPContainer c, String expectedTTLVRequest, String expectedTTLVResponse)</code> for test cases</li>
  * </ul>
  */
@@ -59,6 +69,7 @@ public class KMIPStub implements KMIPStubInterface {
     private static final String DEFAULT_ENCODER = "ch.ntb.inf.kmip.process.encoder.KMIPEncoder";
     private static final String DEFAULT_DECODER = "ch.ntb.inf.kmip.process.decoder.KMIPDecoder";
     private static final String DEFAULT_TLS_TRANSPORT = "ch.ntb.inf.kmip.stub.transport.KMIPStubTransportLayer";
+    private static final String POOLED_TLS_TRANSPORT = "ch.ntb.inf.kmip.stub.transport.KMIPStubTransportLayerPooled";
     private static final String DEFAULT_HTTP_TRANSPORT = "ch.ntb.inf.kmip.stub.transport.KMIPStubTransportLayerHTTP";
 
     // transport layer config parameters
@@ -69,12 +80,26 @@ public class KMIPStub implements KMIPStubInterface {
     public static final String CFG_SOCKET_PORT = "socket_port";
     public static final String CFG_SOCKET_PROTOCOLS = "socket_protocols";
     public static final String CFG_SOCKET_CIPHERS = "socket_ciphers";
+    // number of persistent TLS connections, no pooling if not set
+    public static final String CFG_CONNECTION_POOL_SIZE = "connection_pool_size";
+    public static final String CFG_CONNECTION_POOL_IDLE_TIMEOUT = "connection_pool_idle_timeout";
+    // asynchronous requests: number of worker threads and timeout in ms
+    public static final String CFG_ASYNC_REQUEST_THREADS = "async_request_threads";
+    public static final String CFG_ASYNC_REQUEST_TIMEOUT = "async_request_timeout";
+
+    private static final int DEFAULT_ASYNC_REQUEST_THREADS = 8;
+    private static final int DEFAULT_ASYNC_REQUEST_TIMEOUT = 60000;   // ms
+    private static final int MAX_PENDING_ASYNC_REQUESTS = 1000;
+    private static final AtomicInteger asyncThreadCount = new AtomicInteger();
 
 	private static final Logger logger = LoggerFactory.getLogger(KMIPStub.class);
 
-	private KMIPEncoderInterface encoder;
-	private KMIPDecoderInterface decoder;
+	// pools, because a single encoder or decoder must not be used by concurrent requests
+	private KMIPEncoderPool encoderPool;
+	private KMIPDecoderPool decoderPool;
 	private KMIPStubTransportLayerInterface transportLayer;
+	private ThreadPoolExecutor asyncExecutor;
+	private long asyncRequestTimeout;
 
 	/**
 	 *
@@ -83,15 +108,19 @@ public class KMIPStub implements KMIPStubInterface {
 	 */
 	public KMIPStub(final Map<String, Object> configParams) throws Exception {
 		try {
-		    this.encoder = (KMIPEncoderInterface) Class.forName(DEFAULT_ENCODER).newInstance();
-		    this.decoder = (KMIPDecoderInterface) Class.forName(DEFAULT_DECODER).newInstance();
+		    this.encoderPool = new KMIPEncoderPool(null, DEFAULT_ENCODER);
+		    this.decoderPool = new KMIPDecoderPool(null, DEFAULT_DECODER);
 		    String kmsURI = (String) configParams.get(CFG_KMS_URI);
 		    logger.debug("KMIPStub: kmsURI = " + kmsURI);
 		    if (kmsURI.startsWith("http")) {
 		        this.transportLayer = (KMIPStubTransportLayerInterface) Class.forName(DEFAULT_HTTP_TRANSPORT).newInstance();
 		        this.transportLayer.setConfigParameters(configParams);
 		    } else if (kmsURI.startsWith("tls10://") || kmsURI.startsWith("tls12://")) {
-		        this.transportLayer = (KMIPStubTransportLayerInterface) Class.forName(DEFAULT_TLS_TRANSPORT).newInstance();
+		        String transport = DEFAULT_TLS_TRANSPORT;
+		        if (configParams.get(CFG_CONNECTION_POOL_SIZE) != null) {
+		            transport = POOLED_TLS_TRANSPORT;
+		        }
+		        this.transportLayer = (KMIPStubTransportLayerInterface) Class.forName(transport).newInstance();
 		        this.transportLayer.setConfigParameters(configParams);
 		    } else {
 		        String msg = "Invalid " + CFG_KMS_URI + ": " + kmsURI;
@@ -100,6 +129,18 @@ public class KMIPStub implements KMIPStubInterface {
 		    }
 		    logger.debug("transport = " + transportLayer.getClass());
 
+		    int asyncThreads = getIntParameter(configParams, CFG_ASYNC_REQUEST_THREADS, DEFAULT_ASYNC_REQUEST_THREADS);
+		    this.asyncRequestTimeout = getIntParameter(configParams, CFG_ASYNC_REQUEST_TIMEOUT, DEFAULT_ASYNC_REQUEST_TIMEOUT);
+		    // idle workers terminate, so a stub that is only used synchronously holds no threads
+		    this.asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS,
+		            new LinkedBlockingQueue<Runnable>(MAX_PENDING_ASYNC_REQUESTS), r -> {
+		                Thread t = new Thread(r, "kmip-async-" + asyncThreadCount.incrementAndGet());
+		                t.setDaemon(true);
+		                return t;
+		            });
+		    this.asyncExecutor.allowCoreThreadTimeOut(true);
+		    logger.debug("async request threads = {}, timeout = {}", asyncThreads, asyncRequestTimeout);
+
 		    //UCStringCompare.testingOption = props.getIntProperty("Testing");
 		    UCStringCompare.testingOption = 0;
 		} catch (Exception e) {
@@ -117,8 +158,8 @@ public class KMIPStub implements KMIPStubInterface {
 	@Override
     public KMIPContainer processRequest(final KMIPContainer c)
 		throws Exception {
-		ArrayList<Byte> ttlv = encoder.encodeRequest(c);
-		ArrayList<Byte> responseFromServer = transportLayer.send(ttlv);
+		byte[] ttlv = encodeRequestBytes(c);
+		byte[] responseFromServer = transportLayer.send(ttlv);
 		if (responseFromServer == null) {
 		    return null;
 		} else {
@@ -140,7 +181,7 @@ public class KMIPStub implements KMIPStubInterface {
     public KMIPContainer processRequest(final KMIPContainer c, final String expectedTTLVRequest, final String expectedTTLVResponse)
 		throws Exception {
 		// encode Request
-		ArrayList<Byte> ttlv = encoder.encodeRequest(c);
+		ArrayList<Byte> ttlv = encodeRequest(c);
 		logger.info("Encoded Request from Client: (actual/expected)");
 		KMIPUtils.printArrayListAsHexString(ttlv);
 		logger.debug(expectedTTLVRequest);
@@ -155,11 +196,65 @@ public class KMIPStub implements KMIPStubInterface {
 		KMIPUtils.printArrayListAsHexString(responseFromServer);
 		logger.debug(expectedTTLVResponse);
 		UCStringCompare.checkResponse(responseFromServer,expectedTTLVResponse);
-		return decodeResponse(responseFromServer);
+		return decodeResponse(KMIPUtils.toByteArray(responseFromServer));
+	}
+
+	/**
+	 * Processes a KMIP-Request-Message asynchronously on a bounded pool of worker threads.
+	 * The returned future completes with the response, or exceptionally if the request fails,
+	 * is not answered within the configured timeout, or too many requests are pending.
+	 * Cancelling the future removes a pending request from the queue and interrupts a running one.
+	 *
+	 * @param c :      	the <code>KMIPContainer</code> to be encoded and sent.
+	 * @return			<code>CompletableFuture</code> of the <code>KMIPContainer</code> with the response objects.
+	 */
+	@Override
+	public CompletableFuture<KMIPContainer> processRequestAsync(final KMIPContainer c) {
+		CompletableFuture<KMIPContainer> result = new CompletableFuture<KMIPContainer>();
+		final Future<?> task;
+		try {
+			task = asyncExecutor.submit(() -> {
+				try {
+					result.complete(processRequest(c));
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.error("processRequestAsync(): too many pending requests: " + e);
+			result.completeExceptionally(e);
+			return result;
+		}
+		// a cancelled or timed out request does not need to run any longer
+		result.whenComplete((response, e) -> {
+			if (e != null) {
+				task.cancel(true);
+			}
+		});
+		return result.orTimeout(asyncRequestTimeout, TimeUnit.MILLISECONDS);
+	}
+
+	private ArrayList<Byte> encodeRequest(final KMIPContainer c) throws Exception {
+		KMIPEncoderInterface encoder = encoderPool.getEncoder();
+		try {
+			return encoder.encodeRequest(c);
+		} finally {
+			encoderPool.returnEncoder(encoder);
+		}
 	}
 
-	private KMIPContainer decodeResponse(final ArrayList<Byte> responseFromServer)
+	private byte[] encodeRequestBytes(final KMIPContainer c) throws Exception {
+		KMIPEncoderInterface encoder = encoderPool.getEncoder();
+		try {
+			return encoder.encodeRequestBytes(c);
+		} finally {
+			encoderPool.returnEncoder(encoder);
+		}
+	}
+
+	private KMIPContainer decodeResponse(final byte[] responseFromServer)
 		throws Exception {
+		KMIPDecoderInterface decoder = decoderPool.getDecoder();
 		try {
 			return decoder.decodeResponse(responseFromServer);
 		} catch (Exception e) {
@@ -167,9 +262,44 @@ public class KMIPStub implements KMIPStubInterface {
 			// comment out as it prints garbage
 			//logger.error("responseFromServer: " + byteListToString(responseFromServer));
 			throw e;
+		} finally {
+			decoderPool.returnDecoder(decoder);
 		}
 	}
 
+	private static int getIntParameter(final Map<String, Object> configParams, final String name,
+	        final int defaultValue) {
+	    Object value = configParams.get(name);
+	    if (value == null) {
+	        return defaultValue;
+	    }
+	    try {
+	        int i = Integer.parseInt(value.toString().trim());
+	        if (i > 0) {
+	            return i;
+	        }
+	    } catch (NumberFormatException e) {
+	        // fall through to error
+	    }
+	    String msg = "Invalid " + name + ": " + value;
+	    logger.error(msg);
+	    throw new IllegalArgumentException(msg);
+	}
+
+	/**
+	 * Releases the transport layer, e.g. gives back a shared connection pool, and stops
+	 * the threads of the asynchronous requests.
+	 */
+	@Override
+	public void close() {
+	    if (asyncExecutor != null) {
+	        asyncExecutor.shutdown();
+	    }
+	    if (transportLayer != null) {
+	        transportLayer.close();
+	    }
+	}
+
 	// not working (test by comment out the sso cookie)
 	public static String byteListToString(final List<Byte> l) {
 	    if (l == null) {
@@ -27,6 +27,9 @@
 
 package ch.ntb.inf.kmip.stub;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import ch.ntb.inf.kmip.container.KMIPContainer;
 
 /**
@@ -38,6 +41,7 @@ import ch.ntb.inf.kmip.container.KMIPContainer;
  * methods:
  * <ul>
  * 	<li><code>processRequest(KMIPContainer c)</code> for common use</li>
+ * 	<li><code>processRequestAsync(KMIPContainer c)</code> for concurrent requests</li>
  * 	<li><code>processRequest(KMIPContainer c, String expectedTTLVRequest, String expectedTTLVResponse)</code> for test cases</li>
  * </ul>
  */
@@ -52,6 +56,26 @@ public interface KMIPStubInterface {
 	public KMIPContainer processRequest(KMIPContainer c)
 		throws Exception;
 
+	/**
+	 * Processes a KMIP-Request-Message stored in a <code>KMIPContainer</code> asynchronously.
+	 * The default implementation calls <code>processRequest(KMIPContainer c)</code> in the common
+	 * <code>ForkJoinPool</code>.
+	 *
+	 * @param c :      	the <code>KMIPContainer</code> to be encoded and sent.
+	 * @return			<code>CompletableFuture</code> that completes with the <code>KMIPContainer</code> of the response.
+	 */
+	public default CompletableFuture<KMIPContainer> processRequestAsync(final KMIPContainer c) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return processRequest(c);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+
 	/**
 	 * Processes a KMIP-Request-Message stored in a <code>KMIPContainer</code> and returns a corresponding KMIP-Response-Message.
 	 * For test cases, there are two additional parameters that may be set by the caller. The idea is, that the generated TTLV-Strings
@@ -65,4 +89,11 @@ public interface KMIPStubInterface {
 	public KMIPContainer processRequest(KMIPContainer c, String expectedTTLVRequest, String expectedTTLVResponse)
 		throws Exception;
 
+	/**
+	 * Releases the transport layer and the threads of the asynchronous requests.
+	 * The default implementation holds none.
+	 */
+	public default void close() {
+	}
+
 }
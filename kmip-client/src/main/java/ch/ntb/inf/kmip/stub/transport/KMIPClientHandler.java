@@ -26,19 +26,20 @@
 
 package ch.ntb.inf.kmip.stub.transport;
 
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.Socket;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.security.Provider;
 import java.security.Security;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -53,11 +54,18 @@ import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.ntb.inf.kmip.utils.KMIPUtils;
+
 class KMIPClientHandler implements Callable<ArrayList<Byte>> {
 
 	private static final Logger logger = LoggerFactory.getLogger(KMIPClientHandler.class);
 
-    private final ArrayList<Byte> al;
+	// length of the tag, type and length fields of a TTLV item
+	private static final int TTLV_HEADER_LENGTH = 8;
+	// upper bound for a response, to reject a corrupted length field before allocating it
+	private static final int MAX_TTLV_LENGTH = 64 * 1024 * 1024;
+
+    private final byte[] request;
 	private final int port;
 	private final String host;
     private final String keystoreFile;
@@ -71,6 +79,10 @@ class KMIPClientHandler implements Callable<ArrayList<Byte>> {
 	private static boolean firstConnection = true;
 
 	public KMIPClientHandler(final Map<String, Object> configParams, final ArrayList<Byte> al) {
+		this(configParams, al == null ? null : KMIPUtils.toByteArray(al));
+	}
+
+	KMIPClientHandler(final Map<String, Object> configParams, final byte[] request) {
         this.host = (String) configParams.get(KMIPStubTransportLayerInterface.CFG_SOCKET_HOST);
 		this.port = (Integer) configParams.get(KMIPStubTransportLayerInterface.CFG_SOCKET_PORT);
         logger.debug("KMIPClientHandler: hostname = " + host + ", port = " + port);
@@ -80,12 +92,24 @@ class KMIPClientHandler implements Callable<ArrayList<Byte>> {
         this.keystorePassword = (String) configParams.get(KMIPStubTransportLayerInterface.CFG_KEYSTORE_PASSWORD);
         this.connectTimeout = (Integer) configParams.get(KMIPStubTransportLayerInterface.CFG_CONNECTION_TIMEOUT_CONNECT);
         this.readTimeout = (Integer) configParams.get(KMIPStubTransportLayerInterface.CFG_CONNECTION_TIMEOUT_READ);
-		this.al = al;
+		this.request = request;
+	}
+
+	// Handler used only for opening sockets, e.g. by the KMIPConnectionPool
+	KMIPClientHandler(final Map<String, Object> configParams) {
+		this(configParams, (byte[]) null);
 	}
 
 	// Call method for the FutureTask (similar to run() of a Thread)
 	@Override
     public ArrayList<Byte> call() throws Exception {
+		return toArrayList(exchange());
+	}
+
+	/**
+	 * Sends the request over a new connection and returns the response as a byte array.
+	 */
+	byte[] exchange() throws Exception {
 		logger.debug("KMIPClientHandler:" + Thread.currentThread());
 		// Start a server-request
 		// Create a Socket for the TCP Client and build up the communication to the corresponding server.
@@ -106,7 +130,7 @@ class KMIPClientHandler implements Callable<ArrayList<Byte>> {
 			//clientSocket.shutdownOutput(); // not supported by SSLSocket
 
 			// Read from server
-			ArrayList<Byte> responseFromServer = readData();
+			byte[] responseFromServer = readData();
 
 			// Close connection
 			clientSocket.close();
@@ -123,17 +147,9 @@ class KMIPClientHandler implements Callable<ArrayList<Byte>> {
 		try {
 			// Get OutputStream from Socket
 			DataOutputStream outToServer = new DataOutputStream(clientSocket.getOutputStream());
-			// Prepare data to send
-			byte[] b = new byte[al.size()];
-			for(int i=0; i<al.size();i++){
-				b[i]=al.get(i);
-			}
-			if (logger.isDebugEnabled()) {
-	            // ignore response, just wants to log the request.
-	            toArrayList(b);
-			}
+			logHex(request);
 			// Send data
-			outToServer.write(b);
+			outToServer.write(request);
 			outToServer.flush();
 		} catch (IOException e) {
             logger.info("writeData() IOException: " + e);
@@ -141,25 +157,11 @@ class KMIPClientHandler implements Callable<ArrayList<Byte>> {
 		}
 	}
 
-	private ArrayList<Byte> readData() throws Exception {
-    	byte[] resultBuff = new byte[0];
-        byte[] buff = new byte[1024];
-        int k = -1;
-
+	private byte[] readData() throws Exception {
         logger.debug("KMIPClientHandler: Read data from server...");
+        byte[] resultBuff;
         try {
-    		InputStream is = clientSocket.getInputStream();
-			while((k = is.read(buff, 0, buff.length)) > -1) {
-			    byte[] tbuff = new byte[resultBuff.length + k]; // temp buffer size = bytes already read + bytes last read
-			    System.arraycopy(resultBuff, 0, tbuff, 0, resultBuff.length); // copy previous bytes
-			    System.arraycopy(buff, 0, tbuff, resultBuff.length, k);  // copy current lot
-			    resultBuff = tbuff; // call the temp buffer as your result buff
-			    int available = is.available();
-			    logger.debug("readData() available bytes to read = {}", available);
-			    if (available == 0) {
-			        break;
-			    }
-			}
+            resultBuff = readTTLV(clientSocket.getInputStream());
         } catch (SocketException e) {
             logger.error("readData() SocketException: " + e);
             throw e;
@@ -167,45 +169,64 @@ class KMIPClientHandler implements Callable<ArrayList<Byte>> {
 		    logger.error("readData() IOException: " + e);
 		    throw e;
 		}
-/*
-        ArrayList<Byte> response = new ArrayList<Byte>();
-        for(byte b:resultBuff){
-        	response.add(b);
-        }
-*/
-        ArrayList<Byte> response = toArrayList(resultBuff);
-        getTTLVlength(resultBuff);
 
-        logger.debug("KMIPClientHandler: Response received, bytes " + response.size());
-        return response;
+        logHex(resultBuff);
+        logger.debug("KMIPClientHandler: Response received, bytes " + resultBuff.length);
+        return resultBuff;
 	}
 
-	// The TTLV length is the length of the value field in bytes
-    private int getTTLVlength(byte[] ttlv) throws UnsupportedEncodingException {
-        // first bye of all KMIP tag has value 0x42 or 0x54
-        if (ttlv[0] != 0x42 && ttlv[0] != 0x54) {
-            logger.warn("Invalid reponse tag");
-            logger.info("Invalid reponse: " + new String(ttlv, "UTF-8"));
-        }
-        ByteBuffer wrapped = ByteBuffer.wrap(Arrays.copyOfRange(ttlv, 4, 8));
-        int length = wrapped.getInt();
-        if (length != ttlv.length - 8) {
-            logger.warn("TTLV length (" + length + ") does not equal to TTLV value length (" + (ttlv.length - 8) + ")");
-        } else {
-            logger.debug("TTLV length = " + length);
-        }
-        return length;
+	/**
+	 * Reads one complete TTLV message. The 8-byte tag/type/length header is read first,
+	 * then the response buffer is allocated once with the exact size and filled until
+	 * the message is complete, however many TLS records it arrives in.
+	 *
+	 * @param in :  the stream to read from.
+	 * @return the TTLV message including its header.
+	 * @throws IOException if the response is not TTLV or the stream ends before it is complete.
+	 */
+	static byte[] readTTLV(final InputStream in) throws IOException {
+	    DataInputStream dis = new DataInputStream(in);
+	    byte[] header = new byte[TTLV_HEADER_LENGTH];
+	    dis.readFully(header);
+	    // first byte of all KMIP tags has value 0x42 or 0x54
+	    if (header[0] != 0x42 && header[0] != 0x54) {
+	        String msg = "Invalid response tag, response starts with: " + new String(header, StandardCharsets.UTF_8);
+	        logger.warn(msg);
+	        throw new IOException(msg);
+	    }
+	    int length = ByteBuffer.wrap(header, 4, 4).getInt();
+	    if (length < 0 || length > MAX_TTLV_LENGTH) {
+	        String msg = "Invalid TTLV length in response: " + length;
+	        logger.warn(msg);
+	        throw new IOException(msg);
+	    }
+	    logger.debug("TTLV length = " + length);
+	    byte[] ttlv = new byte[TTLV_HEADER_LENGTH + length];
+	    System.arraycopy(header, 0, ttlv, 0, TTLV_HEADER_LENGTH);
+	    try {
+	        dis.readFully(ttlv, TTLV_HEADER_LENGTH, length);
+	    } catch (EOFException e) {
+	        throw new EOFException("Connection closed before the TTLV response of " + length + " bytes was complete.");
+	    }
+	    return ttlv;
 	}
 
     private ArrayList<Byte> toArrayList(final byte[] resultBuff) {
-        ArrayList<Byte> request = new ArrayList<Byte>();
-        StringBuilder sb = new StringBuilder();
+        ArrayList<Byte> response = new ArrayList<Byte>(resultBuff.length);
         for (byte b : resultBuff){
-            sb.append(String.format("%02X", b));
-            request.add(b);
+            response.add(b);
+        }
+        return response;
+    }
+
+    private void logHex(final byte[] b) {
+        if (logger.isDebugEnabled()) {
+            StringBuilder sb = new StringBuilder(b.length * 2);
+            for (byte x : b) {
+                sb.append(String.format("%02X", x));
+            }
+            logger.debug(sb.toString());
         }
-        logger.debug(sb.toString());
-        return request;
     }
 
     public SSLSocket createClientSocket() throws Exception {
@@ -0,0 +1,313 @@
+/**
+ * KMIPConnectionPool.java
+ * -----------------------------------------------------------------
+ *     __ __ __  ___________
+ *    / //_//  |/  /  _/ __ \	  .--.
+ *   / ,<  / /|_/ // // /_/ /	 /.-. '----------.
+ *  / /| |/ /  / // // ____/ 	 \'-' .--"--""-"-'
+ * /_/ |_/_/  /_/___/_/      	  '--'
+ *
+ * -----------------------------------------------------------------
+ * Description:
+ * The KMIPConnectionPool keeps a bounded number of authenticated
+ * TLS connections to the KMS open, so that consecutive requests
+ * do not pay for a new TLS handshake each time. Idle connections
+ * are closed by a background evictor after the idle timeout.
+ * The transports with the same configuration share one pool, which
+ * is closed when the last of them is closed.
+ *
+ */
+
+package ch.ntb.inf.kmip.stub.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of persistent TLS connections to the KMS.
+ */
+class KMIPConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(KMIPConnectionPool.class);
+
+    // the shared pools by configuration, and one evictor thread for all of them
+    private static final Map<String, KMIPConnectionPool> pools = new HashMap<String, KMIPConnectionPool>();
+    private static ScheduledExecutorService evictor;
+
+    private final String key;
+    private final Map<String, Object> configParams;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final long borrowTimeout;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<PooledConnection>();
+    private final ScheduledFuture<?> eviction;
+    private int references = 0;
+    private volatile boolean closed = false;
+
+    private KMIPConnectionPool(final String key, final Map<String, Object> configParams, final int maxSize,
+            final long idleTimeout, final long borrowTimeout) {
+        this.key = key;
+        this.configParams = configParams;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+        this.permits = new Semaphore(maxSize, true);
+        long interval = Math.max(1000, idleTimeout / 2);
+        this.eviction = getEvictor().scheduleWithFixedDelay(this::evictIdleConnections, interval, interval,
+                TimeUnit.MILLISECONDS);
+        logger.debug("KMIPConnectionPool: maxSize = {}, idleTimeout = {}", maxSize, idleTimeout);
+    }
+
+    /**
+     * Returns the pool of the configuration, creating it for the first transport. No connection
+     * is opened until the first request. Every pool returned must be given back with {@link #close}.
+     *
+     * @param configParams :   the parsed transport layer config parameters.
+     * @param maxSize :        the maximum number of open connections.
+     * @param idleTimeout :    the time in ms after which an unused connection is closed.
+     * @param borrowTimeout :  the time in ms to wait for a free connection.
+     * @return the shared pool.
+     */
+    static KMIPConnectionPool acquire(final Map<String, Object> configParams, final int maxSize,
+            final long idleTimeout, final long borrowTimeout) {
+        String key = configurationKey(configParams);
+        synchronized (pools) {
+            KMIPConnectionPool pool = pools.get(key);
+            if (pool == null) {
+                pool = new KMIPConnectionPool(key, configParams, maxSize, idleTimeout, borrowTimeout);
+                pools.put(key, pool);
+            }
+            pool.references++;
+            return pool;
+        }
+    }
+
+    /**
+     * @return the number of shared pools, i.e. of distinct configurations in use.
+     */
+    static int getPoolCount() {
+        synchronized (pools) {
+            return pools.size();
+        }
+    }
+
+    // the pool size and timeouts are part of the configuration
+    private static String configurationKey(final Map<String, Object> configParams) {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<String, Object> e : new TreeMap<String, Object>(configParams).entrySet()) {
+            Object value = e.getValue();
+            key.append(e.getKey()).append('=');
+            key.append(value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value));
+            key.append('\n');
+        }
+        return key.toString();
+    }
+
+    private static ScheduledExecutorService getEvictor() {
+        synchronized (pools) {
+            if (evictor == null) {
+                evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "kmip-connection-evictor");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            return evictor;
+        }
+    }
+
+    /**
+     * Returns a healthy connection, reusing an idle one if possible.
+     *
+     * @param fresh :  if true, a new connection is always opened.
+     * @return the borrowed connection, to be given back with {@link #release}.
+     * @throws IllegalStateException if the pool has been closed.
+     * @throws Exception if no connection is available in time or a new one cannot be opened.
+     */
+    PooledConnection borrow(final boolean fresh) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("KMS connection pool is closed.");
+        }
+        if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+            String msg = "Timed out waiting for a KMS connection, all " + maxSize + " connections are in use.";
+            logger.error(msg);
+            throw new IOException(msg);
+        }
+        try {
+            if (!fresh) {
+                PooledConnection c;
+                // most recently used first, so that surplus connections age out
+                while ((c = idleConnections.pollFirst()) != null) {
+                    if (c.isHealthy(idleTimeout)) {
+                        c.reused = true;
+                        return c;
+                    }
+                    logger.debug("borrow() discard stale connection {}", c);
+                    c.close();
+                }
+            }
+            return open();
+        } catch (Exception e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool.
+     *
+     * @param c :         the connection returned by {@link #borrow}.
+     * @param reusable :  false if the connection failed and must be closed.
+     */
+    void release(final PooledConnection c, final boolean reusable) {
+        try {
+            if (reusable && !closed) {
+                c.lastUsed = System.currentTimeMillis();
+                idleConnections.offerFirst(c);
+                if (closed && idleConnections.remove(c)) {
+                    c.close();
+                }
+            } else {
+                c.close();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Gives back a pool returned by {@link #acquire}. When no transport uses the pool any longer,
+     * its idle connections are closed, the connections in use are closed when they are released,
+     * and the evictor stops when no pool is left.
+     */
+    void close() {
+        synchronized (pools) {
+            if (references == 0) {
+                return;
+            }
+            if (--references > 0) {
+                return;
+            }
+            pools.remove(key);
+            closed = true;
+            eviction.cancel(false);
+            if (pools.isEmpty() && evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+        }
+        PooledConnection c;
+        while ((c = idleConnections.pollFirst()) != null) {
+            c.close();
+        }
+        logger.debug("close() KMIPConnectionPool closed");
+    }
+
+    private PooledConnection open() throws Exception {
+        SSLSocket socket = new KMIPClientHandler(configParams).createClientSocket();
+        if (socket == null) {
+            throw new IOException("Failed to create a TLS connection to the KMS.");
+        }
+        PooledConnection c = new PooledConnection(socket);
+        logger.debug("open() new connection {}", c);
+        return c;
+    }
+
+    private void evictIdleConnections() {
+        Iterator<PooledConnection> it = idleConnections.descendingIterator();
+        while (it.hasNext()) {
+            PooledConnection c = it.next();
+            if (!c.isHealthy(idleTimeout) && idleConnections.removeFirstOccurrence(c)) {
+                logger.debug("evictIdleConnections() close {}", c);
+                c.close();
+            }
+        }
+    }
+
+    /**
+     * A TLS connection owned by the pool.
+     */
+    static final class PooledConnection {
+        private final SSLSocket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private volatile long lastUsed;
+        private boolean reused = false;
+
+        PooledConnection(final SSLSocket socket) throws IOException {
+            this.socket = socket;
+            this.in = socket.getInputStream();
+            this.out = socket.getOutputStream();
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        /**
+         * @return true if the connection has been used for an earlier request.
+         */
+        boolean isReused() {
+            return reused;
+        }
+
+        /**
+         * Sends a request.
+         */
+        void write(final byte[] request) throws IOException {
+            out.write(request);
+            out.flush();
+        }
+
+        /**
+         * Waits for the complete response of the request sent.
+         */
+        byte[] read() throws IOException {
+            return KMIPClientHandler.readTTLV(in);
+        }
+
+        boolean isHealthy(final long idleTimeout) {
+            if (socket.isClosed() || !socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - lastUsed > idleTimeout) {
+                return false;
+            }
+            try {
+                // an idle connection must not have pending data, e.g. a close_notify from the server
+                return in.available() == 0;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("close() " + e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return socket.getLocalSocketAddress() + " -> " + socket.getRemoteSocketAddress();
+        }
+    }
+
+}
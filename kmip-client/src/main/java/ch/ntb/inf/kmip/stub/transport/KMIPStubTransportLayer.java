@@ -9,9 +9,9 @@
  *
  * -----------------------------------------------------------------
  * Description:
- * The KMIPStubTransportLayer provides a Thread, which handles the
- * client requests to the server via TCP-Sockets. The whole read and
- * write functionality is encapsulated in the KMIPClientHandler.
+ * The KMIPStubTransportLayer handles the client requests to the
+ * server via TCP-Sockets. The whole read and write functionality
+ * is encapsulated in the KMIPClientHandler.
  *
  * @author     Stefanie Meile <stefaniemeile@gmail.com>
  * @author     Michael Guster <michael.guster@gmail.com>
@@ -29,7 +29,6 @@ package ch.ntb.inf.kmip.stub.transport;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.FutureTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,7 +44,6 @@ public class KMIPStubTransportLayer implements KMIPStubTransportLayerInterface {
     private static final Integer DEFAULT_READ_TIMEOUT = 30000;
 
 	private Map<String, Object> configParams;
-	private KMIPClientHandler clientHandler;
 
     private static final Logger logger = LoggerFactory.getLogger(KMIPStubTransportLayer.class);
 
@@ -64,22 +62,35 @@ public class KMIPStubTransportLayer implements KMIPStubTransportLayerInterface {
 	@Override
     public ArrayList<Byte> send(final ArrayList<Byte> al) throws Exception {
 		logger.debug("KMIP client send request thread: " + Thread.currentThread());
-		clientHandler = new KMIPClientHandler(configParams, al);
-		/* Process the call-Method from the clientHandler asynchronous with FutureTask
-		 * A Future represents the result of an asynchronous computation
-		 */
-		FutureTask<ArrayList<Byte>> ft = new FutureTask<ArrayList<Byte>>(clientHandler);
-		Thread tft = new Thread(ft);
-		tft.start();
-
-		// While the clientHandler is in process, other Threads can run
-		while (!ft.isDone()) {	// while FutureTask is busy
-			Thread.yield();
-		} 						// FutureTask isDone
-
-		logger.debug("KMIP client send request done.");
+		// a handler per request, so that concurrent requests do not share state
+		KMIPClientHandler clientHandler = new KMIPClientHandler(configParams, al);
+		// The request is processed in the calling thread, which blocks on the socket
+		// until the response arrives or the read timeout expires.
+		// Use KMIPStub.processRequestAsync() for concurrent requests.
 		try {
-			return ft.get();
+			ArrayList<Byte> response = clientHandler.call();
+			logger.debug("KMIP client send request done.");
+			return response;
+		} catch (Exception e) {
+			logger.error("send(): " + e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Sends a KMIP-Request-Message stored in a byte array to a defined target and returns
+	 * the corresponding KMIP-Response-Message, without converting it to a list of bytes.
+	 *
+	 * @param request :	the TTLV-encoded request to be sent.
+	 * @return			<code>byte[]</code>: the response message.
+	 */
+	@Override
+	public byte[] send(final byte[] request) throws Exception {
+		logger.debug("KMIP client send request thread: " + Thread.currentThread());
+		try {
+			byte[] response = new KMIPClientHandler(configParams, request).exchange();
+			logger.debug("KMIP client send request done.");
+			return response;
 		} catch (Exception e) {
 			logger.error("send(): " + e);
 			throw e;
@@ -30,6 +30,8 @@ package ch.ntb.inf.kmip.stub.transport;
 import java.util.ArrayList;
 import java.util.Map;
 
+import ch.ntb.inf.kmip.utils.KMIPUtils;
+
 /**
  * The KMIPStubTransportLayerInterface provides the needful
  * flexibility for the interchangeability of the Transport Layer on
@@ -46,6 +48,8 @@ public interface KMIPStubTransportLayerInterface {
     public static final String CFG_ADDITIONAL_CIPHERS = "additional_cipher_suites";
     public static final String CFG_CONNECTION_TIMEOUT_CONNECT = "connection_timeout_connect";
     public static final String CFG_CONNECTION_TIMEOUT_READ = "connection_timeout_read";
+    public static final String CFG_CONNECTION_POOL_SIZE = "connection_pool_size";
+    public static final String CFG_CONNECTION_POOL_IDLE_TIMEOUT = "connection_pool_idle_timeout";
 
     // generated config parameters
     public static final String CFG_SOCKET_HOST = "socket_host";
@@ -63,6 +67,25 @@ public interface KMIPStubTransportLayerInterface {
 	 */
 	public ArrayList<Byte> send(ArrayList<Byte> al) throws Exception;
 
+	/**
+	 * Sends a KMIP-Request-Message stored in a byte array to a defined target and returns
+	 * the corresponding KMIP-Response-Message. The default implementation converts the
+	 * message to and from an <code>ArrayList{@literal <}Byte{@literal >}</code>.
+	 *
+	 * @param request :	the TTLV-encoded request to be sent.
+	 * @return			<code>byte[]</code>: the response message.
+	 */
+	public default byte[] send(byte[] request) throws Exception {
+		return KMIPUtils.toByteArray(send(KMIPUtils.convertByteArrayToArrayList(request)));
+	}
+
+	/**
+	 * Releases the resources held by the transport layer, e.g. its pooled connections.
+	 * The default implementation holds none.
+	 */
+	public default void close() {
+	}
+
     /**
      * Sets the configuration parameters for the transport layer.
      *
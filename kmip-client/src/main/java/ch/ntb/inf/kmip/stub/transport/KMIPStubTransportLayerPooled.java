@@ -0,0 +1,219 @@
+/**
+ * KMIPStubTransportLayerPooled.java
+ * -----------------------------------------------------------------
+ *     __ __ __  ___________
+ *    / //_//  |/  /  _/ __ \	  .--.
+ *   / ,<  / /|_/ // // /_/ /	 /.-. '----------.
+ *  / /| |/ /  / // // ____/ 	 \'-' .--"--""-"-'
+ * /_/ |_/_/  /_/___/_/      	  '--'
+ *
+ * -----------------------------------------------------------------
+ * Description:
+ * The KMIPStubTransportLayerPooled sends the client requests over
+ * persistent TLS connections taken from a KMIPConnectionPool,
+ * instead of opening a new TLS connection for every request.
+ *
+ */
+
+package ch.ntb.inf.kmip.stub.transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.ntb.inf.kmip.kmipenum.EnumOperation;
+import ch.ntb.inf.kmip.stub.transport.KMIPConnectionPool.PooledConnection;
+import ch.ntb.inf.kmip.utils.KMIPUtils;
+
+/**
+ * The KMIPStubTransportLayerPooled provides the communication between a server and a client
+ * via a pool of persistent TLS connections.
+ */
+public class KMIPStubTransportLayerPooled extends KMIPStubTransportLayer {
+
+    private static final Integer DEFAULT_POOL_IDLE_TIMEOUT = 60000;   // ms
+
+    // TTLV tags and types to find the operations of a request
+    private static final int TAG_BATCH_ITEM = 0x42000F;
+    private static final int TAG_OPERATION = 0x42005C;
+    private static final int TYPE_STRUCTURE = 0x01;
+    private static final int TYPE_ENUMERATION = 0x05;
+    private static final int TTLV_HEADER_LENGTH = 8;
+
+    private static final Logger logger = LoggerFactory.getLogger(KMIPStubTransportLayerPooled.class);
+
+    private volatile KMIPConnectionPool pool;
+
+    public KMIPStubTransportLayerPooled() {
+        logger.debug("KMIPStubTransportLayerPooled initialized...");
+    }
+
+    /**
+     * Sends a KMIP-Request-Message over a pooled connection and returns the
+     * corresponding KMIP-Response-Message. A request that fails on a reused
+     * connection, e.g. because the server has closed it, is retried once on
+     * a new connection if it has not been sent, or if it only reads
+     * (Locate, Get, GetAttributes), so that other operations are never
+     * performed twice.
+     *
+     * @param al :     	the <code>ArrayList{@literal <}Byte{@literal >}</code> to be sent.
+     * @return			<code>ArrayList{@literal <}Byte{@literal >}</code>: the response message.
+     */
+    @Override
+    public ArrayList<Byte> send(final ArrayList<Byte> al) throws Exception {
+        return KMIPUtils.convertByteArrayToArrayList(send(KMIPUtils.toByteArray(al)));
+    }
+
+    /**
+     * Sends a KMIP-Request-Message stored in a byte array over a pooled connection and
+     * returns the corresponding KMIP-Response-Message.
+     *
+     * @param request :	the TTLV-encoded request to be sent.
+     * @return			<code>byte[]</code>: the response message.
+     * @throws IllegalStateException if the transport layer has been closed or was never configured.
+     */
+    @Override
+    public byte[] send(final byte[] request) throws Exception {
+        KMIPConnectionPool connectionPool = pool;
+        if (connectionPool == null) {
+            String msg = "KMIP transport layer is closed or not configured.";
+            logger.error("send(): " + msg);
+            throw new IllegalStateException(msg);
+        }
+        PooledConnection c = connectionPool.borrow(false);
+        byte[] response;
+        boolean written = false;
+        try {
+            c.write(request);
+            written = true;
+            response = c.read();
+        } catch (IOException e) {
+            connectionPool.release(c, false);
+            if (!c.isReused() || (written && !isReadOnly(request))) {
+                logger.error("send(): " + e);
+                throw e;
+            }
+            logger.warn("send(): reused KMS connection failed, retry with a new connection: " + e);
+            c = connectionPool.borrow(true);
+            try {
+                c.write(request);
+                response = c.read();
+            } catch (IOException e2) {
+                connectionPool.release(c, false);
+                logger.error("send(): " + e2);
+                throw e2;
+            }
+        }
+        connectionPool.release(c, true);
+        logger.debug("KMIP client send request done, response bytes = {}", response.length);
+        return response;
+    }
+
+    /**
+     * Gives back the shared connection pool.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * @param request :  the TTLV-encoded request message.
+     * @return true if all the batch items of the request are Locate, Get or GetAttributes,
+     *         which can be sent again without side effects.
+     */
+    static boolean isReadOnly(final byte[] request) {
+        // request message structure: header and batch items
+        if (request.length < TTLV_HEADER_LENGTH || request[3] != TYPE_STRUCTURE) {
+            return false;
+        }
+        int end = Math.min(request.length, TTLV_HEADER_LENGTH + readInt(request, 4));
+        int batchItems = 0;
+        for (int i = TTLV_HEADER_LENGTH; i + TTLV_HEADER_LENGTH <= end; i = next(request, i)) {
+            if (readTag(request, i) != TAG_BATCH_ITEM) {
+                continue;
+            }
+            batchItems++;
+            int operation = -1;
+            int itemEnd = Math.min(end, next(request, i));
+            for (int j = i + TTLV_HEADER_LENGTH; j + TTLV_HEADER_LENGTH <= itemEnd; j = next(request, j)) {
+                if (readTag(request, j) == TAG_OPERATION && request[j + 3] == TYPE_ENUMERATION
+                        && j + TTLV_HEADER_LENGTH + 4 <= itemEnd) {
+                    operation = readInt(request, j + TTLV_HEADER_LENGTH);
+                    break;
+                }
+            }
+            if (operation != EnumOperation.Locate && operation != EnumOperation.Get
+                    && operation != EnumOperation.GetAttributes) {
+                return false;
+            }
+        }
+        return batchItems > 0;
+    }
+
+    private static int readTag(final byte[] ttlv, final int offset) {
+        return ((ttlv[offset] & 0xFF) << 16) | ((ttlv[offset + 1] & 0xFF) << 8) | (ttlv[offset + 2] & 0xFF);
+    }
+
+    private static int readInt(final byte[] ttlv, final int offset) {
+        return ((ttlv[offset] & 0xFF) << 24) | ((ttlv[offset + 1] & 0xFF) << 16)
+                | ((ttlv[offset + 2] & 0xFF) << 8) | (ttlv[offset + 3] & 0xFF);
+    }
+
+    // offset of the next item, the values are padded to a multiple of 8 bytes
+    private static int next(final byte[] ttlv, final int offset) {
+        long length = readInt(ttlv, offset + 4) & 0xFFFFFFFFL;
+        long padded = (length + 7) / 8 * 8;
+        return (int) Math.min(Integer.MAX_VALUE, offset + TTLV_HEADER_LENGTH + padded);
+    }
+
+    /**
+     * Sets the configuration parameters of the transport layer and creates the connection pool.
+     *
+     * @param configParams :  the configuration parameters to be set.
+     */
+    @Override
+    public synchronized void setConfigParameters(final Map<String, Object> configParams) throws IllegalArgumentException {
+        super.setConfigParameters(configParams);
+
+        int poolSize = parsePositiveInteger(configParams, CFG_CONNECTION_POOL_SIZE, null);
+        int idleTimeout = parsePositiveInteger(configParams, CFG_CONNECTION_POOL_IDLE_TIMEOUT, DEFAULT_POOL_IDLE_TIMEOUT);
+        // wait for a free connection as long as for a new connection
+        int borrowTimeout = (Integer) configParams.get(CFG_CONNECTION_TIMEOUT_CONNECT);
+        logger.debug("Connection pool size = {}, idle timeout = {}", poolSize, idleTimeout);
+
+        close();
+        pool = KMIPConnectionPool.acquire(configParams, poolSize, idleTimeout, borrowTimeout);
+    }
+
+    private int parsePositiveInteger(final Map<String, Object> configParams, final String name,
+            final Integer defaultValue) throws IllegalArgumentException {
+        Object value = configParams.get(name);
+        if (value == null) {
+            if (defaultValue == null) {
+                String msg = name + " not found in config parameters.";
+                logger.error(msg);
+                throw new IllegalArgumentException(msg);
+            }
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(value.toString().trim());
+            if (i > 0) {
+                return i;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to error
+        }
+        String msg = "Invalid " + name + ": " + value;
+        logger.error(msg);
+        throw new IllegalArgumentException(msg);
+    }
+
+}
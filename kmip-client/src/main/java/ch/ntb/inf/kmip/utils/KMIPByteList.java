@@ -0,0 +1,262 @@
+/**
+ * KMIPByteList.java
+ * -----------------------------------------------------------------
+ *     __ __ __  ___________
+ *    / //_//  |/  /  _/ __ \	  .--.
+ *   / ,<  / /|_/ // // /_/ /	 /.-. '----------.
+ *  / /| |/ /  / // // ____/ 	 \'-' .--"--""-"-'
+ * /_/ |_/_/  /_/___/_/      	  '--'
+ *
+ * -----------------------------------------------------------------
+ * Description for class
+ * A list of bytes stored in a primitive byte array. It is used by
+ * the encoder and decoder instead of an ArrayList<Byte>, so that a
+ * TTLV message costs one byte of heap per wire byte, and sub lists
+ * of a message are views that share the array without copying.
+ *
+ */
+package ch.ntb.inf.kmip.utils;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+public class KMIPByteList extends AbstractList<Byte> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private byte[] data;
+	private final int offset;
+	private int size;
+	private final boolean growable;
+
+	/**
+	 * Creates an empty list for encoding.
+	 */
+	public KMIPByteList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty list for encoding.
+	 *
+	 * @param capacity : the initial capacity in bytes.
+	 */
+	public KMIPByteList(int capacity) {
+		this.data = new byte[Math.max(capacity, 16)];
+		this.offset = 0;
+		this.size = 0;
+		this.growable = true;
+	}
+
+	/**
+	 * Creates a read-only list backed by the given array, without copying it.
+	 *
+	 * @param data : the bytes of the list.
+	 */
+	public KMIPByteList(byte[] data) {
+		this(data, 0, data.length);
+	}
+
+	/**
+	 * Creates a read-only list backed by a range of the given array, without copying it.
+	 *
+	 * @param data :   the backing array.
+	 * @param offset : the index of the first byte of the list.
+	 * @param length : the number of bytes of the list.
+	 */
+	public KMIPByteList(byte[] data, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > data.length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + data.length);
+		}
+		this.data = data;
+		this.offset = offset;
+		this.size = length;
+		this.growable = false;
+	}
+
+	/**
+	 * Creates a read-only list of the remaining bytes of the buffer. A heap buffer is
+	 * used without copying, the content of a direct buffer is copied once.
+	 * The position of the buffer is not changed.
+	 *
+	 * @param buffer : the buffer containing the bytes.
+	 * @return the list of bytes.
+	 */
+	public static KMIPByteList wrap(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			return new KMIPByteList(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+		}
+		byte[] b = new byte[buffer.remaining()];
+		buffer.duplicate().get(b);
+		return new KMIPByteList(b);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Byte get(int index) {
+		return getByte(index);
+	}
+
+	public byte getByte(int index) {
+		checkIndex(index, size);
+		return data[offset + index];
+	}
+
+	/**
+	 * @return the unsigned value of the byte at index.
+	 */
+	public int getUnsignedByte(int index) {
+		return getByte(index) & 0xFF;
+	}
+
+	/**
+	 * @return the big-endian int of the 4 bytes starting at index.
+	 */
+	public int getInt(int index) {
+		checkIndex(index + 3, size);
+		int i = offset + index;
+		return ((data[i] & 0xFF) << 24) | ((data[i + 1] & 0xFF) << 16)
+				| ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+	}
+
+	/**
+	 * @return the big-endian long of the 8 bytes starting at index.
+	 */
+	public long getLong(int index) {
+		return ((long) getInt(index) << 32) | (getInt(index + 4) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @return a copy of the bytes from index (inclusive) to toIndex (exclusive).
+	 */
+	public byte[] getBytes(int index, int toIndex) {
+		checkRange(index, toIndex);
+		return Arrays.copyOfRange(data, offset + index, offset + toIndex);
+	}
+
+	/**
+	 * Returns a view of the range, which shares the backing array of this list.
+	 */
+	@Override
+	public KMIPByteList subList(int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex);
+		return new KMIPByteList(data, offset + fromIndex, toIndex - fromIndex);
+	}
+
+	@Override
+	public boolean add(Byte b) {
+		return add(b.byteValue());
+	}
+
+	public boolean add(byte b) {
+		ensureCapacity(size + 1);
+		data[size++] = b;
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void add(int index, Byte b) {
+		checkIndex(index, size + 1);
+		ensureCapacity(size + 1);
+		System.arraycopy(data, index, data, index + 1, size - index);
+		data[index] = b;
+		size++;
+		modCount++;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Byte> c) {
+		if (c instanceof KMIPByteList) {
+			KMIPByteList l = (KMIPByteList) c;
+			return addBytes(l.data, l.offset, l.size);
+		}
+		ensureCapacity(size + c.size());
+		for (Byte b : c) {
+			data[size++] = b;
+		}
+		modCount++;
+		return !c.isEmpty();
+	}
+
+	public boolean addBytes(byte[] b, int off, int len) {
+		ensureCapacity(size + len);
+		System.arraycopy(b, off, data, size, len);
+		size += len;
+		modCount++;
+		return len > 0;
+	}
+
+	/**
+	 * Appends the 4 bytes of val in big-endian order.
+	 */
+	public void addInt(int val) {
+		ensureCapacity(size + 4);
+		putInt(size, val);
+		size += 4;
+		modCount++;
+	}
+
+	/**
+	 * Inserts the 4 bytes of val in big-endian order at index, e.g. the length
+	 * of a structure whose value has already been encoded.
+	 */
+	public void insertInt(int index, int val) {
+		checkIndex(index, size + 1);
+		ensureCapacity(size + 4);
+		System.arraycopy(data, index, data, index + 4, size - index);
+		putInt(index, val);
+		size += 4;
+		modCount++;
+	}
+
+	/**
+	 * @return a copy of the bytes of the list.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOfRange(data, offset, offset + size);
+	}
+
+	/**
+	 * @return a read-only buffer of the bytes of the list, without copying them.
+	 */
+	public ByteBuffer toByteBuffer() {
+		return ByteBuffer.wrap(data, offset, size).slice().asReadOnlyBuffer();
+	}
+
+	private void putInt(int index, int val) {
+		data[index] = (byte) (val >> 24);
+		data[index + 1] = (byte) (val >> 16);
+		data[index + 2] = (byte) (val >> 8);
+		data[index + 3] = (byte) val;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (!growable) {
+			throw new UnsupportedOperationException("KMIPByteList view is read-only");
+		}
+		if (capacity > data.length) {
+			data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+		}
+	}
+
+	private void checkRange(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("fromIndex " + fromIndex + ", toIndex " + toIndex + ", size " + size);
+		}
+	}
+
+	private static void checkIndex(int index, int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+}